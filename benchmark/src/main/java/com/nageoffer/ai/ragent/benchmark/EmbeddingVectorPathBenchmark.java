@@ -0,0 +1,193 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nageoffer.ai.ragent.benchmark;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.nageoffer.ai.ragent.infra.embedding.EmbeddingResponseDecoder;
+import com.pgvector.PGvector;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 向量从供应商响应到 pgvector 参数的整条路径，旧实现与新实现对照
+ * <p>
+ * 旧：整段响应读成 String → JsonObject 树 → List&lt;Float&gt; → float[] → 文本字面量 "[0.1,0.2,...]"
+ * <br>新：响应字符流直接解码进 float[] → PGvector 二进制参数
+ * <p>
+ * 两个场景：一次查询（1 条向量，含归一化）与一次 1000 块入库（按批大小 32 拆成多个响应）。
+ * 看分配量用 {@code java -jar benchmark/target/benchmarks.jar EmbeddingVectorPathBenchmark -prof gc}，
+ * 关注 {@code gc.alloc.rate.norm}（每次操作分配字节数）
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class EmbeddingVectorPathBenchmark {
+
+    private static final int INGEST_CHUNKS = 1000;
+    private static final int PROVIDER_BATCH = 32;
+
+    @Param({"1024", "1536"})
+    private int dimension;
+
+    private byte[] queryResponse;
+    private List<byte[]> ingestResponses;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        queryResponse = buildResponse(1, random);
+        ingestResponses = new ArrayList<>();
+        for (int offset = 0; offset < INGEST_CHUNKS; offset += PROVIDER_BATCH) {
+            ingestResponses.add(buildResponse(Math.min(PROVIDER_BATCH, INGEST_CHUNKS - offset), random));
+        }
+    }
+
+    @Benchmark
+    public void queryLegacy(Blackhole bh) {
+        float[] vector = normalize(toArray(legacyDecode(queryResponse).get(0)));
+        bh.consume(toVectorLiteral(vector));
+    }
+
+    @Benchmark
+    public void queryStreaming(Blackhole bh) throws IOException {
+        float[] vector = normalize(streamingDecode(queryResponse).get(0));
+        bh.consume(toBinaryParameter(vector));
+    }
+
+    @Benchmark
+    public void ingest1000Legacy(Blackhole bh) {
+        for (byte[] response : ingestResponses) {
+            for (List<Float> row : legacyDecode(response)) {
+                bh.consume(toVectorLiteral(toArray(row)));
+            }
+        }
+    }
+
+    @Benchmark
+    public void ingest1000Streaming(Blackhole bh) throws IOException {
+        for (byte[] response : ingestResponses) {
+            for (float[] vector : streamingDecode(response)) {
+                bh.consume(toBinaryParameter(vector));
+            }
+        }
+    }
+
+    /**
+     * 旧实现：与改造前 AbstractOpenAIStyleEmbeddingClient 的解析逻辑一致
+     */
+    private static List<List<Float>> legacyDecode(byte[] body) {
+        JsonObject json = JsonParser.parseString(new String(body, StandardCharsets.UTF_8)).getAsJsonObject();
+        JsonArray data = json.getAsJsonArray("data");
+        List<List<Float>> results = new ArrayList<>(data.size());
+        for (JsonElement el : data) {
+            JsonArray emb = el.getAsJsonObject().getAsJsonArray("embedding");
+            List<Float> vector = new ArrayList<>(emb.size());
+            for (JsonElement v : emb) {
+                vector.add(v.getAsFloat());
+            }
+            results.add(vector);
+        }
+        return results;
+    }
+
+    private List<float[]> streamingDecode(byte[] body) throws IOException {
+        return EmbeddingResponseDecoder.decode(
+                new InputStreamReader(new ByteArrayInputStream(body), StandardCharsets.UTF_8), dimension, "bench");
+    }
+
+    /**
+     * 驱动开启二进制传输时对 PGBinaryObject 参数做的事：按 lengthInBytes 分配并写入
+     */
+    private static byte[] toBinaryParameter(float[] vector) {
+        PGvector parameter = new PGvector(vector);
+        byte[] bytes = new byte[parameter.lengthInBytes()];
+        parameter.toBytes(bytes, 0);
+        return bytes;
+    }
+
+    private static String toVectorLiteral(float[] embedding) {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < embedding.length; i++) {
+            if (i > 0) sb.append(",");
+            sb.append(embedding[i]);
+        }
+        return sb.append("]").toString();
+    }
+
+    private static float[] toArray(List<Float> list) {
+        float[] arr = new float[list.size()];
+        for (int i = 0; i < list.size(); i++) {
+            arr[i] = list.get(i);
+        }
+        return arr;
+    }
+
+    private static float[] normalize(float[] vector) {
+        float norm = 0;
+        for (float v : vector) {
+            norm += v * v;
+        }
+        norm = (float) Math.sqrt(norm);
+        if (norm > 0) {
+            for (int i = 0; i < vector.length; i++) {
+                vector[i] /= norm;
+            }
+        }
+        return vector;
+    }
+
+    private byte[] buildResponse(int count, Random random) {
+        StringBuilder sb = new StringBuilder("{\"object\":\"list\",\"data\":[");
+        for (int i = 0; i < count; i++) {
+            if (i > 0) sb.append(',');
+            sb.append("{\"object\":\"embedding\",\"index\":").append(i).append(",\"embedding\":[");
+            for (int d = 0; d < dimension; d++) {
+                if (d > 0) sb.append(',');
+                sb.append(random.nextFloat() * 2 - 1);
+            }
+            sb.append("]}");
+        }
+        sb.append("],\"model\":\"bench\",\"usage\":{\"prompt_tokens\":0,\"total_tokens\":0}}");
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
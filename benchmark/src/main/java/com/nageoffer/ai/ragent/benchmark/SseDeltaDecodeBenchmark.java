@@ -0,0 +1,150 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nageoffer.ai.ragent.benchmark;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.nageoffer.ai.ragent.infra.chat.OpenAIStyleSseParser;
+import okio.Buffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 一次 2000 个 delta 的流式回答从字节到正文片段的解码路径，旧实现与新实现对照
+ * <p>
+ * 旧：每行 trim/substring → JsonObject 树 → 取 choices[0].delta.content
+ * <br>新：{@link OpenAIStyleSseParser} 在行字符串上直接扫描
+ * <p>
+ * 回放的流按 DashScope 兼容模式的真实 chunk 结构生成（id/model/logprobs/system_fingerprint 一应俱全，
+ * 前 200 个 delta 为 reasoning_content，末尾带 usage 与 [DONE]），两条路径都经 Okio {@code readUtf8Line} 逐行读取，
+ * 与 AbstractOpenAIStyleChatClient.doStream 一致。
+ * 基准按 delta 计一次操作，{@code -prof gc} 下的 {@code gc.alloc.rate.norm} 即每个 token 分配的字节数：
+ * {@code java -jar benchmark/target/benchmarks.jar SseDeltaDecodeBenchmark -prof gc}
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class SseDeltaDecodeBenchmark {
+
+    private static final int DELTAS = 2000;
+    private static final int REASONING_DELTAS = 200;
+    private static final String[] PIECES = {"检索", "结果", "显示", "，", "该", "文档", "的", "配置", "项", "需要",
+            "在", " Spring", " Boot", " 中", "开启", "。", "\\n", "1. ", "**注意**", "\\\"引号\\\""};
+
+    private final Gson gson = new Gson();
+    private byte[] stream;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < DELTAS; i++) {
+            String field = i < REASONING_DELTAS ? "reasoning_content" : "content";
+            sb.append("data: {\"id\":\"chatcmpl-9b1f6c2e-5d1e-4e0a-b7a0-2c4f6a8e0d13\",\"object\":\"chat.completion.chunk\",")
+                    .append("\"created\":1717171717,\"model\":\"qwen-plus\",\"choices\":[{\"index\":0,\"delta\":{\"")
+                    .append(field).append("\":\"").append(PIECES[random.nextInt(PIECES.length)])
+                    .append("\"},\"logprobs\":null,\"finish_reason\":null}],\"system_fingerprint\":null,\"usage\":null}\n\n");
+        }
+        sb.append("data: {\"id\":\"chatcmpl-9b1f6c2e-5d1e-4e0a-b7a0-2c4f6a8e0d13\",\"object\":\"chat.completion.chunk\",")
+                .append("\"created\":1717171717,\"model\":\"qwen-plus\",\"choices\":[{\"index\":0,\"delta\":{},")
+                .append("\"logprobs\":null,\"finish_reason\":\"stop\"}],\"usage\":{\"prompt_tokens\":1320,")
+                .append("\"completion_tokens\":").append(DELTAS).append(",\"total_tokens\":").append(1320 + DELTAS).append("}}\n\n");
+        sb.append("data: [DONE]\n\n");
+        stream = sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(DELTAS)
+    public void legacyTree(Blackhole bh) {
+        Buffer source = new Buffer().write(stream);
+        String line;
+        while ((line = source.readUtf8Line()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            String payload = line.trim();
+            if (payload.startsWith("data:")) {
+                payload = payload.substring("data:".length()).trim();
+            }
+            if ("[DONE]".equalsIgnoreCase(payload)) {
+                break;
+            }
+            bh.consume(legacyParse(payload));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(DELTAS)
+    public void streamingScan(Blackhole bh) {
+        Buffer source = new Buffer().write(stream);
+        String line;
+        while ((line = source.readUtf8Line()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            OpenAIStyleSseParser.ParsedEvent event = OpenAIStyleSseParser.parseLine(line, gson, true);
+            if (event.completed() && event.usage() == null) {
+                break;
+            }
+            bh.consume(event);
+        }
+    }
+
+    /**
+     * 旧实现：与改造前 OpenAIStyleSseParser 的解析逻辑一致
+     */
+    private String[] legacyParse(String payload) {
+        JsonObject obj = gson.fromJson(payload, JsonObject.class);
+        JsonArray choices = obj.getAsJsonArray("choices");
+        if (choices == null || choices.isEmpty()) {
+            return null;
+        }
+        JsonObject choice0 = choices.get(0).getAsJsonObject();
+        JsonObject delta = choice0.getAsJsonObject("delta");
+        JsonElement finishReason = choice0.get("finish_reason");
+        return new String[]{
+                text(delta, "content"),
+                text(delta, "reasoning_content"),
+                finishReason != null && !finishReason.isJsonNull() ? "completed" : null
+        };
+    }
+
+    private static String text(JsonObject delta, String field) {
+        JsonElement value = delta == null ? null : delta.get(field);
+        return value == null || value.isJsonNull() ? null : value.getAsString();
+    }
+}
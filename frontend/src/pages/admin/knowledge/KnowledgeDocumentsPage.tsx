@@ -1309,7 +1309,14 @@ export function KnowledgeDocumentsPage() {
                         {log.processMode === "pipeline" && (log.pipelineName || log.pipelineId) ? ` · ${log.pipelineName || log.pipelineId}` : ""}
                       </span>
                     </div>
-                    <span className="text-2xl font-semibold tabular-nums">{log.chunkCount ?? 0} <span className="text-sm font-normal text-muted-foreground">块</span></span>
+                    <div className="text-right">
+                      <span className="text-2xl font-semibold tabular-nums">{log.chunkCount ?? 0} <span className="text-sm font-normal text-muted-foreground">块</span></span>
+                      {log.unchangedCount != null && (
+                        <div className="text-xs text-muted-foreground tabular-nums">
+                          新增 {log.addedCount ?? 0} · 变化 {log.changedCount ?? 0} · 删除 {log.removedCount ?? 0} · 未变 {log.unchangedCount}
+                        </div>
+                      )}
+                    </div>
                   </div>
 
                   {/* 耗时指标卡片 */}
@@ -1333,6 +1340,9 @@ export function KnowledgeDocumentsPage() {
                     <div className="rounded-lg border bg-slate-50/50 p-3">
                       <div className="text-xs text-muted-foreground mb-1">持久化</div>
                       <div className="text-lg font-semibold tabular-nums">{formatDuration(log.persistDuration)}</div>
+                      {log.persistRowsPerSecond != null && (
+                        <div className="text-xs text-muted-foreground tabular-nums">{log.persistRowsPerSecond} 行/秒</div>
+                      )}
                     </div>
                     <div className="rounded-lg border bg-slate-50/50 p-3">
                       <div className="text-xs text-muted-foreground mb-1">其他</div>
@@ -23,7 +23,9 @@ export type DashboardOverview = {
 export type DashboardPerformance = {
   window: string;
   avgLatencyMs: number;
+  p50LatencyMs: number;
   p95LatencyMs: number;
+  p99LatencyMs: number;
   successRate: number;
   errorRate: number;
   noDocRate: number;
@@ -71,6 +71,11 @@ export interface KnowledgeDocumentChunkLog {
   otherDuration?: number | null;
   totalDuration?: number | null;
   chunkCount?: number | null;
+  addedCount?: number | null;
+  changedCount?: number | null;
+  removedCount?: number | null;
+  unchangedCount?: number | null;
+  persistRowsPerSecond?: number | null;
   errorMessage?: string | null;
   startTime?: string | null;
   endTime?: string | null;
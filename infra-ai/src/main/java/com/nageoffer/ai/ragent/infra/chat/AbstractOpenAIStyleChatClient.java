@@ -41,6 +41,7 @@ import okhttp3.RequestBody;
 import okhttp3.Response;
 import okhttp3.ResponseBody;
 import okio.BufferedSource;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 
 import java.io.IOException;
@@ -65,6 +66,11 @@ public abstract class AbstractOpenAIStyleChatClient implements ChatClient {
     private Executor modelStreamExecutor;
     @Autowired
     private RagStreamTraceSupport streamTraceSupport;
+    /**
+     * 仅在 ai.stream.transport=async 时存在，缺省走阻塞读取
+     */
+    @Autowired
+    private ObjectProvider<AsyncSseTransport> asyncSseTransport;
 
     protected Gson gson = new Gson();
 
@@ -175,8 +181,8 @@ public abstract class AbstractOpenAIStyleChatClient implements ChatClient {
                 .addHeader("Accept", "text/event-stream")
                 .build();
 
-        Call call = streamingHttpClient.newCall(streamRequest);
         boolean reasoningEnabled = isReasoningEnabledForStream(request);
+        AsyncSseTransport transport = asyncSseTransport == null ? null : asyncSseTransport.getIfAvailable();
 
         // 在调用线程开 stream span，使后续 first-packet 子节点能正确归属父节点；
         // 该 span 由 SSE 终态（onComplete / onError）或 cancel 时收尾，记录真实端到端耗时
@@ -184,12 +190,18 @@ public abstract class AbstractOpenAIStyleChatClient implements ChatClient {
         StreamSpanCallback wrappedCallback;
         try {
             wrappedCallback = new StreamSpanCallback(callback, span);
-            StreamCancellationHandle inner = StreamAsyncExecutor.submit(
-                    modelStreamExecutor,
-                    call,
-                    wrappedCallback,
-                    cancelled -> doStream(call, wrappedCallback, cancelled, reasoningEnabled)
-            );
+            StreamCancellationHandle inner;
+            if (transport != null) {
+                inner = transport.stream(streamRequest, provider(), new AsyncStreamListener(wrappedCallback, reasoningEnabled));
+            } else {
+                Call call = streamingHttpClient.newCall(streamRequest);
+                inner = StreamAsyncExecutor.submit(
+                        modelStreamExecutor,
+                        call,
+                        wrappedCallback,
+                        cancelled -> doStream(call, wrappedCallback, cancelled, reasoningEnabled)
+                );
+            }
             return () -> {
                 try {
                     inner.cancel();
@@ -221,24 +233,9 @@ public abstract class AbstractOpenAIStyleChatClient implements ChatClient {
                 if (line == null) {
                     break;
                 }
-                if (line.isBlank()) {
-                    continue;
-                }
-                try {
-                    OpenAIStyleSseParser.ParsedEvent event = OpenAIStyleSseParser.parseLine(line, gson, reasoningEnabled);
-                    if (event.hasReasoning()) {
-                        callback.onThinking(event.reasoning());
-                    }
-                    if (event.hasContent()) {
-                        callback.onContent(event.content());
-                    }
-                    if (event.completed()) {
-                        callback.onComplete();
-                        completed = true;
-                        break;
-                    }
-                } catch (Exception parseEx) {
-                    log.warn("{} 流式响应解析失败: line={}", provider(), line, parseEx);
+                if (dispatchLine(line, callback, reasoningEnabled)) {
+                    completed = true;
+                    break;
                 }
             }
             if (cancelled.get()) {
@@ -257,6 +254,66 @@ public abstract class AbstractOpenAIStyleChatClient implements ChatClient {
         }
     }
 
+    /**
+     * 把一行 SSE 分发给回调，阻塞与非阻塞两种传输共用
+     *
+     * @return 是否已收到结束事件
+     */
+    private boolean dispatchLine(String line, StreamCallback callback, boolean reasoningEnabled) {
+        if (line.isBlank()) {
+            return false;
+        }
+        try {
+            OpenAIStyleSseParser.ParsedEvent event = OpenAIStyleSseParser.parseLine(line, gson, reasoningEnabled);
+            if (event.hasReasoning()) {
+                callback.onThinking(event.reasoning());
+            }
+            if (event.hasContent()) {
+                callback.onContent(event.content());
+            }
+            if (event.usage() != null) {
+                log.debug("{} 流式用量: prompt={}, completion={}, total={}", provider(),
+                        event.usage().promptTokens(), event.usage().completionTokens(), event.usage().totalTokens());
+            }
+            if (event.completed()) {
+                callback.onComplete();
+                return true;
+            }
+        } catch (Exception parseEx) {
+            log.warn("{} 流式响应解析失败: line={}", provider(), line, parseEx);
+        }
+        return false;
+    }
+
+    /**
+     * 非阻塞传输的行监听器，终态语义与 {@link #doStream} 一致
+     */
+    private final class AsyncStreamListener implements AsyncSseTransport.LineListener {
+
+        private final StreamCallback callback;
+        private final boolean reasoningEnabled;
+
+        private AsyncStreamListener(StreamCallback callback, boolean reasoningEnabled) {
+            this.callback = callback;
+            this.reasoningEnabled = reasoningEnabled;
+        }
+
+        @Override
+        public boolean onLine(String line) {
+            return dispatchLine(line, callback, reasoningEnabled);
+        }
+
+        @Override
+        public void onFailure(Throwable error) {
+            callback.onError(error);
+        }
+
+        @Override
+        public void onEnd() {
+            callback.onError(new ModelClientException(provider() + " 流式响应异常结束", ModelClientErrorType.INVALID_RESPONSE, null));
+        }
+    }
+
     // ==================== 公共构建方法 ====================
 
     protected JsonObject buildRequestBody(ChatRequest request, ModelTarget target, boolean stream) {
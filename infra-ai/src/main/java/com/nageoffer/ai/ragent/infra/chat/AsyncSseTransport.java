@@ -0,0 +1,292 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nageoffer.ai.ragent.infra.chat;
+
+import com.alibaba.ttl.TransmittableThreadLocal;
+import com.nageoffer.ai.ragent.infra.config.AIModelProperties;
+import com.nageoffer.ai.ragent.infra.http.ModelClientErrorType;
+import com.nageoffer.ai.ragent.infra.http.ModelClientException;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.Headers;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okio.Buffer;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 非阻塞的 SSE 流式传输
+ * <p>
+ * 阻塞实现里每路流从发请求到最后一个 token 都占着一个 modelStreamExecutor 线程，
+ * 线程大部分时间阻塞在 readUtf8Line 上等供应商出字，并发流数被线程数卡死，长推理回答能把线程占上几分钟。
+ * 这里改用 JDK HttpClient（NIO 选择器 + 少量回调线程）：连接上没有数据时不占线程，
+ * 只有一行到达时才借回调线程把它交给 {@link LineListener}，因此同时挂着的流数只受连接数与堆约束。
+ * <p>
+ * 代价是回调在共享的回调线程上执行：下游处理一行（写 SSE 给浏览器等）若阻塞，会拖慢同一线程上的其他流，
+ * 所以按行 request(1) 背压，下游慢时不会在内存里堆积未处理的行。
+ * 提交线程上的 TransmittableThreadLocal（trace 上下文等）在每次回调时重放，与 TTL 包装的线程池行为一致
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "ai.stream", name = "transport", havingValue = "async")
+public class AsyncSseTransport {
+
+    /**
+     * JDK HttpClient 不允许调用方设置的受限头
+     */
+    private static final Set<String> RESTRICTED_HEADERS = Set.of("connection", "content-length", "expect", "host", "upgrade");
+
+    private final ExecutorService callbackExecutor;
+    private final HttpClient httpClient;
+
+    public AsyncSseTransport(AIModelProperties properties) {
+        Integer configured = properties.getStream().getAsyncIoThreads();
+        int threads = configured != null && configured > 0
+                ? configured
+                : Math.max(2, Runtime.getRuntime().availableProcessors() * 2);
+        this.callbackExecutor = Executors.newFixedThreadPool(threads, namedDaemon("model_stream_io_"));
+        this.httpClient = HttpClient.newBuilder()
+                .executor(callbackExecutor)
+                .connectTimeout(Duration.ofSeconds(30))
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .build();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        callbackExecutor.shutdownNow();
+    }
+
+    /**
+     * 逐行消费 SSE 的监听器，所有回调串行执行
+     */
+    interface LineListener {
+
+        /**
+         * 收到一行（已去掉行尾换行符）
+         *
+         * @return true 表示流已正常结束，停止读取并释放连接
+         */
+        boolean onLine(String line);
+
+        /**
+         * 连接失败、非 2xx 响应或读取中断；取消之后不会再回调
+         */
+        void onFailure(Throwable error);
+
+        /**
+         * 服务端关闭连接但 {@link #onLine} 从未返回 true
+         */
+        void onEnd();
+    }
+
+    /**
+     * 发起流式请求
+     *
+     * @param request  与阻塞实现共用的 OkHttp 请求，这里只取 URL、请求头与请求体
+     * @param label    提供商标签，用于异常消息
+     * @param listener 行监听器
+     * @return 取消句柄：置位取消标志并断开连接，之后不再回调 listener
+     */
+    StreamCancellationHandle stream(Request request, String label, LineListener listener) {
+        HttpRequest httpRequest;
+        try {
+            httpRequest = toHttpRequest(request);
+        } catch (IOException | IllegalArgumentException e) {
+            listener.onFailure(new ModelClientException(label + " 流式请求构建失败: " + e.getMessage(),
+                    ModelClientErrorType.CLIENT_ERROR, null, e));
+            return StreamCancellationHandles.noop();
+        }
+
+        LineSubscriber subscriber = new LineSubscriber(listener, TransmittableThreadLocal.Transmitter.capture());
+        CompletableFuture<HttpResponse<Void>> future = httpClient.sendAsync(httpRequest, info -> {
+            if (info.statusCode() / 100 == 2) {
+                return HttpResponse.BodySubscribers.fromLineSubscriber(subscriber);
+            }
+            // 非 2xx：读完错误体再按状态码分类，与阻塞实现的异常消息一致
+            return HttpResponse.BodySubscribers.mapping(HttpResponse.BodySubscribers.ofString(StandardCharsets.UTF_8), body -> {
+                subscriber.fail(new ModelClientException(
+                        label + " 流式请求失败: HTTP " + info.statusCode() + " - " + body,
+                        ModelClientErrorType.fromHttpStatus(info.statusCode()),
+                        info.statusCode()));
+                return null;
+            });
+        });
+        future.whenComplete((response, error) -> {
+            if (error != null) {
+                subscriber.fail(error instanceof CompletionException && error.getCause() != null ? error.getCause() : error);
+            }
+        });
+        return () -> {
+            if (subscriber.cancel()) {
+                future.cancel(true);
+                log.info("{} 流式响应已被取消", label);
+            }
+        };
+    }
+
+    private HttpRequest toHttpRequest(Request request) throws IOException {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(request.url().toString()));
+        if ("http".equals(request.url().scheme())) {
+            // 明文连接不做 h2c 升级，与 OkHttp 的行为一致
+            builder.version(HttpClient.Version.HTTP_1_1);
+        }
+        Headers headers = request.headers();
+        for (int i = 0; i < headers.size(); i++) {
+            if (!RESTRICTED_HEADERS.contains(headers.name(i).toLowerCase())) {
+                builder.header(headers.name(i), headers.value(i));
+            }
+        }
+        RequestBody body = request.body();
+        if (body == null) {
+            return builder.method(request.method(), HttpRequest.BodyPublishers.noBody()).build();
+        }
+        MediaType contentType = body.contentType();
+        if (contentType != null && request.header("Content-Type") == null) {
+            builder.header("Content-Type", contentType.toString());
+        }
+        Buffer buffer = new Buffer();
+        body.writeTo(buffer);
+        return builder.method(request.method(), HttpRequest.BodyPublishers.ofByteArray(buffer.readByteArray())).build();
+    }
+
+    private static ThreadFactory namedDaemon(String prefix) {
+        AtomicInteger seq = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + seq.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * 把 Flow 的行信号翻译成 LineListener 回调，并保证终态只回调一次
+     */
+    private static final class LineSubscriber implements Flow.Subscriber<String> {
+
+        private final LineListener listener;
+        private final Object ttlSnapshot;
+        private final AtomicBoolean terminated = new AtomicBoolean(false);
+        private volatile Flow.Subscription subscription;
+
+        private LineSubscriber(LineListener listener, Object ttlSnapshot) {
+            this.listener = listener;
+            this.ttlSnapshot = ttlSnapshot;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            if (terminated.get()) {
+                subscription.cancel();
+                return;
+            }
+            subscription.request(1);
+        }
+
+        @Override
+        public void onNext(String line) {
+            if (terminated.get()) {
+                return;
+            }
+            boolean finished;
+            Object backup = TransmittableThreadLocal.Transmitter.replay(ttlSnapshot);
+            try {
+                finished = listener.onLine(line);
+            } catch (RuntimeException e) {
+                fail(e);
+                return;
+            } finally {
+                TransmittableThreadLocal.Transmitter.restore(backup);
+            }
+            if (finished) {
+                terminated.set(true);
+                subscription.cancel();
+                return;
+            }
+            subscription.request(1);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            fail(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            if (terminated.compareAndSet(false, true)) {
+                Object backup = TransmittableThreadLocal.Transmitter.replay(ttlSnapshot);
+                try {
+                    listener.onEnd();
+                } finally {
+                    TransmittableThreadLocal.Transmitter.restore(backup);
+                }
+            }
+        }
+
+        void fail(Throwable error) {
+            if (!terminated.compareAndSet(false, true)) {
+                return;
+            }
+            cancelSubscription();
+            Object backup = TransmittableThreadLocal.Transmitter.replay(ttlSnapshot);
+            try {
+                listener.onFailure(error);
+            } finally {
+                TransmittableThreadLocal.Transmitter.restore(backup);
+            }
+        }
+
+        /**
+         * @return 是否由本次调用终结了流
+         */
+        boolean cancel() {
+            if (!terminated.compareAndSet(false, true)) {
+                return false;
+            }
+            cancelSubscription();
+            return true;
+        }
+
+        private void cancelSubscription() {
+            Flow.Subscription current = subscription;
+            if (current != null) {
+                current.cancel();
+            }
+        }
+    }
+}
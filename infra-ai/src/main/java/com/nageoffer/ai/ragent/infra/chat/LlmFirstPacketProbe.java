@@ -20,6 +20,7 @@ package com.nageoffer.ai.ragent.infra.chat;
 import com.nageoffer.ai.ragent.framework.trace.RagTraceNode;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -37,4 +38,14 @@ public class LlmFirstPacketProbe {
                                                           TimeUnit unit) throws InterruptedException {
         return bridge.awaitFirstPacket(timeout, unit);
     }
+
+    /**
+     * 对冲时等待任一路出首包探测结果，不提交缓冲
+     */
+    @RagTraceNode(name = "llm-first-packet-hedged", type = "LLM_TTFT")
+    public void awaitAnyFirstPacket(List<ProbeStreamBridge> bridges,
+                                    long timeout,
+                                    TimeUnit unit) throws InterruptedException {
+        ProbeStreamBridge.awaitAny(bridges, timeout, unit);
+    }
 }
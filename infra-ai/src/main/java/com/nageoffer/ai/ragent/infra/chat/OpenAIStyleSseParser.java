@@ -26,6 +26,12 @@ import lombok.NoArgsConstructor;
 /**
  * OpenAI 协议风格 SSE 解析器
  * 支持从 delta/message 中提取 content，以及可选的 reasoning_content
+ * <p>
+ * 每个 delta 只带几个字符的正文，却要为它建一棵完整的 JsonObject 树（id、model、logprobs 等全是用不到的节点），
+ * 几百路并发流时这些短命对象就是流式线程上的主要分配来源。这里改为直接在行字符串上扫描：
+ * 只取 {@code choices[0].delta|message} 的 content / reasoning_content、{@code finish_reason} 与 {@code usage}，
+ * 其余字段按括号深度跳过，一个 delta 通常只分配正文本身那一个 String。
+ * 遇到扫描器不认识的结构（如 content 为数组）时回退到原来的 Gson 树解析，行为与改造前一致
  */
 @NoArgsConstructor(access = lombok.AccessLevel.PRIVATE)
 public final class OpenAIStyleSseParser {
@@ -33,19 +39,49 @@ public final class OpenAIStyleSseParser {
     private static final String DATA_PREFIX = "data:";
     private static final String DONE_MARKER = "[DONE]";
 
-    static ParsedEvent parseLine(String line, Gson gson, boolean reasoningEnabled) {
-        if (line == null || line.isBlank()) {
+    /**
+     * 解析一行 SSE；无法识别的 JSON 会抛出 Gson 的解析异常，由调用方记录后跳过该行
+     */
+    public static ParsedEvent parseLine(String line, Gson gson, boolean reasoningEnabled) {
+        if (line == null) {
             return ParsedEvent.empty();
         }
-
-        String payload = line.trim();
-        if (payload.startsWith(DATA_PREFIX)) {
-            payload = payload.substring(DATA_PREFIX.length()).trim();
+        int end = line.length();
+        while (end > 0 && Character.isWhitespace(line.charAt(end - 1))) {
+            end--;
+        }
+        int start = skipWhitespace(line, 0, end);
+        if (start == end || line.charAt(start) == ':') {
+            // 空行与 SSE 注释行（": keep-alive"）
+            return ParsedEvent.empty();
+        }
+        if (line.startsWith(DATA_PREFIX, start)) {
+            start = skipWhitespace(line, start + DATA_PREFIX.length(), end);
         }
-        if (DONE_MARKER.equalsIgnoreCase(payload)) {
+        if (end - start == DONE_MARKER.length() && line.regionMatches(true, start, DONE_MARKER, 0, DONE_MARKER.length())) {
             return ParsedEvent.done();
         }
+        if (start == end) {
+            return ParsedEvent.empty();
+        }
 
+        try {
+            return new DeltaScanner(line, start, end, reasoningEnabled).scan();
+        } catch (UnknownShapeException e) {
+            return parseTree(line.substring(start, end), gson, reasoningEnabled);
+        }
+    }
+
+    private static int skipWhitespace(String s, int pos, int end) {
+        while (pos < end && Character.isWhitespace(s.charAt(pos))) {
+            pos++;
+        }
+        return pos;
+    }
+
+    // ==================== 回退路径：Gson 树解析 ====================
+
+    private static ParsedEvent parseTree(String payload, Gson gson, boolean reasoningEnabled) {
         JsonObject obj = gson.fromJson(payload, JsonObject.class);
         JsonArray choices = obj.getAsJsonArray("choices");
         if (choices == null || choices.isEmpty()) {
@@ -57,7 +93,7 @@ public final class OpenAIStyleSseParser {
         String reasoning = reasoningEnabled ? extractText(choice0, "reasoning_content") : null;
         boolean completed = hasFinishReason(choice0);
 
-        return new ParsedEvent(content, reasoning, completed);
+        return new ParsedEvent(content, reasoning, completed, null);
     }
 
     private static boolean hasFinishReason(JsonObject choice) {
@@ -93,22 +129,428 @@ public final class OpenAIStyleSseParser {
         return null;
     }
 
-    record ParsedEvent(String content, String reasoning, boolean completed) {
+    // ==================== 快速路径：行内扫描 ====================
+
+    /**
+     * 扫描器不认识当前结构，交给树解析兜底；无栈、单例，回退本身不产生分配
+     */
+    private static final class UnknownShapeException extends RuntimeException {
+
+        private static final UnknownShapeException INSTANCE = new UnknownShapeException();
+
+        private UnknownShapeException() {
+            super(null, null, false, false);
+        }
+    }
+
+    /**
+     * 单行 JSON 的一次性扫描器，只认识 chat.completion.chunk 的骨架
+     */
+    private static final class DeltaScanner {
+
+        private final String s;
+        private final int end;
+        private final boolean reasoningEnabled;
+        private int pos;
+
+        private int keyStart;
+        private int keyEnd;
+        private boolean keyEscaped;
+
+        private boolean hasChoice;
+        private String deltaContent;
+        private String deltaReasoning;
+        private String messageContent;
+        private String messageReasoning;
+        private boolean completed;
+        private Usage usage;
+
+        DeltaScanner(String s, int start, int end, boolean reasoningEnabled) {
+            this.s = s;
+            this.pos = start;
+            this.end = end;
+            this.reasoningEnabled = reasoningEnabled;
+        }
+
+        ParsedEvent scan() {
+            beginObject();
+            if (!consumeIf('}')) {
+                do {
+                    readKey();
+                    if (keyIs("choices")) {
+                        readChoices();
+                    } else if (keyIs("usage")) {
+                        readUsage();
+                    } else {
+                        skipValue();
+                    }
+                } while (nextMember());
+                expect('}');
+            }
+            skipWs();
+            if (pos != end) {
+                throw UnknownShapeException.INSTANCE;
+            }
+            if (!hasChoice) {
+                return usage == null ? ParsedEvent.empty() : new ParsedEvent(null, null, false, usage);
+            }
+            String content = deltaContent != null ? deltaContent : messageContent;
+            String reasoning = deltaReasoning != null ? deltaReasoning : messageReasoning;
+            return new ParsedEvent(content, reasoning, completed, usage);
+        }
+
+        private void readChoices() {
+            if (peekNull()) {
+                skipValue();
+                return;
+            }
+            expect('[');
+            if (consumeIf(']')) {
+                return;
+            }
+            readChoice();
+            while (nextMember()) {
+                skipValue();
+            }
+            expect(']');
+        }
+
+        private void readChoice() {
+            beginObject();
+            hasChoice = true;
+            if (consumeIf('}')) {
+                return;
+            }
+            do {
+                readKey();
+                if (keyIs("delta")) {
+                    readMessage(true);
+                } else if (keyIs("message")) {
+                    readMessage(false);
+                } else if (keyIs("finish_reason")) {
+                    completed = !peekNull();
+                    skipValue();
+                } else {
+                    skipValue();
+                }
+            } while (nextMember());
+            expect('}');
+        }
+
+        private void readMessage(boolean delta) {
+            skipWs();
+            if (pos >= end || s.charAt(pos) != '{') {
+                skipValue();
+                return;
+            }
+            pos++;
+            if (consumeIf('}')) {
+                return;
+            }
+            do {
+                readKey();
+                if (keyIs("content")) {
+                    String value = readNullableString();
+                    if (delta) {
+                        deltaContent = value;
+                    } else {
+                        messageContent = value;
+                    }
+                } else if (reasoningEnabled && keyIs("reasoning_content")) {
+                    String value = readNullableString();
+                    if (delta) {
+                        deltaReasoning = value;
+                    } else {
+                        messageReasoning = value;
+                    }
+                } else {
+                    skipValue();
+                }
+            } while (nextMember());
+            expect('}');
+        }
+
+        private void readUsage() {
+            skipWs();
+            if (pos >= end || s.charAt(pos) != '{') {
+                skipValue();
+                return;
+            }
+            pos++;
+            int prompt = 0;
+            int completion = 0;
+            int total = 0;
+            if (!consumeIf('}')) {
+                do {
+                    readKey();
+                    if (keyIs("prompt_tokens")) {
+                        prompt = readCount();
+                    } else if (keyIs("completion_tokens")) {
+                        completion = readCount();
+                    } else if (keyIs("total_tokens")) {
+                        total = readCount();
+                    } else {
+                        skipValue();
+                    }
+                } while (nextMember());
+                expect('}');
+            }
+            usage = new Usage(prompt, completion, total);
+        }
+
+        // ---------- 词法 ----------
+
+        private void readKey() {
+            skipWs();
+            if (pos >= end || s.charAt(pos) != '"') {
+                throw UnknownShapeException.INSTANCE;
+            }
+            keyStart = ++pos;
+            keyEscaped = false;
+            while (pos < end) {
+                char c = s.charAt(pos);
+                if (c == '"') {
+                    keyEnd = pos++;
+                    expect(':');
+                    return;
+                }
+                if (c == '\\') {
+                    keyEscaped = true;
+                    pos++;
+                }
+                pos++;
+            }
+            throw UnknownShapeException.INSTANCE;
+        }
+
+        private boolean keyIs(String literal) {
+            if (keyEscaped) {
+                // 键名带转义极少见，解码后再比较
+                int saved = pos;
+                pos = keyStart - 1;
+                String key = readString();
+                pos = saved;
+                return literal.equals(key);
+            }
+            int length = keyEnd - keyStart;
+            return length == literal.length() && s.regionMatches(keyStart, literal, 0, length);
+        }
+
+        private String readNullableString() {
+            if (peekNull()) {
+                pos += 4;
+                return null;
+            }
+            if (s.charAt(pos) != '"') {
+                throw UnknownShapeException.INSTANCE;
+            }
+            return readString();
+        }
+
+        /**
+         * 读取当前位置的字符串值；无转义时直接截取，只有带转义才用 StringBuilder 解码
+         */
+        private String readString() {
+            int start = ++pos;
+            while (pos < end) {
+                char c = s.charAt(pos);
+                if (c == '"') {
+                    return s.substring(start, pos++);
+                }
+                if (c == '\\') {
+                    return readEscapedString(start);
+                }
+                pos++;
+            }
+            throw UnknownShapeException.INSTANCE;
+        }
+
+        private String readEscapedString(int start) {
+            StringBuilder sb = new StringBuilder(pos - start + 16).append(s, start, pos);
+            while (pos < end) {
+                char c = s.charAt(pos++);
+                if (c == '"') {
+                    return sb.toString();
+                }
+                if (c != '\\') {
+                    sb.append(c);
+                    continue;
+                }
+                if (pos >= end) {
+                    break;
+                }
+                char escaped = s.charAt(pos++);
+                switch (escaped) {
+                    case '"', '\\', '/' -> sb.append(escaped);
+                    case 'b' -> sb.append('\b');
+                    case 'f' -> sb.append('\f');
+                    case 'n' -> sb.append('\n');
+                    case 'r' -> sb.append('\r');
+                    case 't' -> sb.append('\t');
+                    case 'u' -> {
+                        if (pos + 4 > end) {
+                            throw UnknownShapeException.INSTANCE;
+                        }
+                        try {
+                            sb.append((char) Integer.parseInt(s, pos, pos + 4, 16));
+                        } catch (NumberFormatException e) {
+                            throw UnknownShapeException.INSTANCE;
+                        }
+                        pos += 4;
+                    }
+                    default -> throw UnknownShapeException.INSTANCE;
+                }
+            }
+            throw UnknownShapeException.INSTANCE;
+        }
+
+        private int readCount() {
+            skipWs();
+            int start = pos;
+            long value = 0;
+            while (pos < end && pos - start < 10) {
+                char c = s.charAt(pos);
+                if (c < '0' || c > '9') {
+                    break;
+                }
+                value = value * 10 + (c - '0');
+                pos++;
+            }
+            if (pos == start || (pos < end && isLiteralChar(s.charAt(pos)))) {
+                // 非整数（小数、null 等）不计
+                pos = start;
+                skipValue();
+                return 0;
+            }
+            return (int) Math.min(value, Integer.MAX_VALUE);
+        }
+
+        private void skipValue() {
+            skipWs();
+            if (pos >= end) {
+                throw UnknownShapeException.INSTANCE;
+            }
+            char c = s.charAt(pos);
+            if (c == '"') {
+                skipString();
+                return;
+            }
+            if (c == '{' || c == '[') {
+                int depth = 0;
+                while (pos < end) {
+                    char ch = s.charAt(pos);
+                    if (ch == '"') {
+                        skipString();
+                        continue;
+                    }
+                    if (ch == '{' || ch == '[') {
+                        depth++;
+                    } else if (ch == '}' || ch == ']') {
+                        depth--;
+                    }
+                    pos++;
+                    if (depth == 0) {
+                        return;
+                    }
+                }
+                throw UnknownShapeException.INSTANCE;
+            }
+            int start = pos;
+            while (pos < end && isLiteralChar(s.charAt(pos))) {
+                pos++;
+            }
+            if (pos == start) {
+                throw UnknownShapeException.INSTANCE;
+            }
+        }
+
+        private void skipString() {
+            pos++;
+            while (pos < end) {
+                char c = s.charAt(pos);
+                if (c == '\\') {
+                    pos += 2;
+                    continue;
+                }
+                pos++;
+                if (c == '"') {
+                    return;
+                }
+            }
+            throw UnknownShapeException.INSTANCE;
+        }
+
+        private static boolean isLiteralChar(char c) {
+            return c != ',' && c != '}' && c != ']' && c != ':' && c != '"' && !Character.isWhitespace(c);
+        }
+
+        private void beginObject() {
+            skipWs();
+            if (pos >= end || s.charAt(pos) != '{') {
+                throw UnknownShapeException.INSTANCE;
+            }
+            pos++;
+        }
+
+        private boolean peekNull() {
+            skipWs();
+            if (pos >= end) {
+                throw UnknownShapeException.INSTANCE;
+            }
+            return s.startsWith("null", pos);
+        }
+
+        private boolean nextMember() {
+            return consumeIf(',');
+        }
+
+        private boolean consumeIf(char c) {
+            skipWs();
+            if (pos < end && s.charAt(pos) == c) {
+                pos++;
+                return true;
+            }
+            return false;
+        }
+
+        private void expect(char c) {
+            if (!consumeIf(c)) {
+                throw UnknownShapeException.INSTANCE;
+            }
+        }
+
+        private void skipWs() {
+            pos = skipWhitespace(s, pos, end);
+        }
+    }
+
+    /**
+     * 单条 SSE 事件的解析结果
+     *
+     * @param usage 携带 usage 的事件（通常是最后一个 chunk）才有值
+     */
+    public record ParsedEvent(String content, String reasoning, boolean completed, Usage usage) {
 
         static ParsedEvent empty() {
-            return new ParsedEvent(null, null, false);
+            return new ParsedEvent(null, null, false, null);
         }
 
         static ParsedEvent done() {
-            return new ParsedEvent(null, null, true);
+            return new ParsedEvent(null, null, true, null);
         }
 
-        boolean hasContent() {
+        public boolean hasContent() {
             return content != null && !content.isBlank();
         }
 
-        boolean hasReasoning() {
+        public boolean hasReasoning() {
             return reasoning != null && !reasoning.isEmpty();
         }
     }
+
+    /**
+     * 供应商回报的 token 用量
+     */
+    public record Usage(int promptTokens, int completionTokens, int totalTokens) {
+    }
 }
@@ -36,19 +36,30 @@ public final class ProbeStreamBridge implements StreamCallback {
     private final Object lock = new Object();
     private final List<Runnable> buffer = new ArrayList<>();
     private volatile boolean committed;
+    private volatile boolean discarded;
+    private final ThroughputListener throughputListener;
+    private long firstPacketNanos;
+    private long deltas;
 
     ProbeStreamBridge(StreamCallback downstream) {
+        this(downstream, null);
+    }
+
+    ProbeStreamBridge(StreamCallback downstream, ThroughputListener throughputListener) {
         this.downstream = downstream;
+        this.throughputListener = throughputListener;
     }
 
     @Override
     public void onContent(String content) {
+        countDelta();
         probe.complete(ProbeResult.success());
         bufferOrDispatch(() -> downstream.onContent(content));
     }
 
     @Override
     public void onThinking(String content) {
+        countDelta();
         probe.complete(ProbeResult.success());
         bufferOrDispatch(() -> downstream.onThinking(content));
     }
@@ -56,6 +67,9 @@ public final class ProbeStreamBridge implements StreamCallback {
     @Override
     public void onComplete() {
         probe.complete(ProbeResult.noContent());
+        if (throughputListener != null && deltas > 0 && !discarded) {
+            throughputListener.onCompleted(deltas, System.nanoTime() - firstPacketNanos);
+        }
         bufferOrDispatch(downstream::onComplete);
     }
 
@@ -84,11 +98,45 @@ public final class ProbeStreamBridge implements StreamCallback {
         return result;
     }
 
-    private void commit() {
+    /**
+     * 阻塞等待任一桥接器出探测结果（首包、完成或错误），超时直接返回；不提交缓冲，由调用方挑出胜者后 {@link #commit()}
+     */
+    static void awaitAny(List<ProbeStreamBridge> bridges, long timeout, TimeUnit unit) throws InterruptedException {
+        CompletableFuture<?>[] probes = bridges.stream().map(bridge -> bridge.probe).toArray(CompletableFuture[]::new);
+        try {
+            CompletableFuture.anyOf(probes).get(timeout, unit);
+        } catch (TimeoutException | ExecutionException ignored) {
+            // 超时由调用方按各自截止时间判定；探测 future 只会正常完成
+        }
+    }
+
+    /**
+     * 已出的探测结果，尚未出结果时返回 null
+     */
+    ProbeResult peek() {
+        return probe.getNow(null);
+    }
+
+    /**
+     * 弃用本路：清空缓冲，此后到达的事件一律丢弃
+     * <p>
+     * 对冲败者取消后底层读循环可能还会回调几次，不弃用会在缓冲里无限堆积
+     */
+    void discard() {
         synchronized (lock) {
             if (committed) {
                 return;
             }
+            discarded = true;
+            buffer.clear();
+        }
+    }
+
+    void commit() {
+        synchronized (lock) {
+            if (committed || discarded) {
+                return;
+            }
             committed = true;
             buffer.forEach(Runnable::run);
         }
@@ -97,6 +145,9 @@ public final class ProbeStreamBridge implements StreamCallback {
     private void bufferOrDispatch(Runnable action) {
         boolean dispatchNow;
         synchronized (lock) {
+            if (discarded) {
+                return;
+            }
             dispatchNow = committed;
             if (!dispatchNow) {
                 buffer.add(action);
@@ -107,6 +158,24 @@ public final class ProbeStreamBridge implements StreamCallback {
         }
     }
 
+    /**
+     * 增量计数只在 SSE 读循环单线程里发生，无需同步
+     */
+    private void countDelta() {
+        if (deltas++ == 0) {
+            firstPacketNanos = System.nanoTime();
+        }
+    }
+
+    /**
+     * 完整输出的吞吐回调：增量片段数与首包到完成的耗时，被弃用的一路不回调
+     */
+    @FunctionalInterface
+    interface ThroughputListener {
+
+        void onCompleted(long deltas, long generationNanos);
+    }
+
     /**
      * 探测结果
      */
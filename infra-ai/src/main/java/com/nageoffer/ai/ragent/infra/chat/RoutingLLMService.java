@@ -33,6 +33,10 @@ import org.springframework.context.annotation.Primary;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
@@ -41,6 +45,9 @@ import java.util.stream.Collectors;
 
 /**
  * 路由式 LLM 服务实现类
+ * <p>
+ * 流式调用按档位候选顺序逐个尝试；档位开启首包对冲时，主候选过了对冲点仍无首包会并行启动下一个候选，
+ * 由 {@link StreamHedgePolicy} 决定对冲点与额度
  */
 @Slf4j
 @Service
@@ -58,6 +65,7 @@ public class RoutingLLMService implements LLMService {
     private final ModelHealthStore healthStore;
     private final ModelRoutingExecutor executor;
     private final LlmFirstPacketProbe firstPacketProbe;
+    private final StreamHedgePolicy hedgePolicy;
     private final Map<String, ChatClient> clientsByProvider;
 
     public RoutingLLMService(
@@ -65,11 +73,13 @@ public class RoutingLLMService implements LLMService {
             ModelHealthStore healthStore,
             ModelRoutingExecutor executor,
             LlmFirstPacketProbe firstPacketProbe,
+            StreamHedgePolicy hedgePolicy,
             List<ChatClient> clients) {
         this.selector = selector;
         this.healthStore = healthStore;
         this.executor = executor;
         this.firstPacketProbe = firstPacketProbe;
+        this.hedgePolicy = hedgePolicy;
         this.clientsByProvider = clients.stream()
                 .collect(Collectors.toMap(ChatClient::provider, Function.identity()));
     }
@@ -113,63 +123,220 @@ public class RoutingLLMService implements LLMService {
     @Override
     @RagTraceNode(name = "llm-stream-routing", type = "LLM_ROUTING")
     public StreamCancellationHandle streamChat(ChatRequest request, StreamCallback callback) {
-        List<ModelTarget> targets = selector.selectChatCandidates(Boolean.TRUE.equals(request.getThinking()));
+        boolean thinking = Boolean.TRUE.equals(request.getThinking());
+        List<ModelTarget> targets = selector.selectChatCandidates(thinking);
         if (CollUtil.isEmpty(targets)) {
             throw new RemoteException(STREAM_NO_PROVIDER_MESSAGE);
         }
 
         String label = ModelCapability.CHAT.getDisplayName();
+        String tierName = selector.resolveChatTierName(thinking);
+        boolean hedgeable = targets.size() > 1 && hedgePolicy.admit(tierName);
         Throwable lastError = null;
+        Deque<ModelTarget> pending = new ArrayDeque<>(targets);
 
-        for (ModelTarget target : targets) {
-            ChatClient client = resolveClient(target, label);
-            if (client == null) {
+        while (!pending.isEmpty()) {
+            StreamAttempt primary = startAttempt(pending.poll(), request, callback, label);
+            if (primary == null) {
                 continue;
             }
-            ModelHealthStore.CallPermit permit = healthStore.allowCall(target.id());
-            if (permit == null) {
+            if (primary.startError() != null) {
+                lastError = primary.startError();
                 continue;
             }
 
-            ProbeStreamBridge bridge = new ProbeStreamBridge(callback);
+            long firstPacketBudgetMs = primary.target().timeoutMs();
+            long hedgeDelayMs = hedgeable && !pending.isEmpty()
+                    ? hedgePolicy.hedgeDelayMs(tierName, primary.target())
+                    : -1L;
+            ProbeStreamBridge.ProbeResult result = awaitFirstPacket(primary.bridge(), primary.handle(), callback,
+                    hedgeDelayMs < 0 ? firstPacketBudgetMs : hedgeDelayMs, primary.permit());
 
-            StreamCancellationHandle handle;
-            try {
-                handle = client.streamChat(request, bridge, target);
-            } catch (Exception e) {
-                healthStore.markFailure(target.id());
-                lastError = e;
-                log.warn("{} 流式请求启动失败，切换下一个模型。modelId：{}，provider：{}",
-                        label, target.id(), target.candidate().getProvider(), e);
-                continue;
-            }
-            if (handle == null) {
-                healthStore.markFailure(target.id());
-                lastError = new RemoteException(STREAM_START_FAILED_MESSAGE, BaseErrorCode.REMOTE_ERROR);
-                log.warn("{} 流式请求未返回取消句柄，切换下一个模型。modelId：{}，provider：{}",
-                        label, target.id(), target.candidate().getProvider());
+            if (hedgeDelayMs >= 0 && result.getType() == ProbeStreamBridge.ProbeResult.Type.TIMEOUT) {
+                // 主候选过了对冲点仍无首包：并行启动下一个候选，谁先出首包用谁
+                RaceOutcome outcome = hedge(primary, pending, request, callback, tierName, label);
+                if (outcome.winner() != null) {
+                    return outcome.winner().handle();
+                }
+                lastError = outcome.lastError() != null ? outcome.lastError() : lastError;
                 continue;
             }
 
-            long firstPacketBudgetMs = target.timeoutMs();
-            ProbeStreamBridge.ProbeResult result = awaitFirstPacket(bridge, handle, callback, firstPacketBudgetMs, permit);
-
             if (result.isSuccess()) {
-                healthStore.markSuccess(target.id());
-                return handle;
+                markFirstPacket(primary);
+                return primary.handle();
             }
 
             // 失败处理
-            healthStore.markFailure(target.id());
-            handle.cancel();
+            healthStore.markFailure(primary.target().id());
+            primary.handle().cancel();
 
-            lastError = buildLastErrorAndLog(result, target, label);
+            lastError = buildLastErrorAndLog(result, primary.target(), label);
         }
 
         // 所有模型都失败了，通知客户端错误
         throw notifyAllFailed(callback, lastError);
     }
 
+    /**
+     * 启动一路流式请求；返回 null 表示该候选被跳过（客户端缺失或熔断拒绝），启动失败时携带 startError
+     */
+    private StreamAttempt startAttempt(ModelTarget target, ChatRequest request, StreamCallback callback, String label) {
+        ChatClient client = resolveClient(target, label);
+        if (client == null) {
+            return null;
+        }
+        ModelHealthStore.CallPermit permit = healthStore.allowCall(target.id());
+        if (permit == null) {
+            return null;
+        }
+
+        ProbeStreamBridge bridge = new ProbeStreamBridge(callback, (deltas, generationNanos) ->
+                healthStore.recordThroughput(target.id(), deltas, TimeUnit.NANOSECONDS.toMillis(generationNanos)));
+        long startNanos = System.nanoTime();
+
+        StreamCancellationHandle handle;
+        try {
+            handle = client.streamChat(request, bridge, target);
+        } catch (Exception e) {
+            healthStore.markFailure(target.id());
+            log.warn("{} 流式请求启动失败，切换下一个模型。modelId：{}，provider：{}",
+                    label, target.id(), target.candidate().getProvider(), e);
+            return StreamAttempt.failed(target, e);
+        }
+        if (handle == null) {
+            healthStore.markFailure(target.id());
+            log.warn("{} 流式请求未返回取消句柄，切换下一个模型。modelId：{}，provider：{}",
+                    label, target.id(), target.candidate().getProvider());
+            return StreamAttempt.failed(target, new RemoteException(STREAM_START_FAILED_MESSAGE, BaseErrorCode.REMOTE_ERROR));
+        }
+        return new StreamAttempt(target, permit, bridge, handle, startNanos, null);
+    }
+
+    /**
+     * 对冲：额度允许时启动下一个可用候选与主候选赛跑，否则继续单路等主候选到其首包超时
+     * <p>
+     * 额度在赛跑结束（胜者已定、败者已撤）后归还并发名额，赛跑期间上游多出的负载始终计入本档位
+     */
+    private RaceOutcome hedge(StreamAttempt primary, Deque<ModelTarget> pending, ChatRequest request,
+                              StreamCallback callback, String tierName, String label) {
+        List<StreamAttempt> lanes = new ArrayList<>(2);
+        lanes.add(primary);
+        Throwable lastError = null;
+        boolean acquired = hedgePolicy.tryAcquire(tierName);
+        try {
+            while (acquired && !pending.isEmpty()) {
+                StreamAttempt backup = startAttempt(pending.poll(), request, callback, label);
+                if (backup == null) {
+                    continue;
+                }
+                if (backup.startError() != null) {
+                    lastError = backup.startError();
+                    continue;
+                }
+                lanes.add(backup);
+                log.info("{} 首包超过对冲点，并行启动备用模型。primary：{}，backup：{}",
+                        label, primary.target().id(), backup.target().id());
+                break;
+            }
+            RaceOutcome outcome = race(lanes, callback, label);
+            if (outcome.winner() != null && lanes.size() > 1) {
+                log.info("{} 对冲完成，胜出模型：{}，primary：{}",
+                        label, outcome.winner().target().id(), primary.target().id());
+            }
+            return outcome.lastError() != null ? outcome : new RaceOutcome(outcome.winner(), lastError);
+        } finally {
+            if (acquired) {
+                hedgePolicy.release(tierName);
+            }
+        }
+    }
+
+    /**
+     * 多路赛跑：首个出首包的胜出并提交缓冲，其余在途的撤掉；各路按自己的首包超时判定失败
+     * <p>
+     * 同一轮里多路都已出首包时按候选顺序取靠前的；晚到一步的败者不算失败，只撤掉并归还半开名额
+     */
+    private RaceOutcome race(List<StreamAttempt> lanes, StreamCallback callback, String label) {
+        List<StreamAttempt> running = new ArrayList<>(lanes);
+        Throwable lastError = null;
+        while (!running.isEmpty()) {
+            long now = System.nanoTime();
+            StreamAttempt winner = null;
+            Iterator<StreamAttempt> iterator = running.iterator();
+            while (iterator.hasNext()) {
+                StreamAttempt lane = iterator.next();
+                ProbeStreamBridge.ProbeResult result = lane.bridge().peek();
+                if (result == null && now - lane.deadlineNanos() < 0) {
+                    continue;
+                }
+                if (result != null && result.isSuccess()) {
+                    if (winner == null) {
+                        winner = lane;
+                        iterator.remove();
+                    }
+                    continue;
+                }
+                healthStore.markFailure(lane.target().id());
+                lane.handle().cancel();
+                lane.bridge().discard();
+                lastError = buildLastErrorAndLog(result != null ? result : ProbeStreamBridge.ProbeResult.timeout(),
+                        lane.target(), label);
+                iterator.remove();
+            }
+
+            if (winner != null) {
+                running.forEach(this::abandon);
+                winner.bridge().commit();
+                markFirstPacket(winner);
+                return new RaceOutcome(winner, lastError);
+            }
+            if (running.isEmpty()) {
+                break;
+            }
+
+            long waitNanos = running.stream().mapToLong(StreamAttempt::deadlineNanos).min().orElse(now) - System.nanoTime();
+            try {
+                firstPacketProbe.awaitAnyFirstPacket(running.stream().map(StreamAttempt::bridge).toList(),
+                        Math.max(waitNanos, 0L), TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                RemoteException interruptedException = new RemoteException(STREAM_INTERRUPTED_MESSAGE, e, BaseErrorCode.REMOTE_ERROR);
+                try {
+                    running.forEach(this::abandon);
+                } finally {
+                    callback.onError(interruptedException);
+                }
+                throw interruptedException;
+            }
+        }
+        return new RaceOutcome(null, lastError);
+    }
+
+    /**
+     * 撤掉未被采用的一路：取消并丢弃缓冲；已出首包的记成功，否则仅归还半开名额，不计失败
+     */
+    private void abandon(StreamAttempt lane) {
+        try {
+            lane.handle().cancel();
+        } finally {
+            lane.bridge().discard();
+            ProbeStreamBridge.ProbeResult result = lane.bridge().peek();
+            if (result != null && result.isSuccess()) {
+                healthStore.markSuccess(lane.target().id());
+            } else {
+                healthStore.releaseHalfOpenPermit(lane.permit());
+            }
+        }
+    }
+
+    private void markFirstPacket(StreamAttempt attempt) {
+        long latencyMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - attempt.startNanos());
+        healthStore.markSuccess(attempt.target().id());
+        healthStore.recordFirstPacket(attempt.target().id(), latencyMs);
+        hedgePolicy.recordFirstPacket(attempt.target().id(), latencyMs);
+    }
+
     private ChatClient resolveClient(ModelTarget target, String label) {
         ChatClient client = clientsByProvider.get(target.candidate().getProvider());
         if (client == null) {
@@ -230,6 +397,28 @@ public class RoutingLLMService implements LLMService {
         }
     }
 
+    /**
+     * 一路流式请求；startError 非空表示启动即失败
+     */
+    private record StreamAttempt(ModelTarget target,
+                                 ModelHealthStore.CallPermit permit,
+                                 ProbeStreamBridge bridge,
+                                 StreamCancellationHandle handle,
+                                 long startNanos,
+                                 Throwable startError) {
+
+        static StreamAttempt failed(ModelTarget target, Throwable error) {
+            return new StreamAttempt(target, null, null, null, 0L, error);
+        }
+
+        long deadlineNanos() {
+            return startNanos + TimeUnit.MILLISECONDS.toNanos(target.timeoutMs());
+        }
+    }
+
+    private record RaceOutcome(StreamAttempt winner, Throwable lastError) {
+    }
+
     private RemoteException notifyAllFailed(StreamCallback callback, Throwable lastError) {
         RemoteException finalException = new RemoteException(
                 STREAM_ALL_FAILED_MESSAGE,
@@ -0,0 +1,183 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nageoffer.ai.ragent.infra.chat;
+
+import com.nageoffer.ai.ragent.infra.config.AIModelProperties;
+import com.nageoffer.ai.ragent.infra.model.ModelTarget;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+
+/**
+ * 流式首包对冲策略
+ * <p>
+ * 对冲点按模型学习：每个模型保留最近一段首包延迟样本，取配置分位数作为「该出首包了」的时刻，
+ * 比固定超时更贴近各节点的真实表现；样本不足时不对冲
+ * <p>
+ * 对冲额度按档位计：每个请求攒 budgetRatio 额度、每次对冲花 1，外加并发上限，
+ * 上游整体变慢时对冲次数受额度约束，不会把负载放大成两倍
+ */
+@Component
+@RequiredArgsConstructor
+public class StreamHedgePolicy {
+
+    /**
+     * 每个模型保留的首包延迟样本数
+     */
+    private static final int LATENCY_WINDOW_SIZE = 128;
+
+    private final AIModelProperties properties;
+
+    private final Map<String, LatencyWindow> latencyByModel = new ConcurrentHashMap<>();
+
+    private final Map<String, HedgeBudget> budgetByTier = new ConcurrentHashMap<>();
+
+    /**
+     * 档位是否启用对冲；启用时为本次请求攒一份额度
+     */
+    public boolean admit(String tierName) {
+        AIModelProperties.StreamHedge config = config(tierName);
+        if (config == null) {
+            return false;
+        }
+        budget(tierName, config).deposit(config.getBudgetRatio(), config.getMaxBurst());
+        return true;
+    }
+
+    /**
+     * 主候选的对冲点（毫秒），返回 -1 表示本次不对冲：未启用、样本不足或对冲点已不早于首包超时
+     */
+    public long hedgeDelayMs(String tierName, ModelTarget primary) {
+        AIModelProperties.StreamHedge config = config(tierName);
+        if (config == null) {
+            return -1L;
+        }
+        LatencyWindow window = latencyByModel.get(primary.id());
+        long learned = window == null ? -1L : window.percentile(config.getPercentile(), config.getMinSamples());
+        if (learned < 0) {
+            return -1L;
+        }
+        long delayMs = Math.max(learned, config.getMinDelayMs());
+        Long timeoutMs = primary.timeoutMs();
+        return timeoutMs != null && delayMs >= timeoutMs ? -1L : delayMs;
+    }
+
+    /**
+     * 申请一次对冲：额度与并发名额都满足才放行，放行后须配对调用 {@link #release(String)}
+     */
+    public boolean tryAcquire(String tierName) {
+        AIModelProperties.StreamHedge config = config(tierName);
+        return config != null && budget(tierName, config).tryAcquire();
+    }
+
+    public void release(String tierName) {
+        HedgeBudget budget = budgetByTier.get(tierName);
+        if (budget != null) {
+            budget.inflight.release();
+        }
+    }
+
+    /**
+     * 记录一次成功的首包延迟；只记成功样本，超时与失败不代表模型出首包的速度
+     */
+    public void recordFirstPacket(String modelId, long latencyMs) {
+        if (modelId == null || latencyMs < 0) {
+            return;
+        }
+        latencyByModel.computeIfAbsent(modelId, k -> new LatencyWindow(LATENCY_WINDOW_SIZE)).add(latencyMs);
+    }
+
+    private AIModelProperties.StreamHedge config(String tierName) {
+        if (tierName == null || properties.getChat() == null || properties.getChat().getTiers() == null) {
+            return null;
+        }
+        AIModelProperties.TierConfig tier = properties.getChat().getTiers().get(tierName);
+        AIModelProperties.StreamHedge hedge = tier == null ? null : tier.getHedge();
+        return hedge != null && Boolean.TRUE.equals(hedge.getEnabled()) ? hedge : null;
+    }
+
+    private HedgeBudget budget(String tierName, AIModelProperties.StreamHedge config) {
+        return budgetByTier.computeIfAbsent(tierName,
+                k -> new HedgeBudget(config.getMaxBurst(), Math.max(config.getMaxConcurrent(), 0)));
+    }
+
+    /**
+     * 定长环形样本窗口
+     */
+    private static final class LatencyWindow {
+
+        private final long[] samples;
+        private int next;
+        private int size;
+
+        private LatencyWindow(int capacity) {
+            this.samples = new long[capacity];
+        }
+
+        private synchronized void add(long latencyMs) {
+            samples[next] = latencyMs;
+            next = (next + 1) % samples.length;
+            size = Math.min(size + 1, samples.length);
+        }
+
+        private synchronized long percentile(double p, int minSamples) {
+            if (size == 0 || size < minSamples) {
+                return -1L;
+            }
+            long[] sorted = Arrays.copyOf(samples, size);
+            Arrays.sort(sorted);
+            int index = (int) Math.ceil(Math.min(Math.max(p, 0D), 1D) * size) - 1;
+            return sorted[Math.max(index, 0)];
+        }
+    }
+
+    /**
+     * 档位对冲额度：比例攒额度 + 并发名额
+     */
+    private static final class HedgeBudget {
+
+        private final Semaphore inflight;
+        private double balance;
+
+        private HedgeBudget(double initialBalance, int maxConcurrent) {
+            this.balance = initialBalance;
+            this.inflight = new Semaphore(maxConcurrent);
+        }
+
+        private synchronized void deposit(double ratio, int maxBurst) {
+            balance = Math.min(balance + Math.max(ratio, 0D), maxBurst);
+        }
+
+        private boolean tryAcquire() {
+            if (!inflight.tryAcquire()) {
+                return false;
+            }
+            synchronized (this) {
+                if (balance >= 1D) {
+                    balance -= 1D;
+                    return true;
+                }
+            }
+            inflight.release();
+            return false;
+        }
+    }
+}
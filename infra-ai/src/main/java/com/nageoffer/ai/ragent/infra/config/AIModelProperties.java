@@ -71,6 +71,21 @@ public class AIModelProperties {
      */
     private Stream stream = new Stream();
 
+    /**
+     * 向量嵌入结果缓存配置
+     */
+    private EmbeddingCache embeddingCache = new EmbeddingCache();
+
+    /**
+     * 批量向量化并发执行配置
+     */
+    private EmbeddingBatch embeddingBatch = new EmbeddingBatch();
+
+    /**
+     * 精排分数缓存配置
+     */
+    private RerankCache rerankCache = new RerankCache();
+
     /**
      * 模型组配置类
      * 包含默认模型与候选模型列表
@@ -125,6 +140,56 @@ public class AIModelProperties {
          * 该档位的调用超时预算（毫秒），null 表示不额外限制
          */
         private Long timeoutMs;
+
+        /**
+         * 该档位流式首包对冲策略，默认关闭
+         */
+        private StreamHedge hedge = new StreamHedge();
+    }
+
+    /**
+     * 流式首包对冲配置类
+     * <p>
+     * 主候选超过其近期首包延迟的分位点仍未出首包时，并行启动下一个候选，谁先出首包用谁、撤掉另一路；
+     * 对冲按档位限额：请求数的固定比例攒额度、并发对冲数封顶，避免上游整体慢时对冲把负载翻倍
+     */
+    @Data
+    public static class StreamHedge {
+
+        /**
+         * 是否启用对冲
+         */
+        private Boolean enabled = false;
+
+        /**
+         * 对冲点取主候选近期首包延迟的分位数（0~1）
+         */
+        private Double percentile = 0.9;
+
+        /**
+         * 首包样本不足该数时不对冲：没学到延迟分布前宁可不加负载
+         */
+        private Integer minSamples = 20;
+
+        /**
+         * 对冲点下限（毫秒），防止延迟分布很窄时几乎每次都对冲
+         */
+        private Long minDelayMs = 300L;
+
+        /**
+         * 对冲额度占本档位流式请求数的比例，每个请求攒这么多额度，每次对冲花掉 1
+         */
+        private Double budgetRatio = 0.1;
+
+        /**
+         * 额度上限，也是冷启动时的初始额度
+         */
+        private Integer maxBurst = 5;
+
+        /**
+         * 本档位同时在途的对冲请求上限
+         */
+        private Integer maxConcurrent = 4;
     }
 
     /**
@@ -215,6 +280,57 @@ public class AIModelProperties {
          * 熔断器打开持续时间（毫秒）
          */
         private Long openDurationMs = 30000L;
+
+        /**
+         * 同优先级组内的候选排序策略：static（保持配置顺序）、peak-ewma（按负载代价排序）、p2c（随机两选一）
+         */
+        private String scoringPolicy = "static";
+
+        /**
+         * 负载统计 EWMA 的衰减时间常数（毫秒），越小越贴近最近表现
+         * 超过一个周期没有新样本的模型，首包延迟与错误率按同一常数向 0 回落，以便重新被选中采样
+         */
+        private Long ewmaDecayMs = 10000L;
+
+        /**
+         * 负载代价按「首包延迟 + 生成该条数 token 的耗时」估算一次典型回答的总时长
+         */
+        private Integer expectedOutputTokens = 300;
+
+        /**
+         * 错误率惩罚系数：代价乘以 (1 + 错误率 × 该系数)
+         */
+        private Double errorPenalty = 4.0;
+
+        /**
+         * 集群共享熔断状态
+         */
+        private Cluster cluster = new Cluster();
+    }
+
+    /**
+     * 集群熔断配置类
+     * <p>
+     * 开启后各节点的失败计数累加到 Redis，任一节点判定熔断即广播给全部节点，
+     * 熔断到期后只允许持有探测租约的一个节点发起半开探测
+     */
+    @Data
+    public static class Cluster {
+
+        /**
+         * 是否在集群内共享熔断状态，关闭时各节点独立熔断
+         */
+        private Boolean enabled = false;
+
+        /**
+         * 半开探测租约时长（毫秒），持有节点异常退出时到期自动释放
+         */
+        private Long probeLeaseMs = 60000L;
+
+        /**
+         * 集群失败计数的滑动窗口（毫秒），只有最近这段时间内的失败计入熔断阈值
+         */
+        private Long failureWindowMs = 60000L;
     }
 
     /**
@@ -228,5 +344,159 @@ public class AIModelProperties {
          * 消息分块大小
          */
         private Integer messageChunkSize = 5;
+
+        /**
+         * 模型流式传输方式：blocking（每路流占用一个 modelStreamExecutor 线程阻塞读取）、
+         * async（JDK HttpClient 非阻塞读取，线程只在有数据到达时占用，并发流数与线程数解耦）
+         */
+        private String transport = "blocking";
+
+        /**
+         * async 传输的回调线程数，≤0 时取 CPU 核数的 2 倍
+         */
+        private Integer asyncIoThreads = 0;
+
+        /**
+         * 下发给前端的增量合并配置
+         */
+        private Coalesce coalesce = new Coalesce();
+    }
+
+    /**
+     * SSE 增量合并配置类
+     * <p>
+     * 上游每个 delta 往往只有一两个字，逐个下发意味着每个字一次 JSON 序列化、一次写与 flush；
+     * 开启后按流缓冲，字数、时间、句末三者先到先发
+     */
+    @Data
+    public static class Coalesce {
+
+        /**
+         * 是否合并增量，关闭时按 messageChunkSize 逐块下发；开启后 messageChunkSize 不再生效，故默认关闭
+         */
+        private Boolean enabled = false;
+
+        /**
+         * 缓冲达到该字数（按码点计）立即下发
+         */
+        private Integer maxChars = 32;
+
+        /**
+         * 缓冲中最早的字最多等待的毫秒数，保证停顿时已生成的内容也能及时到达
+         */
+        private Long maxDelayMs = 30L;
+
+        /**
+         * 增量以句末标点或换行结尾时立即下发
+         */
+        private Boolean flushOnSentenceEnd = true;
+    }
+
+    /**
+     * 向量嵌入结果缓存配置类
+     * <p>
+     * 两级缓存：进程内 LRU + 持久化表，键为 (模型ID, 维度, 文本 SHA-256)
+     * 同一模型对同一文本的向量是确定的，重复入库/定时刷新时未变化的分块不再打到模型供应商
+     */
+    @Data
+    public static class EmbeddingCache {
+
+        /**
+         * 是否启用向量缓存
+         */
+        private Boolean enabled = true;
+
+        /**
+         * 进程内 LRU 占用上限（MB），按向量实际字节数计重
+         * 不按条目数限制：4096 维单条约 16KB，768 维约 3KB，条目数无法对应到内存占用
+         */
+        private Integer maxMemoryMb = 64;
+
+        /**
+         * 是否启用持久化层（需要存在 EmbeddingCacheStore 实现及对应表）
+         * 只作用于批量向量化（文档入库、意图叶子预热），单条查询向量化只走进程内缓存，检索链路不多一次数据库往返
+         */
+        private Boolean persistent = false;
+
+        /**
+         * 持久化条目的保留天数，超期由清理任务删除；小于等于 0 表示不清理
+         * 同ID换版本的模型、已下线的文档都会留下不再访问的行，不清理表会无限增长
+         */
+        private Integer persistentTtlDays = 30;
+    }
+
+    /**
+     * 精排分数缓存配置类
+     * <p>
+     * 键为 (模型ID, 问题, 分块ID, 分块内容)，分块内容变更时自然未命中
+     */
+    @Data
+    public static class RerankCache {
+
+        /**
+         * 是否启用精排分数缓存
+         */
+        private Boolean enabled = true;
+
+        /**
+         * 进程内 LRU 最大条目数，单条仅一个分数，按一次精排 40 条候选估算可容纳约 1000 个问题
+         */
+        private Integer maxEntries = 50000;
+
+        /**
+         * 条目写入后的存活秒数
+         * 打分本身是确定的，TTL 只为模型同ID换版本后旧分不至于长期残留
+         */
+        private Long ttlSeconds = 3600L;
+    }
+
+    /**
+     * 批量向量化并发执行配置类
+     * <p>
+     * 切片并发发往同一模型，按供应商维护自适应的批大小与在途上限：
+     * 延迟低于目标时加性增长，超过目标或遇到 429 时乘性收缩
+     */
+    @Data
+    public static class EmbeddingBatch {
+
+        /**
+         * 是否启用并发切片；关闭则回到客户端内部的顺序切片
+         */
+        private Boolean enabled = true;
+
+        /**
+         * 单个供应商的在途请求上限
+         */
+        private Integer maxConcurrency = 4;
+
+        /**
+         * 单个供应商的初始在途请求数，之后按观测延迟与限流自适应调整
+         */
+        private Integer initialConcurrency = 2;
+
+        /**
+         * 客户端未声明批量上限时使用的单批上限
+         */
+        private Integer defaultMaxBatchSize = 32;
+
+        /**
+         * 自适应收缩的单批下限
+         */
+        private Integer minBatchSize = 4;
+
+        /**
+         * 单批目标延迟（毫秒），超过则收缩在途数与批大小
+         */
+        private Long targetLatencyMs = 5000L;
+
+        /**
+         * 单个切片在同一模型上的最大重试次数（仅限流、服务端错误、网络错误）
+         */
+        private Integer maxSliceRetries = 2;
+
+        /**
+         * 切片重试的基础退避时间（毫秒），按重试次数线性递增
+         */
+        private Long retryBackoffMs = 1000L;
     }
 }
@@ -34,7 +34,7 @@ public class AIHubMixEmbeddingClient extends AbstractOpenAIStyleEmbeddingClient
     }
 
     @Override
-    protected int maxBatchSize() {
+    public int maxBatchSize() {
         return 32;
     }
 }
@@ -19,7 +19,6 @@ package com.nageoffer.ai.ragent.infra.embedding;
 
 import cn.hutool.core.collection.CollUtil;
 import com.google.gson.JsonArray;
-import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.nageoffer.ai.ragent.infra.config.AIModelProperties;
 import com.nageoffer.ai.ragent.infra.enums.ModelCapability;
@@ -70,23 +69,21 @@ public abstract class AbstractOpenAIStyleEmbeddingClient implements EmbeddingCli
         body.addProperty("encoding_format", "float");
     }
 
-    /**
-     * 单次请求最大批量大小，0 表示不限制
-     */
-    protected int maxBatchSize() {
+    @Override
+    public int maxBatchSize() {
         return 0;
     }
 
     // ==================== 接口实现 ====================
 
     @Override
-    public List<Float> embed(String text, ModelTarget target) {
-        List<List<Float>> result = doEmbed(List.of(text), target);
+    public float[] embed(String text, ModelTarget target) {
+        List<float[]> result = doEmbed(List.of(text), target);
         return result.get(0);
     }
 
     @Override
-    public List<List<Float>> embedBatch(List<String> texts, ModelTarget target) {
+    public List<float[]> embedBatch(List<String> texts, ModelTarget target) {
         if (CollUtil.isEmpty(texts)) {
             return Collections.emptyList();
         }
@@ -95,11 +92,11 @@ public abstract class AbstractOpenAIStyleEmbeddingClient implements EmbeddingCli
             return doEmbed(texts, target);
         }
 
-        List<List<Float>> results = new ArrayList<>(Collections.nCopies(texts.size(), null));
+        List<float[]> results = new ArrayList<>(Collections.nCopies(texts.size(), null));
         for (int i = 0, n = texts.size(); i < n; i += batch) {
             int end = Math.min(i + batch, n);
             List<String> slice = texts.subList(i, end);
-            List<List<Float>> part = doEmbed(slice, target);
+            List<float[]> part = doEmbed(slice, target);
             for (int k = 0; k < part.size(); k++) {
                 results.set(i + k, part.get(k));
             }
@@ -112,7 +109,7 @@ public abstract class AbstractOpenAIStyleEmbeddingClient implements EmbeddingCli
     /**
      * 构建请求、发送 HTTP、解析 OpenAI 格式响应
      */
-    protected List<List<Float>> doEmbed(List<String> texts, ModelTarget target) {
+    protected List<float[]> doEmbed(List<String> texts, ModelTarget target) {
         AIModelProperties.ProviderConfig provider = HttpResponseHelper.requireProvider(target, provider());
         if (requiresApiKey()) {
             HttpResponseHelper.requireApiKey(provider, provider());
@@ -144,7 +141,8 @@ public abstract class AbstractOpenAIStyleEmbeddingClient implements EmbeddingCli
         // 成败两路都记耗时：失败路更要记，慢失败才是吃满上游预算的那一种
         long startTime = System.currentTimeMillis();
 
-        JsonObject json;
+        // 响应体走字符流直接解码进 float[]，不在内存里拼完整 JSON 字符串，也不建 JsonObject 树
+        List<float[]> results;
         try (Response response = httpClient.newCall(request).execute()) {
             if (!response.isSuccessful()) {
                 String errBody = HttpResponseHelper.readBody(response.body());
@@ -156,7 +154,14 @@ public abstract class AbstractOpenAIStyleEmbeddingClient implements EmbeddingCli
                         response.code()
                 );
             }
-            json = HttpResponseHelper.parseJson(response.body(), provider());
+            if (response.body() == null) {
+                throw new ModelClientException(
+                        provider() + " embedding 响应为空",
+                        ModelClientErrorType.INVALID_RESPONSE, response.code());
+            }
+            Integer dimension = target.candidate().getDimension();
+            results = EmbeddingResponseDecoder.decode(
+                    response.body().charStream(), dimension == null ? 0 : dimension, provider());
         } catch (IOException e) {
             log.warn("{} embedding 请求异常 - 模型：{}，条数：{}，耗时：{}ms，原因：{}",
                     provider(), model, texts.size(), System.currentTimeMillis() - startTime, e.getMessage());
@@ -165,41 +170,8 @@ public abstract class AbstractOpenAIStyleEmbeddingClient implements EmbeddingCli
                     ModelClientErrorType.NETWORK_ERROR, null, e);
         }
 
-        if (json.has("error")) {
-            JsonObject err = json.getAsJsonObject("error");
-            String code = err.has("code") ? err.get("code").getAsString() : "unknown";
-            String msg = err.has("message") ? err.get("message").getAsString() : "unknown";
-            throw new ModelClientException(
-                    provider() + " embedding 错误: " + code + " - " + msg,
-                    ModelClientErrorType.PROVIDER_ERROR, null);
-        }
-
         log.info("{} embedding 完成 - 模型：{}，条数：{}，耗时：{}ms",
                 provider(), model, texts.size(), System.currentTimeMillis() - startTime);
-
-        JsonArray data = json.getAsJsonArray("data");
-        if (data == null || data.isEmpty()) {
-            throw new ModelClientException(
-                    provider() + " embedding 响应中缺少 data 数组",
-                    ModelClientErrorType.INVALID_RESPONSE, null);
-        }
-
-        List<List<Float>> results = new ArrayList<>(data.size());
-        for (JsonElement el : data) {
-            JsonObject obj = el.getAsJsonObject();
-            JsonArray emb = obj.getAsJsonArray("embedding");
-            if (emb == null || emb.isEmpty()) {
-                throw new ModelClientException(
-                        provider() + " embedding 响应中缺少 embedding 字段",
-                        ModelClientErrorType.INVALID_RESPONSE, null);
-            }
-            List<Float> vector = new ArrayList<>(emb.size());
-            for (JsonElement v : emb) {
-                vector.add(v.getAsFloat());
-            }
-            results.add(vector);
-        }
-
         return results;
     }
 }
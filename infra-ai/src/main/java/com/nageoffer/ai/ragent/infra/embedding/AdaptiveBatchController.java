@@ -0,0 +1,141 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nageoffer.ai.ragent.infra.embedding;
+
+import com.nageoffer.ai.ragent.infra.config.AIModelProperties;
+
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 单个供应商的自适应批量控制：在途上限 + 单批大小，按 AIMD 调整
+ * <p>
+ * 延迟达标时在途上限与批大小每轮各加一（按 1/limit 的步长累积，一轮即一个在途窗口的成功数）；
+ * 超过目标延迟时在途减一、批大小缩到四分之三；遇到 429 两者都减半。
+ * 限流是供应商账号级的，故按供应商而不是按模型维护
+ */
+final class AdaptiveBatchController {
+
+    private final String provider;
+    private final int maxConcurrency;
+    private final int maxBatchSize;
+    private final int minBatchSize;
+    private final long targetLatencyMs;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition slotFreed = lock.newCondition();
+
+    private double limit;
+    private double batchSize;
+    private int inFlight;
+
+    AdaptiveBatchController(String provider, AIModelProperties.EmbeddingBatch config, int providerMaxBatchSize) {
+        this.provider = provider;
+        this.maxConcurrency = Math.max(1, config.getMaxConcurrency());
+        this.maxBatchSize = providerMaxBatchSize > 0 ? providerMaxBatchSize : Math.max(1, config.getDefaultMaxBatchSize());
+        this.minBatchSize = Math.max(1, Math.min(config.getMinBatchSize(), maxBatchSize));
+        this.targetLatencyMs = config.getTargetLatencyMs();
+        this.limit = Math.max(1, Math.min(config.getInitialConcurrency(), maxConcurrency));
+        this.batchSize = maxBatchSize;
+    }
+
+    /**
+     * 占用一个在途名额，满了就等
+     */
+    void acquire() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (inFlight >= (int) limit) {
+                slotFreed.await();
+            }
+            inFlight++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void release() {
+        lock.lock();
+        try {
+            inFlight--;
+            slotFreed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int batchSize() {
+        lock.lock();
+        try {
+            return (int) batchSize;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void onSuccess(long latencyMs) {
+        lock.lock();
+        try {
+            if (latencyMs <= targetLatencyMs) {
+                double step = 1.0 / Math.max(1.0, limit);
+                limit = Math.min(maxConcurrency, limit + step);
+                batchSize = Math.min(maxBatchSize, batchSize + step);
+            } else {
+                limit = Math.max(1.0, limit - 1.0);
+                batchSize = Math.max(minBatchSize, Math.floor(batchSize * 3 / 4));
+            }
+            slotFreed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void onRateLimited() {
+        lock.lock();
+        try {
+            limit = Math.max(1.0, Math.floor(limit / 2));
+            batchSize = Math.max(minBatchSize, Math.floor(batchSize / 2));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void onServerError() {
+        lock.lock();
+        try {
+            limit = Math.max(1.0, limit - 1.0);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    Snapshot snapshot() {
+        lock.lock();
+        try {
+            return new Snapshot(provider, (int) limit, (int) batchSize, inFlight);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 控制器当前状态，供日志与测试观察
+     */
+    record Snapshot(String provider, int concurrencyLimit, int batchSize, int inFlight) {
+    }
+}
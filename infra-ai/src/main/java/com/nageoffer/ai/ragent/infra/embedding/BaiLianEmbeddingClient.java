@@ -38,7 +38,7 @@ public class BaiLianEmbeddingClient extends AbstractOpenAIStyleEmbeddingClient {
      * 超限不是慢而是整批 400，摄取长文档必然踩到
      */
     @Override
-    protected int maxBatchSize() {
+    public int maxBatchSize() {
         return 10;
     }
 }
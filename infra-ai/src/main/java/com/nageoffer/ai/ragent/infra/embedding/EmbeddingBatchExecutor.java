@@ -0,0 +1,187 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nageoffer.ai.ragent.infra.embedding;
+
+import com.nageoffer.ai.ragent.framework.exception.RemoteException;
+import com.nageoffer.ai.ragent.infra.config.AIModelProperties;
+import com.nageoffer.ai.ragent.infra.http.ModelClientErrorType;
+import com.nageoffer.ai.ragent.infra.http.ModelClientException;
+import com.nageoffer.ai.ragent.infra.model.ModelTarget;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 批量向量化并发执行器：把一次批量请求切片后并发发往同一模型
+ * <p>
+ * 切片大小与在途数由按供应商维护的 {@link AdaptiveBatchController} 决定，结果按原始下标写回，顺序与入参一致。
+ * 单个切片遇到限流、服务端错误、网络错误时只重试该切片，其余切片结果保留；
+ * 重试用尽或遇到不可重试错误则整体失败，交由 {@code ModelRoutingExecutor} 降级到下一个模型——
+ * 降级后整批重做而不是只补失败切片：不同模型的向量不在同一空间，同一篇文档不能混用
+ */
+@Slf4j
+@Component
+public class EmbeddingBatchExecutor {
+
+    private final AIModelProperties.EmbeddingBatch config;
+    private final Executor embeddingSliceExecutor;
+    private final Map<String, AdaptiveBatchController> controllers = new ConcurrentHashMap<>();
+
+    public EmbeddingBatchExecutor(AIModelProperties properties,
+                                  @Qualifier("embeddingSliceExecutor") Executor embeddingSliceExecutor) {
+        this.config = properties.getEmbeddingBatch();
+        this.embeddingSliceExecutor = embeddingSliceExecutor;
+    }
+
+    /**
+     * 并发批量向量化
+     *
+     * @param client 本次尝试的客户端
+     * @param target 本次尝试的模型
+     * @param texts  待向量化文本
+     * @return 与 texts 一一对应的向量
+     */
+    public List<float[]> execute(EmbeddingClient client, ModelTarget target, List<String> texts) {
+        if (!Boolean.TRUE.equals(config.getEnabled()) || texts == null || texts.size() <= 1) {
+            return client.embedBatch(texts, target);
+        }
+        AdaptiveBatchController controller = controllers.computeIfAbsent(client.provider(),
+                provider -> new AdaptiveBatchController(provider, config, client.maxBatchSize()));
+
+        float[][] results = new float[texts.size()][];
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        AtomicReference<RuntimeException> firstFailure = new AtomicReference<>();
+        long startTime = System.currentTimeMillis();
+        int slices = 0;
+
+        // 切片在调用线程上按当前批大小逐个切出：前面的切片触发限流后，后面的切片立刻用缩小后的尺寸
+        int offset = 0;
+        while (offset < texts.size() && firstFailure.get() == null) {
+            int size = Math.min(controller.batchSize(), texts.size() - offset);
+            Slice slice = new Slice(offset, texts.subList(offset, offset + size));
+            offset += size;
+            slices++;
+            try {
+                controller.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                firstFailure.compareAndSet(null, new RemoteException("Embedding 批量执行被中断"));
+                break;
+            }
+            // 切片线程池满了由 CallerRunsPolicy 在调用线程上执行：调用线程本身就持有在途名额，不会超出上限
+            futures.add(CompletableFuture.runAsync(() -> {
+                try {
+                    List<float[]> vectors = callWithRetry(client, target, controller, slice);
+                    for (int k = 0; k < vectors.size(); k++) {
+                        results[slice.offset() + k] = vectors.get(k);
+                    }
+                } catch (RuntimeException e) {
+                    firstFailure.compareAndSet(null, e);
+                    throw e;
+                } finally {
+                    controller.release();
+                }
+            }, embeddingSliceExecutor));
+        }
+
+        try {
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+        } catch (CompletionException ignored) {
+            // 失败原因已记在 firstFailure，等全部在途切片结束后统一抛出
+        }
+        RuntimeException failure = firstFailure.get();
+        if (failure != null) {
+            throw failure;
+        }
+
+        AdaptiveBatchController.Snapshot snapshot = controller.snapshot();
+        log.info("{} embedding 并发批量完成 - 模型：{}，条数：{}，切片：{}，耗时：{}ms，当前批大小：{}，在途上限：{}",
+                client.provider(), target.id(), texts.size(), slices, System.currentTimeMillis() - startTime,
+                snapshot.batchSize(), snapshot.concurrencyLimit());
+        return Arrays.asList(results);
+    }
+
+    /**
+     * 当前各供应商的自适应状态
+     */
+    public List<AdaptiveBatchController.Snapshot> snapshots() {
+        return controllers.values().stream().map(AdaptiveBatchController::snapshot).toList();
+    }
+
+    private List<float[]> callWithRetry(EmbeddingClient client, ModelTarget target,
+                                        AdaptiveBatchController controller, Slice slice) {
+        int maxRetries = Math.max(0, config.getMaxSliceRetries());
+        for (int attempt = 0; ; attempt++) {
+            long start = System.currentTimeMillis();
+            try {
+                List<float[]> vectors = client.embedBatch(slice.texts(), target);
+                if (vectors == null || vectors.size() != slice.texts().size()) {
+                    throw new ModelClientException(String.format("%s embedding 返回条数与切片不符：期望 %d，实际 %s",
+                            client.provider(), slice.texts().size(), vectors == null ? "null" : String.valueOf(vectors.size())),
+                            ModelClientErrorType.INVALID_RESPONSE, null);
+                }
+                controller.onSuccess(System.currentTimeMillis() - start);
+                return vectors;
+            } catch (ModelClientException e) {
+                if (!isRetriable(e.getErrorType())) {
+                    throw e;
+                }
+                // 重试用尽的那次失败也要计入：限流到放弃正是拥塞最重的信号，漏掉会让下一批仍按原窗口压上去
+                if (e.getErrorType() == ModelClientErrorType.RATE_LIMITED) {
+                    controller.onRateLimited();
+                } else {
+                    controller.onServerError();
+                }
+                if (attempt >= maxRetries) {
+                    throw e;
+                }
+                log.warn("{} embedding 切片失败，准备重试 - 模型：{}，偏移：{}，条数：{}，第 {} 次，原因：{}",
+                        client.provider(), target.id(), slice.offset(), slice.texts().size(), attempt + 1, e.getMessage());
+                backoff(attempt);
+            }
+        }
+    }
+
+    private void backoff(int attempt) {
+        try {
+            Thread.sleep(config.getRetryBackoffMs() * (attempt + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RemoteException("Embedding 切片重试被中断");
+        }
+    }
+
+    private static boolean isRetriable(ModelClientErrorType type) {
+        return type == ModelClientErrorType.RATE_LIMITED
+                || type == ModelClientErrorType.SERVER_ERROR
+                || type == ModelClientErrorType.NETWORK_ERROR;
+    }
+
+    private record Slice(int offset, List<String> texts) {
+    }
+}
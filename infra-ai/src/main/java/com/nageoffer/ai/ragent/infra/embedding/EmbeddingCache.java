@@ -0,0 +1,191 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nageoffer.ai.ragent.infra.embedding;
+
+import cn.hutool.crypto.SecureUtil;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.nageoffer.ai.ragent.framework.exception.RemoteException;
+import com.nageoffer.ai.ragent.infra.config.AIModelProperties;
+import com.nageoffer.ai.ragent.infra.model.ModelTarget;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * 向量嵌入结果的两级缓存：进程内 LRU + 可选的持久化层
+ * <p>
+ * 键为 (模型ID, 维度, 文本 SHA-256)：同一模型对同一文本的输出是确定的，进程内不设 TTL，按字节数淘汰；
+ * 持久化层只服务批量向量化，按保留天数由存储实现清理
+ * <p>
+ * 按模型粒度嵌在路由降级的每一次尝试里，而不是包在整个路由外面：主模型熔断降级到备用模型时，
+ * 备用模型查的是自己的键，不会把 A 模型的向量当作 B 模型的结果返回
+ */
+@Slf4j
+@Component
+public class EmbeddingCache {
+
+    private final AIModelProperties.EmbeddingCache config;
+    private final ObjectProvider<EmbeddingCacheStore> storeProvider;
+    private final Cache<String, float[]> memory;
+
+    /**
+     * 单条的固定开销估算：键字符串（模型ID + 64 位哈希）与数组头
+     */
+    private static final int ENTRY_OVERHEAD_BYTES = 256;
+
+    public EmbeddingCache(AIModelProperties properties, ObjectProvider<EmbeddingCacheStore> storeProvider) {
+        this.config = properties.getEmbeddingCache();
+        this.storeProvider = storeProvider;
+        this.memory = CacheBuilder.newBuilder()
+                .maximumWeight(Math.max(config.getMaxMemoryMb(), 0) * 1024L * 1024L)
+                .weigher((String key, float[] vector) -> ENTRY_OVERHEAD_BYTES + vector.length * Float.BYTES)
+                .build();
+    }
+
+    /**
+     * 先查缓存，只把未命中的文本交给 loader 一次性批量向量化，结果按入参顺序拼回
+     * <p>
+     * 同一批内的重复文本只请求一次；持久化层读写失败只记日志并按未命中处理，缓存不可用不影响向量化本身
+     *
+     * @param target     本次尝试的模型
+     * @param texts      待向量化文本
+     * @param persistent 是否读写持久化层；查询链路的单条向量化传 false，不为一次缓存查询多付数据库往返
+     * @param loader     对未命中文本的批量向量化，返回值须与入参一一对应
+     * @return 与 texts 一一对应的向量；每个数组都是独立副本，调用方可原地修改（如归一化）而不污染缓存
+     */
+    public List<float[]> getOrEmbed(ModelTarget target, List<String> texts, boolean persistent,
+                                    Function<List<String>, List<float[]>> loader) {
+        if (!Boolean.TRUE.equals(config.getEnabled()) || texts == null || texts.isEmpty() || texts.stream().anyMatch(Objects::isNull)) {
+            return loader.apply(texts);
+        }
+        String modelId = target.id();
+        int dimension = resolveDimension(target);
+
+        // 去重：key 为 contentHash，value 为首次出现的原文
+        Map<String, String> textByHash = new LinkedHashMap<>();
+        List<String> hashes = new ArrayList<>(texts.size());
+        for (String text : texts) {
+            String hash = SecureUtil.sha256(text);
+            hashes.add(hash);
+            textByHash.putIfAbsent(hash, text);
+        }
+
+        Map<String, float[]> resolved = new HashMap<>(textByHash.size() * 2);
+        List<String> memoryMisses = new ArrayList<>();
+        for (String hash : textByHash.keySet()) {
+            float[] cached = memory.getIfPresent(memoryKey(modelId, dimension, hash));
+            if (cached != null) {
+                resolved.put(hash, cached);
+            } else {
+                memoryMisses.add(hash);
+            }
+        }
+        int memoryHits = resolved.size();
+
+        if (persistent && !memoryMisses.isEmpty()) {
+            Map<String, float[]> stored = loadFromStore(modelId, dimension, memoryMisses);
+            stored.forEach((hash, vector) -> {
+                resolved.put(hash, vector);
+                memory.put(memoryKey(modelId, dimension, hash), vector);
+            });
+        }
+        int storeHits = resolved.size() - memoryHits;
+
+        List<String> missHashes = textByHash.keySet().stream()
+                .filter(hash -> !resolved.containsKey(hash))
+                .toList();
+        if (!missHashes.isEmpty()) {
+            List<String> missTexts = missHashes.stream().map(textByHash::get).toList();
+            List<float[]> vectors = loader.apply(missTexts);
+            if (vectors == null || vectors.size() != missTexts.size()) {
+                throw new RemoteException(String.format("Embedding 返回条数与请求不符：期望 %d，实际 %s",
+                        missTexts.size(), vectors == null ? "null" : String.valueOf(vectors.size())));
+            }
+            Map<String, float[]> fresh = new LinkedHashMap<>(missHashes.size() * 2);
+            for (int i = 0; i < missHashes.size(); i++) {
+                float[] vector = vectors.get(i);
+                fresh.put(missHashes.get(i), vector);
+                memory.put(memoryKey(modelId, dimension, missHashes.get(i)), vector);
+            }
+            resolved.putAll(fresh);
+            if (persistent) {
+                saveToStore(modelId, dimension, fresh);
+            }
+        }
+
+        log.debug("Embedding 缓存，modelId={}, texts={}, unique={}, memoryHits={}, storeHits={}, misses={}",
+                modelId, texts.size(), textByHash.size(), memoryHits, storeHits, missHashes.size());
+
+        List<float[]> result = new ArrayList<>(texts.size());
+        for (String hash : hashes) {
+            result.add(resolved.get(hash).clone());
+        }
+        return result;
+    }
+
+    private Map<String, float[]> loadFromStore(String modelId, int dimension, List<String> hashes) {
+        EmbeddingCacheStore store = resolveStore();
+        if (store == null) {
+            return Map.of();
+        }
+        try {
+            Map<String, float[]> stored = store.loadAll(modelId, dimension, hashes);
+            return stored == null ? Map.of() : stored;
+        } catch (Exception e) {
+            log.warn("读取 Embedding 持久化缓存失败，按未命中处理，modelId={}, count={}", modelId, hashes.size(), e);
+            return Map.of();
+        }
+    }
+
+    private void saveToStore(String modelId, int dimension, Map<String, float[]> embeddings) {
+        EmbeddingCacheStore store = resolveStore();
+        if (store == null) {
+            return;
+        }
+        try {
+            store.saveAll(modelId, dimension, embeddings);
+        } catch (Exception e) {
+            log.warn("写入 Embedding 持久化缓存失败，modelId={}, count={}", modelId, embeddings.size(), e);
+        }
+    }
+
+    private EmbeddingCacheStore resolveStore() {
+        if (!Boolean.TRUE.equals(config.getPersistent()) || storeProvider == null) {
+            return null;
+        }
+        return storeProvider.getIfAvailable();
+    }
+
+    private static int resolveDimension(ModelTarget target) {
+        Integer dimension = target.candidate() == null ? null : target.candidate().getDimension();
+        return dimension == null ? 0 : dimension;
+    }
+
+    private static String memoryKey(String modelId, int dimension, String hash) {
+        return modelId + ':' + dimension + ':' + hash;
+    }
+}
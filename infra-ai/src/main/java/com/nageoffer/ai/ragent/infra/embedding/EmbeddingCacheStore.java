@@ -0,0 +1,49 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nageoffer.ai.ragent.infra.embedding;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * 向量嵌入缓存的持久化层
+ * <p>
+ * infra-ai 只定义端口，具体存储由业务模块提供（如 PostgreSQL 表），未提供实现时只使用进程内缓存
+ * 实现类应当把存储异常视为未命中处理或直接抛出，由 {@link EmbeddingCache} 统一降级，不影响主流程
+ */
+public interface EmbeddingCacheStore {
+
+    /**
+     * 批量读取已缓存的向量
+     *
+     * @param modelId       模型ID
+     * @param dimension     向量维度
+     * @param contentHashes 文本 SHA-256 列表
+     * @return key 为命中的 contentHash，未命中的不出现在结果中
+     */
+    Map<String, float[]> loadAll(String modelId, int dimension, Collection<String> contentHashes);
+
+    /**
+     * 批量写入向量，已存在的键保持不变
+     *
+     * @param modelId    模型ID
+     * @param dimension  向量维度
+     * @param embeddings key 为 contentHash
+     */
+    void saveAll(String modelId, int dimension, Map<String, float[]> embeddings);
+}
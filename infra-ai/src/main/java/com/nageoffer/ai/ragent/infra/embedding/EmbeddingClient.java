@@ -39,16 +39,25 @@ public interface EmbeddingClient {
      *
      * @param text   待嵌入的文本内容
      * @param target 目标模型配置
-     * @return 文本的向量表示，以浮点数列表形式返回
+     * @return 文本的向量表示，原生 float 数组
      */
-    List<Float> embed(String text, ModelTarget target);
+    float[] embed(String text, ModelTarget target);
 
     /**
      * 批量将多个文本转换为嵌入向量
      *
      * @param texts  待嵌入的文本列表
      * @param target 目标模型配置
-     * @return 文本向量列表，每个文本对应一个向量（浮点数列表）
+     * @return 文本向量列表，每个文本对应一个向量（原生 float 数组）
      */
-    List<List<Float>> embedBatch(List<String> texts, ModelTarget target);
+    List<float[]> embedBatch(List<String> texts, ModelTarget target);
+
+    /**
+     * 单次请求最大批量大小，0 表示不限制
+     * <p>
+     * 并发执行器据此切片，切出的每片都不超过该值，客户端内部不会再二次切分
+     */
+    default int maxBatchSize() {
+        return 0;
+    }
 }
@@ -0,0 +1,166 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nageoffer.ai.ragent.infra.embedding;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.MalformedJsonException;
+import com.nageoffer.ai.ragent.infra.http.ModelClientErrorType;
+import com.nageoffer.ai.ragent.infra.http.ModelClientException;
+import lombok.NoArgsConstructor;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * OpenAI 兼容 /v1/embeddings 响应的流式解码器
+ * <p>
+ * 直接从响应字符流读出 {@code data[].embedding}，逐个分量写进 float[]：不建 JsonObject 树、不装箱 Float，
+ * 1536 维向量省掉约 1536 个 JsonPrimitive + 1536 个 Float 以及整段响应的字符串副本。
+ * 带 {@code index} 字段时按 index 归位（协议允许乱序返回），否则按出现顺序
+ */
+@NoArgsConstructor(access = lombok.AccessLevel.PRIVATE)
+public final class EmbeddingResponseDecoder {
+
+    /**
+     * 解码响应
+     *
+     * @param reader        响应字符流
+     * @param dimensionHint 预期维度，用于预分配数组，≤0 表示未知
+     * @param label         提供商标签，用于异常消息
+     * @return 按 index 排好序的向量
+     */
+    public static List<float[]> decode(Reader reader, int dimensionHint, String label) throws IOException {
+        List<float[]> vectors = null;
+        List<Integer> indexes = null;
+        try (JsonReader json = new JsonReader(reader)) {
+            json.beginObject();
+            while (json.hasNext()) {
+                String name = json.nextName();
+                if ("data".equals(name) && json.peek() == JsonToken.BEGIN_ARRAY) {
+                    vectors = new ArrayList<>();
+                    indexes = new ArrayList<>();
+                    readData(json, vectors, indexes, dimensionHint, label);
+                } else if ("error".equals(name) && json.peek() == JsonToken.BEGIN_OBJECT) {
+                    throw readError(json, label);
+                } else {
+                    json.skipValue();
+                }
+            }
+            json.endObject();
+        } catch (IllegalStateException | NumberFormatException | MalformedJsonException e) {
+            throw new ModelClientException(label + " embedding 响应格式错误: " + e.getMessage(),
+                    ModelClientErrorType.INVALID_RESPONSE, null, e);
+        }
+
+        if (vectors == null || vectors.isEmpty()) {
+            throw new ModelClientException(
+                    label + " embedding 响应中缺少 data 数组",
+                    ModelClientErrorType.INVALID_RESPONSE, null);
+        }
+        return reorder(vectors, indexes, label);
+    }
+
+    private static void readData(JsonReader json, List<float[]> vectors, List<Integer> indexes,
+                                 int dimensionHint, String label) throws IOException {
+        json.beginArray();
+        while (json.hasNext()) {
+            float[] embedding = null;
+            Integer index = null;
+            json.beginObject();
+            while (json.hasNext()) {
+                String name = json.nextName();
+                if ("embedding".equals(name) && json.peek() == JsonToken.BEGIN_ARRAY) {
+                    embedding = readVector(json, dimensionHint);
+                } else if ("index".equals(name) && json.peek() == JsonToken.NUMBER) {
+                    index = json.nextInt();
+                } else {
+                    json.skipValue();
+                }
+            }
+            json.endObject();
+            if (embedding == null || embedding.length == 0) {
+                throw new ModelClientException(
+                        label + " embedding 响应中缺少 embedding 字段",
+                        ModelClientErrorType.INVALID_RESPONSE, null);
+            }
+            vectors.add(embedding);
+            indexes.add(index);
+        }
+        json.endArray();
+    }
+
+    private static float[] readVector(JsonReader json, int dimensionHint) throws IOException {
+        float[] buffer = new float[dimensionHint > 0 ? dimensionHint : 1024];
+        int size = 0;
+        json.beginArray();
+        while (json.hasNext()) {
+            if (size == buffer.length) {
+                buffer = Arrays.copyOf(buffer, buffer.length << 1);
+            }
+            buffer[size++] = (float) json.nextDouble();
+        }
+        json.endArray();
+        return size == buffer.length ? buffer : Arrays.copyOf(buffer, size);
+    }
+
+    private static ModelClientException readError(JsonReader json, String label) throws IOException {
+        String code = "unknown";
+        String message = "unknown";
+        json.beginObject();
+        while (json.hasNext()) {
+            String name = json.nextName();
+            JsonToken token = json.peek();
+            if (("code".equals(name) || "message".equals(name))
+                    && (token == JsonToken.STRING || token == JsonToken.NUMBER)) {
+                String value = json.nextString();
+                if ("code".equals(name)) {
+                    code = value;
+                } else {
+                    message = value;
+                }
+            } else {
+                json.skipValue();
+            }
+        }
+        json.endObject();
+        return new ModelClientException(
+                label + " embedding 错误: " + code + " - " + message,
+                ModelClientErrorType.PROVIDER_ERROR, null);
+    }
+
+    private static List<float[]> reorder(List<float[]> vectors, List<Integer> indexes, String label) {
+        if (indexes.contains(null)) {
+            return vectors;
+        }
+        float[][] ordered = new float[vectors.size()][];
+        for (int i = 0; i < vectors.size(); i++) {
+            int index = indexes.get(i);
+            if (index < 0 || index >= ordered.length || ordered[index] != null) {
+                throw new ModelClientException(
+                        label + " embedding 响应 index 非法: " + index,
+                        ModelClientErrorType.INVALID_RESPONSE, null);
+            }
+            ordered[index] = vectors.get(i);
+        }
+        return Arrays.asList(ordered);
+    }
+}
@@ -43,12 +43,13 @@ public interface EmbeddingService {
      * <p>
      * 说明：
      * - 通常用于查询向量生成（Query Embedding）
-     * - 输出为 Float 向量列表，例如：[0.123f, -0.078f, ...]
+     * - 输出为原生 float 数组，例如：[0.123f, -0.078f, ...]，不做装箱
+     * - 返回的数组归调用方所有，可原地修改（如归一化）
      *
      * @param text 待向量化文本
      * @return 文本对应的向量（长度固定，如 4096）
      */
-    List<Float> embed(String text);
+    float[] embed(String text);
 
     /**
      * 指定模型对单个文本进行向量化（不进行重试或降级）
@@ -57,7 +58,7 @@ public interface EmbeddingService {
      * @param modelId 指定的模型ID
      * @return 文本对应的向量
      */
-    List<Float> embed(String text, String modelId);
+    float[] embed(String text, String modelId);
 
     /**
      * 对多个文本进行批量向量化
@@ -70,7 +71,7 @@ public interface EmbeddingService {
      * @param texts 文本列表
      * @return 向量列表，每项对应输入文本的向量
      */
-    List<List<Float>> embedBatch(List<String> texts);
+    List<float[]> embedBatch(List<String> texts);
 
     /**
      * 指定模型对多个文本进行批量向量化（不进行重试或降级）
@@ -79,7 +80,7 @@ public interface EmbeddingService {
      * @param modelId 指定的模型ID
      * @return 向量列表
      */
-    List<List<Float>> embedBatch(List<String> texts, String modelId);
+    List<float[]> embedBatch(List<String> texts, String modelId);
 
     /**
      * 返回向量维度（Embedding Dimension）
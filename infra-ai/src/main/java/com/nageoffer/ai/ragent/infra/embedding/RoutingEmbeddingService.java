@@ -26,6 +26,7 @@ import org.springframework.context.annotation.Primary;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
@@ -36,6 +37,9 @@ import java.util.stream.Collectors;
  * <p>
  * 该服务通过模型路由器选择合适的嵌入模型，并在执行失败时自动进行降级处理
  * 支持单文本和批量文本的向量化操作
+ * <p>
+ * 每次尝试先经过 {@link EmbeddingCache}，只有未命中的文本才会真正发往模型供应商；
+ * 批量未命中部分由 {@link EmbeddingBatchExecutor} 切片并发发送。单条向量化多在查询链路上，只查进程内缓存
  */
 @Service
 @Primary
@@ -44,57 +48,68 @@ public class RoutingEmbeddingService implements EmbeddingService {
     private final ModelSelector selector;
     private final ModelRoutingExecutor executor;
     private final Map<String, EmbeddingClient> clientsByProvider;
+    private final EmbeddingCache cache;
+    private final EmbeddingBatchExecutor batchExecutor;
 
     public RoutingEmbeddingService(
             ModelSelector selector,
             ModelRoutingExecutor executor,
-            List<EmbeddingClient> clients) {
+            List<EmbeddingClient> clients,
+            EmbeddingCache cache,
+            EmbeddingBatchExecutor batchExecutor) {
         this.selector = selector;
         this.executor = executor;
+        this.cache = cache;
+        this.batchExecutor = batchExecutor;
         this.clientsByProvider = clients.stream()
                 .collect(Collectors.toMap(EmbeddingClient::provider, Function.identity()));
     }
 
     @Override
-    public List<Float> embed(String text) {
+    public float[] embed(String text) {
         return executor.executeWithFallback(
                 ModelCapability.EMBEDDING,
                 selector.selectEmbeddingCandidates(),
                 this::resolveClient,
-                (client, target) -> client.embed(text, target)
+                (client, target) -> embedCached(client, target, text)
         );
     }
 
     @Override
-    public List<Float> embed(String text, String modelId) {
+    public float[] embed(String text, String modelId) {
         return executor.executeWithFallback(
                 ModelCapability.EMBEDDING,
                 List.of(resolveTarget(modelId)),
                 this::resolveClient,
-                (client, target) -> client.embed(text, target)
+                (client, target) -> embedCached(client, target, text)
         );
     }
 
     @Override
-    public List<List<Float>> embedBatch(List<String> texts) {
+    public List<float[]> embedBatch(List<String> texts) {
         return executor.executeWithFallback(
                 ModelCapability.EMBEDDING,
                 selector.selectEmbeddingCandidates(),
                 this::resolveClient,
-                (client, target) -> client.embedBatch(texts, target)
+                (client, target) -> cache.getOrEmbed(target, texts, true, misses -> batchExecutor.execute(client, target, misses))
         );
     }
 
     @Override
-    public List<List<Float>> embedBatch(List<String> texts, String modelId) {
+    public List<float[]> embedBatch(List<String> texts, String modelId) {
         return executor.executeWithFallback(
                 ModelCapability.EMBEDDING,
                 List.of(resolveTarget(modelId)),
                 this::resolveClient,
-                (client, target) -> client.embedBatch(texts, target)
+                (client, target) -> cache.getOrEmbed(target, texts, true, misses -> batchExecutor.execute(client, target, misses))
         );
     }
 
+    private float[] embedCached(EmbeddingClient client, ModelTarget target, String text) {
+        return cache.getOrEmbed(target, Collections.singletonList(text), false,
+                misses -> Collections.singletonList(client.embed(text, target))).get(0);
+    }
+
     private EmbeddingClient resolveClient(ModelTarget target) {
         return clientsByProvider.get(target.candidate().getProvider());
     }
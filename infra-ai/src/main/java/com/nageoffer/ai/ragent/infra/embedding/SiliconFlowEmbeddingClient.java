@@ -34,7 +34,7 @@ public class SiliconFlowEmbeddingClient extends AbstractOpenAIStyleEmbeddingClie
     }
 
     @Override
-    protected int maxBatchSize() {
+    public int maxBatchSize() {
         return 32;
     }
 }
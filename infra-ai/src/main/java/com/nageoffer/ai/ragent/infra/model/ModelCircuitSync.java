@@ -0,0 +1,60 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nageoffer.ai.ragent.infra.model;
+
+/**
+ * 模型熔断状态的集群同步扩展点
+ * <p>
+ * {@link ModelHealthStore} 在本地状态变更之后回调，实现方把事件传播给其他节点，
+ * 并通过 {@code applyRemoteOpen}/{@code applyRemoteClose} 把远端结论写回本地。
+ * 所有回调都在调用线程上执行，实现不得阻塞（远端 IO 一律异步）
+ */
+public interface ModelCircuitSync {
+
+    /**
+     * 一次未触发本地熔断的失败，供集群累加失败计数
+     */
+    void onFailure(String modelId);
+
+    /**
+     * 熔断关闭状态下的一次成功
+     */
+    void onSuccess(String modelId);
+
+    /**
+     * 本节点判定熔断
+     */
+    void onOpened(String modelId, long openDurationMs);
+
+    /**
+     * 本节点的半开探测成功，熔断恢复
+     */
+    void onClosed(String modelId);
+
+    /**
+     * 熔断到期时是否由本节点发起半开探测
+     * <p>
+     * 不得阻塞：未持有探测租约时发起异步争抢并立即返回 false，下次调用再看结果
+     */
+    boolean tryAcquireProbe(String modelId);
+
+    /**
+     * 半开探测未产生结论（如调用被取消）时归还探测租约
+     */
+    void releaseProbe(String modelId);
+}
@@ -23,12 +23,19 @@ import org.springframework.stereotype.Component;
 
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * 模型健康状态存储器
  * 用于管理和跟踪各个 AI 模型的健康状况，实现断路器模式
+ * <p>
+ * 默认各节点独立熔断；挂上 {@link ModelCircuitSync} 后失败计数、状态切换与半开探测在集群内共享，
+ * 本地状态仍是判断的唯一依据，集群同步只往里写
+ * <p>
+ * 熔断只回答「能不能调」；另按模型维护首包延迟、吞吐与错误率的 EWMA，回答「该先调谁」，
+ * 供 {@link ModelScoringPolicy} 在同优先级组内排序
  */
 @Component
 @RequiredArgsConstructor
@@ -40,12 +47,33 @@ public class ModelHealthStore {
 
     private final AtomicLong probeTokenSeq = new AtomicLong();
 
+    private final Map<String, LoadStats> loadById = new ConcurrentHashMap<>();
+
+    private volatile ModelCircuitSync clusterSync;
+
     /**
      * 模型调用许可，halfOpenToken 为 0 时不持有半开探测名额
      */
     public record CallPermit(String modelId, long halfOpenToken) {
     }
 
+    /**
+     * 模型负载统计快照
+     *
+     * @param firstPacketLatencyMs 首包延迟的峰值敏感 EWMA（毫秒），无样本时为 -1
+     * @param tokensPerSecond      流式吞吐 EWMA（增量片段/秒，OpenAI 兼容流式基本一片一个 token），无样本时为 -1
+     * @param errorRate            调用错误率 EWMA（0~1）
+     * @param latencySamples       首包延迟样本数
+     */
+    public record ModelStats(double firstPacketLatencyMs, double tokensPerSecond, double errorRate, long latencySamples) {
+
+        public static final ModelStats EMPTY = new ModelStats(-1D, -1D, 0D, 0L);
+
+        public boolean hasLatency() {
+            return latencySamples > 0;
+        }
+    }
+
     public boolean isUnavailable(String id) {
         ModelHealth health = healthById.get(id);
         if (health == null) {
@@ -65,13 +93,18 @@ public class ModelHealthStore {
             return null;
         }
         long now = System.currentTimeMillis();
+        ModelCircuitSync sync = clusterSync;
+        // 熔断到期后的半开探测在集群内只放一个节点去做：租约异步争抢，拿到之前本节点仍按熔断拒绝，热路径不等 Redis
+        ModelHealth current = healthById.get(id);
+        boolean probeAllowed = sync == null || current == null || current.state != State.OPEN
+                || current.openUntil > now || sync.tryAcquireProbe(id);
         AtomicReference<CallPermit> granted = new AtomicReference<>();
         healthById.compute(id, (k, v) -> {
             if (v == null) {
                 v = new ModelHealth();
             }
             if (v.state == State.OPEN) {
-                if (v.openUntil > now) {
+                if (v.openUntil > now || !probeAllowed) {
                     return v;
                 }
                 v.state = State.HALF_OPEN;
@@ -99,16 +132,32 @@ public class ModelHealthStore {
         if (id == null) {
             return;
         }
+        load(id).recordOutcome(false, System.currentTimeMillis(), decayMs());
+        ModelCircuitSync sync = clusterSync;
+        AtomicReference<State> previous = new AtomicReference<>(State.CLOSED);
         healthById.compute(id, (k, v) -> {
             if (v == null) {
                 return new ModelHealth();
             }
+            previous.set(v.state);
+            // 集群模式下熔断是集群结论：熔断前放行、熔断后才返回的迟到成功不代表恢复，只有半开探测能关闭
+            if (v.state == State.OPEN && sync != null) {
+                return v;
+            }
             v.state = State.CLOSED;
             v.consecutiveFailures = 0;
             v.openUntil = 0L;
             v.halfOpenInFlight = false;
             return v;
         });
+        if (sync != null) {
+            // 只有半开 → 关闭才广播恢复，其余成功只清空集群失败窗口
+            if (previous.get() == State.HALF_OPEN) {
+                sync.onClosed(id);
+            } else if (previous.get() == State.CLOSED) {
+                sync.onSuccess(id);
+            }
+        }
     }
 
     public void markFailure(String id) {
@@ -116,25 +165,81 @@ public class ModelHealthStore {
             return;
         }
         long now = System.currentTimeMillis();
+        long openDurationMs = properties.getSelection().getOpenDurationMs();
+        load(id).recordOutcome(true, now, decayMs());
+        AtomicBoolean opened = new AtomicBoolean();
         healthById.compute(id, (k, v) -> {
             if (v == null) {
                 v = new ModelHealth();
             }
             if (v.state == State.HALF_OPEN) {
                 v.state = State.OPEN;
-                v.openUntil = now + properties.getSelection().getOpenDurationMs();
+                v.openUntil = now + openDurationMs;
                 v.consecutiveFailures = 0;
                 v.halfOpenInFlight = false;
+                opened.set(true);
                 return v;
             }
             v.consecutiveFailures++;
             if (v.consecutiveFailures >= properties.getSelection().getFailureThreshold()) {
+                opened.set(v.state != State.OPEN);
                 v.state = State.OPEN;
-                v.openUntil = now + properties.getSelection().getOpenDurationMs();
+                v.openUntil = now + openDurationMs;
                 v.consecutiveFailures = 0;
             }
             return v;
         });
+        ModelCircuitSync sync = clusterSync;
+        if (sync != null) {
+            if (opened.get()) {
+                sync.onOpened(id, openDurationMs);
+            } else {
+                sync.onFailure(id);
+            }
+        }
+    }
+
+    /**
+     * 挂上集群同步；挂上后本地状态是集群状态的只读快照 + 本节点的即时判断
+     */
+    public void attachClusterSync(ModelCircuitSync sync) {
+        this.clusterSync = sync;
+    }
+
+    public void detachClusterSync(ModelCircuitSync sync) {
+        if (this.clusterSync == sync) {
+            this.clusterSync = null;
+        }
+    }
+
+    /**
+     * 应用其他节点（或集群计数）判定的熔断：持续时长按本机时钟起算，规避节点间时钟偏差
+     */
+    void applyRemoteOpen(String id, long openDurationMs) {
+        long openUntil = System.currentTimeMillis() + openDurationMs;
+        healthById.compute(id, (k, v) -> {
+            if (v == null) {
+                v = new ModelHealth();
+            }
+            v.state = State.OPEN;
+            v.openUntil = Math.max(v.openUntil, openUntil);
+            v.consecutiveFailures = 0;
+            v.halfOpenInFlight = false;
+            return v;
+        });
+    }
+
+    /**
+     * 应用集群半开探测成功后的恢复
+     */
+    void applyRemoteClose(String id) {
+        healthById.computeIfPresent(id, (k, v) -> {
+            v.state = State.CLOSED;
+            v.consecutiveFailures = 0;
+            v.openUntil = 0L;
+            v.halfOpenInFlight = false;
+            return v;
+        });
     }
 
     /**
@@ -150,6 +255,105 @@ public class ModelHealthStore {
             }
             return v;
         });
+        ModelCircuitSync sync = clusterSync;
+        if (sync != null) {
+            sync.releaseProbe(permit.modelId());
+        }
+    }
+
+    /**
+     * 记录一次首包延迟
+     */
+    public void recordFirstPacket(String id, long latencyMs) {
+        if (id == null || latencyMs < 0) {
+            return;
+        }
+        load(id).recordLatency(latencyMs, System.currentTimeMillis(), decayMs());
+    }
+
+    /**
+     * 记录一次完整流式输出的吞吐，仅在首包之后的生成阶段计时
+     */
+    public void recordThroughput(String id, long tokens, long durationMs) {
+        if (id == null || tokens <= 0 || durationMs <= 0) {
+            return;
+        }
+        load(id).recordThroughput(tokens * 1000D / durationMs, System.currentTimeMillis(), decayMs());
+    }
+
+    public ModelStats stats(String id) {
+        LoadStats load = id == null ? null : loadById.get(id);
+        return load == null ? ModelStats.EMPTY : load.snapshot(System.currentTimeMillis(), decayMs());
+    }
+
+    private LoadStats load(String id) {
+        return loadById.computeIfAbsent(id, k -> new LoadStats());
+    }
+
+    private long decayMs() {
+        Long decayMs = properties.getSelection().getEwmaDecayMs();
+        return decayMs == null || decayMs <= 0 ? 10_000L : decayMs;
+    }
+
+    /**
+     * 按时间衰减的 EWMA：权重 exp(-Δt/τ)，样本稀疏时旧值衰减得快，密集时平滑
+     * <p>
+     * 首包延迟峰值敏感：新样本高于当前值时直接取新样本，变慢立刻可见、变快逐步回落，
+     * 避免一个刚开始变慢的节点被历史均值掩盖、继续接走首位流量
+     * <p>
+     * 读取时按空闲时长衰减：变慢的节点排到组尾后不再有流量，也就不再有新样本，峰值若原样保留就永远翻不了身。
+     * 超过一个衰减周期没有样本后，首包延迟与错误率按 exp(-Δt/τ) 向 0 回落，代价降到组内前列时自然分到一次请求，
+     * 用真实样本重新定价：仍然慢则峰值立刻回来，已恢复则留在前列
+     */
+    private static final class LoadStats {
+
+        /**
+         * 单个样本的最小权重：同一毫秒内密集到达的样本（如一波连续失败）纯按时间衰减权重接近 0，会被整体忽略
+         */
+        private static final double MIN_SAMPLE_WEIGHT = 0.1D;
+
+        private double latency = -1D;
+        private long latencyAt;
+        private long latencySamples;
+        private double throughput = -1D;
+        private long throughputAt;
+        private double errorRate;
+        private long errorAt;
+
+        private synchronized void recordLatency(double sample, long now, long decayMs) {
+            latency = latency < 0 || sample > latency ? sample : ewma(latency, sample, now - latencyAt, decayMs);
+            latencyAt = now;
+            latencySamples++;
+        }
+
+        private synchronized void recordThroughput(double sample, long now, long decayMs) {
+            throughput = throughput < 0 ? sample : ewma(throughput, sample, now - throughputAt, decayMs);
+            throughputAt = now;
+        }
+
+        private synchronized void recordOutcome(boolean failed, long now, long decayMs) {
+            double sample = failed ? 1D : 0D;
+            errorRate = errorAt == 0L ? sample : ewma(errorRate, sample, now - errorAt, decayMs);
+            errorAt = now;
+        }
+
+        private synchronized ModelStats snapshot(long now, long decayMs) {
+            double decayedLatency = latency < 0 ? latency : latency * idleDecay(now - latencyAt, decayMs);
+            double decayedErrorRate = errorAt == 0L ? errorRate : errorRate * idleDecay(now - errorAt, decayMs);
+            return new ModelStats(decayedLatency, throughput, decayedErrorRate, latencySamples);
+        }
+
+        /**
+         * 最近一个衰减周期内有样本时不衰减，只有真正空闲的统计才回落
+         */
+        private static double idleDecay(long elapsedMs, long decayMs) {
+            return Math.exp(-Math.max(elapsedMs - decayMs, 0L) / (double) decayMs);
+        }
+
+        private static double ewma(double current, double sample, long elapsedMs, long decayMs) {
+            double w = Math.min(Math.exp(-Math.max(elapsedMs, 0L) / (double) decayMs), 1D - MIN_SAMPLE_WEIGHT);
+            return current * w + sample * (1D - w);
+        }
     }
 
     private static class ModelHealth {
@@ -0,0 +1,81 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nageoffer.ai.ragent.infra.model;
+
+import com.nageoffer.ai.ragent.infra.config.AIModelProperties;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 模型负载代价
+ * <p>
+ * 代价 = (首包延迟 EWMA + 按吞吐 EWMA 生成典型回答的耗时) × (1 + 错误率 × 惩罚系数)，单位毫秒，
+ * 即「把一次典型请求交给它，预计多久能答完」，错误率高的按重试成本加罚
+ */
+@Component
+@RequiredArgsConstructor
+public class ModelLoadCost {
+
+    private final AIModelProperties properties;
+    private final ModelHealthStore healthStore;
+
+    /**
+     * 单个模型的代价，没有首包样本时返回 -1
+     */
+    public double of(String modelId) {
+        ModelHealthStore.ModelStats stats = healthStore.stats(modelId);
+        if (stats == null || !stats.hasLatency()) {
+            return -1D;
+        }
+        AIModelProperties.Selection selection = properties.getSelection();
+        double generationMs = stats.tokensPerSecond() > 0
+                ? selection.getExpectedOutputTokens() * 1000D / stats.tokensPerSecond()
+                : 0D;
+        return (stats.firstPacketLatencyMs() + generationMs) * (1D + stats.errorRate() * selection.getErrorPenalty());
+    }
+
+    /**
+     * 一组候选的代价，与入参一一对应
+     * <p>
+     * 没有样本的候选按组内已知代价的中位数估计：既不因「没数据」被当成最快抢到首位，也不被永远压在队尾而失去采样机会；
+     * 全组都没有样本时返回 null，调用方应保持原顺序
+     */
+    public double[] of(List<ModelTarget> group) {
+        double[] costs = new double[group.size()];
+        int known = 0;
+        for (int i = 0; i < costs.length; i++) {
+            costs[i] = of(group.get(i).id());
+            if (costs[i] >= 0) {
+                known++;
+            }
+        }
+        if (known == 0) {
+            return null;
+        }
+        double[] sorted = Arrays.stream(costs).filter(c -> c >= 0).sorted().toArray();
+        double median = sorted[sorted.length / 2];
+        for (int i = 0; i < costs.length; i++) {
+            if (costs[i] < 0) {
+                costs[i] = median;
+            }
+        }
+        return costs;
+    }
+}
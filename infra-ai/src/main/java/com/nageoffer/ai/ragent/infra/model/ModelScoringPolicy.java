@@ -0,0 +1,43 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nageoffer.ai.ragent.infra.model;
+
+import java.util.List;
+
+/**
+ * 模型候选排序策略
+ * <p>
+ * 只在同一优先级组内调整先后：组与组之间的顺序、思考能力与熔断过滤都由 {@link ModelSelector} 先行处理，
+ * 策略看到的都是「配置上等价、此刻都能调」的候选，只负责按运行时负载挑谁打头
+ * <p>
+ * 由 {@code ai.selection.scoring-policy} 按 {@link #name()} 选用
+ */
+public interface ModelScoringPolicy {
+
+    /**
+     * 策略名，对应配置值
+     */
+    String name();
+
+    /**
+     * 对同一优先级组内的可用候选重新排序
+     *
+     * @param group 按配置顺序排列的候选，至少 2 个
+     * @return 重排后的候选，须包含且仅包含入参中的全部元素
+     */
+    List<ModelTarget> rank(List<ModelTarget> group);
+}
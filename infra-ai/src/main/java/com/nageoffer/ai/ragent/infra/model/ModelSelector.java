@@ -23,11 +23,14 @@ import com.nageoffer.ai.ragent.infra.enums.ModelProvider;
 import com.nageoffer.ai.ragent.infra.enums.Tier;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
 import org.springframework.stereotype.Component;
 
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -39,14 +42,22 @@ import java.util.stream.Collectors;
  * <p>
  * chat 组走档位机制：任务 → 档位（tier）→ 档位内有序候选；
  * embedding/rerank/vlm 组走 defaultModel + priority 的传统排序
+ * <p>
+ * chat 档位内同优先级的候选再交给 {@link ModelScoringPolicy} 按运行时负载排序，默认保持配置顺序
  */
 @Slf4j
 @Component
 @RequiredArgsConstructor
-public class ModelSelector {
+public class ModelSelector implements InitializingBean {
 
     private final AIModelProperties properties;
     private final ModelHealthStore healthStore;
+    private final List<ModelScoringPolicy> scoringPolicies;
+
+    /**
+     * chat 路由计划：注册表与各档位的静态候选在配置绑定后算好，每次选择只做熔断过滤与负载排序
+     */
+    private volatile ChatPlan chatPlan;
 
     /**
      * 选择 chat 候选（默认档位）
@@ -81,7 +92,25 @@ public class ModelSelector {
         }
         String tierName = resolveTierName(group, thinking, override);
         // 用户请求思考时，路由与 preferred 都必须过滤掉不支持思考的模型
-        return buildTierTargets(group, tierName, preferredModelId, thinking);
+        return buildTierTargets(resolveChatPlan(group, tierName), tierName, preferredModelId, thinking);
+    }
+
+    /**
+     * 启动时预先算好 chat 路由计划；配置在运行期被重新绑定（chat 组换了对象）或新增档位时，
+     * 由 {@link #resolveChatPlan} 在下次选择时发现并重建，无需外部通知
+     */
+    @Override
+    public void afterPropertiesSet() {
+        AIModelProperties.ModelGroup group = properties.getChat();
+        chatPlan = group == null ? null : buildChatPlan(group);
+    }
+
+    /**
+     * 解析 chat 默认档位名（不含档位覆盖），供按档位生效的流式策略（如首包对冲）查配置
+     */
+    public String resolveChatTierName(boolean thinking) {
+        AIModelProperties.ModelGroup group = properties.getChat();
+        return group == null ? null : resolveTierName(group, thinking, null);
     }
 
     public List<ModelTarget> selectEmbeddingCandidates() {
@@ -109,63 +138,146 @@ public class ModelSelector {
     }
 
     /**
-     * 按档位构造有序候选：preferred 置队首，随后拼接档位候选（去重），逐个过滤未启用/不健康/未登记
+     * 按档位构造有序候选：preferred 置队首，随后拼接档位候选（去重），过滤不健康候选后按优先级组排序
      * <p>
      * requireThinking 为 true 时额外剔除 supportsThinking!=true 的候选（含 preferred），
      * 避免把思考请求路由到无法思考的模型；命中的档位超时预算随每个 target 下沉
      *
      * @param requireThinking 是否要求候选支持思考链
      */
-    private List<ModelTarget> buildTierTargets(AIModelProperties.ModelGroup group, String tierName,
+    private List<ModelTarget> buildTierTargets(ChatPlan plan, String tierName,
                                                   String preferredModelId, boolean requireThinking) {
-        Map<String, AIModelProperties.ModelCandidate> registry = buildRegistry(group.getCandidates());
+        TierPlan tier = plan.tiers().get(tierName);
+        Long timeoutMs = tier == null ? null : tier.timeoutMs();
+        if (tier == null) {
+            log.warn("Chat 档位配置缺失: tier={}", tierName);
+        }
 
-        List<String> orderedIds = new ArrayList<>();
+        List<ModelTarget> targets = new ArrayList<>();
+        String preferredId = null;
         if (StrUtil.isNotBlank(preferredModelId)) {
-            AIModelProperties.ModelCandidate preferred = registry.get(preferredModelId);
+            AIModelProperties.ModelCandidate preferred = plan.registry().get(preferredModelId);
             if (preferred == null) {
                 log.warn("Chat preferred 模型未在注册表登记，忽略并回退档位候选: preferredModelId={}", preferredModelId);
             } else if (requireThinking && !supportsThinking(preferred)) {
                 log.warn("Chat preferred 模型不支持思考，思考请求下忽略: preferredModelId={}", preferredModelId);
             } else {
-                orderedIds.add(preferredModelId);
+                preferredId = preferredModelId;
+                if (!Boolean.FALSE.equals(preferred.getEnabled())) {
+                    ModelTarget target = buildModelTarget(preferred, properties.getProviders(), timeoutMs);
+                    if (target != null) {
+                        targets.add(target);
+                    }
+                }
             }
         }
-
-        AIModelProperties.TierConfig tier = group.getTiers() == null ? null : group.getTiers().get(tierName);
-        Long timeoutMs = tier == null ? null : tier.getTimeoutMs();
         if (tier == null) {
-            log.warn("Chat 档位配置缺失: tier={}", tierName);
-        } else {
-            for (String id : tier.getCandidates()) {
-                if (!orderedIds.contains(id)) {
-                    orderedIds.add(id);
-                }
-            }
+            return targets;
         }
 
-        Map<String, AIModelProperties.ProviderConfig> providers = properties.getProviders();
-        List<ModelTarget> targets = new ArrayList<>();
-        for (String id : orderedIds) {
-            AIModelProperties.ModelCandidate candidate = registry.get(id);
-            if (candidate == null) {
-                log.warn("Chat 档位候选 id 未在注册表登记: id={}, tier={}", id, tierName);
+        List<ModelTarget> available = new ArrayList<>(tier.targets().size());
+        for (ModelTarget target : tier.targets()) {
+            if (target.id().equals(preferredId)) {
                 continue;
             }
-            if (Boolean.FALSE.equals(candidate.getEnabled())) {
+            if (requireThinking && !supportsThinking(target.candidate())) {
                 continue;
             }
-            if (requireThinking && !supportsThinking(candidate)) {
+            if (healthStore.isUnavailable(target.id())) {
                 continue;
             }
-            ModelTarget target = buildModelTarget(candidate, providers, timeoutMs);
-            if (target != null) {
-                targets.add(target);
-            }
+            available.add(target);
         }
+        targets.addAll(rankByPriorityGroup(plan.scoringPolicy(), available));
         return targets;
     }
 
+    /**
+     * 按优先级切成连续的组，只在组内交给排序策略：显式配了不同 priority 的候选始终保持先后
+     */
+    private List<ModelTarget> rankByPriorityGroup(ModelScoringPolicy policy, List<ModelTarget> targets) {
+        if (targets.size() < 2 || StaticScoringPolicy.NAME.equals(policy.name())) {
+            return targets;
+        }
+        List<ModelTarget> ranked = new ArrayList<>(targets.size());
+        int from = 0;
+        while (from < targets.size()) {
+            Integer priority = targets.get(from).candidate().getPriority();
+            int to = from + 1;
+            while (to < targets.size() && Objects.equals(priority, targets.get(to).candidate().getPriority())) {
+                to++;
+            }
+            List<ModelTarget> group = targets.subList(from, to);
+            ranked.addAll(group.size() < 2 ? group : policy.rank(group));
+            from = to;
+        }
+        return ranked;
+    }
+
+    /**
+     * 取当前路由计划；首次使用或档位配置里新出现了计划中没有的档位时重建
+     */
+    private ChatPlan resolveChatPlan(AIModelProperties.ModelGroup group, String tierName) {
+        ChatPlan plan = chatPlan;
+        if (plan != null && plan.source() == group
+                && (plan.tiers().containsKey(tierName) || group.getTiers() == null || !group.getTiers().containsKey(tierName))) {
+            return plan;
+        }
+        synchronized (this) {
+            plan = chatPlan;
+            if (plan == null || plan.source() != group
+                    || (!plan.tiers().containsKey(tierName) && group.getTiers() != null && group.getTiers().containsKey(tierName))) {
+                plan = buildChatPlan(group);
+                chatPlan = plan;
+            }
+            return plan;
+        }
+    }
+
+    private ChatPlan buildChatPlan(AIModelProperties.ModelGroup group) {
+        Map<String, AIModelProperties.ModelCandidate> registry = buildRegistry(group.getCandidates());
+        Map<String, AIModelProperties.ProviderConfig> providers = properties.getProviders();
+        Map<String, TierPlan> tiers = new HashMap<>();
+        if (group.getTiers() != null) {
+            group.getTiers().forEach((tierName, tier) -> {
+                List<ModelTarget> targets = new ArrayList<>();
+                for (String id : new LinkedHashSet<>(tier.getCandidates())) {
+                    AIModelProperties.ModelCandidate candidate = registry.get(id);
+                    if (candidate == null) {
+                        log.warn("Chat 档位候选 id 未在注册表登记: id={}, tier={}", id, tierName);
+                        continue;
+                    }
+                    if (Boolean.FALSE.equals(candidate.getEnabled())) {
+                        continue;
+                    }
+                    ModelTarget target = resolveTarget(candidate, providers, tier.getTimeoutMs());
+                    if (target != null) {
+                        targets.add(target);
+                    }
+                }
+                tiers.put(tierName, new TierPlan(tier.getTimeoutMs(), List.copyOf(targets)));
+            });
+        }
+        return new ChatPlan(group, Map.copyOf(registry), tiers, resolveScoringPolicy());
+    }
+
+    private ModelScoringPolicy resolveScoringPolicy() {
+        String name = properties.getSelection().getScoringPolicy();
+        ModelScoringPolicy fallback = new StaticScoringPolicy();
+        if (scoringPolicies == null) {
+            return fallback;
+        }
+        for (ModelScoringPolicy policy : scoringPolicies) {
+            if (policy.name().equals(name)) {
+                return policy;
+            }
+        }
+        if (StrUtil.isNotBlank(name) && !StaticScoringPolicy.NAME.equals(name)) {
+            log.warn("未知的模型排序策略，按配置顺序路由: scoringPolicy={}", name);
+        }
+        return fallback;
+    }
+
     private boolean supportsThinking(AIModelProperties.ModelCandidate candidate) {
         return Boolean.TRUE.equals(candidate.getSupportsThinking());
     }
@@ -226,11 +338,19 @@ public class ModelSelector {
     private ModelTarget buildModelTarget(AIModelProperties.ModelCandidate candidate,
                                          Map<String, AIModelProperties.ProviderConfig> providers,
                                          Long timeoutMs) {
-        String modelId = resolveId(candidate);
-
-        if (healthStore.isUnavailable(modelId)) {
+        if (healthStore.isUnavailable(resolveId(candidate))) {
             return null;
         }
+        return resolveTarget(candidate, providers, timeoutMs);
+    }
+
+    /**
+     * 解析提供商并构造目标，不做熔断判断
+     */
+    private ModelTarget resolveTarget(AIModelProperties.ModelCandidate candidate,
+                                      Map<String, AIModelProperties.ProviderConfig> providers,
+                                      Long timeoutMs) {
+        String modelId = resolveId(candidate);
 
         AIModelProperties.ProviderConfig provider = providers.get(candidate.getProvider());
         if (provider == null && !ModelProvider.NOOP.matches(candidate.getProvider())) {
@@ -249,4 +369,13 @@ public class ModelSelector {
                 Objects.toString(candidate.getProvider(), "unknown"),
                 Objects.toString(candidate.getModel(), "unknown"));
     }
+
+    private record ChatPlan(AIModelProperties.ModelGroup source,
+                            Map<String, AIModelProperties.ModelCandidate> registry,
+                            Map<String, TierPlan> tiers,
+                            ModelScoringPolicy scoringPolicy) {
+    }
+
+    private record TierPlan(Long timeoutMs, List<ModelTarget> targets) {
+    }
 }
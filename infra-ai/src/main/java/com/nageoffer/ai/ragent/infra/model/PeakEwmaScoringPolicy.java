@@ -0,0 +1,55 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nageoffer.ai.ragent.infra.model;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * 峰值 EWMA 排序：组内按负载代价升序，代价相同保持配置顺序
+ * <p>
+ * 首包延迟的 EWMA 对变慢峰值敏感，一个健康但慢了三倍的节点下一次选择就会让位
+ */
+@Component
+@RequiredArgsConstructor
+public class PeakEwmaScoringPolicy implements ModelScoringPolicy {
+
+    private final ModelLoadCost loadCost;
+
+    @Override
+    public String name() {
+        return "peak-ewma";
+    }
+
+    @Override
+    public List<ModelTarget> rank(List<ModelTarget> group) {
+        double[] costs = loadCost.of(group);
+        if (costs == null) {
+            return group;
+        }
+        List<Integer> order = new ArrayList<>(group.size());
+        for (int i = 0; i < group.size(); i++) {
+            order.add(i);
+        }
+        order.sort(Comparator.comparingDouble(i -> costs[i]));
+        return order.stream().map(group::get).toList();
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nageoffer.ai.ragent.infra.model;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 随机两选一：组内随机抽两个候选，代价低的打头，其余保持配置顺序作为降级链
+ * <p>
+ * 与峰值 EWMA 全排序相比不会让所有节点同时涌向同一个「当前最快」的模型，
+ * 统计有滞后时负载分布更平滑
+ */
+@Component
+@RequiredArgsConstructor
+public class PowerOfTwoChoicesScoringPolicy implements ModelScoringPolicy {
+
+    private final ModelLoadCost loadCost;
+
+    @Override
+    public String name() {
+        return "p2c";
+    }
+
+    @Override
+    public List<ModelTarget> rank(List<ModelTarget> group) {
+        double[] costs = loadCost.of(group);
+        if (costs == null) {
+            return group;
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int a = random.nextInt(group.size());
+        int b = random.nextInt(group.size() - 1);
+        if (b >= a) {
+            b++;
+        }
+        int first = Math.min(a, b);
+        int second = Math.max(a, b);
+        // 同代价取配置靠前者
+        int winner = costs[second] < costs[first] ? second : first;
+
+        List<ModelTarget> ranked = new ArrayList<>(group.size());
+        ranked.add(group.get(winner));
+        for (int i = 0; i < group.size(); i++) {
+            if (i != winner) {
+                ranked.add(group.get(i));
+            }
+        }
+        return ranked;
+    }
+}
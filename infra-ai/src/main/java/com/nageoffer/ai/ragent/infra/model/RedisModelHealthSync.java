@@ -0,0 +1,278 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nageoffer.ai.ragent.infra.model;
+
+import cn.hutool.core.util.StrUtil;
+import com.nageoffer.ai.ragent.infra.config.AIModelProperties;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RScript;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 基于 Redis 的模型熔断集群同步
+ * <p>
+ * 单节点熔断在多实例部署下有两个问题：每个节点都要各自烧掉 failureThreshold 次失败才熔断，
+ * 熔断到期时所有节点又同时发起半开探测，恰好把刚恢复的供应商再压垮一次。这里用三样东西解决：
+ * <ul>
+ *   <li>失败计数：各节点的失败记入同一个滑动窗口（ZSET，成员按失败时刻打分、写入时裁掉窗口外的旧失败），
+ *   窗口内累计到阈值即熔断；任一节点的一次成功清空窗口，与单节点的「连续失败」语义一致</li>
+ *   <li>状态广播：任一节点判定熔断或半开探测成功，经 Topic 通知全部节点写入本地状态；窗口从空变为非空时
+ *   也广播一次，让其他节点知道成功时需要去清空窗口</li>
+ *   <li>探测租约：熔断到期后只有抢到租约的节点能放行探测请求，其余节点继续拒绝直到收到结论</li>
+ * </ul>
+ * 所有 Redis 操作都是异步的，判断始终基于本地状态，Redis 抖动时退化为各节点独立熔断
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "ai.selection.cluster", name = "enabled", havingValue = "true")
+public class RedisModelHealthSync implements ModelCircuitSync {
+
+    static final String TOPIC = "ragent:model:circuit:changed";
+    private static final String FAILURE_KEY_PREFIX = "ragent:model:circuit:failures:";
+    private static final String PROBE_KEY_PREFIX = "ragent:model:circuit:probe:";
+
+    private static final String OPEN = "OPEN";
+    private static final String CLOSED = "CLOSED";
+    private static final String FAILING = "FAILING";
+
+    /**
+     * 记一次失败并返回窗口内失败数：先裁掉窗口外的旧失败，再写入本次，过期时间随每次写入顺延
+     */
+    private static final String RECORD_FAILURE_LUA = """
+            local now = tonumber(ARGV[1])
+            local window = tonumber(ARGV[2])
+            redis.call('ZREMRANGEBYSCORE', KEYS[1], '-inf', now - window)
+            redis.call('ZADD', KEYS[1], now, ARGV[3])
+            redis.call('PEXPIRE', KEYS[1], window)
+            return redis.call('ZCARD', KEYS[1])
+            """;
+
+    private final RedissonClient redissonClient;
+    private final ModelHealthStore healthStore;
+    private final AIModelProperties properties;
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final AtomicLong failureSeq = new AtomicLong();
+
+    /**
+     * 本节点已知集群窗口内有失败的模型（本节点记录的，或收到 FAILING 广播的），成功时只有它们才需要去 Redis 清空窗口
+     */
+    private final Set<String> knownFailing = ConcurrentHashMap.newKeySet();
+    private final Map<String, ProbeLease> probeLeases = new ConcurrentHashMap<>();
+
+    private int listenerId = -1;
+
+    /**
+     * 探测租约的本地视图
+     *
+     * @param heldUntil     本节点持有租约的截止时间，与 Redis 中的租约同时到期
+     * @param acquiring     是否有一次异步争抢在途
+     * @param nextAttemptAt 争抢失败后的下一次尝试时间，避免每个请求都打一次 Redis
+     */
+    private record ProbeLease(long heldUntil, boolean acquiring, long nextAttemptAt) {
+
+        static final ProbeLease IDLE = new ProbeLease(0L, false, 0L);
+
+        boolean held(long now) {
+            return heldUntil > now;
+        }
+    }
+
+    @PostConstruct
+    public void subscribe() {
+        listenerId = redissonClient.getTopic(TOPIC, StringCodec.INSTANCE)
+                .addListener(String.class, (channel, payload) -> onMessage(payload));
+        healthStore.attachClusterSync(this);
+    }
+
+    @PreDestroy
+    public void unsubscribe() {
+        healthStore.detachClusterSync(this);
+        if (listenerId == -1) {
+            return;
+        }
+        redissonClient.getTopic(TOPIC, StringCodec.INSTANCE).removeListener(listenerId);
+    }
+
+    @Override
+    public void onFailure(String modelId) {
+        long threshold = properties.getSelection().getFailureThreshold();
+        knownFailing.add(modelId);
+        redissonClient.getScript(StringCodec.INSTANCE).<Long>evalAsync(
+                RScript.Mode.READ_WRITE,
+                RECORD_FAILURE_LUA,
+                RScript.ReturnType.LONG,
+                List.of(FAILURE_KEY_PREFIX + modelId),
+                String.valueOf(System.currentTimeMillis()),
+                String.valueOf(failureWindowMs()),
+                nodeId + ":" + failureSeq.incrementAndGet()
+        ).whenComplete((count, ex) -> {
+            if (ex != null) {
+                log.warn("集群失败计数累加失败，退化为本地熔断，modelId: {}", modelId, ex);
+                return;
+            }
+            if (count == 1L && threshold > 1L) {
+                publish(FAILING + "|" + modelId);
+            }
+            // 只有恰好跨过阈值的那一次负责广播，并发失败不会重复熔断
+            if (count == threshold) {
+                long openDurationMs = properties.getSelection().getOpenDurationMs();
+                clearFailures(modelId);
+                publish(OPEN + "|" + modelId + "|" + openDurationMs);
+            }
+        });
+    }
+
+    @Override
+    public void onSuccess(String modelId) {
+        // 不论失败记在哪个节点，任一节点的成功都清空窗口
+        if (knownFailing.remove(modelId)) {
+            clearFailures(modelId);
+        }
+    }
+
+    @Override
+    public void onOpened(String modelId, long openDurationMs) {
+        clearFailures(modelId);
+        releaseProbe(modelId);
+        publish(OPEN + "|" + modelId + "|" + openDurationMs);
+    }
+
+    @Override
+    public void onClosed(String modelId) {
+        knownFailing.remove(modelId);
+        releaseProbe(modelId);
+        publish(CLOSED + "|" + modelId);
+    }
+
+    @Override
+    public boolean tryAcquireProbe(String modelId) {
+        long now = System.currentTimeMillis();
+        ProbeLease lease = probeLeases.getOrDefault(modelId, ProbeLease.IDLE);
+        if (lease.held(now)) {
+            return true;
+        }
+        if (lease.acquiring() || now < lease.nextAttemptAt()) {
+            return false;
+        }
+        ProbeLease acquiring = new ProbeLease(0L, true, 0L);
+        if (!replaceLease(modelId, lease, acquiring)) {
+            return false;
+        }
+        long leaseMs = properties.getSelection().getCluster().getProbeLeaseMs();
+        redissonClient.<String>getBucket(PROBE_KEY_PREFIX + modelId, StringCodec.INSTANCE)
+                .setIfAbsentAsync(nodeId, Duration.ofMillis(leaseMs))
+                .whenComplete((acquired, ex) -> {
+                    boolean held = ex == null && Boolean.TRUE.equals(acquired);
+                    // 没抢到时等上一小段再试：持有者的结论通常会先经 Topic 到达
+                    long retryAt = held ? 0L : System.currentTimeMillis() + Math.min(leaseMs, 1000L);
+                    long heldUntil = held ? now + leaseMs : 0L;
+                    probeLeases.replace(modelId, acquiring, new ProbeLease(heldUntil, false, retryAt));
+                    if (ex != null) {
+                        log.warn("获取半开探测租约失败，modelId: {}", modelId, ex);
+                    }
+                });
+        return false;
+    }
+
+    @Override
+    public void releaseProbe(String modelId) {
+        ProbeLease lease = probeLeases.get(modelId);
+        if (lease == null || !lease.held(System.currentTimeMillis()) || !probeLeases.remove(modelId, lease)) {
+            return;
+        }
+        redissonClient.<String>getBucket(PROBE_KEY_PREFIX + modelId, StringCodec.INSTANCE)
+                .compareAndSetAsync(nodeId, null);
+    }
+
+    /**
+     * 应用其他节点广播的状态变更，自己发出的消息也会回到这里，写入是幂等的
+     */
+    void onMessage(String payload) {
+        if (StrUtil.isBlank(payload)) {
+            return;
+        }
+        int first = payload.indexOf('|');
+        if (first <= 0) {
+            return;
+        }
+        String type = payload.substring(0, first);
+        try {
+            if (OPEN.equals(type)) {
+                int last = payload.lastIndexOf('|');
+                if (last <= first) {
+                    return;
+                }
+                String modelId = payload.substring(first + 1, last);
+                long openDurationMs = Long.parseLong(payload.substring(last + 1));
+                knownFailing.remove(modelId);
+                releaseProbe(modelId);
+                healthStore.applyRemoteOpen(modelId, openDurationMs);
+            } else if (CLOSED.equals(type)) {
+                String modelId = payload.substring(first + 1);
+                knownFailing.remove(modelId);
+                releaseProbe(modelId);
+                healthStore.applyRemoteClose(modelId);
+            } else if (FAILING.equals(type)) {
+                knownFailing.add(payload.substring(first + 1));
+            }
+        } catch (NumberFormatException ex) {
+            log.warn("忽略无法解析的熔断广播: {}", payload);
+        }
+    }
+
+    private void clearFailures(String modelId) {
+        knownFailing.remove(modelId);
+        redissonClient.getScoredSortedSet(FAILURE_KEY_PREFIX + modelId, StringCodec.INSTANCE).deleteAsync();
+    }
+
+    private boolean replaceLease(String modelId, ProbeLease expected, ProbeLease update) {
+        if (expected == ProbeLease.IDLE) {
+            return probeLeases.putIfAbsent(modelId, update) == null;
+        }
+        return probeLeases.replace(modelId, expected, update);
+    }
+
+    private void publish(String payload) {
+        redissonClient.getTopic(TOPIC, StringCodec.INSTANCE).publishAsync(payload)
+                .whenComplete((receivers, ex) -> {
+                    if (ex != null) {
+                        log.warn("熔断状态广播失败: {}", payload, ex);
+                    }
+                });
+    }
+
+    private long failureWindowMs() {
+        return properties.getSelection().getCluster().getFailureWindowMs();
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nageoffer.ai.ragent.infra.rerank;
+
+import cn.hutool.core.util.StrUtil;
+import cn.hutool.crypto.SecureUtil;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.nageoffer.ai.ragent.framework.convention.RetrievedChunk;
+import com.nageoffer.ai.ragent.infra.config.AIModelProperties;
+import com.nageoffer.ai.ragent.infra.enums.ModelProvider;
+import com.nageoffer.ai.ragent.infra.model.ModelTarget;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.regex.Pattern;
+
+/**
+ * 精排分数的进程内缓存
+ * <p>
+ * 键为 (模型ID, 问题 SHA-256, 分块ID, 分块内容 SHA-256)：同一模型对同一 (问题, 文本) 对的打分是确定的，
+ * 热门问题与「重新生成」会在短时间内把同一批候选原样再送一遍，命中部分不必再打供应商
+ * <p>
+ * 分块内容变更不需要显式失效：内容哈希在键里，改过的分块自然未命中、重新打分，旧条目由 LRU 淘汰
+ * <p>
+ * 与 {@link com.nageoffer.ai.ragent.infra.embedding.EmbeddingCache} 一样按模型粒度嵌在路由降级的每一次尝试里，
+ * 降级到备用模型时查的是备用模型自己的分，不会把两把尺子的分混进同一个排序
+ */
+@Slf4j
+@Component
+public class RerankScoreCache {
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final AIModelProperties.RerankCache config;
+    private final Cache<String, Float> scores;
+
+    public RerankScoreCache(AIModelProperties properties) {
+        this.config = properties.getRerankCache();
+        this.scores = CacheBuilder.newBuilder()
+                .maximumSize(Math.max(config.getMaxEntries(), 0))
+                .expireAfterWrite(Math.max(config.getTtlSeconds(), 1), TimeUnit.SECONDS)
+                .build();
+    }
+
+    /**
+     * 先按 (问题, 分块) 查分，只把未命中的候选交给 loader 精排，缓存分与新分合并后按精排分降序截断到 topN
+     * <p>
+     * 未命中部分按自身条数请求 topN：只要前 N 条会让排在后面的候选拿不到分，下次还得重送；
+     * 供应商按送入文档计费，放宽返回条数不增加成本。loader 没给出分的候选不入缓存，按 0 分沉底且不写 {@code rerankScore}，
+     * 与客户端自身的降级口径一致，证据闸门据此认出没经过精排
+     *
+     * @param target     本次尝试的模型
+     * @param query      用户问题
+     * @param candidates 待精排候选
+     * @param topN       最终保留条数
+     * @param loader     对未命中候选的精排，入参为 (候选, topN)
+     * @return 精排后的前 topN 条，按精排分降序
+     */
+    public List<RetrievedChunk> getOrRerank(ModelTarget target, String query, List<RetrievedChunk> candidates, int topN,
+                                            BiFunction<List<RetrievedChunk>, Integer, List<RetrievedChunk>> loader) {
+        if (!Boolean.TRUE.equals(config.getEnabled()) || isNoop(target) || StrUtil.isBlank(query)
+                || candidates == null || candidates.isEmpty() || topN <= 0) {
+            return loader.apply(candidates, topN);
+        }
+
+        String keyPrefix = target.id() + ':' + SecureUtil.sha256(normalizeQuery(query)) + ':';
+        // 去重：key 为分块ID，value 为缓存键；与客户端一致按ID保留首次出现
+        Map<String, String> keyById = new LinkedHashMap<>();
+        List<RetrievedChunk> unique = new ArrayList<>(candidates.size());
+        for (RetrievedChunk candidate : candidates) {
+            if (candidate.getId() != null && !keyById.containsKey(candidate.getId())) {
+                keyById.put(candidate.getId(),
+                        keyPrefix + candidate.getId() + ':' + SecureUtil.sha256(StrUtil.nullToEmpty(candidate.getText())));
+                unique.add(candidate);
+            }
+        }
+
+        Map<String, RetrievedChunk> resolved = new HashMap<>(unique.size() * 2);
+        List<RetrievedChunk> misses = new ArrayList<>();
+        for (RetrievedChunk candidate : unique) {
+            Float score = scores.getIfPresent(keyById.get(candidate.getId()));
+            if (score != null) {
+                resolved.put(candidate.getId(), candidate.toBuilder().score(score).rerankScore(score).build());
+            } else {
+                misses.add(candidate);
+            }
+        }
+        int hits = resolved.size();
+
+        if (!misses.isEmpty()) {
+            List<RetrievedChunk> fresh = loader.apply(misses, misses.size());
+            if (fresh != null) {
+                for (RetrievedChunk chunk : fresh) {
+                    String key = chunk.getId() == null ? null : keyById.get(chunk.getId());
+                    if (key != null && resolved.putIfAbsent(chunk.getId(), chunk) == null
+                            && chunk.getRerankScore() != null) {
+                        scores.put(key, chunk.getRerankScore());
+                    }
+                }
+            }
+        }
+
+        List<RetrievedChunk> merged = new ArrayList<>(unique.size());
+        for (RetrievedChunk candidate : unique) {
+            RetrievedChunk chunk = resolved.get(candidate.getId());
+            merged.add(chunk != null ? chunk : candidate.toBuilder().score(0F).build());
+        }
+        // 稳定排序：同分（含沉底的 0 分）保持检索名次
+        merged.sort(RetrievedChunk.BY_SCORE_DESC);
+
+        log.debug("精排分数缓存，modelId={}, candidates={}, hits={}, misses={}",
+                target.id(), unique.size(), hits, misses.size());
+        return merged.size() > topN ? new ArrayList<>(merged.subList(0, topN)) : merged;
+    }
+
+    /**
+     * 只折叠首尾与连续空白：精排模型对大小写、标点敏感，折叠得更狠会把不同的分当成同一个
+     */
+    private static String normalizeQuery(String query) {
+        return WHITESPACE.matcher(query.trim()).replaceAll(" ");
+    }
+
+    /**
+     * noop 不出分、原样透传检索分，经缓存合并会按检索分重排，直接绕过
+     */
+    private static boolean isNoop(ModelTarget target) {
+        return target.candidate() != null && ModelProvider.NOOP.getId().equals(target.candidate().getProvider());
+    }
+}
@@ -34,6 +34,8 @@ import java.util.stream.Collectors;
  * <p>
  * 该服务通过模型路由机制动态选择合适的重排客户端，并支持失败降级策略
  * 作为主要的重排服务实现，用于对检索到的文档块进行相关性重新排序
+ * <p>
+ * 每次尝试先经过 {@link RerankScoreCache}，只有未打过分的 (问题, 分块) 才会真正发往模型供应商
  */
 @Service
 @Primary
@@ -42,10 +44,13 @@ public class RoutingRerankService implements RerankService {
     private final ModelSelector selector;
     private final ModelRoutingExecutor executor;
     private final Map<String, RerankClient> clientsByProvider;
+    private final RerankScoreCache cache;
 
-    public RoutingRerankService(ModelSelector selector, ModelRoutingExecutor executor, List<RerankClient> clients) {
+    public RoutingRerankService(ModelSelector selector, ModelRoutingExecutor executor, List<RerankClient> clients,
+                                RerankScoreCache cache) {
         this.selector = selector;
         this.executor = executor;
+        this.cache = cache;
         this.clientsByProvider = clients.stream()
                 .collect(Collectors.toMap(RerankClient::provider, Function.identity()));
     }
@@ -56,7 +61,8 @@ public class RoutingRerankService implements RerankService {
                 ModelCapability.RERANK,
                 selector.selectRerankCandidates(),
                 target -> clientsByProvider.get(target.candidate().getProvider()),
-                (client, target) -> client.rerank(query, candidates, topN, target)
+                (client, target) -> cache.getOrRerank(target, query, candidates, topN,
+                        (misses, missTopN) -> client.rerank(query, misses, missTopN, target))
         );
     }
 }
@@ -74,6 +74,80 @@ class OpenAIStyleSseParserTest {
         assertTrue(event.completed());
     }
 
+    @Test
+    void escapedContentShouldBeDecoded() {
+        OpenAIStyleSseParser.ParsedEvent event = OpenAIStyleSseParser.parseLine(
+                "data: {\"choices\":[{\"delta\":{\"content\":\"a\\\"b\\n\\u4f60\"}}]}", GSON, false);
+        assertEquals("a\"b\n你", event.content());
+    }
+
+    @Test
+    void unrelatedFieldsShouldBeSkipped() {
+        OpenAIStyleSseParser.ParsedEvent event = OpenAIStyleSseParser.parseLine(
+                "data: {\"id\":\"c-1\",\"meta\":{\"tags\":[\"}\",{\"x\":[1,2]}]},\"created\":17,"
+                        + "\"choices\":[{\"index\":0,\"logprobs\":null,\"delta\":{\"role\":\"assistant\",\"content\":\"好\"},"
+                        + "\"finish_reason\":null},{\"delta\":{\"content\":\"ignored\"}}]}", GSON, false);
+        assertEquals("好", event.content());
+        assertFalse(event.completed());
+    }
+
+    @Test
+    void messageShouldBeUsedWhenDeltaHasNoContent() {
+        OpenAIStyleSseParser.ParsedEvent event = OpenAIStyleSseParser.parseLine(
+                "data: {\"choices\":[{\"delta\":{\"content\":null},\"message\":{\"content\":\"完整\"}}]}", GSON, false);
+        assertEquals("完整", event.content());
+    }
+
+    @Test
+    void reasoningShouldBeIgnoredWhenDisabled() {
+        OpenAIStyleSseParser.ParsedEvent event = OpenAIStyleSseParser.parseLine(
+                "data: {\"choices\":[{\"delta\":{\"reasoning_content\":\"思考中\"}}]}", GSON, false);
+        assertFalse(event.hasReasoning());
+    }
+
+    @Test
+    void usageShouldBeExtracted() {
+        OpenAIStyleSseParser.ParsedEvent event = OpenAIStyleSseParser.parseLine(
+                "data: {\"choices\":[{\"delta\":{},\"finish_reason\":\"stop\"}],"
+                        + "\"usage\":{\"prompt_tokens\":12,\"completion_tokens\":34,\"total_tokens\":46,\"details\":{\"cached\":0}}}",
+                GSON, false);
+        assertTrue(event.completed());
+        assertEquals(new OpenAIStyleSseParser.Usage(12, 34, 46), event.usage());
+    }
+
+    @Test
+    void usageOnlyChunkShouldNotComplete() {
+        OpenAIStyleSseParser.ParsedEvent event = OpenAIStyleSseParser.parseLine(
+                "data: {\"choices\":[],\"usage\":{\"prompt_tokens\":1,\"completion_tokens\":2,\"total_tokens\":3}}", GSON, false);
+        assertFalse(event.completed());
+        assertEquals(3, event.usage().totalTokens());
+    }
+
+    @Test
+    void unknownShapeShouldFallBackToTreeParsing() {
+        OpenAIStyleSseParser.ParsedEvent event = OpenAIStyleSseParser.parseLine(
+                "data: {\"choices\":[{\"delta\":{\"content\":42}}]}", GSON, false);
+        assertEquals("42", event.content());
+    }
+
+    @Test
+    void typicalChunkShouldNotNeedTreeParsing() {
+        // 不传 Gson：常见 chunk 若走了树解析回退会直接 NPE
+        OpenAIStyleSseParser.ParsedEvent event = OpenAIStyleSseParser.parseLine(
+                "data: {\"id\":\"c-1\",\"object\":\"chat.completion.chunk\",\"created\":1700000000,\"model\":\"qwen-plus\","
+                        + "\"choices\":[{\"index\":0,\"delta\":{\"content\":\"你好\",\"reasoning_content\":null},"
+                        + "\"logprobs\":null,\"finish_reason\":null}],\"system_fingerprint\":null}", null, true);
+        assertEquals("你好", event.content());
+        assertFalse(event.hasReasoning());
+    }
+
+    @Test
+    void sseCommentLineShouldReturnEmptyEvent() {
+        OpenAIStyleSseParser.ParsedEvent event = OpenAIStyleSseParser.parseLine(": keep-alive", GSON, false);
+        assertFalse(event.hasContent());
+        assertFalse(event.completed());
+    }
+
     @Test
     void blankLineShouldReturnEmptyEvent() {
         OpenAIStyleSseParser.ParsedEvent event = OpenAIStyleSseParser.parseLine("", GSON, false);
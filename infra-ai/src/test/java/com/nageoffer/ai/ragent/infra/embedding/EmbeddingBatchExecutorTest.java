@@ -0,0 +1,199 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nageoffer.ai.ragent.infra.embedding;
+
+import com.nageoffer.ai.ragent.infra.config.AIModelProperties;
+import com.nageoffer.ai.ragent.infra.http.ModelClientErrorType;
+import com.nageoffer.ai.ragent.infra.http.ModelClientException;
+import com.nageoffer.ai.ragent.infra.model.ModelTarget;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 并发批量契约：结果保序、在途不超上限、限流只重试失败切片并收缩、不可重试错误交给路由降级
+ */
+class EmbeddingBatchExecutorTest {
+
+    private final ExecutorService pool = Executors.newFixedThreadPool(8);
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("切片乱序完成，结果仍按入参顺序拼回，且在途数不超过上限")
+    void preservesOrderUnderConcurrency() {
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        StubClient client = new StubClient(4, slice -> {
+            int now = inFlight.incrementAndGet();
+            peak.accumulateAndGet(now, Math::max);
+            // 越靠前的切片越慢，制造乱序完成
+            sleep(40 - Integer.parseInt(slice.get(0)) / 4);
+            inFlight.decrementAndGet();
+            return null;
+        });
+        List<String> texts = IntStream.range(0, 40).mapToObj(String::valueOf).toList();
+
+        List<float[]> result = newExecutor(properties(3)).execute(client, target(), texts);
+
+        for (int i = 0; i < texts.size(); i++) {
+            assertEquals((float) i, result.get(i)[0], "第 " + i + " 条错位");
+        }
+        assertTrue(peak.get() <= 3, "在途数超过上限：" + peak.get());
+        assertTrue(peak.get() > 1, "没有并发：" + peak.get());
+    }
+
+    @Test
+    @DisplayName("某个切片被限流：只重试这一片，已成功的切片不重发，批大小收缩")
+    void retriesOnlyRateLimitedSlice() {
+        AtomicInteger firstSliceCalls = new AtomicInteger();
+        StubClient client = new StubClient(8, slice -> {
+            if (slice.get(0).equals("0") && firstSliceCalls.incrementAndGet() == 1) {
+                return new ModelClientException("429", ModelClientErrorType.RATE_LIMITED, 429);
+            }
+            return null;
+        });
+        List<String> texts = IntStream.range(0, 32).mapToObj(String::valueOf).toList();
+        EmbeddingBatchExecutor executor = newExecutor(properties(2));
+
+        List<float[]> result = executor.execute(client, target(), texts);
+
+        assertEquals(32, result.size());
+        assertEquals(2, firstSliceCalls.get());
+        // 被限流的首片整片重发一次，其余文本都只发过一次
+        for (int i = 0; i < texts.size(); i++) {
+            int expected = i < 8 ? 2 : 1;
+            assertEquals(expected, client.sendCounts.get(String.valueOf(i)).get(), "文本 " + i + " 的发送次数");
+        }
+        assertTrue(executor.snapshots().get(0).batchSize() < 8, "限流后批大小应收缩");
+    }
+
+    @Test
+    @DisplayName("重试用尽的限流同样计入控制器：抛出的同时批大小收缩")
+    void exhaustedRateLimitStillShrinksBatch() {
+        StubClient client = new StubClient(8, slice ->
+                new ModelClientException("429", ModelClientErrorType.RATE_LIMITED, 429));
+        List<String> texts = IntStream.range(0, 16).mapToObj(String::valueOf).toList();
+        AIModelProperties properties = properties(1);
+        properties.getEmbeddingBatch().setMaxSliceRetries(0);
+        EmbeddingBatchExecutor executor = newExecutor(properties);
+
+        ModelClientException e = assertThrows(ModelClientException.class,
+                () -> executor.execute(client, target(), texts));
+
+        assertEquals(ModelClientErrorType.RATE_LIMITED, e.getErrorType());
+        assertTrue(executor.snapshots().get(0).batchSize() < 8, "最后一次限流也应让批大小收缩");
+    }
+
+    @Test
+    @DisplayName("不可重试错误直接抛出，交由路由执行器降级")
+    void nonRetriableErrorPropagates() {
+        StubClient client = new StubClient(4, slice ->
+                new ModelClientException("401", ModelClientErrorType.UNAUTHORIZED, 401));
+        List<String> texts = IntStream.range(0, 16).mapToObj(String::valueOf).toList();
+
+        ModelClientException e = assertThrows(ModelClientException.class,
+                () -> newExecutor(properties(2)).execute(client, target(), texts));
+        assertEquals(ModelClientErrorType.UNAUTHORIZED, e.getErrorType());
+    }
+
+    private EmbeddingBatchExecutor newExecutor(AIModelProperties properties) {
+        return new EmbeddingBatchExecutor(properties, pool);
+    }
+
+    private static AIModelProperties properties(int concurrency) {
+        AIModelProperties properties = new AIModelProperties();
+        AIModelProperties.EmbeddingBatch batch = properties.getEmbeddingBatch();
+        batch.setMaxConcurrency(concurrency);
+        batch.setInitialConcurrency(concurrency);
+        batch.setMinBatchSize(1);
+        batch.setRetryBackoffMs(1L);
+        return properties;
+    }
+
+    private static ModelTarget target() {
+        AIModelProperties.ModelCandidate candidate = new AIModelProperties.ModelCandidate();
+        candidate.setId("stub-emb");
+        candidate.setProvider("stub");
+        return new ModelTarget("stub-emb", candidate, new AIModelProperties.ProviderConfig(), null);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(Math.max(0, millis));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 假客户端：向量取文本本身的数值；behavior 返回非 null 异常时抛出
+     */
+    private static final class StubClient implements EmbeddingClient {
+
+        private final int maxBatchSize;
+        private final Function<List<String>, RuntimeException> behavior;
+        private final Map<String, AtomicInteger> sendCounts = new ConcurrentHashMap<>();
+
+        private StubClient(int maxBatchSize, Function<List<String>, RuntimeException> behavior) {
+            this.maxBatchSize = maxBatchSize;
+            this.behavior = behavior;
+        }
+
+        @Override
+        public String provider() {
+            return "stub";
+        }
+
+        @Override
+        public float[] embed(String text, ModelTarget target) {
+            return embedBatch(List.of(text), target).get(0);
+        }
+
+        @Override
+        public List<float[]> embedBatch(List<String> texts, ModelTarget target) {
+            texts.forEach(t -> sendCounts.computeIfAbsent(t, k -> new AtomicInteger()).incrementAndGet());
+            RuntimeException failure = behavior.apply(texts);
+            if (failure != null) {
+                throw failure;
+            }
+            return texts.stream().map(t -> new float[]{Float.parseFloat(t)}).toList();
+        }
+
+        @Override
+        public int maxBatchSize() {
+            return maxBatchSize;
+        }
+    }
+}
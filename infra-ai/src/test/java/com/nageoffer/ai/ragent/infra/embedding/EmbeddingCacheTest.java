@@ -0,0 +1,216 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nageoffer.ai.ragent.infra.embedding;
+
+import com.nageoffer.ai.ragent.infra.config.AIModelProperties;
+import com.nageoffer.ai.ragent.infra.model.ModelTarget;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * 向量缓存契约：命中不打供应商、未命中合并成一次批量调用、不同模型互不串键
+ */
+class EmbeddingCacheTest {
+
+    private final InMemoryStore store = new InMemoryStore();
+    private final List<List<String>> providerCalls = new ArrayList<>();
+
+    @Test
+    @DisplayName("第二次入库同一批文本不再调用供应商，结果顺序与入参一致")
+    void secondPassIsServedFromCache() {
+        EmbeddingCache cache = newCache();
+        List<String> texts = List.of("a", "bb", "ccc");
+
+        List<float[]> first = cache.getOrEmbed(target("m1"), texts, true, this::fakeEmbed);
+        List<float[]> second = cache.getOrEmbed(target("m1"), texts, true, this::fakeEmbed);
+
+        assertEquals(1, providerCalls.size(), "命中后不应再请求供应商");
+        assertEquals(values(first), values(second));
+        assertEquals(3f, second.get(2)[0]);
+    }
+
+    @Test
+    @DisplayName("只有未命中的文本发往供应商，且同一批内重复文本只请求一次")
+    void onlyMissesAreBatched() {
+        EmbeddingCache cache = newCache();
+        cache.getOrEmbed(target("m1"), List.of("a", "bb"), true, this::fakeEmbed);
+        providerCalls.clear();
+
+        List<float[]> result = cache.getOrEmbed(target("m1"), List.of("a", "dddd", "bb", "dddd"), true, this::fakeEmbed);
+
+        assertEquals(List.of(List.of("dddd")), providerCalls);
+        assertEquals(List.of(1f, 4f, 2f, 4f), values(result));
+    }
+
+    @Test
+    @DisplayName("进程内缓存丢失后从持久化层恢复，不打供应商")
+    void persistentTierSurvivesRestart() {
+        newCache().getOrEmbed(target("m1"), List.of("a", "bb"), true, this::fakeEmbed);
+        providerCalls.clear();
+
+        List<float[]> result = newCache().getOrEmbed(target("m1"), List.of("a", "bb"), true, this::fakeEmbed);
+
+        assertTrue(providerCalls.isEmpty(), "持久化层命中时不应请求供应商");
+        assertEquals(List.of(1f, 2f), values(result));
+    }
+
+    @Test
+    @DisplayName("降级到另一个模型时不能复用前一个模型的向量")
+    void modelsDoNotShareKeys() {
+        EmbeddingCache cache = newCache();
+        cache.getOrEmbed(target("m1"), List.of("a"), true, this::fakeEmbed);
+        cache.getOrEmbed(target("m2"), List.of("a"), true, this::fakeEmbed);
+
+        assertEquals(2, providerCalls.size());
+    }
+
+    @Test
+    @DisplayName("持久化层异常按未命中处理，不影响向量化")
+    void storeFailureDegradesToMiss() {
+        AIModelProperties properties = persistentProperties();
+        EmbeddingCacheStore broken = mock(EmbeddingCacheStore.class);
+        when(broken.loadAll(anyString(), anyInt(), any())).thenThrow(new IllegalStateException("db down"));
+        EmbeddingCache cache = new EmbeddingCache(properties, provider(broken));
+
+        List<float[]> result = cache.getOrEmbed(target("m1"), List.of("a"), true, this::fakeEmbed);
+
+        assertEquals(List.of(1f), values(result));
+    }
+
+    @Test
+    @DisplayName("调用方原地修改返回的向量（如归一化）不会污染缓存")
+    void returnedArraysAreDefensiveCopies() {
+        EmbeddingCache cache = newCache();
+        cache.getOrEmbed(target("m1"), List.of("bb"), true, this::fakeEmbed).get(0)[0] = 99f;
+
+        List<float[]> result = cache.getOrEmbed(target("m1"), List.of("bb", "bb"), true, this::fakeEmbed);
+
+        assertEquals(List.of(2f, 2f), values(result));
+        assertNotSame(result.get(0), result.get(1), "同一批内的重复文本也应各自持有独立数组");
+    }
+
+    @Test
+    @DisplayName("查询链路的单条向量化不读写持久化层")
+    void queryPathSkipsPersistentTier() {
+        EmbeddingCacheStore spy = mock(EmbeddingCacheStore.class);
+        EmbeddingCache cache = new EmbeddingCache(persistentProperties(), provider(spy));
+
+        cache.getOrEmbed(target("m1"), List.of("a"), false, this::fakeEmbed);
+        cache.getOrEmbed(target("m1"), List.of("a"), false, this::fakeEmbed);
+
+        verifyNoInteractions(spy);
+        assertEquals(1, providerCalls.size(), "进程内缓存仍然生效");
+    }
+
+    @Test
+    @DisplayName("进程内缓存按向量字节数淘汰，而不是按条目数")
+    void memoryTierIsBoundedByBytes() {
+        AIModelProperties properties = new AIModelProperties();
+        properties.getEmbeddingCache().setMaxMemoryMb(1);
+        EmbeddingCache cache = new EmbeddingCache(properties, provider(null));
+        // 单条 512KB，1MB 上限放不下三条
+        List<String> texts = List.of("x", "y", "z");
+        Function<List<String>, List<float[]>> large = batch -> {
+            providerCalls.add(List.copyOf(batch));
+            return batch.stream().map(t -> new float[128 * 1024]).toList();
+        };
+
+        cache.getOrEmbed(target("m1"), texts, false, large);
+        cache.getOrEmbed(target("m1"), texts, false, large);
+
+        assertEquals(2, providerCalls.size());
+        assertTrue(providerCalls.get(1).size() >= 1, "超出字节上限的条目应被淘汰");
+    }
+
+    private EmbeddingCache newCache() {
+        return new EmbeddingCache(persistentProperties(), provider(store));
+    }
+
+    private static AIModelProperties persistentProperties() {
+        AIModelProperties properties = new AIModelProperties();
+        properties.getEmbeddingCache().setPersistent(true);
+        return properties;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ObjectProvider<EmbeddingCacheStore> provider(EmbeddingCacheStore store) {
+        ObjectProvider<EmbeddingCacheStore> provider = mock(ObjectProvider.class);
+        when(provider.getIfAvailable()).thenReturn(store);
+        return provider;
+    }
+
+    /**
+     * 假模型：向量取文本长度，便于断言结果是否按位置拼回
+     */
+    private List<float[]> fakeEmbed(List<String> texts) {
+        providerCalls.add(List.copyOf(texts));
+        return texts.stream().map(t -> new float[]{t.length()}).toList();
+    }
+
+    private static List<Float> values(List<float[]> vectors) {
+        return vectors.stream().map(v -> v[0]).toList();
+    }
+
+    private static ModelTarget target(String id) {
+        AIModelProperties.ModelCandidate candidate = new AIModelProperties.ModelCandidate();
+        candidate.setId(id);
+        candidate.setProvider("stub");
+        candidate.setDimension(1);
+        return new ModelTarget(id, candidate, new AIModelProperties.ProviderConfig(), null);
+    }
+
+    private static final class InMemoryStore implements EmbeddingCacheStore {
+
+        private final Map<String, float[]> rows = new HashMap<>();
+
+        @Override
+        public Map<String, float[]> loadAll(String modelId, int dimension, Collection<String> contentHashes) {
+            Map<String, float[]> result = new HashMap<>();
+            for (String hash : contentHashes) {
+                float[] vector = rows.get(modelId + dimension + hash);
+                if (vector != null) {
+                    result.put(hash, vector);
+                }
+            }
+            return result;
+        }
+
+        @Override
+        public void saveAll(String modelId, int dimension, Map<String, float[]> embeddings) {
+            embeddings.forEach((hash, vector) -> rows.putIfAbsent(modelId + dimension + hash, vector));
+        }
+    }
+}
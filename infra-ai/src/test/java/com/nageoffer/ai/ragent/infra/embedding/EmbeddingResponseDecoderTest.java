@@ -0,0 +1,80 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nageoffer.ai.ragent.infra.embedding;
+
+import com.nageoffer.ai.ragent.infra.http.ModelClientErrorType;
+import com.nageoffer.ai.ragent.infra.http.ModelClientException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * 流式解码契约：与原先整树解析的结果一致，错误分类不变
+ */
+class EmbeddingResponseDecoderTest {
+
+    @Test
+    @DisplayName("按 index 归位，忽略 usage 等无关字段")
+    void reordersByIndex() throws Exception {
+        String body = """
+                {"object":"list","data":[
+                  {"object":"embedding","index":1,"embedding":[0.5,-1.25e-3]},
+                  {"object":"embedding","index":0,"embedding":[1,2]}
+                ],"model":"m","usage":{"prompt_tokens":3,"total_tokens":3}}
+                """;
+
+        List<float[]> vectors = EmbeddingResponseDecoder.decode(new StringReader(body), 2, "stub");
+
+        assertEquals(2, vectors.size());
+        assertArrayEquals(new float[]{1f, 2f}, vectors.get(0));
+        assertArrayEquals(new float[]{0.5f, -1.25e-3f}, vectors.get(1));
+    }
+
+    @Test
+    @DisplayName("维度提示偏小或缺失时数组按需扩容并裁到实际长度")
+    void growsBeyondDimensionHint() throws Exception {
+        String body = "{\"data\":[{\"embedding\":[1,2,3,4,5]}]}";
+
+        assertArrayEquals(new float[]{1, 2, 3, 4, 5},
+                EmbeddingResponseDecoder.decode(new StringReader(body), 2, "stub").get(0));
+        assertArrayEquals(new float[]{1, 2, 3, 4, 5},
+                EmbeddingResponseDecoder.decode(new StringReader(body), 0, "stub").get(0));
+    }
+
+    @Test
+    @DisplayName("error 对象归为供应商错误，缺 data 归为无效响应")
+    void classifiesErrors() {
+        ModelClientException providerError = assertThrows(ModelClientException.class, () -> EmbeddingResponseDecoder.decode(
+                new StringReader("{\"error\":{\"code\":400,\"message\":\"bad input\"}}"), 0, "stub"));
+        assertEquals(ModelClientErrorType.PROVIDER_ERROR, providerError.getErrorType());
+
+        ModelClientException missingData = assertThrows(ModelClientException.class, () -> EmbeddingResponseDecoder.decode(
+                new StringReader("{\"object\":\"list\"}"), 0, "stub"));
+        assertEquals(ModelClientErrorType.INVALID_RESPONSE, missingData.getErrorType());
+
+        ModelClientException malformed = assertThrows(ModelClientException.class, () -> EmbeddingResponseDecoder.decode(
+                new StringReader("{\"data\":[{\"embedding\":[1,\"x\"]}]}"), 0, "stub"));
+        assertEquals(ModelClientErrorType.INVALID_RESPONSE, malformed.getErrorType());
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nageoffer.ai.ragent.infra.rerank;
+
+import com.nageoffer.ai.ragent.framework.convention.RetrievedChunk;
+import com.nageoffer.ai.ragent.infra.config.AIModelProperties;
+import com.nageoffer.ai.ragent.infra.model.ModelTarget;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 精排分数缓存契约：命中不打供应商、只送未打分候选、合并后按精排分降序、内容变更与换模型不串分
+ */
+class RerankScoreCacheTest {
+
+    private final RerankScoreCache cache = new RerankScoreCache(new AIModelProperties());
+    private final List<List<String>> providerCalls = new ArrayList<>();
+
+    @Test
+    @DisplayName("同一问题重复精排不再调用供应商，结果与首次一致")
+    void repeatedQuestionIsServedFromCache() {
+        List<RetrievedChunk> candidates = List.of(chunk("a", "x"), chunk("b", "yyy"), chunk("c", "zz"));
+
+        List<RetrievedChunk> first = cache.getOrRerank(target("m1"), "问题", candidates, 2, this::fakeRerank);
+        List<RetrievedChunk> second = cache.getOrRerank(target("m1"), "  问题 ", candidates, 2, this::fakeRerank);
+
+        assertEquals(1, providerCalls.size(), "命中后不应再请求供应商");
+        assertEquals(ids(first), ids(second));
+        assertEquals(List.of("b", "c"), ids(second));
+        assertEquals(0.3F, second.get(0).getRerankScore());
+    }
+
+    @Test
+    @DisplayName("只有未打过分的候选发往供应商，缓存分与新分合并后按精排分降序截断")
+    void onlyMissesAreSentAndMerged() {
+        cache.getOrRerank(target("m1"), "问题", List.of(chunk("a", "x"), chunk("b", "yyy")), 2, this::fakeRerank);
+        providerCalls.clear();
+
+        List<RetrievedChunk> result = cache.getOrRerank(target("m1"), "问题",
+                List.of(chunk("a", "x"), chunk("d", "dddd"), chunk("b", "yyy")), 2, this::fakeRerank);
+
+        assertEquals(List.of(List.of("d")), providerCalls);
+        assertEquals(List.of("d", "b"), ids(result));
+        assertEquals(List.of(0.4F, 0.3F), result.stream().map(RetrievedChunk::getRerankScore).toList());
+    }
+
+    @Test
+    @DisplayName("分块内容变更后重新打分，不复用旧分")
+    void contentChangeInvalidatesScore() {
+        cache.getOrRerank(target("m1"), "问题", List.of(chunk("a", "x")), 1, this::fakeRerank);
+
+        List<RetrievedChunk> result = cache.getOrRerank(target("m1"), "问题", List.of(chunk("a", "xxxxx")), 1, this::fakeRerank);
+
+        assertEquals(2, providerCalls.size());
+        assertEquals(0.5F, result.get(0).getRerankScore());
+    }
+
+    @Test
+    @DisplayName("降级到另一个模型或换了问题时不复用已有分数")
+    void modelsAndQuestionsDoNotShareKeys() {
+        List<RetrievedChunk> candidates = List.of(chunk("a", "x"));
+        cache.getOrRerank(target("m1"), "问题", candidates, 1, this::fakeRerank);
+        cache.getOrRerank(target("m2"), "问题", candidates, 1, this::fakeRerank);
+        cache.getOrRerank(target("m1"), "另一个问题", candidates, 1, this::fakeRerank);
+
+        assertEquals(3, providerCalls.size());
+    }
+
+    @Test
+    @DisplayName("供应商没给分的候选不入缓存，按 0 分沉底且不写精排分")
+    void unscoredCandidatesAreNotCached() {
+        List<RetrievedChunk> candidates = List.of(chunk("a", "x"), chunk("skip", "yyyyyy"));
+
+        List<RetrievedChunk> result = cache.getOrRerank(target("m1"), "问题", candidates, 2, this::fakeRerank);
+        cache.getOrRerank(target("m1"), "问题", candidates, 2, this::fakeRerank);
+
+        assertEquals(List.of("a", "skip"), ids(result));
+        assertNull(result.get(1).getRerankScore());
+        assertEquals(0F, result.get(1).getScore());
+        assertEquals(List.of("skip"), providerCalls.get(1), "没出分的候选下次仍需送精排");
+    }
+
+    @Test
+    @DisplayName("关闭缓存时原样透传给供应商")
+    void disabledCachePassesThrough() {
+        AIModelProperties properties = new AIModelProperties();
+        properties.getRerankCache().setEnabled(false);
+        RerankScoreCache disabled = new RerankScoreCache(properties);
+        List<RetrievedChunk> candidates = List.of(chunk("a", "x"));
+
+        disabled.getOrRerank(target("m1"), "问题", candidates, 1, this::fakeRerank);
+        disabled.getOrRerank(target("m1"), "问题", candidates, 1, this::fakeRerank);
+
+        assertEquals(2, providerCalls.size());
+        assertTrue(providerCalls.stream().allMatch(call -> call.equals(List.of("a"))));
+    }
+
+    /**
+     * 假模型：精排分取文本长度的十分之一，ID 为 skip 的候选不出分，便于断言合并与排序
+     */
+    private List<RetrievedChunk> fakeRerank(List<RetrievedChunk> candidates, int topN) {
+        providerCalls.add(ids(candidates));
+        return candidates.stream()
+                .map(c -> "skip".equals(c.getId())
+                        ? c.toBuilder().score(0F).build()
+                        : c.toBuilder().score(c.getText().length() / 10F).rerankScore(c.getText().length() / 10F).build())
+                .sorted(RetrievedChunk.BY_SCORE_DESC)
+                .limit(topN)
+                .toList();
+    }
+
+    private static List<String> ids(List<RetrievedChunk> chunks) {
+        return chunks.stream().map(RetrievedChunk::getId).toList();
+    }
+
+    private static RetrievedChunk chunk(String id, String text) {
+        return RetrievedChunk.builder().id(id).text(text).score(0.01F).build();
+    }
+
+    private static ModelTarget target(String id) {
+        AIModelProperties.ModelCandidate candidate = new AIModelProperties.ModelCandidate();
+        candidate.setId(id);
+        candidate.setProvider("stub");
+        return new ModelTarget(id, candidate, new AIModelProperties.ProviderConfig(), null);
+    }
+}
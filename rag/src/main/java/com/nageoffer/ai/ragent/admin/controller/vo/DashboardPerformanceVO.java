@@ -28,8 +28,12 @@ public class DashboardPerformanceVO {
 
     private Long avgLatencyMs;
 
+    private Long p50LatencyMs;
+
     private Long p95LatencyMs;
 
+    private Long p99LatencyMs;
+
     private Double successRate;
 
     private Double errorRate;
@@ -0,0 +1,121 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nageoffer.ai.ragent.admin.rollup;
+
+import lombok.Getter;
+
+/**
+ * 看板预聚合桶：一个时间桶内各看板指标的计数与延迟草图
+ * <p>
+ * 所有字段都可直接相加，分钟桶合并成小时桶、多个桶合并成任意窗口都不丢精度（延迟分位数除外，误差由草图界定）；
+ * 去重计数（活跃用户）不可相加，不在桶里
+ */
+@Getter
+public class DashboardRollup {
+
+    /**
+     * 超过该耗时的成功链路计为慢请求
+     */
+    public static final long SLOW_LATENCY_THRESHOLD_MS = 20000L;
+
+    private long sessions;
+    private long messages;
+    private long assistantMessages;
+    private long noDocMessages;
+    private long traceSuccess;
+    private long traceError;
+    private long latencyCount;
+    private long latencySum;
+    private long slowCount;
+    private LatencySketch latency = new LatencySketch();
+
+    public void addSessions(long count) {
+        sessions += count;
+    }
+
+    public void addMessages(long total, long assistant, long noDoc) {
+        messages += total;
+        assistantMessages += assistant;
+        noDocMessages += noDoc;
+    }
+
+    public void addTraceRuns(long success, long error) {
+        traceSuccess += success;
+        traceError += error;
+    }
+
+    /**
+     * 记录一条成功链路的耗时，口径与原先内存计算一致：只统计大于 0 的耗时
+     */
+    public void recordLatency(long durationMs) {
+        if (durationMs <= 0) {
+            return;
+        }
+        latencyCount++;
+        latencySum += durationMs;
+        if (durationMs > SLOW_LATENCY_THRESHOLD_MS) {
+            slowCount++;
+        }
+        latency.record(durationMs);
+    }
+
+    public DashboardRollup merge(DashboardRollup other) {
+        if (other == null) {
+            return this;
+        }
+        sessions += other.sessions;
+        messages += other.messages;
+        assistantMessages += other.assistantMessages;
+        noDocMessages += other.noDocMessages;
+        traceSuccess += other.traceSuccess;
+        traceError += other.traceError;
+        latencyCount += other.latencyCount;
+        latencySum += other.latencySum;
+        slowCount += other.slowCount;
+        latency.merge(other.latency);
+        return this;
+    }
+
+    public boolean isEmpty() {
+        return sessions == 0 && messages == 0 && traceSuccess == 0 && traceError == 0 && latencyCount == 0;
+    }
+
+    public long averageLatency() {
+        return latencyCount == 0 ? 0L : Math.round(latencySum / (double) latencyCount);
+    }
+
+    /**
+     * 从持久化的列值还原
+     */
+    static DashboardRollup restore(long sessions, long messages, long assistantMessages, long noDocMessages,
+                                   long traceSuccess, long traceError, long latencyCount, long latencySum,
+                                   long slowCount, byte[] latencySketch) {
+        DashboardRollup rollup = new DashboardRollup();
+        rollup.sessions = sessions;
+        rollup.messages = messages;
+        rollup.assistantMessages = assistantMessages;
+        rollup.noDocMessages = noDocMessages;
+        rollup.traceSuccess = traceSuccess;
+        rollup.traceError = traceError;
+        rollup.latencyCount = latencyCount;
+        rollup.latencySum = latencySum;
+        rollup.slowCount = slowCount;
+        rollup.latency = LatencySketch.fromBytes(latencySketch);
+        return rollup;
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nageoffer.ai.ragent.admin.rollup;
+
+import com.nageoffer.ai.ragent.rag.config.DashboardRollupProperties;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+
+/**
+ * 看板预聚合任务：按水位把已封口的分钟滚进分钟桶，整点跨过后再把该小时的分钟桶合并成小时桶
+ * <p>
+ * 每轮最多推进到「当前时间 - settleDelay」，一次处理一个小时内的分钟（首次运行从最早数据开始分多轮回填）。
+ * 多节点部署时用分布式锁保证只有一个节点在推进；桶整行覆盖写入，中途失败从水位重做即可
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "rag.dashboard.rollup", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class DashboardRollupJob {
+
+    private static final String LOCK_KEY = "ragent:dashboard:rollup";
+
+    private final DashboardRollupStore rollupStore;
+    private final DashboardRollupProperties properties;
+    private final RedissonClient redissonClient;
+
+    @Scheduled(fixedDelayString = "${rag.dashboard.rollup.interval-ms:60000}")
+    public void scheduledRollup() {
+        RLock lock = redissonClient.getLock(LOCK_KEY);
+        if (!lock.tryLock()) {
+            return;
+        }
+        try {
+            rollup(LocalDateTime.now());
+        } catch (Exception e) {
+            log.warn("看板预聚合失败，下轮从水位继续", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void rollup(LocalDateTime now) {
+        LocalDateTime target = now.minus(Duration.ofMillis(Math.max(0, properties.getSettleDelayMs())))
+                .truncatedTo(ChronoUnit.MINUTES);
+        LocalDateTime watermark = rollupStore.loadWatermark();
+        if (watermark == null) {
+            LocalDateTime earliest = rollupStore.earliestSourceTime();
+            // 从最早数据所在的整点开始，保证每个小时桶都由完整的 60 个分钟合并而来
+            watermark = earliest == null ? target : earliest.truncatedTo(ChronoUnit.HOURS);
+            rollupStore.saveWatermark(watermark);
+            log.info("看板预聚合首次运行，从 {} 开始回填", watermark);
+        }
+
+        int hours = 0;
+        while (watermark.isBefore(target) && hours < Math.max(1, properties.getMaxHoursPerRun())) {
+            LocalDateTime hourEnd = watermark.truncatedTo(ChronoUnit.HOURS).plusHours(1);
+            LocalDateTime to = hourEnd.isBefore(target) ? hourEnd : target;
+
+            Map<LocalDateTime, DashboardRollup> minutes = rollupStore.scanRaw(watermark, to);
+            rollupStore.save(DashboardRollupStore.GRANULARITY_MINUTE, minutes);
+            if (to.equals(hourEnd)) {
+                rollupHour(hourEnd.minusHours(1));
+                hours++;
+            }
+            rollupStore.saveWatermark(to);
+            watermark = to;
+        }
+
+        int retention = Math.max(1, properties.getMinuteRetentionHours());
+        rollupStore.deleteBefore(DashboardRollupStore.GRANULARITY_MINUTE,
+                now.truncatedTo(ChronoUnit.HOURS).minusHours(retention));
+    }
+
+    private void rollupHour(LocalDateTime hourStart) {
+        DashboardRollup hour = new DashboardRollup();
+        rollupStore.load(DashboardRollupStore.GRANULARITY_MINUTE, hourStart, hourStart.plusHours(1))
+                .values()
+                .forEach(hour::merge);
+        if (!hour.isEmpty()) {
+            rollupStore.save(DashboardRollupStore.GRANULARITY_HOUR, Map.of(hourStart, hour));
+        }
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nageoffer.ai.ragent.admin.rollup;
+
+import com.nageoffer.ai.ragent.rag.config.DashboardRollupProperties;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 看板查询侧：把任意时间范围拆成「小时桶 + 分钟桶 + 原始表」三段拼起来
+ * <p>
+ * 水位之前的整小时读小时桶，首尾不足一小时的部分读分钟桶，不足一分钟的零头和水位之后尚未封口的部分扫原始表。
+ * 原始表扫描的范围只有几分钟，看板请求的开销与窗口长度基本无关
+ */
+@Component
+@RequiredArgsConstructor
+public class DashboardRollupReader {
+
+    private final DashboardRollupStore rollupStore;
+    private final DashboardRollupProperties properties;
+
+    /**
+     * [start, end) 内的合计
+     */
+    public DashboardRollup aggregate(LocalDateTime start, LocalDateTime end) {
+        DashboardRollup total = new DashboardRollup();
+        collect(start, end).values().forEach(total::merge);
+        return total;
+    }
+
+    /**
+     * [start, end) 内按小时汇总，key 为整点
+     */
+    public Map<LocalDateTime, DashboardRollup> aggregateByHour(LocalDateTime start, LocalDateTime end) {
+        Map<LocalDateTime, DashboardRollup> hours = new TreeMap<>();
+        collect(start, end).forEach((bucketStart, rollup) ->
+                hours.computeIfAbsent(bucketStart.truncatedTo(ChronoUnit.HOURS), key -> new DashboardRollup()).merge(rollup));
+        return hours;
+    }
+
+    /**
+     * 按桶起点返回覆盖 [start, end) 的所有片段，每个片段都落在单个小时之内
+     */
+    Map<LocalDateTime, DashboardRollup> collect(LocalDateTime start, LocalDateTime end) {
+        Map<LocalDateTime, DashboardRollup> pieces = new TreeMap<>();
+        if (!start.isBefore(end)) {
+            return pieces;
+        }
+        LocalDateTime watermark = properties.isEnabled() ? rollupStore.loadWatermark() : null;
+        LocalDateTime closedEnd = watermark == null ? start : clamp(watermark, start, end);
+
+        // 已封口部分：[minuteStart, minuteEnd) 对齐到分钟，两端不足一分钟的零头留给原始表
+        LocalDateTime minuteStart = ceil(start, ChronoUnit.MINUTES);
+        LocalDateTime minuteEnd = closedEnd.truncatedTo(ChronoUnit.MINUTES);
+        if (!minuteStart.isBefore(minuteEnd)) {
+            mergeInto(pieces, rollupStore.scanRaw(start, end));
+            return pieces;
+        }
+        mergeInto(pieces, rollupStore.scanRaw(start, minuteStart));
+
+        LocalDateTime hourStart = ceil(minuteStart, ChronoUnit.HOURS);
+        LocalDateTime hourEnd = minuteEnd.truncatedTo(ChronoUnit.HOURS);
+        if (hourStart.isBefore(hourEnd)) {
+            mergeInto(pieces, rollupStore.load(DashboardRollupStore.GRANULARITY_MINUTE, minuteStart, hourStart));
+            mergeInto(pieces, rollupStore.load(DashboardRollupStore.GRANULARITY_HOUR, hourStart, hourEnd));
+            mergeInto(pieces, rollupStore.load(DashboardRollupStore.GRANULARITY_MINUTE, hourEnd, minuteEnd));
+        } else {
+            mergeInto(pieces, rollupStore.load(DashboardRollupStore.GRANULARITY_MINUTE, minuteStart, minuteEnd));
+        }
+
+        // 未封口部分：最后一个分钟零头 + 水位之后
+        mergeInto(pieces, rollupStore.scanRaw(minuteEnd, end));
+        return pieces;
+    }
+
+    private static void mergeInto(Map<LocalDateTime, DashboardRollup> pieces, Map<LocalDateTime, DashboardRollup> more) {
+        more.forEach((bucketStart, rollup) -> pieces.merge(bucketStart, rollup, DashboardRollup::merge));
+    }
+
+    private static LocalDateTime ceil(LocalDateTime time, ChronoUnit unit) {
+        LocalDateTime floor = time.truncatedTo(unit);
+        return floor.equals(time) ? time : floor.plus(1, unit);
+    }
+
+    private static LocalDateTime clamp(LocalDateTime time, LocalDateTime min, LocalDateTime max) {
+        if (time.isBefore(min)) {
+            return min;
+        }
+        return time.isAfter(max) ? max : time;
+    }
+}
@@ -0,0 +1,197 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nageoffer.ai.ragent.admin.rollup;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 看板预聚合的 PostgreSQL 读写，表 t_dashboard_rollup / t_dashboard_rollup_watermark
+ * <p>
+ * 桶起点存成不带时区的 TIMESTAMP，与业务表 create_time 同一口径（库里的本地时间），
+ * 按 date_trunc 切出来的分钟 / 小时边界和原先 to_char 分组的边界一致
+ */
+@Component
+@RequiredArgsConstructor
+public class DashboardRollupStore {
+
+    public static final String GRANULARITY_MINUTE = "MINUTE";
+    public static final String GRANULARITY_HOUR = "HOUR";
+
+    private static final String WATERMARK_NAME = "minute";
+    private static final String ROLE_ASSISTANT = "assistant";
+    private static final String NO_DOC_REPLY = "未检索到与问题相关的文档内容。";
+    private static final String STATUS_SUCCESS = "SUCCESS";
+    private static final String STATUS_ERROR = "ERROR";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * 分钟桶水位：早于它的分钟都已落成预聚合，之后的只能扫原始表；从未跑过返回 null
+     */
+    public LocalDateTime loadWatermark() {
+        // noinspection SqlDialectInspection,SqlNoDataSourceInspection
+        List<Timestamp> rows = jdbcTemplate.queryForList(
+                "SELECT watermark FROM t_dashboard_rollup_watermark WHERE name = ?", Timestamp.class, WATERMARK_NAME);
+        return rows.isEmpty() || rows.get(0) == null ? null : rows.get(0).toLocalDateTime();
+    }
+
+    public void saveWatermark(LocalDateTime watermark) {
+        // noinspection SqlDialectInspection,SqlNoDataSourceInspection
+        jdbcTemplate.update(
+                "INSERT INTO t_dashboard_rollup_watermark (name, watermark, update_time) VALUES (?, ?, CURRENT_TIMESTAMP) " +
+                        "ON CONFLICT (name) DO UPDATE SET watermark = EXCLUDED.watermark, update_time = EXCLUDED.update_time",
+                WATERMARK_NAME, Timestamp.valueOf(watermark));
+    }
+
+    /**
+     * 各来源表最早一条记录的时间，首次运行时从这里开始回填
+     */
+    public LocalDateTime earliestSourceTime() {
+        // noinspection SqlDialectInspection,SqlNoDataSourceInspection
+        Timestamp earliest = jdbcTemplate.queryForObject(
+                "SELECT LEAST((SELECT min(create_time) FROM t_conversation WHERE deleted = 0), " +
+                        "(SELECT min(create_time) FROM t_message WHERE deleted = 0), " +
+                        "(SELECT min(start_time) FROM t_rag_trace_run WHERE deleted = 0))",
+                Timestamp.class);
+        return earliest == null ? null : earliest.toLocalDateTime();
+    }
+
+    /**
+     * 直接扫原始表，按分钟分桶聚合 [from, to)
+     * <p>
+     * 耗时逐行流过草图，不再整列装进 List；预聚合链路下只用于回填窗口和尚未封口的尾部几分钟
+     */
+    public Map<LocalDateTime, DashboardRollup> scanRaw(LocalDateTime from, LocalDateTime to) {
+        Map<LocalDateTime, DashboardRollup> buckets = new TreeMap<>();
+        if (!from.isBefore(to)) {
+            return buckets;
+        }
+        Timestamp start = Timestamp.valueOf(from);
+        Timestamp end = Timestamp.valueOf(to);
+        // noinspection SqlDialectInspection,SqlNoDataSourceInspection
+        jdbcTemplate.query(
+                "SELECT date_trunc('minute', create_time) AS bucket, count(*) FROM t_conversation " +
+                        "WHERE deleted = 0 AND create_time >= ? AND create_time < ? GROUP BY bucket",
+                rs -> {
+                    bucket(buckets, rs.getTimestamp(1)).addSessions(rs.getLong(2));
+                },
+                start, end);
+        // noinspection SqlDialectInspection,SqlNoDataSourceInspection
+        jdbcTemplate.query(
+                "SELECT date_trunc('minute', create_time) AS bucket, count(*), " +
+                        "count(*) FILTER (WHERE role = ?), count(*) FILTER (WHERE role = ? AND content = ?) FROM t_message " +
+                        "WHERE deleted = 0 AND create_time >= ? AND create_time < ? GROUP BY bucket",
+                rs -> {
+                    bucket(buckets, rs.getTimestamp(1)).addMessages(rs.getLong(2), rs.getLong(3), rs.getLong(4));
+                },
+                ROLE_ASSISTANT, ROLE_ASSISTANT, NO_DOC_REPLY, start, end);
+        // noinspection SqlDialectInspection,SqlNoDataSourceInspection
+        jdbcTemplate.query(
+                "SELECT date_trunc('minute', start_time) AS bucket, " +
+                        "count(*) FILTER (WHERE status = ?), count(*) FILTER (WHERE status = ?) FROM t_rag_trace_run " +
+                        "WHERE deleted = 0 AND start_time >= ? AND start_time < ? GROUP BY bucket",
+                rs -> {
+                    bucket(buckets, rs.getTimestamp(1)).addTraceRuns(rs.getLong(2), rs.getLong(3));
+                },
+                STATUS_SUCCESS, STATUS_ERROR, start, end);
+        // noinspection SqlDialectInspection,SqlNoDataSourceInspection
+        jdbcTemplate.query(
+                "SELECT date_trunc('minute', start_time), duration_ms FROM t_rag_trace_run " +
+                        "WHERE deleted = 0 AND status = ? AND duration_ms > 0 AND start_time >= ? AND start_time < ?",
+                rs -> {
+                    bucket(buckets, rs.getTimestamp(1)).recordLatency(rs.getLong(2));
+                },
+                STATUS_SUCCESS, start, end);
+        return buckets;
+    }
+
+    public Map<LocalDateTime, DashboardRollup> load(String granularity, LocalDateTime from, LocalDateTime to) {
+        Map<LocalDateTime, DashboardRollup> buckets = new TreeMap<>();
+        if (!from.isBefore(to)) {
+            return buckets;
+        }
+        // noinspection SqlDialectInspection,SqlNoDataSourceInspection
+        jdbcTemplate.query(
+                "SELECT bucket_start, sessions, messages, assistant_messages, no_doc_messages, trace_success, trace_error, " +
+                        "latency_count, latency_sum, slow_count, latency_sketch FROM t_dashboard_rollup " +
+                        "WHERE granularity = ? AND bucket_start >= ? AND bucket_start < ?",
+                rs -> {
+                    buckets.put(rs.getTimestamp(1).toLocalDateTime(), DashboardRollup.restore(
+                            rs.getLong(2), rs.getLong(3), rs.getLong(4), rs.getLong(5), rs.getLong(6),
+                            rs.getLong(7), rs.getLong(8), rs.getLong(9), rs.getLong(10), rs.getBytes(11)));
+                },
+                granularity, Timestamp.valueOf(from), Timestamp.valueOf(to));
+        return buckets;
+    }
+
+    /**
+     * 整桶覆盖写入：重跑同一区间得到同样的结果，任务中途失败后从水位重做是幂等的
+     */
+    public void save(String granularity, Map<LocalDateTime, DashboardRollup> buckets) {
+        if (buckets.isEmpty()) {
+            return;
+        }
+        List<Map.Entry<LocalDateTime, DashboardRollup>> entries = new ArrayList<>(buckets.entrySet());
+        // noinspection SqlDialectInspection,SqlNoDataSourceInspection
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO t_dashboard_rollup (granularity, bucket_start, sessions, messages, assistant_messages, " +
+                        "no_doc_messages, trace_success, trace_error, latency_count, latency_sum, slow_count, latency_sketch, update_time) " +
+                        "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, CURRENT_TIMESTAMP) " +
+                        "ON CONFLICT (granularity, bucket_start) DO UPDATE SET sessions = EXCLUDED.sessions, " +
+                        "messages = EXCLUDED.messages, assistant_messages = EXCLUDED.assistant_messages, " +
+                        "no_doc_messages = EXCLUDED.no_doc_messages, trace_success = EXCLUDED.trace_success, " +
+                        "trace_error = EXCLUDED.trace_error, latency_count = EXCLUDED.latency_count, " +
+                        "latency_sum = EXCLUDED.latency_sum, slow_count = EXCLUDED.slow_count, " +
+                        "latency_sketch = EXCLUDED.latency_sketch, update_time = EXCLUDED.update_time",
+                entries, entries.size(), (ps, entry) -> {
+                    DashboardRollup rollup = entry.getValue();
+                    ps.setString(1, granularity);
+                    ps.setTimestamp(2, Timestamp.valueOf(entry.getKey()));
+                    ps.setLong(3, rollup.getSessions());
+                    ps.setLong(4, rollup.getMessages());
+                    ps.setLong(5, rollup.getAssistantMessages());
+                    ps.setLong(6, rollup.getNoDocMessages());
+                    ps.setLong(7, rollup.getTraceSuccess());
+                    ps.setLong(8, rollup.getTraceError());
+                    ps.setLong(9, rollup.getLatencyCount());
+                    ps.setLong(10, rollup.getLatencySum());
+                    ps.setLong(11, rollup.getSlowCount());
+                    ps.setBytes(12, rollup.getLatency().toBytes());
+                });
+    }
+
+    public int deleteBefore(String granularity, LocalDateTime before) {
+        // noinspection SqlDialectInspection,SqlNoDataSourceInspection
+        return jdbcTemplate.update(
+                "DELETE FROM t_dashboard_rollup WHERE granularity = ? AND bucket_start < ?",
+                granularity, Timestamp.valueOf(before));
+    }
+
+    private static DashboardRollup bucket(Map<LocalDateTime, DashboardRollup> buckets, Timestamp bucketStart) {
+        return buckets.computeIfAbsent(bucketStart.toLocalDateTime(), key -> new DashboardRollup());
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nageoffer.ai.ragent.admin.rollup;
+
+import org.HdrHistogram.Histogram;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+
+/**
+ * 可合并的延迟分布草图，看板预聚合桶里用它代替原始 duration 列表
+ * <p>
+ * 基于 HdrHistogram，保留 2 位有效数字：任意分位数的相对误差不超过 1%，
+ * 桶之间直接相加即可合并，压缩序列化后一个分钟桶通常只有几十到几百字节
+ */
+public final class LatencySketch {
+
+    private static final int SIGNIFICANT_DIGITS = 2;
+
+    private final Histogram histogram;
+
+    public LatencySketch() {
+        this(newHistogram());
+    }
+
+    private LatencySketch(Histogram histogram) {
+        this.histogram = histogram;
+    }
+
+    public void record(long durationMs) {
+        if (durationMs > 0) {
+            histogram.recordValue(durationMs);
+        }
+    }
+
+    public void merge(LatencySketch other) {
+        if (other != null && other.histogram.getTotalCount() > 0) {
+            histogram.add(other.histogram);
+        }
+    }
+
+    public long count() {
+        return histogram.getTotalCount();
+    }
+
+    /**
+     * 最近秩分位数，与按排序列表取 ceil(n * p) - 1 的口径一致
+     *
+     * @param percentile 0~100
+     */
+    public long percentile(double percentile) {
+        if (histogram.getTotalCount() == 0) {
+            return 0L;
+        }
+        // 返回的是桶内等价上界，不让它超过真实出现过的最大值
+        return Math.min(histogram.getValueAtPercentile(percentile), histogram.getMaxValue());
+    }
+
+    public byte[] toBytes() {
+        ByteBuffer buffer = ByteBuffer.allocate(histogram.getNeededByteBufferCapacity());
+        int length = histogram.encodeIntoCompressedByteBuffer(buffer);
+        return Arrays.copyOf(buffer.array(), length);
+    }
+
+    public static LatencySketch fromBytes(byte[] bytes) {
+        if (bytes == null || bytes.length == 0) {
+            return new LatencySketch();
+        }
+        try {
+            Histogram decoded = Histogram.decodeFromCompressedByteBuffer(ByteBuffer.wrap(bytes), 0);
+            decoded.setAutoResize(true);
+            return new LatencySketch(decoded);
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException("延迟草图数据损坏", e);
+        }
+    }
+
+    private static Histogram newHistogram() {
+        // 自动扩容：上限随实际出现的最大耗时增长，不用预估超时上限
+        Histogram histogram = new Histogram(SIGNIFICANT_DIGITS);
+        histogram.setAutoResize(true);
+        return histogram;
+    }
+}
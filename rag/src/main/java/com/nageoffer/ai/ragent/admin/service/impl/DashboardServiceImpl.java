@@ -26,13 +26,14 @@ import com.nageoffer.ai.ragent.admin.controller.vo.DashboardPerformanceVO;
 import com.nageoffer.ai.ragent.admin.controller.vo.DashboardTrendPointVO;
 import com.nageoffer.ai.ragent.admin.controller.vo.DashboardTrendSeriesVO;
 import com.nageoffer.ai.ragent.admin.controller.vo.DashboardTrendsVO;
+import com.nageoffer.ai.ragent.admin.rollup.DashboardRollup;
+import com.nageoffer.ai.ragent.admin.rollup.DashboardRollupReader;
+import com.nageoffer.ai.ragent.admin.rollup.LatencySketch;
 import com.nageoffer.ai.ragent.admin.service.DashboardService;
 import com.nageoffer.ai.ragent.rag.dao.entity.ConversationDO;
 import com.nageoffer.ai.ragent.rag.dao.entity.ConversationMessageDO;
-import com.nageoffer.ai.ragent.rag.dao.entity.RagTraceRunDO;
 import com.nageoffer.ai.ragent.rag.dao.mapper.ConversationMapper;
 import com.nageoffer.ai.ragent.rag.dao.mapper.ConversationMessageMapper;
-import com.nageoffer.ai.ragent.rag.dao.mapper.RagTraceRunMapper;
 import com.nageoffer.ai.ragent.user.dao.entity.UserDO;
 import com.nageoffer.ai.ragent.user.dao.mapper.UserMapper;
 import lombok.RequiredArgsConstructor;
@@ -46,29 +47,29 @@ import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.ToLongFunction;
 
 @Service
 @RequiredArgsConstructor
 public class DashboardServiceImpl implements DashboardService {
 
-    private static final String STATUS_SUCCESS = "SUCCESS";
-    private static final String STATUS_ERROR = "ERROR";
-    private static final String ROLE_ASSISTANT = "assistant";
-    private static final String NO_DOC_REPLY = "未检索到与问题相关的文档内容。";
     private static final String GRANULARITY_DAY = "day";
     private static final String GRANULARITY_HOUR = "hour";
-    private static final long SLOW_LATENCY_THRESHOLD_MS = 20000L;
     private static final DateTimeFormatter HOUR_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    /**
+     * 可由预聚合桶回答的趋势指标；活跃用户是去重计数，桶之间不能相加，仍走原始表
+     */
+    private static final Set<String> ROLLUP_METRICS = Set.of("sessions", "messages", "avglatency", "quality");
 
     private final UserMapper userMapper;
     private final ConversationMapper conversationMapper;
     private final ConversationMessageMapper messageMapper;
-    private final RagTraceRunMapper traceRunMapper;
+    private final DashboardRollupReader rollupReader;
 
     @Override
     public DashboardOverviewVO loadOverview(String window) {
@@ -77,13 +78,16 @@ public class DashboardServiceImpl implements DashboardService {
         long totalUsers = userMapper.selectCount(Wrappers.lambdaQuery(UserDO.class));
         long usersInWindow = countUsers(range.start, range.end);
 
+        DashboardRollup current = aggregate(range.start, range.end);
+        DashboardRollup previous = aggregate(range.prevStart, range.prevEnd);
+
         long totalSessions = conversationMapper.selectCount(Wrappers.lambdaQuery(ConversationDO.class));
-        long sessionsInWindow = countConversations(range.start, range.end);
-        long sessionsPrevWindow = countConversations(range.prevStart, range.prevEnd);
+        long sessionsInWindow = current.getSessions();
+        long sessionsPrevWindow = previous.getSessions();
 
         long totalMessages = messageMapper.selectCount(Wrappers.lambdaQuery(ConversationMessageDO.class));
-        long messagesInWindow = countMessages(range.start, range.end);
-        long messagesPrevWindow = countMessages(range.prevStart, range.prevEnd);
+        long messagesInWindow = current.getMessages();
+        long messagesPrevWindow = previous.getMessages();
 
         long activeUsers = countActiveUsers(range.start, range.end);
         long activeUsersPrev = countActiveUsers(range.prevStart, range.prevEnd);
@@ -108,26 +112,27 @@ public class DashboardServiceImpl implements DashboardService {
     @Override
     public DashboardPerformanceVO loadPerformance(String window) {
         WindowRange range = resolveWindowRange(window, Duration.ofHours(24));
-        List<Long> durations = listDurations(range.start, range.end);
-        long avgLatency = average(durations);
-        long p95Latency = percentile(durations);
+        DashboardRollup rollup = aggregate(range.start, range.end);
+        LatencySketch latency = rollup.getLatency();
 
-        long success = countTraceRuns(range.start, range.end, STATUS_SUCCESS);
-        long error = countTraceRuns(range.start, range.end, STATUS_ERROR);
+        long success = rollup.getTraceSuccess();
+        long error = rollup.getTraceError();
         long total = success + error;
-        long assistantCount = countAssistantMessages(range.start, range.end);
-        long noDocCount = countNoDocMessages(range.start, range.end);
-        long slowCount = durations.stream().filter(duration -> duration > SLOW_LATENCY_THRESHOLD_MS).count();
+        long assistantCount = rollup.getAssistantMessages();
+        long noDocCount = rollup.getNoDocMessages();
+        long latencyCount = rollup.getLatencyCount();
 
         double successRate = total == 0 ? 0.0 : round1((success * 100.0) / total);
         double errorRate = total == 0 ? 0.0 : round1((error * 100.0) / total);
         double noDocRate = assistantCount == 0 ? 0.0 : round1((noDocCount * 100.0) / assistantCount);
-        double slowRate = durations.isEmpty() ? 0.0 : round1((slowCount * 100.0) / durations.size());
+        double slowRate = latencyCount == 0 ? 0.0 : round1((rollup.getSlowCount() * 100.0) / latencyCount);
 
         return DashboardPerformanceVO.builder()
                 .window(range.windowLabel)
-                .avgLatencyMs(avgLatency)
-                .p95LatencyMs(p95Latency)
+                .avgLatencyMs(rollup.averageLatency())
+                .p50LatencyMs(latency.percentile(50))
+                .p95LatencyMs(latency.percentile(95))
+                .p99LatencyMs(latency.percentile(99))
                 .successRate(successRate)
                 .errorRate(errorRate)
                 .noDocRate(noDocRate)
@@ -150,17 +155,18 @@ public class DashboardServiceImpl implements DashboardService {
                     .plusHours(1);
             LocalDateTime startHour = endHourExclusive.minusHours(Math.max(1, windowDuration.toHours()));
 
+            Map<LocalDateTime, DashboardRollup> hours = ROLLUP_METRICS.contains(normalizedMetric)
+                    ? rollupReader.aggregateByHour(startHour, endHourExclusive)
+                    : Map.of();
             if ("sessions".equals(normalizedMetric)) {
-                Map<LocalDateTime, Long> counts = countConversationsByHour(startHour, endHourExclusive, zoneId);
                 series.add(DashboardTrendSeriesVO.builder()
                         .name("会话数")
-                        .data(buildPointsByHour(startHour, endHourExclusive, zoneId, counts))
+                        .data(buildPointsByHour(startHour, endHourExclusive, zoneId, mapValues(hours, DashboardRollup::getSessions)))
                         .build());
             } else if ("messages".equals(normalizedMetric)) {
-                Map<LocalDateTime, Long> counts = countMessagesByHour(startHour, endHourExclusive, zoneId);
                 series.add(DashboardTrendSeriesVO.builder()
                         .name("消息数")
-                        .data(buildPointsByHour(startHour, endHourExclusive, zoneId, counts))
+                        .data(buildPointsByHour(startHour, endHourExclusive, zoneId, mapValues(hours, DashboardRollup::getMessages)))
                         .build());
             } else if ("activeusers".equals(normalizedMetric)) {
                 Map<LocalDateTime, Long> counts = countActiveUsersByHour(startHour, endHourExclusive, zoneId);
@@ -169,52 +175,36 @@ public class DashboardServiceImpl implements DashboardService {
                         .data(buildPointsByHour(startHour, endHourExclusive, zoneId, counts))
                         .build());
             } else if ("avglatency".equals(normalizedMetric)) {
-                Map<LocalDateTime, Double> averages = averageLatencyByHour(startHour, endHourExclusive, zoneId);
                 series.add(DashboardTrendSeriesVO.builder()
                         .name("平均响应时间")
-                        .data(buildPointsDoubleByHour(startHour, endHourExclusive, zoneId, averages))
+                        .data(buildPointsDoubleByHour(startHour, endHourExclusive, zoneId, averageLatency(hours)))
                         .build());
             } else if ("quality".equals(normalizedMetric)) {
-                Map<LocalDateTime, Long> successMap = countTraceRunsByHour(startHour, endHourExclusive, zoneId, STATUS_SUCCESS);
-                Map<LocalDateTime, Long> errorMap = countTraceRunsByHour(startHour, endHourExclusive, zoneId, STATUS_ERROR);
-                Map<LocalDateTime, Long> assistantCountMap = countAssistantMessagesByHour(startHour, endHourExclusive, zoneId);
-                Map<LocalDateTime, Long> noDocCountMap = countNoDocMessagesByHour(startHour, endHourExclusive, zoneId);
-                Map<LocalDateTime, Double> errorRate = new HashMap<>();
-                Map<LocalDateTime, Double> noDocRate = new HashMap<>();
-                for (LocalDateTime hour = startHour; hour.isBefore(endHourExclusive); hour = hour.plusHours(1)) {
-                    long total = successMap.getOrDefault(hour, 0L) + errorMap.getOrDefault(hour, 0L);
-                    long assistantCount = assistantCountMap.getOrDefault(hour, 0L);
-                    long error = errorMap.getOrDefault(hour, 0L);
-                    long noDocCount = noDocCountMap.getOrDefault(hour, 0L);
-                    double err = total == 0 ? 0.0 : round1((error * 100.0) / total);
-                    double noDoc = assistantCount == 0 ? 0.0 : round1((noDocCount * 100.0) / assistantCount);
-                    errorRate.put(hour, err);
-                    noDocRate.put(hour, noDoc);
-                }
                 series.add(DashboardTrendSeriesVO.builder()
                         .name("错误率")
-                        .data(buildPointsDoubleByHour(startHour, endHourExclusive, zoneId, errorRate))
+                        .data(buildPointsDoubleByHour(startHour, endHourExclusive, zoneId, errorRate(hours)))
                         .build());
                 series.add(DashboardTrendSeriesVO.builder()
                         .name("无知识率")
-                        .data(buildPointsDoubleByHour(startHour, endHourExclusive, zoneId, noDocRate))
+                        .data(buildPointsDoubleByHour(startHour, endHourExclusive, zoneId, noDocRate(hours)))
                         .build());
             }
         } else {
             LocalDate startDay = toLocalDate(range.start, zoneId);
             LocalDate endExclusiveDay = toLocalDate(range.end, zoneId).plusDays(1);
 
+            Map<LocalDate, DashboardRollup> days = ROLLUP_METRICS.contains(normalizedMetric)
+                    ? aggregateByDay(startDay, endExclusiveDay)
+                    : Map.of();
             if ("sessions".equals(normalizedMetric)) {
-                Map<LocalDate, Long> counts = countConversationsByDay(startDay, endExclusiveDay, zoneId);
                 series.add(DashboardTrendSeriesVO.builder()
                         .name("会话数")
-                        .data(buildPoints(startDay, endExclusiveDay, zoneId, counts))
+                        .data(buildPoints(startDay, endExclusiveDay, zoneId, mapValues(days, DashboardRollup::getSessions)))
                         .build());
             } else if ("messages".equals(normalizedMetric)) {
-                Map<LocalDate, Long> counts = countMessagesByDay(startDay, endExclusiveDay, zoneId);
                 series.add(DashboardTrendSeriesVO.builder()
                         .name("消息数")
-                        .data(buildPoints(startDay, endExclusiveDay, zoneId, counts))
+                        .data(buildPoints(startDay, endExclusiveDay, zoneId, mapValues(days, DashboardRollup::getMessages)))
                         .build());
             } else if ("activeusers".equals(normalizedMetric)) {
                 Map<LocalDate, Long> counts = countActiveUsersByDay(startDay, endExclusiveDay, zoneId);
@@ -223,35 +213,18 @@ public class DashboardServiceImpl implements DashboardService {
                         .data(buildPoints(startDay, endExclusiveDay, zoneId, counts))
                         .build());
             } else if ("avglatency".equals(normalizedMetric)) {
-                Map<LocalDate, Double> averages = averageLatencyByDay(startDay, endExclusiveDay, zoneId);
                 series.add(DashboardTrendSeriesVO.builder()
                         .name("平均响应时间")
-                        .data(buildPointsDouble(startDay, endExclusiveDay, zoneId, averages))
+                        .data(buildPointsDouble(startDay, endExclusiveDay, zoneId, averageLatency(days)))
                         .build());
             } else if ("quality".equals(normalizedMetric)) {
-                Map<LocalDate, Long> successMap = countTraceRunsByDay(startDay, endExclusiveDay, zoneId, STATUS_SUCCESS);
-                Map<LocalDate, Long> errorMap = countTraceRunsByDay(startDay, endExclusiveDay, zoneId, STATUS_ERROR);
-                Map<LocalDate, Long> assistantCountMap = countAssistantMessagesByDay(startDay, endExclusiveDay, zoneId);
-                Map<LocalDate, Long> noDocCountMap = countNoDocMessagesByDay(startDay, endExclusiveDay, zoneId);
-                Map<LocalDate, Double> errorRate = new HashMap<>();
-                Map<LocalDate, Double> noDocRate = new HashMap<>();
-                for (LocalDate day = startDay; day.isBefore(endExclusiveDay); day = day.plusDays(1)) {
-                    long total = successMap.getOrDefault(day, 0L) + errorMap.getOrDefault(day, 0L);
-                    long assistantCount = assistantCountMap.getOrDefault(day, 0L);
-                    long error = errorMap.getOrDefault(day, 0L);
-                    long noDocCount = noDocCountMap.getOrDefault(day, 0L);
-                    double err = total == 0 ? 0.0 : round1((error * 100.0) / total);
-                    double noDoc = assistantCount == 0 ? 0.0 : round1((noDocCount * 100.0) / assistantCount);
-                    errorRate.put(day, err);
-                    noDocRate.put(day, noDoc);
-                }
                 series.add(DashboardTrendSeriesVO.builder()
                         .name("错误率")
-                        .data(buildPointsDouble(startDay, endExclusiveDay, zoneId, errorRate))
+                        .data(buildPointsDouble(startDay, endExclusiveDay, zoneId, errorRate(days)))
                         .build());
                 series.add(DashboardTrendSeriesVO.builder()
                         .name("无知识率")
-                        .data(buildPointsDouble(startDay, endExclusiveDay, zoneId, noDocRate))
+                        .data(buildPointsDouble(startDay, endExclusiveDay, zoneId, noDocRate(days)))
                         .build());
             }
         }
@@ -270,18 +243,6 @@ public class DashboardServiceImpl implements DashboardService {
                 .lt(UserDO::getCreateTime, end));
     }
 
-    private long countConversations(Date start, Date end) {
-        return conversationMapper.selectCount(Wrappers.lambdaQuery(ConversationDO.class)
-                .ge(ConversationDO::getCreateTime, start)
-                .lt(ConversationDO::getCreateTime, end));
-    }
-
-    private long countMessages(Date start, Date end) {
-        return messageMapper.selectCount(Wrappers.lambdaQuery(ConversationMessageDO.class)
-                .ge(ConversationMessageDO::getCreateTime, start)
-                .lt(ConversationMessageDO::getCreateTime, end));
-    }
-
     private long countActiveUsers(Date start, Date end) {
         QueryWrapper<ConversationMessageDO> wrapper = new QueryWrapper<>();
         wrapper.select("count(distinct user_id) as cnt")
@@ -290,54 +251,6 @@ public class DashboardServiceImpl implements DashboardService {
         return extractCount(messageMapper.selectMaps(wrapper));
     }
 
-    private long countTraceRuns(Date start, Date end, String status) {
-        QueryWrapper<RagTraceRunDO> wrapper = new QueryWrapper<>();
-        wrapper.ge("start_time", start).lt("start_time", end);
-        if (status != null) {
-            wrapper.eq("status", status);
-        }
-        return traceRunMapper.selectCount(wrapper);
-    }
-
-    private long countAssistantMessages(Date start, Date end) {
-        QueryWrapper<ConversationMessageDO> wrapper = new QueryWrapper<>();
-        wrapper.ge("create_time", start)
-                .lt("create_time", end)
-                .eq("role", ROLE_ASSISTANT);
-        return messageMapper.selectCount(wrapper);
-    }
-
-    private long countNoDocMessages(Date start, Date end) {
-        QueryWrapper<ConversationMessageDO> wrapper = new QueryWrapper<>();
-        wrapper.ge("create_time", start)
-                .lt("create_time", end)
-                .eq("role", ROLE_ASSISTANT)
-                .eq("content", NO_DOC_REPLY);
-        return messageMapper.selectCount(wrapper);
-    }
-
-    private List<Long> listDurations(Date start, Date end) {
-        QueryWrapper<RagTraceRunDO> wrapper = new QueryWrapper<>();
-        wrapper.select("duration_ms")
-                .ge("start_time", start)
-                .lt("start_time", end)
-                .eq("status", STATUS_SUCCESS);
-        List<Object> results = traceRunMapper.selectObjs(wrapper);
-        if (results == null || results.isEmpty()) {
-            return Collections.emptyList();
-        }
-        List<Long> durations = new ArrayList<>();
-        for (Object value : results) {
-            if (value instanceof Number number) {
-                long duration = number.longValue();
-                if (duration > 0) {
-                    durations.add(duration);
-                }
-            }
-        }
-        return durations;
-    }
-
     private long extractCount(List<Map<String, Object>> maps) {
         if (maps == null || maps.isEmpty()) {
             return 0L;
@@ -349,6 +262,49 @@ public class DashboardServiceImpl implements DashboardService {
         return 0L;
     }
 
+    private DashboardRollup aggregate(Date start, Date end) {
+        ZoneId zoneId = ZoneId.systemDefault();
+        return rollupReader.aggregate(toLocalDateTime(start, zoneId), toLocalDateTime(end, zoneId));
+    }
+
+    private Map<LocalDate, DashboardRollup> aggregateByDay(LocalDate start, LocalDate endExclusive) {
+        Map<LocalDate, DashboardRollup> days = new HashMap<>();
+        rollupReader.aggregateByHour(start.atStartOfDay(), endExclusive.atStartOfDay())
+                .forEach((hour, rollup) -> days.computeIfAbsent(hour.toLocalDate(), key -> new DashboardRollup()).merge(rollup));
+        return days;
+    }
+
+    private <K> Map<K, Long> mapValues(Map<K, DashboardRollup> buckets, ToLongFunction<DashboardRollup> getter) {
+        Map<K, Long> result = new HashMap<>();
+        buckets.forEach((key, rollup) -> result.put(key, getter.applyAsLong(rollup)));
+        return result;
+    }
+
+    private <K> Map<K, Double> averageLatency(Map<K, DashboardRollup> buckets) {
+        Map<K, Double> result = new HashMap<>();
+        buckets.forEach((key, rollup) -> result.put(key, rollup.getLatencyCount() == 0
+                ? 0.0
+                : round1(rollup.getLatencySum() / (double) rollup.getLatencyCount())));
+        return result;
+    }
+
+    private <K> Map<K, Double> errorRate(Map<K, DashboardRollup> buckets) {
+        Map<K, Double> result = new HashMap<>();
+        buckets.forEach((key, rollup) -> {
+            long total = rollup.getTraceSuccess() + rollup.getTraceError();
+            result.put(key, total == 0 ? 0.0 : round1((rollup.getTraceError() * 100.0) / total));
+        });
+        return result;
+    }
+
+    private <K> Map<K, Double> noDocRate(Map<K, DashboardRollup> buckets) {
+        Map<K, Double> result = new HashMap<>();
+        buckets.forEach((key, rollup) -> result.put(key, rollup.getAssistantMessages() == 0
+                ? 0.0
+                : round1((rollup.getNoDocMessages() * 100.0) / rollup.getAssistantMessages())));
+        return result;
+    }
+
     private Double calcPct(long current, long prev) {
         if (prev <= 0) {
             return null;
@@ -364,45 +320,6 @@ public class DashboardServiceImpl implements DashboardService {
                 .build();
     }
 
-    private Map<LocalDate, Long> countConversationsByDay(LocalDate start, LocalDate endExclusive, ZoneId zoneId) {
-        QueryWrapper<ConversationDO> wrapper = new QueryWrapper<>();
-        wrapper.select("to_char(create_time,'YYYY-MM-DD') as d", "count(*) as cnt")
-                .ge("create_time", toDate(start, zoneId))
-                .lt("create_time", toDate(endExclusive, zoneId))
-                .groupBy("d");
-        return mapLongResults(conversationMapper.selectMaps(wrapper));
-    }
-
-    private Map<LocalDate, Long> countMessagesByDay(LocalDate start, LocalDate endExclusive, ZoneId zoneId) {
-        QueryWrapper<ConversationMessageDO> wrapper = new QueryWrapper<>();
-        wrapper.select("to_char(create_time,'YYYY-MM-DD') as d", "count(*) as cnt")
-                .ge("create_time", toDate(start, zoneId))
-                .lt("create_time", toDate(endExclusive, zoneId))
-                .groupBy("d");
-        return mapLongResults(messageMapper.selectMaps(wrapper));
-    }
-
-    private Map<LocalDate, Long> countAssistantMessagesByDay(LocalDate start, LocalDate endExclusive, ZoneId zoneId) {
-        QueryWrapper<ConversationMessageDO> wrapper = new QueryWrapper<>();
-        wrapper.select("to_char(create_time,'YYYY-MM-DD') as d", "count(*) as cnt")
-                .ge("create_time", toDate(start, zoneId))
-                .lt("create_time", toDate(endExclusive, zoneId))
-                .eq("role", ROLE_ASSISTANT)
-                .groupBy("d");
-        return mapLongResults(messageMapper.selectMaps(wrapper));
-    }
-
-    private Map<LocalDate, Long> countNoDocMessagesByDay(LocalDate start, LocalDate endExclusive, ZoneId zoneId) {
-        QueryWrapper<ConversationMessageDO> wrapper = new QueryWrapper<>();
-        wrapper.select("to_char(create_time,'YYYY-MM-DD') as d", "count(*) as cnt")
-                .ge("create_time", toDate(start, zoneId))
-                .lt("create_time", toDate(endExclusive, zoneId))
-                .eq("role", ROLE_ASSISTANT)
-                .eq("content", NO_DOC_REPLY)
-                .groupBy("d");
-        return mapLongResults(messageMapper.selectMaps(wrapper));
-    }
-
     private Map<LocalDate, Long> countActiveUsersByDay(LocalDate start, LocalDate endExclusive, ZoneId zoneId) {
         QueryWrapper<ConversationMessageDO> wrapper = new QueryWrapper<>();
         wrapper.select("to_char(create_time,'YYYY-MM-DD') as d", "count(distinct user_id) as cnt")
@@ -412,81 +329,6 @@ public class DashboardServiceImpl implements DashboardService {
         return mapLongResults(messageMapper.selectMaps(wrapper));
     }
 
-    private Map<LocalDate, Double> averageLatencyByDay(LocalDate start, LocalDate endExclusive, ZoneId zoneId) {
-        QueryWrapper<RagTraceRunDO> wrapper = new QueryWrapper<>();
-        wrapper.select("to_char(start_time,'YYYY-MM-DD') as d", "avg(duration_ms) as avg")
-                .ge("start_time", toDate(start, zoneId))
-                .lt("start_time", toDate(endExclusive, zoneId))
-                .eq("status", STATUS_SUCCESS)
-                .groupBy("d");
-        List<Map<String, Object>> maps = traceRunMapper.selectMaps(wrapper);
-        Map<LocalDate, Double> result = new HashMap<>();
-        if (maps == null) {
-            return result;
-        }
-        for (Map<String, Object> row : maps) {
-            LocalDate date = parseLocalDate(row.get("d"));
-            if (date == null) {
-                continue;
-            }
-            Object value = row.get("avg");
-            double avg = value instanceof Number number ? number.doubleValue() : 0.0;
-            result.put(date, round1(avg));
-        }
-        return result;
-    }
-
-    private Map<LocalDate, Long> countTraceRunsByDay(LocalDate start, LocalDate endExclusive, ZoneId zoneId, String status) {
-        QueryWrapper<RagTraceRunDO> wrapper = new QueryWrapper<>();
-        wrapper.select("to_char(start_time,'YYYY-MM-DD') as d", "count(*) as cnt")
-                .ge("start_time", toDate(start, zoneId))
-                .lt("start_time", toDate(endExclusive, zoneId));
-        if (status != null) {
-            wrapper.eq("status", status);
-        }
-        wrapper.groupBy("d");
-        return mapLongResults(traceRunMapper.selectMaps(wrapper));
-    }
-
-    private Map<LocalDateTime, Long> countConversationsByHour(LocalDateTime start, LocalDateTime endExclusive, ZoneId zoneId) {
-        QueryWrapper<ConversationDO> wrapper = new QueryWrapper<>();
-        wrapper.select("to_char(create_time,'YYYY-MM-DD HH24:00:00') as h", "count(*) as cnt")
-                .ge("create_time", toDate(start, zoneId))
-                .lt("create_time", toDate(endExclusive, zoneId))
-                .groupBy("h");
-        return mapLongResultsByHour(conversationMapper.selectMaps(wrapper));
-    }
-
-    private Map<LocalDateTime, Long> countMessagesByHour(LocalDateTime start, LocalDateTime endExclusive, ZoneId zoneId) {
-        QueryWrapper<ConversationMessageDO> wrapper = new QueryWrapper<>();
-        wrapper.select("to_char(create_time,'YYYY-MM-DD HH24:00:00') as h", "count(*) as cnt")
-                .ge("create_time", toDate(start, zoneId))
-                .lt("create_time", toDate(endExclusive, zoneId))
-                .groupBy("h");
-        return mapLongResultsByHour(messageMapper.selectMaps(wrapper));
-    }
-
-    private Map<LocalDateTime, Long> countAssistantMessagesByHour(LocalDateTime start, LocalDateTime endExclusive, ZoneId zoneId) {
-        QueryWrapper<ConversationMessageDO> wrapper = new QueryWrapper<>();
-        wrapper.select("to_char(create_time,'YYYY-MM-DD HH24:00:00') as h", "count(*) as cnt")
-                .ge("create_time", toDate(start, zoneId))
-                .lt("create_time", toDate(endExclusive, zoneId))
-                .eq("role", ROLE_ASSISTANT)
-                .groupBy("h");
-        return mapLongResultsByHour(messageMapper.selectMaps(wrapper));
-    }
-
-    private Map<LocalDateTime, Long> countNoDocMessagesByHour(LocalDateTime start, LocalDateTime endExclusive, ZoneId zoneId) {
-        QueryWrapper<ConversationMessageDO> wrapper = new QueryWrapper<>();
-        wrapper.select("to_char(create_time,'YYYY-MM-DD HH24:00:00') as h", "count(*) as cnt")
-                .ge("create_time", toDate(start, zoneId))
-                .lt("create_time", toDate(endExclusive, zoneId))
-                .eq("role", ROLE_ASSISTANT)
-                .eq("content", NO_DOC_REPLY)
-                .groupBy("h");
-        return mapLongResultsByHour(messageMapper.selectMaps(wrapper));
-    }
-
     private Map<LocalDateTime, Long> countActiveUsersByHour(LocalDateTime start, LocalDateTime endExclusive, ZoneId zoneId) {
         QueryWrapper<ConversationMessageDO> wrapper = new QueryWrapper<>();
         wrapper.select("to_char(create_time,'YYYY-MM-DD HH24:00:00') as h", "count(distinct user_id) as cnt")
@@ -496,28 +338,6 @@ public class DashboardServiceImpl implements DashboardService {
         return mapLongResultsByHour(messageMapper.selectMaps(wrapper));
     }
 
-    private Map<LocalDateTime, Double> averageLatencyByHour(LocalDateTime start, LocalDateTime endExclusive, ZoneId zoneId) {
-        QueryWrapper<RagTraceRunDO> wrapper = new QueryWrapper<>();
-        wrapper.select("to_char(start_time,'YYYY-MM-DD HH24:00:00') as h", "avg(duration_ms) as avg")
-                .ge("start_time", toDate(start, zoneId))
-                .lt("start_time", toDate(endExclusive, zoneId))
-                .eq("status", STATUS_SUCCESS)
-                .groupBy("h");
-        return mapDoubleResultsByHour(traceRunMapper.selectMaps(wrapper));
-    }
-
-    private Map<LocalDateTime, Long> countTraceRunsByHour(LocalDateTime start, LocalDateTime endExclusive, ZoneId zoneId, String status) {
-        QueryWrapper<RagTraceRunDO> wrapper = new QueryWrapper<>();
-        wrapper.select("to_char(start_time,'YYYY-MM-DD HH24:00:00') as h", "count(*) as cnt")
-                .ge("start_time", toDate(start, zoneId))
-                .lt("start_time", toDate(endExclusive, zoneId));
-        if (status != null) {
-            wrapper.eq("status", status);
-        }
-        wrapper.groupBy("h");
-        return mapLongResultsByHour(traceRunMapper.selectMaps(wrapper));
-    }
-
     private Map<LocalDate, Long> mapLongResults(List<Map<String, Object>> maps) {
         Map<LocalDate, Long> result = new HashMap<>();
         if (maps == null) {
@@ -554,23 +374,6 @@ public class DashboardServiceImpl implements DashboardService {
         return result;
     }
 
-    private Map<LocalDateTime, Double> mapDoubleResultsByHour(List<Map<String, Object>> maps) {
-        Map<LocalDateTime, Double> result = new HashMap<>();
-        if (maps == null) {
-            return result;
-        }
-        for (Map<String, Object> row : maps) {
-            LocalDateTime dateTime = parseLocalDateTime(row.get("h"));
-            if (dateTime == null) {
-                continue;
-            }
-            Object value = row.get("avg");
-            double avg = value instanceof Number number ? number.doubleValue() : 0.0;
-            result.put(dateTime, round1(avg));
-        }
-        return result;
-    }
-
     private List<DashboardTrendPointVO> buildPoints(LocalDate start, LocalDate endExclusive, ZoneId zoneId, Map<LocalDate, Long> values) {
         List<DashboardTrendPointVO> points = new ArrayList<>();
         LocalDate cursor = start;
@@ -635,28 +438,6 @@ public class DashboardServiceImpl implements DashboardService {
         return points;
     }
 
-    private long average(List<Long> values) {
-        if (values == null || values.isEmpty()) {
-            return 0L;
-        }
-        long sum = 0L;
-        for (Long value : values) {
-            sum += value;
-        }
-        return Math.round(sum / (double) values.size());
-    }
-
-    private long percentile(List<Long> values) {
-        if (values == null || values.isEmpty()) {
-            return 0L;
-        }
-        List<Long> sorted = new ArrayList<>(values);
-        sorted.sort(Long::compareTo);
-        int index = (int) Math.ceil(sorted.size() * 0.95) - 1;
-        index = Math.max(0, Math.min(index, sorted.size() - 1));
-        return sorted.get(index);
-    }
-
     private double round1(double value) {
         return Math.round(value * 10.0) / 10.0;
     }
@@ -0,0 +1,188 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nageoffer.ai.ragent.core.ingest;
+
+import com.nageoffer.ai.ragent.core.chunk.model.Chunk;
+import com.nageoffer.ai.ragent.core.ingest.sink.PersistedChunk;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * 新旧块比对结果：按内容哈希 + 位置把新分块归为 新增 / 变化 / 未变，旧块里没被认领的归为删除
+ * <p>
+ * 认领顺序：
+ * <ol>
+ *   <li>同位置且内容、向量文本都相同 → 未变，沿用原 ID，不向量化也不写入</li>
+ *   <li>内容相同但位置移动（前面插入或删了段落）→ 变化，沿用原 ID；向量文本没变，嵌入缓存直接命中，只改序号</li>
+ *   <li>同位置内容不同 → 变化，沿用该位置原 ID，重算向量后覆盖</li>
+ *   <li>其余 → 新增 / 删除</li>
+ * </ol>
+ * 沿用原 ID 让会话里已引用的块在文档刷新后仍能对上；被人工禁用的旧块不参与认领，与整篇替换一样由新块取代。
+ * 块元数据不落关系库、不参与比对：它由正文与版面派生，正文与位置都没变时视为一致
+ *
+ * @param added      新增块
+ * @param changed    变化块（ID 已替换为被认领的旧块 ID）
+ * @param unchanged  未变块（ID 已替换为旧块 ID）
+ * @param removedIds 需删除的旧块 ID
+ */
+public record ChunkDiff(List<Chunk> added, List<Chunk> changed, List<Chunk> unchanged, List<String> removedIds) {
+
+    /**
+     * 比对新分块与已落库快照
+     *
+     * @param fresh        本次分块结果，ID 为新生成
+     * @param persisted    已落库块快照
+     * @param hashFunction 正文哈希函数，须与落库时写 content_hash 的算法一致
+     */
+    public static ChunkDiff compute(List<Chunk> fresh, List<PersistedChunk> persisted,
+                                    Function<String, String> hashFunction) {
+        Map<String, PersistedChunk> remaining = new LinkedHashMap<>();
+        Map<Integer, PersistedChunk> byIndex = new HashMap<>();
+        for (PersistedChunk old : persisted) {
+            if (!old.enabled()) {
+                continue;
+            }
+            remaining.put(old.chunkId(), old);
+            byIndex.putIfAbsent(old.index(), old);
+        }
+
+        int size = fresh.size();
+        Chunk[] resolved = new Chunk[size];
+        Kind[] kinds = new Kind[size];
+        String[] hashes = new String[size];
+        for (int i = 0; i < size; i++) {
+            hashes[i] = hashFunction.apply(fresh.get(i).content());
+        }
+
+        // ① 同位置同内容
+        for (int i = 0; i < size; i++) {
+            Chunk chunk = fresh.get(i);
+            PersistedChunk old = byIndex.get(chunk.index());
+            if (old != null && remaining.containsKey(old.chunkId()) && sameContent(old, hashes[i], chunk)) {
+                remaining.remove(old.chunkId());
+                resolved[i] = withId(chunk, old.chunkId());
+                kinds[i] = Kind.UNCHANGED;
+            }
+        }
+
+        // ② 同内容异位置：按内容键建索引，一个旧块只能被认领一次
+        Map<String, List<PersistedChunk>> byContent = new HashMap<>();
+        remaining.values().forEach(old ->
+                byContent.computeIfAbsent(contentKey(old.contentHash(), old.embeddingText()), k -> new ArrayList<>()).add(old));
+        for (int i = 0; i < size; i++) {
+            if (kinds[i] != null) {
+                continue;
+            }
+            Chunk chunk = fresh.get(i);
+            List<PersistedChunk> candidates = byContent.get(contentKey(hashes[i], chunk.embeddingText()));
+            if (candidates == null) {
+                continue;
+            }
+            PersistedChunk old = candidates.stream()
+                    .filter(c -> remaining.containsKey(c.chunkId()))
+                    .min(Comparator.comparingInt(c -> Math.abs(c.index() - chunk.index())))
+                    .orElse(null);
+            if (old != null) {
+                remaining.remove(old.chunkId());
+                resolved[i] = withId(chunk, old.chunkId());
+                kinds[i] = Kind.CHANGED;
+            }
+        }
+
+        // ③ 同位置异内容
+        for (int i = 0; i < size; i++) {
+            if (kinds[i] != null) {
+                continue;
+            }
+            Chunk chunk = fresh.get(i);
+            PersistedChunk old = byIndex.get(chunk.index());
+            if (old != null && remaining.containsKey(old.chunkId())) {
+                remaining.remove(old.chunkId());
+                resolved[i] = withId(chunk, old.chunkId());
+                kinds[i] = Kind.CHANGED;
+            } else {
+                resolved[i] = chunk;
+                kinds[i] = Kind.ADDED;
+            }
+        }
+
+        List<Chunk> added = new ArrayList<>();
+        List<Chunk> changed = new ArrayList<>();
+        List<Chunk> unchanged = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            switch (kinds[i]) {
+                case ADDED -> added.add(resolved[i]);
+                case CHANGED -> changed.add(resolved[i]);
+                case UNCHANGED -> unchanged.add(resolved[i]);
+            }
+        }
+        // 被禁用的旧块不参与认领，一律删除
+        List<String> removedIds = new ArrayList<>(remaining.keySet());
+        persisted.stream().filter(old -> !old.enabled()).forEach(old -> removedIds.add(old.chunkId()));
+        return new ChunkDiff(List.copyOf(added), List.copyOf(changed), List.copyOf(unchanged), List.copyOf(removedIds));
+    }
+
+    /**
+     * 比对后全部块按序号排列，ID 已换成沿用后的值
+     */
+    public List<Chunk> allChunks() {
+        List<Chunk> all = new ArrayList<>(added.size() + changed.size() + unchanged.size());
+        all.addAll(added);
+        all.addAll(changed);
+        all.addAll(unchanged);
+        all.sort(Comparator.comparingInt(Chunk::index));
+        return all;
+    }
+
+    /**
+     * 需要向量化的块：新增 + 变化
+     */
+    public List<Chunk> toEmbed() {
+        List<Chunk> result = new ArrayList<>(added.size() + changed.size());
+        result.addAll(added);
+        result.addAll(changed);
+        return result;
+    }
+
+    public IngestionOutcome.ChunkChangeStats stats() {
+        return new IngestionOutcome.ChunkChangeStats(added.size(), changed.size(), removedIds.size(), unchanged.size());
+    }
+
+    private static boolean sameContent(PersistedChunk old, String hash, Chunk chunk) {
+        return Objects.equals(old.contentHash(), hash) && Objects.equals(old.embeddingText(), chunk.embeddingText());
+    }
+
+    private static String contentKey(String hash, String embeddingText) {
+        return hash + '\u0001' + embeddingText;
+    }
+
+    private static Chunk withId(Chunk chunk, String chunkId) {
+        return new Chunk(chunkId, chunk.index(), chunk.content(), chunk.embeddingText(), chunk.metadata());
+    }
+
+    private enum Kind {
+        ADDED, CHANGED, UNCHANGED
+    }
+}
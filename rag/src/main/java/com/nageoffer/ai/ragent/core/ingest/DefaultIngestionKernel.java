@@ -17,11 +17,15 @@
 
 package com.nageoffer.ai.ragent.core.ingest;
 
+import cn.hutool.crypto.SecureUtil;
 import com.nageoffer.ai.ragent.core.chunk.ChunkingService;
 import com.nageoffer.ai.ragent.core.chunk.model.Chunk;
 import com.nageoffer.ai.ragent.core.chunk.model.EmbeddedChunk;
 import com.nageoffer.ai.ragent.core.ingest.embed.ChunkEmbeddingService;
+import com.nageoffer.ai.ragent.core.ingest.sink.ChunkDelta;
 import com.nageoffer.ai.ragent.core.ingest.sink.ChunkIndexWriter;
+import com.nageoffer.ai.ragent.core.ingest.sink.ChunkSnapshotReader;
+import com.nageoffer.ai.ragent.core.ingest.sink.PersistedChunk;
 import com.nageoffer.ai.ragent.core.parser.DocumentParser;
 import com.nageoffer.ai.ragent.core.parser.mime.MimeTypeDetector;
 import com.nageoffer.ai.ragent.core.parser.model.Block;
@@ -41,6 +45,8 @@ import java.util.Map;
  * 摄取内核默认实现：固定五步骨架，全文唯一一条摄取执行序列
  * <p>
  * 入口不收 MIME 也不收嵌入模型，任务状态与摄取日志一概不碰
+ * <p>
+ * 重摄时默认增量：分块仍是整篇重做（便宜），向量化与落库只针对比对出的变化块（贵），见 {@link ChunkDiff}
  */
 @Slf4j
 @Service
@@ -61,6 +67,8 @@ public class DefaultIngestionKernel implements IngestionKernel {
     private final ChunkingService chunkingService;
     private final ChunkEmbeddingService chunkEmbeddingService;
     private final ChunkIndexWriter chunkIndexWriter;
+    private final ChunkSnapshotReader snapshotReader;
+    private final IngestionProperties ingestionProperties;
 
     @Override
     public IngestionOutcome run(DocumentRef doc,
@@ -96,6 +104,15 @@ public class DefaultIngestionKernel implements IngestionKernel {
             throw new ClientException("分块结果为空：docId=" + doc.docId() + ", mime=" + mimeType);
         }
 
+        // 增量模式：与已落库块比对，只向量化、只写入有变化的块；从未入库过则与整篇替换等价
+        List<PersistedChunk> persisted = ingestionProperties.isIncremental()
+                ? snapshotReader.read(doc)
+                : List.of();
+        if (!persisted.isEmpty()) {
+            return runIncremental(doc, target, mimeType, parser.getParserType(), blocks.size(),
+                    chunks, persisted, parseMillis, chunkMillis);
+        }
+
         // ④ embed：模型与维度都来自落点，此处校验维度
         long embedStart = System.currentTimeMillis();
         List<EmbeddedChunk> embedded = chunkEmbeddingService.embed(chunks, target);
@@ -107,7 +124,49 @@ public class DefaultIngestionKernel implements IngestionKernel {
         long indexMillis = System.currentTimeMillis() - indexStart;
 
         return new IngestionOutcome(mimeType, parser.getParserType(), blocks.size(), chunks,
-                new IngestionOutcome.IngestionTimings(parseMillis, chunkMillis, embedMillis, indexMillis));
+                new IngestionOutcome.IngestionTimings(parseMillis, chunkMillis, embedMillis, indexMillis),
+                IngestionOutcome.ChunkChangeStats.fullReplace(chunks.size()));
+    }
+
+    /**
+     * 增量重摄的 ④⑤ 两步：只有新增与变化块进入向量化，落点按 ID upsert / 删除，未变块一行不写
+     */
+    private IngestionOutcome runIncremental(DocumentRef doc,
+                                            VectorTarget target,
+                                            String mimeType,
+                                            String parserType,
+                                            int blockCount,
+                                            List<Chunk> chunks,
+                                            List<PersistedChunk> persisted,
+                                            long parseMillis,
+                                            long chunkMillis) {
+        ChunkDiff diff = ChunkDiff.compute(chunks, persisted, SecureUtil::sha256);
+
+        // ④ embed
+        long embedStart = System.currentTimeMillis();
+        List<Chunk> toEmbed = diff.toEmbed();
+        List<EmbeddedChunk> embedded = chunkEmbeddingService.embed(toEmbed, target);
+        long embedMillis = System.currentTimeMillis() - embedStart;
+
+        // ⑤ index：toEmbed 前段是新增、后段是变化，embed 保序，按长度切回；
+        // 整篇正文随增量一起下发，按文档同步的落点（图谱）据此整篇刷新
+        int addedCount = diff.added().size();
+        List<Chunk> allChunks = diff.allChunks();
+        ChunkDelta delta = new ChunkDelta(
+                embedded.subList(0, addedCount),
+                embedded.subList(addedCount, embedded.size()),
+                diff.removedIds(),
+                allChunks.stream().map(Chunk::content).toList());
+        long indexStart = System.currentTimeMillis();
+        chunkIndexWriter.applyDelta(target, doc, delta);
+        long indexMillis = System.currentTimeMillis() - indexStart;
+
+        IngestionOutcome.ChunkChangeStats stats = diff.stats();
+        log.info("摄取-增量比对 docId={} 新增={} 变化={} 删除={} 未变={}",
+                doc.docId(), stats.added(), stats.changed(), stats.removed(), stats.unchanged());
+        return new IngestionOutcome(mimeType, parserType, blockCount, allChunks,
+                new IngestionOutcome.IngestionTimings(parseMillis, chunkMillis, embedMillis, indexMillis),
+                stats);
     }
 
     /**
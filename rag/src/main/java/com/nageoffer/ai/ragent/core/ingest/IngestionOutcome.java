@@ -31,18 +31,21 @@ import java.util.List;
  * @param blockCount 解析产出的 Block 数量
  * @param chunks     最终落库的块
  * @param timings    各阶段耗时
+ * @param changes    与已落库块的比对计数，整篇替换时全部计为新增
  */
 public record IngestionOutcome(
         String mimeType,
         String parserType,
         int blockCount,
         List<Chunk> chunks,
-        IngestionTimings timings
+        IngestionTimings timings,
+        ChunkChangeStats changes
 ) {
 
     public IngestionOutcome {
         chunks = chunks == null ? List.of() : List.copyOf(chunks);
         timings = timings == null ? IngestionTimings.zero() : timings;
+        changes = changes == null ? ChunkChangeStats.fullReplace(chunks.size()) : changes;
     }
 
     public int chunkCount() {
@@ -58,4 +61,14 @@ public record IngestionOutcome(
             return new IngestionTimings(0, 0, 0, 0);
         }
     }
+
+    /**
+     * 增量比对计数：新增 + 变化 是本次真正向量化的块数，删除 + 新增 + 变化 是落点的写入量
+     */
+    public record ChunkChangeStats(int added, int changed, int removed, int unchanged) {
+
+        public static ChunkChangeStats fullReplace(int chunkCount) {
+            return new ChunkChangeStats(chunkCount, 0, 0, 0);
+        }
+    }
 }
@@ -0,0 +1,67 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nageoffer.ai.ragent.core.ingest;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 摄取内核配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "rag.ingestion")
+public class IngestionProperties {
+
+    /**
+     * 是否增量重摄：新块与已落库块按内容哈希 + 位置比对，只向量化、只写入有变化的块
+     * <p>
+     * 关掉则每次整篇替换；图谱是文档级同步，增量路径在单块写入后带整篇正文整篇刷新图谱
+     */
+    private boolean incremental = true;
+
+    /**
+     * 富集 / 增强节点的大模型调用
+     */
+    private Enrich enrich = new Enrich();
+
+    @Data
+    public static class Enrich {
+
+        /**
+         * 单个富集任务的默认在途调用数；任务配置里的 concurrency 优先
+         */
+        private int concurrency = 4;
+
+        /**
+         * 默认每次调用打包的分块数；任务配置里的 batchSize 优先，1 即逐块调用
+         */
+        private int batchSize = 8;
+
+        /**
+         * 单次打包调用的正文总字符上限，超过则拆到下一批；单块超过上限时独立调用
+         */
+        private int batchMaxChars = 6000;
+
+        /**
+         * 单块调用（含打包失败后的逐块补做）的最大尝试次数
+         */
+        private int maxAttempts = 2;
+    }
+}
@@ -51,7 +51,7 @@ public class ChunkEmbeddingService {
             return List.of();
         }
         List<String> texts = chunks.stream().map(Chunk::embeddingText).toList();
-        List<List<Float>> vectors = embeddingService.embedBatch(texts, target.embeddingModel());
+        List<float[]> vectors = embeddingService.embedBatch(texts, target.embeddingModel());
         if (vectors == null || vectors.size() != chunks.size()) {
             throw new ServiceException(String.format("向量结果条数与分块不符：期望 %d，实际 %s",
                     chunks.size(), vectors == null ? "null" : String.valueOf(vectors.size())));
@@ -59,19 +59,15 @@ public class ChunkEmbeddingService {
 
         List<EmbeddedChunk> result = new ArrayList<>(chunks.size());
         for (int i = 0; i < chunks.size(); i++) {
-            List<Float> row = vectors.get(i);
-            if (row == null || row.isEmpty()) {
+            float[] vector = vectors.get(i);
+            if (vector == null || vector.length == 0) {
                 throw new ServiceException("向量结果缺失，序号：" + i);
             }
-            if (row.size() != target.dimension()) {
+            if (vector.length != target.dimension()) {
                 throw new ServiceException(String.format(
                         "嵌入维度与部署级向量空间不符：模型 %s 输出 %d 维，物理空间要求 %d 维（分区 %s）"
                                 + "——请改用同维度的嵌入模型，或调整部署级维度并重建向量空间",
-                        target.embeddingModel(), row.size(), target.dimension(), target.partition()));
-            }
-            float[] vector = new float[row.size()];
-            for (int j = 0; j < row.size(); j++) {
-                vector[j] = row.get(j);
+                        target.embeddingModel(), vector.length, target.dimension(), target.partition()));
             }
             result.add(new EmbeddedChunk(chunks.get(i), vector));
         }
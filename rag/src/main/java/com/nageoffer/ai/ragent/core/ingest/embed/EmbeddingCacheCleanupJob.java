@@ -0,0 +1,83 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nageoffer.ai.ragent.core.ingest.embed;
+
+import com.nageoffer.ai.ragent.infra.config.AIModelProperties;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+/**
+ * 向量嵌入缓存表清理任务：删除超过保留天数的条目
+ * <p>
+ * 模型同ID换版本、文档下线后，对应的行不会再被访问；按写入时间整体过期，被删掉的热数据下次入库时重新向量化即可。
+ * 多节点部署时用分布式锁保证只有一个节点在删
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class EmbeddingCacheCleanupJob {
+
+    private static final String LOCK_KEY = "ragent:embedding-cache:cleanup";
+
+    /**
+     * 单批删除行数，单轮最多删除批数；删不完的留到下一轮
+     */
+    private static final int BATCH_SIZE = 5000;
+    private static final int MAX_BATCHES_PER_RUN = 100;
+
+    private final PgEmbeddingCacheStore cacheStore;
+    private final AIModelProperties aiModelProperties;
+    private final RedissonClient redissonClient;
+
+    @Scheduled(fixedDelayString = "${ai.embedding-cache.cleanup-interval-ms:3600000}")
+    public void scheduledCleanup() {
+        AIModelProperties.EmbeddingCache config = aiModelProperties.getEmbeddingCache();
+        Integer ttlDays = config.getPersistentTtlDays();
+        if (!Boolean.TRUE.equals(config.getPersistent()) || ttlDays == null || ttlDays <= 0) {
+            return;
+        }
+        RLock lock = redissonClient.getLock(LOCK_KEY);
+        if (!lock.tryLock()) {
+            return;
+        }
+        try {
+            LocalDateTime before = LocalDateTime.now().minusDays(ttlDays);
+            int total = 0;
+            for (int i = 0; i < MAX_BATCHES_PER_RUN; i++) {
+                int deleted = cacheStore.deleteBefore(before, BATCH_SIZE);
+                total += deleted;
+                if (deleted < BATCH_SIZE) {
+                    break;
+                }
+            }
+            if (total > 0) {
+                log.info("清理向量嵌入缓存 {} 条，写入时间早于 {}", total, before);
+            }
+        } catch (Exception e) {
+            log.warn("清理向量嵌入缓存失败，下轮重试", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+}
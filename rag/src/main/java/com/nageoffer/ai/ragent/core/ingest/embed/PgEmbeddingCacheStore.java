@@ -0,0 +1,119 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nageoffer.ai.ragent.core.ingest.embed;
+
+import com.google.common.collect.Lists;
+import com.nageoffer.ai.ragent.infra.embedding.EmbeddingCacheStore;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * 向量嵌入缓存的 PostgreSQL 持久化层，表 t_embedding_cache
+ * <p>
+ * 向量存成小端 float32 的 BYTEA 而不是 pgvector 列：缓存只按主键整存整取，不参与相似度检索，
+ * 不同模型维度不同也无需按维度建多张表；读出时直接按字节解码，省掉文本字面量的解析
+ */
+@Component
+@RequiredArgsConstructor
+public class PgEmbeddingCacheStore implements EmbeddingCacheStore {
+
+    /**
+     * IN 列表单批上限：一次入库几千个分块时避免拼出超长 SQL
+     */
+    private static final int QUERY_BATCH_SIZE = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public Map<String, float[]> loadAll(String modelId, int dimension, Collection<String> contentHashes) {
+        if (contentHashes == null || contentHashes.isEmpty()) {
+            return Map.of();
+        }
+        Map<String, float[]> result = new HashMap<>(contentHashes.size() * 2);
+        for (List<String> batch : Lists.partition(new ArrayList<>(contentHashes), QUERY_BATCH_SIZE)) {
+            String placeholders = batch.stream().map(h -> "?").collect(Collectors.joining(", "));
+            List<Object> args = new ArrayList<>(batch.size() + 2);
+            args.add(modelId);
+            args.add(dimension);
+            args.addAll(batch);
+            // noinspection SqlDialectInspection,SqlNoDataSourceInspection
+            jdbcTemplate.query(
+                    "SELECT content_hash, embedding FROM t_embedding_cache WHERE model_id = ? AND dimension = ? AND content_hash IN (" + placeholders + ")",
+                    rs -> {
+                        result.put(rs.getString(1), decode(rs.getBytes(2)));
+                    },
+                    args.toArray());
+        }
+        return result;
+    }
+
+    @Override
+    public void saveAll(String modelId, int dimension, Map<String, float[]> embeddings) {
+        if (embeddings == null || embeddings.isEmpty()) {
+            return;
+        }
+        List<Map.Entry<String, float[]>> entries = new ArrayList<>(embeddings.entrySet());
+        // 并发入库同一文本时两边都会写，ON CONFLICT DO NOTHING 让后到者静默放弃：同键向量本就相同
+        // noinspection SqlDialectInspection,SqlNoDataSourceInspection
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO t_embedding_cache (model_id, dimension, content_hash, embedding) VALUES (?, ?, ?, ?) " +
+                        "ON CONFLICT (model_id, dimension, content_hash) DO NOTHING",
+                entries, entries.size(), (ps, entry) -> {
+                    ps.setString(1, modelId);
+                    ps.setInt(2, dimension);
+                    ps.setString(3, entry.getKey());
+                    ps.setBytes(4, encode(entry.getValue()));
+                });
+    }
+
+    /**
+     * 删除早于指定时间写入的一批条目，按 ctid 分批，避免一次大删除长时间占用行锁与 WAL
+     *
+     * @return 本批删除的行数，小于 limit 说明已清理完
+     */
+    public int deleteBefore(LocalDateTime before, int limit) {
+        // noinspection SqlDialectInspection,SqlNoDataSourceInspection
+        return jdbcTemplate.update(
+                "DELETE FROM t_embedding_cache WHERE ctid IN (SELECT ctid FROM t_embedding_cache WHERE create_time < ? LIMIT ?)",
+                Timestamp.valueOf(before), limit);
+    }
+
+    static byte[] encode(float[] vector) {
+        ByteBuffer buffer = ByteBuffer.allocate(vector.length * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.asFloatBuffer().put(vector);
+        return buffer.array();
+    }
+
+    static float[] decode(byte[] bytes) {
+        float[] vector = new float[bytes.length / Float.BYTES];
+        ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer().get(vector);
+        return vector;
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nageoffer.ai.ragent.core.ingest.sink;
+
+import com.nageoffer.ai.ragent.core.chunk.model.EmbeddedChunk;
+
+import java.util.List;
+
+/**
+ * 增量写入单元：只含需要落库的变化，未变的块不出现
+ *
+ * @param added      新增块，ID 为新生成
+ * @param changed    变化块，沿用原块 ID，落点按 upsert 覆盖
+ * @param removedIds 需删除的原块 ID
+ * @param contents   应用增量后整篇文档按顺序的全部分块正文（含未变块），供按文档同步的落点（图谱）整篇刷新
+ */
+public record ChunkDelta(List<EmbeddedChunk> added,
+                         List<EmbeddedChunk> changed,
+                         List<String> removedIds,
+                         List<String> contents) {
+
+    public ChunkDelta {
+        added = added == null ? List.of() : List.copyOf(added);
+        changed = changed == null ? List.of() : List.copyOf(changed);
+        removedIds = removedIds == null ? List.of() : List.copyOf(removedIds);
+        contents = contents == null ? List.of() : List.copyOf(contents);
+    }
+
+    public boolean isEmpty() {
+        return added.isEmpty() && changed.isEmpty() && removedIds.isEmpty();
+    }
+}
@@ -0,0 +1,38 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nageoffer.ai.ragent.core.ingest.sink;
+
+import com.nageoffer.ai.ragent.core.ingest.DocumentRef;
+import com.nageoffer.ai.ragent.core.ingest.VectorTarget;
+
+/**
+ * 索引变更监听端口：文档的块在全部落点提交之后回调，供读侧缓存按分区失效
+ * <p>
+ * 与 {@link ChunkSink} 分开是因为两者时机不同：落点跑在写入事务里，监听在事务提交之后——
+ * 提交前失效会留一个窗口，让并发查询把旧数据重新填回缓存。实现不得抛异常拖垮摄取，失败只记日志
+ */
+public interface ChunkIndexListener {
+
+    /**
+     * 该文档在目标分区内的块已被整体替换或清除
+     *
+     * @param target 被改动的向量落点，{@link VectorTarget#partition()} 即知识库的 collection_name
+     * @param doc    被改动的文档
+     */
+    void onDocumentChanged(VectorTarget target, DocumentRef doc);
+}
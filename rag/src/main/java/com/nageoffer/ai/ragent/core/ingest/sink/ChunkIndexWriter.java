@@ -22,15 +22,19 @@ import com.nageoffer.ai.ragent.core.ingest.DocumentRef;
 import com.nageoffer.ai.ragent.core.ingest.VectorTarget;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.util.List;
 
 /**
  * 索引扇出：把块整体写进全部落点，事务边界在此
  * <p>
- * 加一个索引后端 = 加一个 {@link ChunkSink} bean，本类与内核都一行不改
+ * 加一个索引后端 = 加一个 {@link ChunkSink} bean，本类与内核都一行不改；
+ * 读侧缓存要跟着失效则加一个 {@link ChunkIndexListener} bean，在事务提交后收到通知
  */
 @Slf4j
 @Component
@@ -39,19 +43,69 @@ public class ChunkIndexWriter {
 
     private final List<ChunkSink> sinks;
     private final TransactionOperations transactionOperations;
+    private final ObjectProvider<ChunkIndexListener> listeners;
 
     /**
-     * 整体替换该文档的块：全部落点在同一个事务里
+     * 整体替换该文档的块：全部落点在同一个事务里，各落点的事务外准备工作在事务开启前做完
      */
     public void replaceDocument(VectorTarget target, DocumentRef doc, List<EmbeddedChunk> chunks) {
+        sinks.forEach(sink -> sink.beforeReplace(target, doc, chunks));
         transactionOperations.executeWithoutResult(status ->
                 sinks.forEach(sink -> sink.replaceDocument(target, doc, chunks)));
         log.info("块索引写入完成 docId={} 分区={} 块数={} 落点数={}",
                 doc.docId(), target.partition(), chunks.size(), sinks.size());
+        notifyAfterCommit(target, doc);
+    }
+
+    /**
+     * 增量写入该文档的块变化：全部落点在同一个事务里，delta 为空时不开事务也不通知
+     */
+    public void applyDelta(VectorTarget target, DocumentRef doc, ChunkDelta delta) {
+        if (delta.isEmpty()) {
+            log.info("块索引无变化，跳过写入 docId={} 分区={}", doc.docId(), target.partition());
+            return;
+        }
+        transactionOperations.executeWithoutResult(status ->
+                sinks.forEach(sink -> sink.applyDelta(target, doc, delta)));
+        log.info("块索引增量写入完成 docId={} 分区={} 新增={} 变化={} 删除={} 落点数={}",
+                doc.docId(), target.partition(), delta.added().size(), delta.changed().size(),
+                delta.removedIds().size(), sinks.size());
+        notifyAfterCommit(target, doc);
     }
 
     public void deleteDocument(VectorTarget target, DocumentRef doc) {
         transactionOperations.executeWithoutResult(status ->
                 sinks.forEach(sink -> sink.deleteDocument(target, doc)));
+        notifyAfterCommit(target, doc);
+    }
+
+    /**
+     * 通知监听方该文档已变更
+     * <p>
+     * 删除路径挂在调用方的外层事务里，本类的 executeWithoutResult 只是加入、并不提交，
+     * 故有活跃事务同步时推迟到 afterCommit，否则立即通知；监听失败只记日志，索引已经写成功，不能因缓存回滚
+     */
+    private void notifyAfterCommit(VectorTarget target, DocumentRef doc) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    notifyListeners(target, doc);
+                }
+            });
+            return;
+        }
+        notifyListeners(target, doc);
+    }
+
+    private void notifyListeners(VectorTarget target, DocumentRef doc) {
+        listeners.orderedStream().forEach(listener -> {
+            try {
+                listener.onDocumentChanged(target, doc);
+            } catch (Exception e) {
+                log.warn("块索引变更通知失败 listener={} docId={} 分区={}",
+                        listener.getClass().getSimpleName(), doc.docId(), target.partition(), e);
+            }
+        });
     }
 }
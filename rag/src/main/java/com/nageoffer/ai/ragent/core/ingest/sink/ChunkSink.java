@@ -31,11 +31,22 @@ import java.util.List;
  */
 public interface ChunkSink {
 
+    /**
+     * 整体替换前、事务开启前调用：不能在事务里做的准备工作放这里（如 pgvector 的 CONCURRENTLY 删索引），默认无操作
+     */
+    default void beforeReplace(VectorTarget target, DocumentRef doc, List<EmbeddedChunk> chunks) {
+    }
+
     /**
      * 用给定的块整体替换该文档已有的块，空列表表示该文档不产生任何块
      */
     void replaceDocument(VectorTarget target, DocumentRef doc, List<EmbeddedChunk> chunks);
 
+    /**
+     * 增量写入：删除 removedIds，新增与变化块按 ID upsert，未出现在 delta 里的块保持原样
+     */
+    void applyDelta(VectorTarget target, DocumentRef doc, ChunkDelta delta);
+
     /**
      * 清除该文档的全部块
      */
@@ -0,0 +1,33 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nageoffer.ai.ragent.core.ingest.sink;
+
+import com.nageoffer.ai.ragent.core.ingest.DocumentRef;
+
+import java.util.List;
+
+/**
+ * 已落库块快照端口：增量重摄据此比对，实现由持有块主表的模块提供
+ */
+public interface ChunkSnapshotReader {
+
+    /**
+     * 读取该文档当前已落库的块，未入库过返回空列表
+     */
+    List<PersistedChunk> read(DocumentRef doc);
+}
@@ -0,0 +1,30 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nageoffer.ai.ragent.core.ingest.sink;
+
+/**
+ * 已落库块的比对快照：只带增量比对需要的字段，不带正文与向量
+ *
+ * @param chunkId       块 ID
+ * @param index         块序号
+ * @param contentHash   正文 SHA-256
+ * @param embeddingText 向量文本，正文不变但章节路径变了同样要重算向量
+ * @param enabled       是否启用，被人工禁用的块不参与复用
+ */
+public record PersistedChunk(String chunkId, int index, String contentHash, String embeddingText, boolean enabled) {
+}
@@ -20,6 +20,8 @@ package com.nageoffer.ai.ragent.ingestion.controller.request;
 import com.fasterxml.jackson.databind.JsonNode;
 import lombok.Data;
 
+import java.util.List;
+
 /**
  * 摄取管道节点请求对象
  * 用于接收管道中单个节点的配置信息，包括节点标识、类型、设置参数及执行条件
@@ -55,4 +57,10 @@ public class IngestionPipelineNodeRequest {
      * 用于定义管道中节点的执行顺序
      */
     private String nextNodeId;
+
+    /**
+     * 额外的后继节点ID列表
+     * 与 nextNodeId 共同构成节点的全部后继，用于定义 DAG 分叉
+     */
+    private List<String> nextNodeIds;
 }
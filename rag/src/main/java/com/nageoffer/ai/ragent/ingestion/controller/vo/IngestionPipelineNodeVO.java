@@ -20,6 +20,8 @@ package com.nageoffer.ai.ragent.ingestion.controller.vo;
 import com.fasterxml.jackson.databind.JsonNode;
 import lombok.Data;
 
+import java.util.List;
+
 @Data
 public class IngestionPipelineNodeVO {
 
@@ -34,4 +36,6 @@ public class IngestionPipelineNodeVO {
     private JsonNode condition;
 
     private String nextNodeId;
+
+    private List<String> nextNodeIds;
 }
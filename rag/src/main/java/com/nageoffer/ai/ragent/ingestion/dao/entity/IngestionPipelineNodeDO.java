@@ -67,6 +67,12 @@ public class IngestionPipelineNodeDO {
      */
     private String nextNodeId;
 
+    /**
+     * 额外后继节点ID列表JSON
+     */
+    @TableField(typeHandler = JsonbTypeHandler.class)
+    private String nextNodeIdsJson;
+
     /**
      * 设置详情JSON
      */
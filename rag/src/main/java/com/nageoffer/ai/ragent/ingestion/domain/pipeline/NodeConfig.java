@@ -22,6 +22,11 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.springframework.util.StringUtils;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
 
 /**
  * 管道节点配置实体类
@@ -61,4 +66,24 @@ public class NodeConfig {
      * 用于定义管道中节点的执行顺序
      */
     private String nextNodeId;
+
+    /**
+     * 额外的后继节点ID列表
+     * 与 nextNodeId 共同构成节点的全部后继，后继多于一个时流水线按 DAG 分叉并行执行
+     */
+    private List<String> nextNodeIds;
+
+    /**
+     * 节点的全部后继，nextNodeId 在前，nextNodeIds 按配置顺序在后，已去除空值与重复
+     */
+    public List<String> successorIds() {
+        Set<String> successors = new LinkedHashSet<>();
+        if (StringUtils.hasText(nextNodeId)) {
+            successors.add(nextNodeId);
+        }
+        if (nextNodeIds != null) {
+            nextNodeIds.stream().filter(StringUtils::hasText).forEach(successors::add);
+        }
+        return List.copyOf(successors);
+    }
 }
@@ -45,6 +45,11 @@ public class EnhancerSettings {
      */
     private List<EnhanceTask> tasks;
 
+    /**
+     * 互不依赖的增强任务并行调用的在途数，为空取全局默认
+     */
+    private Integer concurrency;
+
     /**
      * 增强任务配置
      * 定义单个增强任务的类型和提示词配置
@@ -75,8 +75,18 @@ public class EnricherSettings {
 
         /**
          * 用户提示词模板
-         * 支持变量替换
+         * 支持变量替换；配置了模板的任务逐块调用，不参与打包
          */
         private String userPromptTemplate;
+
+        /**
+         * 该任务的在途调用数，为空取全局默认
+         */
+        private Integer concurrency;
+
+        /**
+         * 每次调用打包的分块数，为空取全局默认，1 即逐块调用
+         */
+        private Integer batchSize;
     }
 }
@@ -0,0 +1,253 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nageoffer.ai.ragent.ingestion.engine;
+
+import com.nageoffer.ai.ragent.ingestion.domain.context.IngestionContext;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * DAG 执行时的上下文分叉与汇合
+ * <p>
+ * 分叉：每条分支拿到上下文的一份副本（集合字段各自复制，节点日志共享），并记下分叉时的快照作为基线，
+ * 分支之间互不可见，并发修改不会互相踩踏。
+ * <p>
+ * 汇合：以排在最前的输入为起点，其余输入按顺序把「相对自身基线有变化」的字段覆盖上去；
+ * 同一字段被多条分支改动时排在后面的分支胜出，metadata 按键合并，规则相同。
+ * 输入顺序由引擎按节点在流水线中的声明顺序给出，与分支完成先后无关，所以汇合结果是确定的。
+ * <p>
+ * 嵌套分叉：每条分支记下自己的基线和被分叉的上游所属的外层分支。内层汇合的结果仍是外层分支的一部分，
+ * 取各输入共同所属的外层分支作为归属，之后与外层兄弟汇合时按外层基线比较，
+ * 外层分支在内层分叉之前的改动不会因为内层基线已包含它而被当作未变化丢掉。
+ * <p>
+ * 只在调度线程上使用，不需要加锁
+ */
+final class ContextBranches {
+
+    private final Map<IngestionContext, Lineage> lineages = new IdentityHashMap<>();
+
+    /**
+     * 从上游输出分出一条分支
+     */
+    IngestionContext fork(IngestionContext source) {
+        IngestionContext branch = copy(source);
+        lineages.put(branch, new Lineage(copy(source), lineages.get(source)));
+        return branch;
+    }
+
+    /**
+     * 汇合多个上游输出
+     *
+     * @param inputs 按声明顺序排列的上游输出
+     * @return 新的上下文对象，不会修改任何输入
+     */
+    IngestionContext join(List<IngestionContext> inputs) {
+        // 没有基线的输入是分叉前的祖先状态，只能作为起点，排到最前
+        List<IngestionContext> ordered = new ArrayList<>(inputs);
+        ordered.sort(Comparator.comparing(lineages::containsKey));
+
+        IngestionContext merged = copy(ordered.get(0));
+        for (int i = 1; i < ordered.size(); i++) {
+            IngestionContext branch = ordered.get(i);
+            Lineage lineage = lineages.get(branch);
+            if (lineage != null) {
+                applyChanges(merged, branch, lineage.baseline());
+            }
+        }
+        Lineage owner = commonOuter(ordered);
+        if (owner != null) {
+            lineages.put(merged, owner);
+        }
+        return merged;
+    }
+
+    /**
+     * 汇合结果的归属：各输入所属分支链上最内层的公共分支，没有则说明已回到分叉前的主干
+     * <p>
+     * 同一次分叉出来的兄弟分支各自的链只在外层重合，所以内层汇合结果落到外层分支上
+     */
+    private Lineage commonOuter(List<IngestionContext> inputs) {
+        for (Lineage candidate = lineages.get(inputs.get(0)); candidate != null; candidate = candidate.outer()) {
+            if (allWithin(inputs, candidate)) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    private boolean allWithin(List<IngestionContext> inputs, Lineage ancestor) {
+        for (IngestionContext input : inputs) {
+            boolean found = false;
+            for (Lineage lineage = lineages.get(input); lineage != null; lineage = lineage.outer()) {
+                if (lineage == ancestor) {
+                    found = true;
+                    break;
+                }
+            }
+            if (!found) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 把最终状态写回调用方传入的上下文对象，状态、异常与日志由引擎维护，不在此处覆盖
+     */
+    static void assign(IngestionContext target, IngestionContext source) {
+        target.setTaskId(source.getTaskId());
+        target.setPipelineId(source.getPipelineId());
+        target.setSource(source.getSource());
+        target.setRawBytes(source.getRawBytes());
+        target.setMimeType(source.getMimeType());
+        target.setRawText(source.getRawText());
+        target.setDocument(source.getDocument());
+        target.setChunks(source.getChunks());
+        target.setVectorTarget(source.getVectorTarget());
+        target.setEnhancedText(source.getEnhancedText());
+        target.setKeywords(source.getKeywords());
+        target.setQuestions(source.getQuestions());
+        target.setMetadata(source.getMetadata());
+        target.setVectorSpaceId(source.getVectorSpaceId());
+        target.setSkipIndexerWrite(source.isSkipIndexerWrite());
+        target.setAssets(source.getAssets());
+    }
+
+    private static void applyChanges(IngestionContext target, IngestionContext branch, IngestionContext baseline) {
+        if (changed(branch.getTaskId(), baseline.getTaskId())) {
+            target.setTaskId(branch.getTaskId());
+        }
+        if (changed(branch.getPipelineId(), baseline.getPipelineId())) {
+            target.setPipelineId(branch.getPipelineId());
+        }
+        if (changed(branch.getSource(), baseline.getSource())) {
+            target.setSource(branch.getSource());
+        }
+        if (changed(branch.getRawBytes(), baseline.getRawBytes())) {
+            target.setRawBytes(branch.getRawBytes());
+        }
+        if (changed(branch.getMimeType(), baseline.getMimeType())) {
+            target.setMimeType(branch.getMimeType());
+        }
+        if (changed(branch.getRawText(), baseline.getRawText())) {
+            target.setRawText(branch.getRawText());
+        }
+        if (changed(branch.getDocument(), baseline.getDocument())) {
+            target.setDocument(branch.getDocument());
+        }
+        if (changed(branch.getChunks(), baseline.getChunks())) {
+            target.setChunks(branch.getChunks());
+        }
+        if (changed(branch.getVectorTarget(), baseline.getVectorTarget())) {
+            target.setVectorTarget(branch.getVectorTarget());
+        }
+        if (changed(branch.getEnhancedText(), baseline.getEnhancedText())) {
+            target.setEnhancedText(branch.getEnhancedText());
+        }
+        if (changed(branch.getKeywords(), baseline.getKeywords())) {
+            target.setKeywords(branch.getKeywords());
+        }
+        if (changed(branch.getQuestions(), baseline.getQuestions())) {
+            target.setQuestions(branch.getQuestions());
+        }
+        if (changed(branch.getVectorSpaceId(), baseline.getVectorSpaceId())) {
+            target.setVectorSpaceId(branch.getVectorSpaceId());
+        }
+        if (branch.isSkipIndexerWrite() != baseline.isSkipIndexerWrite()) {
+            target.setSkipIndexerWrite(branch.isSkipIndexerWrite());
+        }
+        if (changed(branch.getAssets(), baseline.getAssets())) {
+            target.setAssets(branch.getAssets());
+        }
+        mergeMetadata(target, branch.getMetadata(), baseline.getMetadata());
+    }
+
+    private static void mergeMetadata(IngestionContext target, Map<String, Object> branch, Map<String, Object> baseline) {
+        if (branch == null || branch.isEmpty()) {
+            return;
+        }
+        for (Map.Entry<String, Object> entry : branch.entrySet()) {
+            if (baseline != null && baseline.containsKey(entry.getKey())
+                    && !changed(entry.getValue(), baseline.get(entry.getKey()))) {
+                continue;
+            }
+            if (target.getMetadata() == null) {
+                target.setMetadata(new HashMap<>());
+            }
+            target.getMetadata().put(entry.getKey(), entry.getValue());
+        }
+    }
+
+    private static boolean changed(Object current, Object baseline) {
+        return !Objects.equals(current, baseline);
+    }
+
+    /**
+     * 分支的基线快照，以及被分叉的上游所属的外层分支（主干上分叉时为 null）
+     * <p>
+     * 只按引用比较：基线内容相同的两条兄弟分支仍是不同的分支
+     */
+    private static final class Lineage {
+
+        private final IngestionContext baseline;
+        private final Lineage outer;
+
+        private Lineage(IngestionContext baseline, Lineage outer) {
+            this.baseline = baseline;
+            this.outer = outer;
+        }
+
+        private IngestionContext baseline() {
+            return baseline;
+        }
+
+        private Lineage outer() {
+            return outer;
+        }
+    }
+
+    private static IngestionContext copy(IngestionContext source) {
+        return IngestionContext.builder()
+                .taskId(source.getTaskId())
+                .pipelineId(source.getPipelineId())
+                .source(source.getSource())
+                .rawBytes(source.getRawBytes())
+                .mimeType(source.getMimeType())
+                .rawText(source.getRawText())
+                .document(source.getDocument())
+                .chunks(source.getChunks() == null ? null : new ArrayList<>(source.getChunks()))
+                .vectorTarget(source.getVectorTarget())
+                .enhancedText(source.getEnhancedText())
+                .keywords(source.getKeywords() == null ? null : new ArrayList<>(source.getKeywords()))
+                .questions(source.getQuestions() == null ? null : new ArrayList<>(source.getQuestions()))
+                .metadata(source.getMetadata() == null ? null : new HashMap<>(source.getMetadata()))
+                .vectorSpaceId(source.getVectorSpaceId())
+                .status(source.getStatus())
+                .logs(source.getLogs())
+                .error(source.getError())
+                .skipIndexerWrite(source.isSkipIndexerWrite())
+                .assets(source.getAssets() == null ? null : new ArrayList<>(source.getAssets()))
+                .build();
+    }
+}
@@ -30,10 +30,18 @@ import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
 
 import java.util.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.stream.Collectors;
 
 /**
- * 流水线执行引擎 - 基于节点连线的链式执行
+ * 流水线执行引擎 - 基于节点连线的链式 / DAG 执行
+ * <p>
+ * 每个节点的后继为 nextNodeId 与 nextNodeIds 的并集。没有任何分叉的流水线仍按原来的链式逻辑
+ * 在调用线程上执行；存在分叉时按 DAG 调度：前驱全部完成的节点即可执行，同时就绪的节点提交到
+ * 有界的节点线程池并发执行，分支各自持有上下文副本，在多前驱节点处按声明顺序确定性地汇合
  */
 @Slf4j
 @Component
@@ -42,15 +50,18 @@ public class IngestionEngine {
     private final Map<String, IngestionNode> nodeMap;
     private final ConditionEvaluator conditionEvaluator;
     private final NodeOutputExtractor outputExtractor;
+    private final Executor ingestionNodeExecutor;
 
     public IngestionEngine(
             List<IngestionNode> nodes,
             ConditionEvaluator conditionEvaluator,
-            NodeOutputExtractor outputExtractor) {
+            NodeOutputExtractor outputExtractor,
+            Executor ingestionNodeExecutor) {
         this.nodeMap = nodes.stream()
                 .collect(Collectors.toMap(IngestionNode::getNodeType, n -> n));
         this.conditionEvaluator = conditionEvaluator;
         this.outputExtractor = outputExtractor;
+        this.ingestionNodeExecutor = ingestionNodeExecutor;
     }
 
     /**
@@ -83,8 +94,14 @@ public class IngestionEngine {
 
         log.info("流水线从节点开始执行: {}", startNodeId);
 
-        // 从起始节点开始链式执行
-        executeChain(startNodeId, nodeConfigMap, context);
+        boolean branched = nodeConfigMap.values().stream()
+                .anyMatch(config -> config.successorIds().size() > 1);
+        if (branched) {
+            executeGraph(startNodeId, nodeConfigMap, declarationOrder(pipeline.getNodes()), context);
+        } else {
+            // 没有分叉时保持原有的链式执行
+            executeChain(startNodeId, nodeConfigMap, context);
+        }
 
         if (context.getStatus() == IngestionStatus.RUNNING) {
             context.setStatus(IngestionStatus.COMPLETED);
@@ -104,43 +121,56 @@ public class IngestionEngine {
     }
 
     /**
-     * 验证流水线配置
+     * 验证流水线配置：后继必须存在，且整张图无环
+     * <p>
+     * 按拓扑排序（Kahn）逐个剥离入度为 0 的节点，剥不完说明剩下的节点在环上
      */
     private void validatePipeline(Map<String, NodeConfig> nodeConfigMap) {
-        Set<String> visited = new HashSet<>();
-
-        for (String nodeId : nodeConfigMap.keySet()) {
-            if (visited.contains(nodeId)) {
-                continue;
-            }
-
-            Set<String> path = new HashSet<>();
-            String current = nodeId;
-
-            while (current != null) {
-                if (path.contains(current)) {
-                    throw new ClientException("流水线存在环: " + current);
-                }
-
-                path.add(current);
-                visited.add(current);
-
-                NodeConfig config = nodeConfigMap.get(current);
-                if (config == null) {
-                    break;
+        Map<String, Integer> inDegree = new HashMap<>();
+        nodeConfigMap.keySet().forEach(nodeId -> inDegree.put(nodeId, 0));
+        nodeConfigMap.forEach((nodeId, config) -> {
+            for (String nextId : config.successorIds()) {
+                if (!nodeConfigMap.containsKey(nextId)) {
+                    throw new ClientException("找不到下一个节点: " + nextId + "，被节点 " + nodeId + " 引用");
                 }
+                inDegree.merge(nextId, 1, Integer::sum);
+            }
+        });
 
-                String nextId = config.getNextNodeId();
-                if (StringUtils.hasText(nextId)) {
-                    if (!nodeConfigMap.containsKey(nextId)) {
-                        throw new ClientException("找不到下一个节点: " + nextId + "，被节点 " + current + " 引用");
-                    }
-                    current = nextId;
-                } else {
-                    break;
+        // 节点ID可能为空（由后面的起始节点校验给出明确报错），用允许 null 的列表当栈，剥离顺序不影响判环
+        List<String> zeroInDegree = new ArrayList<>();
+        inDegree.forEach((nodeId, degree) -> {
+            if (degree == 0) {
+                zeroInDegree.add(nodeId);
+            }
+        });
+        while (!zeroInDegree.isEmpty()) {
+            String nodeId = zeroInDegree.remove(zeroInDegree.size() - 1);
+            inDegree.remove(nodeId);
+            for (String nextId : nodeConfigMap.get(nodeId).successorIds()) {
+                if (inDegree.merge(nextId, -1, Integer::sum) == 0) {
+                    zeroInDegree.add(nextId);
                 }
             }
         }
+        if (!inDegree.isEmpty()) {
+            String cycleNodeId = inDegree.keySet().stream()
+                    .sorted(Comparator.nullsFirst(Comparator.naturalOrder()))
+                    .findFirst()
+                    .orElse(null);
+            throw new ClientException("流水线存在环: " + cycleNodeId);
+        }
+    }
+
+    /**
+     * 节点在流水线定义中的声明顺序，作为 DAG 汇合与就绪排序的确定性依据
+     */
+    private Map<String, Integer> declarationOrder(List<NodeConfig> nodes) {
+        Map<String, Integer> order = new HashMap<>();
+        for (int i = 0; i < nodes.size(); i++) {
+            order.putIfAbsent(nodes.get(i).getNodeId(), i);
+        }
+        return order;
     }
 
     /**
@@ -148,8 +178,7 @@ public class IngestionEngine {
      */
     private List<String> findStartNodes(Map<String, NodeConfig> nodeConfigMap) {
         Set<String> referencedNodes = nodeConfigMap.values().stream()
-                .map(NodeConfig::getNextNodeId)
-                .filter(StringUtils::hasText)
+                .flatMap(config -> config.successorIds().stream())
                 .collect(Collectors.toSet());
 
         return nodeConfigMap.keySet().stream()
@@ -205,6 +234,178 @@ public class IngestionEngine {
         log.info("流水线执行完成，共执行 {} 个节点", executedCount);
     }
 
+    /**
+     * 按 DAG 调度执行节点
+     * <p>
+     * 调度只在当前线程进行：就绪节点只有一个且没有在途节点时直接在当前线程执行，省掉一次线程切换；
+     * 否则提交到节点线程池，完成结果回到队列由当前线程统一推进后继。
+     * 任一节点失败或要求终止后不再调度新节点，等在途节点结束后返回；条件不满足的节点视为跳过，后继照常执行
+     */
+    private void executeGraph(
+            String startNodeId,
+            Map<String, NodeConfig> nodeConfigMap,
+            Map<String, Integer> order,
+            IngestionContext context) {
+
+        Comparator<String> byDeclaration = Comparator.comparing(order::get);
+        Map<String, List<String>> predecessors = new HashMap<>();
+        Map<String, Integer> pending = new HashMap<>();
+        nodeConfigMap.forEach((nodeId, config) -> {
+            for (String nextId : config.successorIds()) {
+                predecessors.computeIfAbsent(nextId, k -> new ArrayList<>()).add(nodeId);
+                pending.merge(nextId, 1, Integer::sum);
+            }
+        });
+        predecessors.values().forEach(list -> list.sort(byDeclaration));
+
+        // 分支并发写日志，换成线程安全的列表；分支副本共享同一个列表
+        context.setLogs(Collections.synchronizedList(context.getLogs()));
+
+        ContextBranches branches = new ContextBranches();
+        Map<String, IngestionContext> outputs = new HashMap<>();
+        BlockingQueue<NodeCompletion> completions = new LinkedBlockingQueue<>();
+        Deque<String> ready = new ArrayDeque<>(List.of(startNodeId));
+        NodeResult failure = null;
+        boolean stopped = false;
+        int inFlight = 0;
+        int executedCount = 0;
+
+        while (true) {
+            while (!stopped && !ready.isEmpty()) {
+                String nodeId = ready.poll();
+                NodeConfig config = nodeConfigMap.get(nodeId);
+                IngestionContext input = resolveInput(nodeId, context, predecessors, outputs, nodeConfigMap, branches);
+                log.info("开始执行节点: {}", nodeId);
+                inFlight++;
+                executedCount++;
+                if (ready.isEmpty() && inFlight == 1) {
+                    runNode(nodeId, input, config, completions);
+                } else {
+                    submitNode(nodeId, input, config, completions);
+                }
+            }
+            if (inFlight == 0) {
+                break;
+            }
+
+            NodeCompletion completion;
+            try {
+                completion = completions.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failure = NodeResult.fail(e);
+                log.error("等待节点执行结果时被中断");
+                break;
+            }
+            inFlight--;
+
+            NodeResult result = completion.result();
+            if (!result.isSuccess()) {
+                if (failure == null) {
+                    failure = result;
+                }
+                stopped = true;
+                log.error("节点 {} 执行失败: {}", completion.nodeId(), result.getMessage());
+                continue;
+            }
+            if (!result.isShouldContinue()) {
+                stopped = true;
+                log.info("流水线在节点 {} 停止", completion.nodeId());
+                continue;
+            }
+
+            outputs.put(completion.nodeId(), completion.context());
+            List<String> unlocked = new ArrayList<>();
+            for (String nextId : nodeConfigMap.get(completion.nodeId()).successorIds()) {
+                if (pending.merge(nextId, -1, Integer::sum) == 0) {
+                    unlocked.add(nextId);
+                }
+            }
+            unlocked.sort(byDeclaration);
+            ready.addAll(unlocked);
+        }
+
+        // 把各分支末端的结果汇合回调用方传入的上下文
+        List<String> frontier = outputs.keySet().stream()
+                .filter(nodeId -> nodeConfigMap.get(nodeId).successorIds().stream().noneMatch(outputs::containsKey))
+                .sorted(byDeclaration)
+                .toList();
+        if (!frontier.isEmpty()) {
+            IngestionContext last = frontier.size() == 1
+                    ? outputs.get(frontier.get(0))
+                    : branches.join(frontier.stream().map(outputs::get).toList());
+            if (last != context) {
+                ContextBranches.assign(context, last);
+            }
+        }
+        if (failure != null) {
+            context.setStatus(IngestionStatus.FAILED);
+            context.setError(failure.getError());
+        }
+
+        log.info("流水线执行完成，共执行 {} 个节点", executedCount);
+    }
+
+    /**
+     * 计算节点的输入上下文
+     * <p>
+     * 起始节点直接使用调用方的上下文；唯一前驱且前驱没有分叉时沿用前驱的上下文对象；
+     * 前驱有分叉时拿一份分支副本；多个前驱时按声明顺序汇合
+     */
+    private IngestionContext resolveInput(
+            String nodeId,
+            IngestionContext context,
+            Map<String, List<String>> predecessors,
+            Map<String, IngestionContext> outputs,
+            Map<String, NodeConfig> nodeConfigMap,
+            ContextBranches branches) {
+
+        List<String> preds = predecessors.getOrDefault(nodeId, List.of());
+        if (preds.isEmpty()) {
+            return context;
+        }
+        if (preds.size() == 1) {
+            String predId = preds.get(0);
+            IngestionContext upstream = outputs.get(predId);
+            return nodeConfigMap.get(predId).successorIds().size() > 1 ? branches.fork(upstream) : upstream;
+        }
+        return branches.join(preds.stream().map(outputs::get).toList());
+    }
+
+    private void submitNode(
+            String nodeId,
+            IngestionContext input,
+            NodeConfig config,
+            BlockingQueue<NodeCompletion> completions) {
+        try {
+            ingestionNodeExecutor.execute(() -> runNode(nodeId, input, config, completions));
+        } catch (RejectedExecutionException e) {
+            log.warn("节点线程池拒绝任务，节点 {} 改为在调度线程执行", nodeId);
+            runNode(nodeId, input, config, completions);
+        }
+    }
+
+    /**
+     * 执行节点并投递结果，任何异常都转为失败结果，保证调度线程一定能等到这次完成
+     */
+    private void runNode(
+            String nodeId,
+            IngestionContext input,
+            NodeConfig config,
+            BlockingQueue<NodeCompletion> completions) {
+        NodeResult result;
+        try {
+            result = executeNode(input, config);
+        } catch (Throwable e) {
+            log.error("节点 {} 执行异常", nodeId, e);
+            result = NodeResult.fail(e);
+        }
+        completions.add(new NodeCompletion(nodeId, input, result));
+    }
+
+    private record NodeCompletion(String nodeId, IngestionContext context, NodeResult result) {
+    }
+
     /**
      * 执行单个节点
      */
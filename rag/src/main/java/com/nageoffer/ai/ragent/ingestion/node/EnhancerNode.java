@@ -30,11 +30,10 @@ import com.nageoffer.ai.ragent.ingestion.domain.settings.EnhancerSettings;
 import com.nageoffer.ai.ragent.ingestion.prompt.EnhancerPromptManager;
 import com.nageoffer.ai.ragent.ingestion.util.JsonResponseParser;
 import com.nageoffer.ai.ragent.ingestion.util.PromptTemplateRenderer;
-import com.nageoffer.ai.ragent.infra.chat.LLMService;
-import com.nageoffer.ai.ragent.infra.enums.Tier;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -42,16 +41,18 @@ import java.util.Map;
 /**
  * 文本增强节点
  * 该节点通过调用大模型对输入的文本进行增强处理，包括不限于上下文增强、关键词提取、问题生成及元数据提取等任务
+ * <p>
+ * 上下文增强会改写后续任务的输入，作为分隔点串行执行；分隔点之间的任务互不依赖，并行调用后按配置顺序落结果
  */
 @Component
 public class EnhancerNode implements IngestionNode {
 
     private final ObjectMapper objectMapper;
-    private final LLMService llmService;
+    private final EnrichmentExecutor enrichmentExecutor;
 
-    public EnhancerNode(ObjectMapper objectMapper, LLMService llmService) {
+    public EnhancerNode(ObjectMapper objectMapper, EnrichmentExecutor enrichmentExecutor) {
         this.objectMapper = objectMapper;
-        this.llmService = llmService;
+        this.enrichmentExecutor = enrichmentExecutor;
     }
 
     @Override
@@ -69,33 +70,59 @@ public class EnhancerNode implements IngestionNode {
             context.setMetadata(new HashMap<>());
         }
 
+        int concurrency = enrichmentExecutor.concurrency(settings.getConcurrency());
+        List<EnhancerSettings.EnhanceTask> group = new ArrayList<>();
         for (EnhancerSettings.EnhanceTask task : settings.getTasks()) {
             if (task == null || task.getType() == null) {
                 continue;
             }
-            EnhanceType type = task.getType();
-            String input = resolveInputText(context, type);
-            if (!StringUtils.hasText(input)) {
-                continue;
+            if (task.getType() == EnhanceType.CONTEXT_ENHANCE) {
+                runGroup(group, context, settings.getModelId(), concurrency);
+                group.clear();
+                runGroup(List.of(task), context, settings.getModelId(), 1);
+            } else {
+                group.add(task);
             }
-            String systemPrompt = StringUtils.hasText(task.getSystemPrompt())
-                    ? task.getSystemPrompt()
-                    : EnhancerPromptManager.systemPrompt(type);
-            String userPrompt = buildUserPrompt(task.getUserPromptTemplate(), input, context);
-
-            ChatRequest request = ChatRequest.builder()
-                    .messages(List.of(
-                            ChatMessage.system(systemPrompt == null ? "" : systemPrompt),
-                            ChatMessage.user(userPrompt)
-                    ))
-                    .build();
-            String response = chat(request, settings.getModelId());
-            applyTaskResult(context, type, response);
         }
+        runGroup(group, context, settings.getModelId(), concurrency);
 
         return NodeResult.ok("增强完成");
     }
 
+    /**
+     * 组内任务读同一份输入，并行调用；结果按组内顺序依次落到上下文，元数据合并顺序与串行时一致
+     */
+    private void runGroup(List<EnhancerSettings.EnhanceTask> group, IngestionContext context, String modelId,
+                          int concurrency) {
+        List<EnhancerSettings.EnhanceTask> runnable = group.stream()
+                .filter(task -> StringUtils.hasText(resolveInputText(context, task.getType())))
+                .toList();
+        if (runnable.isEmpty()) {
+            return;
+        }
+        List<String> responses = enrichmentExecutor.map(runnable, concurrency, task -> call(task, context, modelId));
+        for (int i = 0; i < runnable.size(); i++) {
+            applyTaskResult(context, runnable.get(i).getType(), responses.get(i));
+        }
+    }
+
+    private String call(EnhancerSettings.EnhanceTask task, IngestionContext context, String modelId) {
+        EnhanceType type = task.getType();
+        String input = resolveInputText(context, type);
+        String systemPrompt = StringUtils.hasText(task.getSystemPrompt())
+                ? task.getSystemPrompt()
+                : EnhancerPromptManager.systemPrompt(type);
+        String userPrompt = buildUserPrompt(task.getUserPromptTemplate(), input, context);
+
+        ChatRequest request = ChatRequest.builder()
+                .messages(List.of(
+                        ChatMessage.system(systemPrompt == null ? "" : systemPrompt),
+                        ChatMessage.user(userPrompt)
+                ))
+                .build();
+        return enrichmentExecutor.chat(request, modelId);
+    }
+
     private EnhancerSettings parseSettings(JsonNode node) {
         if (node == null || node.isNull()) {
             return EnhancerSettings.builder().tasks(List.of()).build();
@@ -126,10 +153,6 @@ public class EnhancerNode implements IngestionNode {
         return PromptTemplateRenderer.render(template, vars);
     }
 
-    private String chat(ChatRequest request, String modelId) {
-        return llmService.chat(request, Tier.FAST, modelId);
-    }
-
     private void applyTaskResult(IngestionContext context, EnhanceType type, String response) {
         switch (type) {
             case CONTEXT_ENHANCE -> context.setEnhancedText(StringUtils.hasText(response) ? response.trim() : response);
@@ -17,6 +17,7 @@
 
 package com.nageoffer.ai.ragent.ingestion.node;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.nageoffer.ai.ragent.core.chunk.model.EmbeddedChunk;
@@ -31,28 +32,31 @@ import com.nageoffer.ai.ragent.ingestion.domain.settings.EnricherSettings;
 import com.nageoffer.ai.ragent.ingestion.prompt.EnricherPromptManager;
 import com.nageoffer.ai.ragent.ingestion.util.JsonResponseParser;
 import com.nageoffer.ai.ragent.ingestion.util.PromptTemplateRenderer;
-import com.nageoffer.ai.ragent.infra.chat.LLMService;
-import com.nageoffer.ai.ragent.infra.enums.Tier;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
 /**
  * 文本增强节点
  * 该节点通过调用大模型对文档分片进行信息提取或补充，如提取关键词、生成摘要、补充元数据等
+ * <p>
+ * 各任务互不依赖，并行执行；任务内按 concurrency 限制在途调用，并把多个小分块打包进一次调用，
+ * 按编号拆回各块结果。打包调用失败或缺项的分块逐块补做，输出与逐块调用一致，分块顺序不变
  */
 @Component
 public class EnricherNode implements IngestionNode {
 
     private final ObjectMapper objectMapper;
-    private final LLMService llmService;
+    private final EnrichmentExecutor enrichmentExecutor;
 
-    public EnricherNode(ObjectMapper objectMapper, LLMService llmService) {
+    public EnricherNode(ObjectMapper objectMapper, EnrichmentExecutor enrichmentExecutor) {
         this.objectMapper = objectMapper;
-        this.llmService = llmService;
+        this.enrichmentExecutor = enrichmentExecutor;
     }
 
     @Override
@@ -71,8 +75,20 @@ public class EnricherNode implements IngestionNode {
             return NodeResult.ok("No enricher tasks configured");
         }
         boolean attachMetadata = settings.getAttachDocumentMetadata() == null || settings.getAttachDocumentMetadata();
+        List<EmbeddedChunk> targets = chunks.stream()
+                .filter(chunk -> chunk != null && StringUtils.hasText(chunk.content()))
+                .toList();
+        List<EnricherSettings.ChunkEnrichTask> tasks = settings.getTasks().stream()
+                .filter(task -> task != null && task.getType() != null)
+                .toList();
+
+        // 每个任务得到与 targets 一一对应的原始响应，全部完成后再按任务配置顺序落到各块，与逐块串行时的合并顺序一致
+        List<String[]> responses = enrichmentExecutor.map(tasks, tasks.size(),
+                task -> runTask(task, targets, context, settings.getModelId()));
+
         // 块不可变：加工产物收集到扩展位，最后整块替换，而不是原地改一个自由 Map
-        List<EmbeddedChunk> enriched = new java.util.ArrayList<>(chunks.size());
+        List<EmbeddedChunk> enriched = new ArrayList<>(chunks.size());
+        int target = 0;
         for (EmbeddedChunk chunk : chunks) {
             if (chunk == null || !StringUtils.hasText(chunk.content())) {
                 if (chunk != null) {
@@ -84,24 +100,10 @@ public class EnricherNode implements IngestionNode {
             if (attachMetadata && context.getMetadata() != null) {
                 extras.putAll(context.getMetadata());
             }
-            for (EnricherSettings.ChunkEnrichTask task : settings.getTasks()) {
-                if (task == null || task.getType() == null) {
-                    continue;
-                }
-                ChunkEnrichType type = task.getType();
-                String systemPrompt = StringUtils.hasText(task.getSystemPrompt())
-                        ? task.getSystemPrompt()
-                        : EnricherPromptManager.systemPrompt(type);
-                String userPrompt = buildUserPrompt(task.getUserPromptTemplate(), chunk, context);
-                ChatRequest request = ChatRequest.builder()
-                        .messages(List.of(
-                                ChatMessage.system(systemPrompt == null ? "" : systemPrompt),
-                                ChatMessage.user(userPrompt)
-                        ))
-                        .build();
-                String response = chat(request, settings.getModelId());
-                applyResult(extras, type, response);
+            for (int t = 0; t < tasks.size(); t++) {
+                applyResult(extras, tasks.get(t).getType(), responses.get(t)[target]);
             }
+            target++;
             enriched.add(extras.isEmpty()
                     ? chunk
                     : new EmbeddedChunk(chunk.chunk().withMetadata(chunk.metadata().withExtras(extras)),
@@ -111,6 +113,111 @@ public class EnricherNode implements IngestionNode {
         return NodeResult.ok("Enricher completed");
     }
 
+    private String[] runTask(EnricherSettings.ChunkEnrichTask task,
+                             List<EmbeddedChunk> targets,
+                             IngestionContext context,
+                             String modelId) {
+        String systemPrompt = StringUtils.hasText(task.getSystemPrompt())
+                ? task.getSystemPrompt()
+                : EnricherPromptManager.systemPrompt(task.getType());
+        // 自定义模板按单块渲染（可能引用 chunkIndex 等变量），没法合进一个打包提示词
+        int batchSize = StringUtils.hasText(task.getUserPromptTemplate())
+                ? 1
+                : enrichmentExecutor.batchSize(task.getBatchSize());
+        String[] responses = new String[targets.size()];
+        enrichmentExecutor.map(partition(targets, batchSize), enrichmentExecutor.concurrency(task.getConcurrency()),
+                batch -> {
+                    runBatch(task, systemPrompt, batch, targets, responses, context, modelId);
+                    return null;
+                });
+        return responses;
+    }
+
+    private void runBatch(EnricherSettings.ChunkEnrichTask task,
+                          String systemPrompt,
+                          List<Integer> batch,
+                          List<EmbeddedChunk> targets,
+                          String[] responses,
+                          IngestionContext context,
+                          String modelId) {
+        if (batch.size() > 1) {
+            Map<String, String> results = chatBatch(systemPrompt, batch, targets, modelId);
+            for (int i = 0; i < batch.size(); i++) {
+                responses[batch.get(i)] = results.get(String.valueOf(i + 1));
+            }
+        }
+        for (int position : batch) {
+            if (responses[position] == null) {
+                EmbeddedChunk chunk = targets.get(position);
+                ChatRequest request = ChatRequest.builder()
+                        .messages(List.of(
+                                ChatMessage.system(systemPrompt == null ? "" : systemPrompt),
+                                ChatMessage.user(buildUserPrompt(task.getUserPromptTemplate(), chunk, context))
+                        ))
+                        .build();
+                responses[position] = enrichmentExecutor.chat(request, modelId);
+            }
+        }
+    }
+
+    /**
+     * 打包调用：输入按批内序号编号，响应按编号拆回；调用失败或解析不出的返回空 Map，由调用方逐块补做
+     */
+    private Map<String, String> chatBatch(String systemPrompt, List<Integer> batch, List<EmbeddedChunk> targets,
+                                          String modelId) {
+        List<Map<String, String>> items = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            Map<String, String> item = new LinkedHashMap<>();
+            item.put("id", String.valueOf(i + 1));
+            item.put("text", targets.get(batch.get(i)).content());
+            items.add(item);
+        }
+        try {
+            ChatRequest request = ChatRequest.builder()
+                    .messages(List.of(
+                            ChatMessage.system(EnricherPromptManager.batchSystemPrompt(systemPrompt)),
+                            ChatMessage.user(objectMapper.writeValueAsString(items))
+                    ))
+                    .build();
+            String response = enrichmentExecutor.chatOnce(request, modelId);
+            Map<String, String> results = new HashMap<>();
+            for (Map.Entry<String, Object> entry : JsonResponseParser.parseObject(response).entrySet()) {
+                Object value = entry.getValue();
+                if (value != null) {
+                    // 拆回单块响应的原样格式：文本结果直接用，JSON 结果序列化回字符串，复用逐块调用的解析
+                    results.put(entry.getKey(), value instanceof String text ? text : objectMapper.writeValueAsString(value));
+                }
+            }
+            return results;
+        } catch (JsonProcessingException ex) {
+            return Map.of();
+        }
+    }
+
+    /**
+     * 按块数与正文字符上限贪心分批，元素为 targets 下标；超长的单块自成一批
+     */
+    private List<List<Integer>> partition(List<EmbeddedChunk> targets, int batchSize) {
+        int maxChars = enrichmentExecutor.batchMaxChars();
+        List<List<Integer>> batches = new ArrayList<>();
+        List<Integer> current = new ArrayList<>();
+        int chars = 0;
+        for (int i = 0; i < targets.size(); i++) {
+            int length = targets.get(i).content().length();
+            if (!current.isEmpty() && (current.size() >= batchSize || chars + length > maxChars)) {
+                batches.add(current);
+                current = new ArrayList<>();
+                chars = 0;
+            }
+            current.add(i);
+            chars += length;
+        }
+        if (!current.isEmpty()) {
+            batches.add(current);
+        }
+        return batches;
+    }
+
     private EnricherSettings parseSettings(JsonNode node) {
         if (node == null || node.isNull()) {
             return EnricherSettings.builder().tasks(List.of()).build();
@@ -141,8 +248,4 @@ public class EnricherNode implements IngestionNode {
             }
         }
     }
-
-    private String chat(ChatRequest request, String modelId) {
-        return llmService.chat(request, Tier.FAST, modelId);
-    }
 }
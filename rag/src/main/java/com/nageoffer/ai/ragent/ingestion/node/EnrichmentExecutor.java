@@ -0,0 +1,144 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nageoffer.ai.ragent.ingestion.node;
+
+import com.nageoffer.ai.ragent.core.ingest.IngestionProperties;
+import com.nageoffer.ai.ragent.framework.convention.ChatRequest;
+import com.nageoffer.ai.ragent.infra.chat.LLMService;
+import com.nageoffer.ai.ragent.infra.enums.Tier;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * 富集 / 增强节点共用的大模型调用执行器
+ * <p>
+ * 按调用方给定的在途数并行执行一组调用单元，结果按输入顺序返回；单次调用失败按配置重试。
+ * 在途数靠固定数量的 worker 轮流领取单元来限制，而不是把全部单元一次性丢进线程池，
+ * 3000 个分块也只会有 concurrency 个请求同时打到模型
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class EnrichmentExecutor {
+
+    private final LLMService llmService;
+    private final IngestionProperties ingestionProperties;
+    private final Executor ingestionEnrichExecutor;
+
+    /**
+     * 在途数不超过 concurrency 地对每个单元执行 fn，结果与 units 一一对应
+     * <p>
+     * 任一单元失败后不再领取新单元，等在途单元结束后抛出首个异常，与逐个执行时「遇错即停」的行为一致
+     */
+    public <T, R> List<R> map(List<T> units, int concurrency, Function<T, R> fn) {
+        int workers = Math.max(1, Math.min(concurrency, units.size()));
+        if (workers == 1) {
+            List<R> results = new ArrayList<>(units.size());
+            for (T unit : units) {
+                results.add(fn.apply(unit));
+            }
+            return results;
+        }
+
+        Object[] results = new Object[units.size()];
+        AtomicInteger cursor = new AtomicInteger();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Runnable worker = () -> {
+            int i;
+            while (failure.get() == null && (i = cursor.getAndIncrement()) < units.size()) {
+                try {
+                    results[i] = fn.apply(units.get(i));
+                } catch (Throwable ex) {
+                    failure.compareAndSet(null, ex);
+                }
+            }
+        };
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[workers];
+        for (int w = 0; w < workers; w++) {
+            futures[w] = CompletableFuture.runAsync(worker, ingestionEnrichExecutor);
+        }
+        CompletableFuture.allOf(futures).join();
+
+        Throwable ex = failure.get();
+        if (ex instanceof RuntimeException runtimeException) {
+            throw runtimeException;
+        }
+        if (ex instanceof Error error) {
+            throw error;
+        }
+        if (ex != null) {
+            throw new IllegalStateException(ex);
+        }
+        @SuppressWarnings("unchecked")
+        List<R> list = (List<R>) Arrays.asList(results);
+        return list;
+    }
+
+    /**
+     * 单次调用，失败按 maxAttempts 重试；用尽后抛出最后一次的异常
+     */
+    public String chat(ChatRequest request, String modelId) {
+        int attempts = Math.max(1, ingestionProperties.getEnrich().getMaxAttempts());
+        RuntimeException last = null;
+        for (int attempt = 1; attempt <= attempts; attempt++) {
+            try {
+                return llmService.chat(request, Tier.FAST, modelId);
+            } catch (RuntimeException ex) {
+                last = ex;
+                if (attempt < attempts) {
+                    log.warn("富集调用失败，第 {}/{} 次，重试：{}", attempt, attempts, ex.getMessage());
+                }
+            }
+        }
+        throw last;
+    }
+
+    /**
+     * 尝试一次打包调用，失败返回 null 交给调用方逐块补做，不在打包粒度上重试
+     */
+    public String chatOnce(ChatRequest request, String modelId) {
+        try {
+            return llmService.chat(request, Tier.FAST, modelId);
+        } catch (RuntimeException ex) {
+            log.warn("富集打包调用失败，改为逐块调用：{}", ex.getMessage());
+            return null;
+        }
+    }
+
+    public int concurrency(Integer configured) {
+        return configured != null && configured > 0 ? configured : Math.max(1, ingestionProperties.getEnrich().getConcurrency());
+    }
+
+    public int batchSize(Integer configured) {
+        return configured != null && configured > 0 ? configured : Math.max(1, ingestionProperties.getEnrich().getBatchSize());
+    }
+
+    public int batchMaxChars() {
+        return ingestionProperties.getEnrich().getBatchMaxChars();
+    }
+}
@@ -44,10 +44,24 @@ public final class EnricherPromptManager {
                 """);
     }
 
+    /**
+     * 多片段打包调用时追加在任务系统提示词之后，约定输入输出的编号对应关系
+     */
+    private static final String BATCH_INSTRUCTION = """
+            本次输入是多个文本片段组成的 JSON 数组，每项包含 id 与 text。
+            请对每个片段分别按上述要求处理，输出一个 JSON 对象：键为片段 id，值为该片段的结果；
+            要求输出 JSON 的结果直接作为值，要求输出文本的结果以 JSON 字符串作为值。
+            必须覆盖全部 id，只输出 JSON，不要其他内容。
+            """;
+
     private EnricherPromptManager() {
     }
 
     public static String systemPrompt(ChunkEnrichType type) {
         return DEFAULT_SYSTEM_PROMPTS.get(type);
     }
+
+    public static String batchSystemPrompt(String systemPrompt) {
+        return (systemPrompt == null ? "" : systemPrompt.strip() + "\n\n") + BATCH_INSTRUCTION;
+    }
 }
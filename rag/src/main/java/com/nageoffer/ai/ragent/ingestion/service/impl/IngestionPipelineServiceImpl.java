@@ -49,6 +49,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -203,6 +204,7 @@ public class IngestionPipelineServiceImpl implements IngestionPipelineService {
                     .nodeId(node.getNodeId())
                     .nodeType(normalizeNodeType(node.getNodeType()))
                     .nextNodeId(node.getNextNodeId())
+                    .nextNodeIdsJson(toNodeIdsJson(node.getNextNodeIds()))
                     .settingsJson(toJson(node.getSettings()))
                     .conditionJson(toJson(node.getCondition()))
                     .createdBy(UserContext.getUsername())
@@ -230,6 +232,7 @@ public class IngestionPipelineServiceImpl implements IngestionPipelineService {
         vo.setNodeType(normalizeNodeTypeForOutput(node.getNodeType()));
         vo.setSettings(parseJson(node.getSettingsJson()));
         vo.setCondition(parseJson(node.getConditionJson()));
+        vo.setNextNodeIds(parseNodeIds(node.getNextNodeIdsJson()));
         return vo;
     }
 
@@ -240,6 +243,7 @@ public class IngestionPipelineServiceImpl implements IngestionPipelineService {
                 .settings(parseJson(node.getSettingsJson()))
                 .condition(parseJson(node.getConditionJson()))
                 .nextNodeId(node.getNextNodeId())
+                .nextNodeIds(parseNodeIds(node.getNextNodeIdsJson()))
                 .build();
     }
 
@@ -250,6 +254,23 @@ public class IngestionPipelineServiceImpl implements IngestionPipelineService {
         return node.toString();
     }
 
+    private String toNodeIdsJson(List<String> nodeIds) {
+        if (nodeIds == null || nodeIds.isEmpty()) {
+            return null;
+        }
+        return toJson(objectMapper.valueToTree(nodeIds));
+    }
+
+    private List<String> parseNodeIds(String raw) {
+        JsonNode node = parseJson(raw);
+        if (node == null || !node.isArray()) {
+            return null;
+        }
+        List<String> nodeIds = new ArrayList<>();
+        node.forEach(item -> nodeIds.add(item.asText()));
+        return nodeIds;
+    }
+
     private JsonNode parseJson(String raw) {
         if (!StringUtils.hasText(raw)) {
             return null;
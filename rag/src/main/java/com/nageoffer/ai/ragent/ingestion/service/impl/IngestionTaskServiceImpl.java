@@ -58,12 +58,14 @@ import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.PriorityQueue;
 import java.util.Set;
 
 /**
@@ -267,27 +269,35 @@ public class IngestionTaskServiceImpl implements IngestionTaskService {
         if (nodeMap.isEmpty()) {
             return orderMap;
         }
-        Set<String> referenced = new HashSet<>();
+        // 按拓扑序编号，同时就绪的节点（DAG 中的并行分支）按声明顺序排列，与引擎的就绪排序一致
+        Map<String, Integer> declarationOrder = new HashMap<>();
+        for (String nodeId : nodeMap.keySet()) {
+            declarationOrder.put(nodeId, declarationOrder.size());
+        }
+        Map<String, Integer> inDegree = new HashMap<>();
         for (NodeConfig node : nodeMap.values()) {
-            if (StringUtils.hasText(node.getNextNodeId())) {
-                referenced.add(node.getNextNodeId());
+            for (String nextId : node.successorIds()) {
+                if (nodeMap.containsKey(nextId)) {
+                    inDegree.merge(nextId, 1, Integer::sum);
+                }
             }
         }
         int order = 1;
         Set<String> visited = new HashSet<>();
+        PriorityQueue<String> ready = new PriorityQueue<>(Comparator.comparing(declarationOrder::get));
         for (String nodeId : nodeMap.keySet()) {
-            if (referenced.contains(nodeId)) {
-                continue;
+            if (!inDegree.containsKey(nodeId)) {
+                ready.add(nodeId);
             }
-            String current = nodeId;
-            while (StringUtils.hasText(current) && !visited.contains(current)) {
-                orderMap.put(current, order++);
-                visited.add(current);
-                NodeConfig config = nodeMap.get(current);
-                if (config == null) {
-                    break;
+        }
+        while (!ready.isEmpty()) {
+            String current = ready.poll();
+            orderMap.put(current, order++);
+            visited.add(current);
+            for (String nextId : nodeMap.get(current).successorIds()) {
+                if (nodeMap.containsKey(nextId) && inDegree.merge(nextId, -1, Integer::sum) == 0) {
+                    ready.add(nextId);
                 }
-                current = config.getNextNodeId();
             }
         }
         for (String nodeId : nodeMap.keySet()) {
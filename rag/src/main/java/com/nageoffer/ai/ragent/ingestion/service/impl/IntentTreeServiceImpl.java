@@ -170,8 +170,8 @@ public class IntentTreeServiceImpl implements IntentTreeService {
 
         intentNodeMapper.insert(node);
 
-        // 清除Redis缓存，下次读取时会重新从数据库加载
-        intentTreeCacheManager.clearIntentTreeCache();
+        // 清除Redis缓存并广播新版本，各节点据此重建本地意图树快照
+        intentTreeCacheManager.publishChange();
 
         bizChangeLogContext.put(String.valueOf(node.getId()), null, node);
         return String.valueOf(node.getId());
@@ -259,8 +259,8 @@ public class IntentTreeServiceImpl implements IntentTreeService {
         node.setUpdateBy(UserContext.getUsername());
         intentNodeMapper.updateById(node);
 
-        // 清除Redis缓存，下次读取时会重新从数据库加载
-        intentTreeCacheManager.clearIntentTreeCache();
+        // 清除Redis缓存并广播新版本，各节点据此重建本地意图树快照
+        intentTreeCacheManager.publishChange();
         bizChangeLogContext.put(id, before, intentNodeMapper.selectById(id));
     }
 
@@ -282,8 +282,8 @@ public class IntentTreeServiceImpl implements IntentTreeService {
         IntentNodeDO before = BeanUtil.copyProperties(node, IntentNodeDO.class);
         intentNodeMapper.deleteById(id);
 
-        // 清除Redis缓存，下次读取时会重新从数据库加载
-        intentTreeCacheManager.clearIntentTreeCache();
+        // 清除Redis缓存并广播新版本，各节点据此重建本地意图树快照
+        intentTreeCacheManager.publishChange();
         bizChangeLogContext.put(id, before, null);
     }
 
@@ -307,7 +307,7 @@ public class IntentTreeServiceImpl implements IntentTreeService {
             node.setUpdateBy(operator);
         });
         intentNodeMapper.updateById(targetNodes);
-        intentTreeCacheManager.clearIntentTreeCache();
+        intentTreeCacheManager.publishChange();
         bizChangeLogContext.put("BATCH", before, targetNodes);
     }
 
@@ -349,7 +349,7 @@ public class IntentTreeServiceImpl implements IntentTreeService {
             node.setUpdateBy(operator);
         });
         intentNodeMapper.updateById(targetNodes);
-        intentTreeCacheManager.clearIntentTreeCache();
+        intentTreeCacheManager.publishChange();
         bizChangeLogContext.put("BATCH", before, targetNodes);
     }
 
@@ -398,7 +398,7 @@ public class IntentTreeServiceImpl implements IntentTreeService {
             }
         }
         intentNodeMapper.deleteByIds(targetIdSet);
-        intentTreeCacheManager.clearIntentTreeCache();
+        intentTreeCacheManager.publishChange();
         bizChangeLogContext.put("BATCH", before, null);
     }
 
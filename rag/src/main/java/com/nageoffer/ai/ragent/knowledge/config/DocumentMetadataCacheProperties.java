@@ -0,0 +1,48 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nageoffer.ai.ragent.knowledge.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 文档元数据缓存配置
+ * <p>
+ * 问答链路按 docId 回表补文档标题、来源链接等展示信息，这些字段极少变化，进程内缓存即可吸收重复查询
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "rag.knowledge.metadata-cache")
+public class DocumentMetadataCacheProperties {
+
+    /**
+     * 是否启用；关闭后每次都直接回表
+     */
+    private boolean enabled = true;
+
+    /**
+     * 最大缓存文档数，超出按 LRU 淘汰
+     */
+    private long maxEntries = 10000L;
+
+    /**
+     * 写入后过期时间（秒）；失效广播丢失时靠它兜底收敛
+     */
+    private long ttlSeconds = 1800L;
+}
@@ -91,6 +91,31 @@ public class KnowledgeDocumentChunkLogVO {
      */
     private Integer chunkCount;
 
+    /**
+     * 增量比对：新增块数
+     */
+    private Integer addedCount;
+
+    /**
+     * 增量比对：变化块数（沿用原块 ID，重算向量后覆盖）
+     */
+    private Integer changedCount;
+
+    /**
+     * 增量比对：删除块数
+     */
+    private Integer removedCount;
+
+    /**
+     * 增量比对：未变块数（未向量化、未写入）
+     */
+    private Integer unchangedCount;
+
+    /**
+     * 持久化吞吐：本次写入落点的行数（新增 + 变化）除以持久化耗时，单位 行/秒
+     */
+    private Integer persistRowsPerSecond;
+
     /**
      * 错误信息
      */
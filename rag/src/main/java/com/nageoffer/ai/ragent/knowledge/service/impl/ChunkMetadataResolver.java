@@ -19,9 +19,8 @@ package com.nageoffer.ai.ragent.knowledge.service.impl;
 
 import cn.hutool.core.collection.CollUtil;
 import com.nageoffer.ai.ragent.knowledge.dao.entity.KnowledgeChunkDO;
-import com.nageoffer.ai.ragent.knowledge.dao.entity.KnowledgeDocumentDO;
 import com.nageoffer.ai.ragent.knowledge.dao.mapper.KnowledgeChunkMapper;
-import com.nageoffer.ai.ragent.knowledge.dao.mapper.KnowledgeDocumentMapper;
+import com.nageoffer.ai.ragent.knowledge.service.impl.DocumentMetadataCache.DocumentMeta;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
@@ -38,14 +37,14 @@ import java.util.stream.Collectors;
  * 检索命中的 {@code chunkId}（等于向量库主键，也等于 {@code t_knowledge_chunk.id}）批量回表，
  * 补齐其所属文档信息（文档ID、文档内序号、文档标题），供上下文组装时按文档聚合与标注来源
  * <p>
- * 只对已截断的最终结果集回表，行数小，两次批量查询开销可忽略
+ * 只对已截断的最终结果集回表，行数小；分块一次批量查询，文档标题走 {@link DocumentMetadataCache}，热身后不再回表
  */
 @Service
 @RequiredArgsConstructor
 public class ChunkMetadataResolver {
 
     private final KnowledgeChunkMapper chunkMapper;
-    private final KnowledgeDocumentMapper documentMapper;
+    private final DocumentMetadataCache documentMetadataCache;
 
     /**
      * 分块所属文档的元数据
@@ -75,15 +74,9 @@ public class ChunkMetadataResolver {
             return Map.of();
         }
 
-        Set<String> docIds = chunks.stream()
+        Map<String, String> docNameById = resolveDocNames(chunks.stream()
                 .map(KnowledgeChunkDO::getDocId)
-                .filter(docId -> docId != null && !docId.isBlank())
-                .collect(Collectors.toSet());
-        Map<String, String> docNameById = docIds.isEmpty()
-                ? Map.of()
-                : documentMapper.selectByIds(docIds).stream()
-                .filter(doc -> doc.getId() != null && doc.getDocName() != null)
-                .collect(Collectors.toMap(KnowledgeDocumentDO::getId, KnowledgeDocumentDO::getDocName, (a, b) -> a));
+                .toList());
 
         Map<String, ChunkMeta> result = new HashMap<>(chunks.size());
         for (KnowledgeChunkDO chunk : chunks) {
@@ -108,14 +101,8 @@ public class ChunkMetadataResolver {
         if (CollUtil.isEmpty(docIds)) {
             return Map.of();
         }
-        Set<String> distinctIds = docIds.stream()
-                .filter(id -> id != null && !id.isBlank())
-                .collect(Collectors.toSet());
-        if (distinctIds.isEmpty()) {
-            return Map.of();
-        }
-        return documentMapper.selectByIds(distinctIds).stream()
-                .filter(doc -> doc.getId() != null && doc.getDocName() != null)
-                .collect(Collectors.toMap(KnowledgeDocumentDO::getId, KnowledgeDocumentDO::getDocName, (a, b) -> a));
+        return documentMetadataCache.getAll(docIds).values().stream()
+                .filter(meta -> meta.docName() != null)
+                .collect(Collectors.toMap(DocumentMeta::docId, DocumentMeta::docName, (a, b) -> a));
     }
 }
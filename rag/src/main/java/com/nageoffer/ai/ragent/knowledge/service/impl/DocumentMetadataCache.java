@@ -0,0 +1,215 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nageoffer.ai.ragent.knowledge.service.impl;
+
+import cn.hutool.core.collection.CollUtil;
+import cn.hutool.core.util.StrUtil;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.nageoffer.ai.ragent.core.ingest.DocumentRef;
+import com.nageoffer.ai.ragent.core.ingest.VectorTarget;
+import com.nageoffer.ai.ragent.core.ingest.sink.ChunkIndexListener;
+import com.nageoffer.ai.ragent.knowledge.config.DocumentMetadataCacheProperties;
+import com.nageoffer.ai.ragent.knowledge.dao.entity.KnowledgeDocumentDO;
+import com.nageoffer.ai.ragent.knowledge.dao.mapper.KnowledgeDocumentMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RedissonClient;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 文档元数据缓存
+ * <p>
+ * 一次问答里元数据富化（按 chunkId / docId 补标题）与来源装配（补来源类型、外部链接）都要按 docId 回表
+ * {@code t_knowledge_document}，查的是同一批文档、且这些字段极少变化。这里按 docId 做读穿缓存：
+ * {@link #getAll} 先取已缓存的部分，缺失的一次批量查询补齐，整批分片只产生一次往返，热身后为零
+ * <p>
+ * 失效：文档更新 / 删除 / 启停由 {@link KnowledgeDocumentServiceImpl} 显式调用 {@link #evict}，
+ * 文档块重建（文件类型等可能随之变化）经 {@link ChunkIndexListener} 回调；两者都在事务提交后经 Redis 主题广播，
+ * 本节点也走监听统一处理。加载期间发生过失效的结果不回填，免得旧值在失效之后写回
+ */
+@Slf4j
+@Component
+public class DocumentMetadataCache implements ChunkIndexListener {
+
+    private static final String INVALIDATE_TOPIC = "ragent:document-metadata:invalidate";
+
+    private final DocumentMetadataCacheProperties properties;
+    private final KnowledgeDocumentMapper documentMapper;
+    private final RedissonClient redissonClient;
+    private final Cache<String, DocumentMeta> entries;
+
+    /**
+     * 失效代次：加载开始与结束之间代次变化，说明期间有文档被改过，结果不回填
+     */
+    private final AtomicLong generation = new AtomicLong();
+    private int listenerId = -1;
+
+    /**
+     * 问答链路需要的文档展示信息；不可变，可在线程间安全共享
+     */
+    public record DocumentMeta(String docId, String kbId, String docName,
+                               String sourceType, String sourceLocation, String fileType) {
+
+        static DocumentMeta of(KnowledgeDocumentDO doc) {
+            return new DocumentMeta(doc.getId(), doc.getKbId(), doc.getDocName(),
+                    doc.getSourceType(), doc.getSourceLocation(), doc.getFileType());
+        }
+    }
+
+    public DocumentMetadataCache(DocumentMetadataCacheProperties properties,
+                                 KnowledgeDocumentMapper documentMapper,
+                                 RedissonClient redissonClient) {
+        this.properties = properties;
+        this.documentMapper = documentMapper;
+        this.redissonClient = redissonClient;
+        this.entries = CacheBuilder.newBuilder()
+                .maximumSize(Math.max(1, properties.getMaxEntries()))
+                .expireAfterWrite(Duration.ofSeconds(Math.max(1, properties.getTtlSeconds())))
+                .build();
+    }
+
+    @PostConstruct
+    public void subscribe() {
+        listenerId = redissonClient.getTopic(INVALIDATE_TOPIC)
+                .addListener(String.class, (channel, docId) -> invalidateLocal(docId));
+    }
+
+    @PreDestroy
+    public void unsubscribe() {
+        if (listenerId == -1) {
+            return;
+        }
+        redissonClient.getTopic(INVALIDATE_TOPIC).removeListener(listenerId);
+    }
+
+    /**
+     * 批量读取文档元数据，缺失部分一次批量回表
+     * <p>
+     * 库里不存在（或已逻辑删除）的 docId 不缓存负结果：这类证据只在向量清理滞后时出现，量小，缓存反而要多一条失效路径
+     *
+     * @param docIds 文档 ID 集合 空白与重复自动忽略
+     * @return docId 到 {@link DocumentMeta} 的映射 未命中的不出现在结果中
+     */
+    public Map<String, DocumentMeta> getAll(Collection<String> docIds) {
+        if (CollUtil.isEmpty(docIds)) {
+            return Map.of();
+        }
+        Set<String> distinctIds = new LinkedHashSet<>();
+        for (String docId : docIds) {
+            if (StrUtil.isNotBlank(docId)) {
+                distinctIds.add(docId);
+            }
+        }
+        if (distinctIds.isEmpty()) {
+            return Map.of();
+        }
+        if (!properties.isEnabled()) {
+            return load(distinctIds);
+        }
+
+        Map<String, DocumentMeta> result = new LinkedHashMap<>(entries.getAllPresent(distinctIds));
+        if (result.size() == distinctIds.size()) {
+            return result;
+        }
+        List<String> missing = distinctIds.stream().filter(id -> !result.containsKey(id)).toList();
+        long startGeneration = generation.get();
+        Map<String, DocumentMeta> loaded = load(missing);
+        if (generation.get() == startGeneration) {
+            entries.putAll(loaded);
+        }
+        result.putAll(loaded);
+        return result;
+    }
+
+    /**
+     * 失效单个文档；有活跃事务时推迟到提交后广播，否则立即广播，Redis 不可用时至少保证本节点失效
+     */
+    public void evict(String docId) {
+        if (StrUtil.isBlank(docId) || !properties.isEnabled()) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    broadcast(docId);
+                }
+            });
+            return;
+        }
+        broadcast(docId);
+    }
+
+    /**
+     * 文档块被替换或清除时回调，{@link com.nageoffer.ai.ragent.core.ingest.sink.ChunkIndexWriter} 已保证在提交之后
+     */
+    @Override
+    public void onDocumentChanged(VectorTarget target, DocumentRef doc) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        broadcast(doc.docId());
+    }
+
+    /**
+     * 作废本节点上该文档的缓存条目
+     */
+    public void invalidateLocal(String docId) {
+        if (StrUtil.isBlank(docId)) {
+            return;
+        }
+        generation.incrementAndGet();
+        entries.invalidate(docId);
+    }
+
+    private void broadcast(String docId) {
+        try {
+            redissonClient.getTopic(INVALIDATE_TOPIC).publish(docId);
+        } catch (Exception e) {
+            log.warn("文档元数据缓存失效广播失败，仅失效本节点，docId：{}", docId, e);
+            invalidateLocal(docId);
+        }
+    }
+
+    private Map<String, DocumentMeta> load(Collection<String> docIds) {
+        List<KnowledgeDocumentDO> docs = documentMapper.selectByIds(docIds);
+        if (CollUtil.isEmpty(docs)) {
+            return Map.of();
+        }
+        Map<String, DocumentMeta> loaded = new LinkedHashMap<>(docs.size());
+        for (KnowledgeDocumentDO doc : docs) {
+            if (doc != null && doc.getId() != null) {
+                loaded.put(doc.getId(), DocumentMeta.of(doc));
+            }
+        }
+        return loaded;
+    }
+}
@@ -127,6 +127,7 @@ public class KnowledgeDocumentServiceImpl implements KnowledgeDocumentService {
     private final RemoteFileFetcher remoteFileFetcher;
     private final VectorTargetResolver vectorTargetResolver;
     private final BizChangeLogContext bizChangeLogContext;
+    private final DocumentMetadataCache documentMetadataCache;
 
     @Value("knowledge-document-chunk_topic${unique-name:}")
     private String chunkTopic;
@@ -294,13 +295,15 @@ public class KnowledgeDocumentServiceImpl implements KnowledgeDocumentService {
             markChunkSucceeded(docId, savedCount);
             long totalDuration = System.currentTimeMillis() - totalStartTime;
             updateChunkLog(chunkLog.getId(), DocumentStatus.SUCCESS.getCode(), savedCount,
-                    extractDuration, chunkDuration, embedDuration, persistDuration, totalDuration, null);
+                    extractDuration, chunkDuration, embedDuration, persistDuration, totalDuration, null,
+                    outcome.changes());
         } catch (Exception e) {
             log.error("文档分块任务执行失败：docId={}", docId, e);
             markChunkFailed(documentDO.getId());
             long totalDuration = System.currentTimeMillis() - totalStartTime;
             updateChunkLog(chunkLog.getId(), DocumentStatus.FAILED.getCode(), 0,
-                    extractDuration, chunkDuration, embedDuration, persistDuration, totalDuration, e.getMessage());
+                    extractDuration, chunkDuration, embedDuration, persistDuration, totalDuration, e.getMessage(),
+                    null);
         }
     }
 
@@ -334,7 +337,8 @@ public class KnowledgeDocumentServiceImpl implements KnowledgeDocumentService {
 
     private void updateChunkLog(String logId, String status, int chunkCount, long extractDuration,
                                 long chunkDuration, long embedDuration, long persistDuration,
-                                long totalDuration, String errorMessage) {
+                                long totalDuration, String errorMessage,
+                                IngestionOutcome.ChunkChangeStats changes) {
         KnowledgeDocumentChunkLogDO update = KnowledgeDocumentChunkLogDO.builder()
                 .id(logId)
                 .status(status)
@@ -347,6 +351,18 @@ public class KnowledgeDocumentServiceImpl implements KnowledgeDocumentService {
                 .errorMessage(errorMessage)
                 .endTime(new Date())
                 .build();
+        // 增量比对计数：新增 + 变化 即本次实际向量化的块数，未变块数说明省下了多少嵌入调用与索引写入
+        if (changes != null) {
+            update.setAddedCount(changes.added());
+            update.setChangedCount(changes.changed());
+            update.setRemovedCount(changes.removed());
+            update.setUnchangedCount(changes.unchanged());
+            // 写入吞吐用于对比 batchUpdate 与 COPY 等写入方式，只统计真正写进落点的行
+            int writtenRows = changes.added() + changes.changed();
+            if (writtenRows > 0 && persistDuration > 0) {
+                update.setPersistRowsPerSecond((int) (writtenRows * 1000L / persistDuration));
+            }
+        }
         chunkLogMapper.updateById(update);
     }
 
@@ -441,6 +457,7 @@ public class KnowledgeDocumentServiceImpl implements KnowledgeDocumentService {
         documentDO.setDeleted(1);
         documentDO.setUpdatedBy(UserContext.getUsername());
         documentMapper.deleteById(documentDO);
+        documentMetadataCache.evict(docId);
 
         // 一次调用覆盖全部落点：关系库块与向量都在扇出里，未来加索引后端也自动跟随
         KnowledgeBaseDO kbDO = knowledgeBaseMapper.selectById(documentDO.getKbId());
@@ -559,6 +576,8 @@ public class KnowledgeDocumentServiceImpl implements KnowledgeDocumentService {
         }
 
         documentMapper.update(updateWrapper);
+        // 标题与来源链接都可能变了；处于事务中，失效推迟到提交之后
+        documentMetadataCache.evict(docId);
 
         if (scheduleChanged) {
             KnowledgeDocumentDO updated = documentMapper.selectById(docId);
@@ -717,6 +736,7 @@ public class KnowledgeDocumentServiceImpl implements KnowledgeDocumentService {
                 vectorStoreService.indexDocumentChunks(collectionName, docId, finalEmbeddedChunks);
             }
         });
+        documentMetadataCache.evict(docId);
         bizChangeLogContext.put(docId, before, documentMapper.selectById(docId));
     }
 
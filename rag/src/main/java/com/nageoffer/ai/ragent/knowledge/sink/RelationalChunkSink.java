@@ -22,7 +22,10 @@ import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.nageoffer.ai.ragent.core.chunk.model.EmbeddedChunk;
 import com.nageoffer.ai.ragent.core.ingest.DocumentRef;
 import com.nageoffer.ai.ragent.core.ingest.VectorTarget;
+import com.nageoffer.ai.ragent.core.ingest.sink.ChunkDelta;
 import com.nageoffer.ai.ragent.core.ingest.sink.ChunkSink;
+import com.nageoffer.ai.ragent.core.ingest.sink.ChunkSnapshotReader;
+import com.nageoffer.ai.ragent.core.ingest.sink.PersistedChunk;
 import com.nageoffer.ai.ragent.framework.context.UserContext;
 import com.nageoffer.ai.ragent.infra.token.TokenCounterService;
 import com.nageoffer.ai.ragent.knowledge.dao.entity.KnowledgeChunkDO;
@@ -42,12 +45,14 @@ import java.util.List;
  * <p>
  * {@code embedding_text} 落库不是为了展示：它让换嵌入模型时可以直接重嵌入而不必重新解析（省掉版面
  * 解析与视觉模型的重复成本），也让人工编辑单块后能正确重算向量文本
+ * <p>
+ * 同时是增量重摄的快照来源：{@code content_hash} 与 {@code embedding_text} 就是比对键，不必再去向量库反查
  */
 @Slf4j
 @Component
 @RequiredArgsConstructor
 @Order(Ordered.HIGHEST_PRECEDENCE)
-public class RelationalChunkSink implements ChunkSink {
+public class RelationalChunkSink implements ChunkSink, ChunkSnapshotReader {
 
     private final KnowledgeChunkMapper chunkMapper;
     private final TokenCounterService tokenCounterService;
@@ -61,26 +66,66 @@ public class RelationalChunkSink implements ChunkSink {
         String username = UserContext.getUsername();
         List<KnowledgeChunkDO> rows = new ArrayList<>(chunks.size());
         for (EmbeddedChunk chunk : chunks) {
-            String content = chunk.content();
-            rows.add(KnowledgeChunkDO.builder()
-                    .id(chunk.chunkId())
-                    .kbId(doc.kbId())
-                    .docId(doc.docId())
-                    .chunkIndex(chunk.index())
-                    .content(content)
-                    .contentHash(SecureUtil.sha256(content))
-                    .charCount(content.length())
-                    .tokenCount(StringUtils.hasText(content) ? tokenCounterService.countTokens(content) : 0)
-                    .embeddingText(chunk.embeddingText())
-                    .enabled(1)
-                    .createdBy(username)
-                    .updatedBy(username)
-                    .build());
+            rows.add(toRow(doc, chunk, username));
         }
         chunkMapper.insert(rows);
         log.debug("关系库块写入完成 docId={} 块数={}", doc.docId(), rows.size());
     }
 
+    @Override
+    public void applyDelta(VectorTarget target, DocumentRef doc, ChunkDelta delta) {
+        if (!delta.removedIds().isEmpty()) {
+            chunkMapper.deleteByIds(delta.removedIds());
+        }
+        String username = UserContext.getUsername();
+        for (EmbeddedChunk chunk : delta.changed()) {
+            // 变化块沿用原 ID：启用状态与创建人保持原值，只覆盖内容相关列
+            KnowledgeChunkDO row = toRow(doc, chunk, username);
+            row.setEnabled(null);
+            row.setCreatedBy(null);
+            chunkMapper.updateById(row);
+        }
+        if (!delta.added().isEmpty()) {
+            List<KnowledgeChunkDO> rows = new ArrayList<>(delta.added().size());
+            for (EmbeddedChunk chunk : delta.added()) {
+                rows.add(toRow(doc, chunk, username));
+            }
+            chunkMapper.insert(rows);
+        }
+        log.debug("关系库块增量写入完成 docId={} 新增={} 变化={} 删除={}",
+                doc.docId(), delta.added().size(), delta.changed().size(), delta.removedIds().size());
+    }
+
+    @Override
+    public List<PersistedChunk> read(DocumentRef doc) {
+        return chunkMapper.selectList(new LambdaQueryWrapper<KnowledgeChunkDO>()
+                        .select(KnowledgeChunkDO::getId, KnowledgeChunkDO::getChunkIndex, KnowledgeChunkDO::getContentHash,
+                                KnowledgeChunkDO::getEmbeddingText, KnowledgeChunkDO::getEnabled)
+                        .eq(KnowledgeChunkDO::getDocId, doc.docId()))
+                .stream()
+                .map(row -> new PersistedChunk(row.getId(), row.getChunkIndex(), row.getContentHash(),
+                        row.getEmbeddingText(), Integer.valueOf(1).equals(row.getEnabled())))
+                .toList();
+    }
+
+    private KnowledgeChunkDO toRow(DocumentRef doc, EmbeddedChunk chunk, String username) {
+        String content = chunk.content();
+        return KnowledgeChunkDO.builder()
+                .id(chunk.chunkId())
+                .kbId(doc.kbId())
+                .docId(doc.docId())
+                .chunkIndex(chunk.index())
+                .content(content)
+                .contentHash(SecureUtil.sha256(content))
+                .charCount(content.length())
+                .tokenCount(StringUtils.hasText(content) ? tokenCounterService.countTokens(content) : 0)
+                .embeddingText(chunk.embeddingText())
+                .enabled(1)
+                .createdBy(username)
+                .updatedBy(username)
+                .build();
+    }
+
     @Override
     public void deleteDocument(VectorTarget target, DocumentRef doc) {
         chunkMapper.delete(new LambdaQueryWrapper<KnowledgeChunkDO>()
@@ -18,10 +18,13 @@
 package com.nageoffer.ai.ragent.rag.config;
 
 import com.nageoffer.ai.ragent.rag.service.ratelimit.FairDistributedRateLimiter;
+import com.nageoffer.ai.ragent.rag.service.ratelimit.FairDistributedRateLimiter.GrantMode;
 import org.redisson.api.RedissonClient;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.Locale;
+
 /**
  * SSE 聊天全局限流器 bean 装配
  */
@@ -33,12 +36,16 @@ public class ChatRateLimiterConfig {
     @Bean(initMethod = "start", destroyMethod = "stop")
     public FairDistributedRateLimiter chatRateLimiter(RedissonClient redissonClient,
                                                       RAGRateLimitProperties rateLimitProperties) {
+        GrantMode grantMode = GrantMode.valueOf(rateLimitProperties.getGlobalGrantMode().trim().toUpperCase(Locale.ROOT));
         return new FairDistributedRateLimiter(
                 CHAT_LIMITER_NAME,
                 redissonClient,
                 rateLimitProperties::getGlobalMaxConcurrent,
                 rateLimitProperties::getGlobalLeaseSeconds,
-                rateLimitProperties::getGlobalPollIntervalMs
+                grantMode == GrantMode.PUSH
+                        ? rateLimitProperties::getGlobalSafetyPollIntervalMs
+                        : rateLimitProperties::getGlobalPollIntervalMs,
+                grantMode
         );
     }
 }
@@ -0,0 +1,56 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nageoffer.ai.ragent.rag.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 看板预聚合配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "rag.dashboard.rollup")
+public class DashboardRollupProperties {
+
+    /**
+     * 是否启用预聚合任务；关闭后看板退回全量扫原始表
+     */
+    private boolean enabled = true;
+
+    /**
+     * 预聚合任务执行间隔
+     */
+    private long intervalMs = 60000L;
+
+    /**
+     * 分钟桶封口延迟：链路运行记录在结束时才更新状态与耗时，桶要等其中的请求基本都结束后再固化
+     */
+    private long settleDelayMs = 300000L;
+
+    /**
+     * 单次任务最多推进的小时数，首次回填历史数据时分多轮完成，避免一次占用过久
+     */
+    private int maxHoursPerRun = 48;
+
+    /**
+     * 分钟桶保留时长，更早的只保留小时桶；窗口起点落在保留期之外时，起点所在的不完整小时会被略去
+     */
+    private int minuteRetentionHours = 192;
+}
@@ -0,0 +1,49 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nageoffer.ai.ragent.rag.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 意图识别向量预筛配置
+ * <p>
+ * 意图树叶子很多时，先按向量相似度取与子问题最近的若干叶子，只把这些候选交给 LLM 打分，
+ * 提示词长度和识别延迟不再随整棵树线性增长
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "rag.intent.prefilter")
+public class IntentPrefilterProperties {
+
+    /**
+     * 是否启用向量预筛，关闭时整棵树的叶子都进提示词
+     */
+    private Boolean enabled = false;
+
+    /**
+     * 送给 LLM 的候选叶子数；叶子总数不超过该值时预筛没有收益，直接走全量
+     */
+    private Integer topN = 30;
+
+    /**
+     * 系统交互类叶子（欢迎语、评价反馈等）是否始终进入候选
+     * 这类问法短、与描述文本的向量相似度不稳定，数量又少，全带上不影响提示词规模
+     */
+    private Boolean alwaysIncludeSystem = true;
+}
@@ -67,4 +67,38 @@ public class MemoryProperties {
     @Min(10)
     @Max(100)
     private Integer titleMaxLength = 30;
+
+    /**
+     * 热会话窗口缓存配置
+     */
+    private HotCache hotCache = new HotCache();
+
+    /**
+     * 热会话窗口缓存
+     * <p>
+     * 活跃会话每轮都要读同一段最近历史与摘要，按会话在进程内缓存这段窗口，追加与摘要生成时直写更新
+     */
+    @Data
+    public static class HotCache {
+
+        /**
+         * 是否启用；关闭后每轮都直接回表
+         */
+        private Boolean enabled = true;
+
+        /**
+         * 会话空闲多久后从本地淘汰（秒）
+         */
+        private Long idleSeconds = 600L;
+
+        /**
+         * 全部会话窗口的内存预算（MB），按消息字符数估算，超出按 LRU 淘汰
+         */
+        private Long memoryBudgetMb = 64L;
+
+        /**
+         * Redis 中会话版本戳的存活时长（秒），过期后首个读取者重新播种，各节点窗口随之全部重载
+         */
+        private Long stampTtlSeconds = 86400L;
+    }
 }
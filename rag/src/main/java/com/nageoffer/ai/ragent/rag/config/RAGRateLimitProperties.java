@@ -57,4 +57,64 @@ public class RAGRateLimitProperties {
      */
     @Value("${rag.rate-limit.global.poll-interval-ms:200}")
     private Integer globalPollIntervalMs;
+
+    /**
+     * 许可发放模式：push 释放时定向推送给队头票据所在节点；poll 广播通知后各节点轮询抢占
+     */
+    @Value("${rag.rate-limit.global.grant-mode:push}")
+    private String globalGrantMode;
+
+    /**
+     * push 模式下的兜底轮询间隔（毫秒），只用于找回丢失的 grant、回收租约过期的许可
+     */
+    @Value("${rag.rate-limit.global.safety-poll-interval-ms:2000}")
+    private Integer globalSafetyPollIntervalMs;
+
+    /**
+     * 是否按首字延迟与失败率自适应调整并发上限；开启后 max-concurrent 只作为首次启用时的起点
+     */
+    @Value("${rag.rate-limit.global.adaptive.enabled:false}")
+    private Boolean globalAdaptiveEnabled;
+
+    /**
+     * 调整周期（毫秒）；集群内只有持有调整租约的一个节点在每个周期调整一次
+     */
+    @Value("${rag.rate-limit.global.adaptive.window-ms:1000}")
+    private Integer globalAdaptiveWindowMs;
+
+    /**
+     * 自适应并发上限的下界
+     */
+    @Value("${rag.rate-limit.global.adaptive.min-concurrent:4}")
+    private Integer globalAdaptiveMinConcurrent;
+
+    /**
+     * 自适应并发上限的上界，同时决定入口线程池大小
+     */
+    @Value("${rag.rate-limit.global.adaptive.max-concurrent:50}")
+    private Integer globalAdaptiveMaxConcurrent;
+
+    /**
+     * 调整窗口内全集群至少累积的请求数，不足时并入下个窗口
+     */
+    @Value("${rag.rate-limit.global.adaptive.min-samples:10}")
+    private Integer globalAdaptiveMinSamples;
+
+    /**
+     * 容忍首字延迟达到基线的倍数，超过才收缩上限
+     */
+    @Value("${rag.rate-limit.global.adaptive.rtt-tolerance:1.5}")
+    private Double globalAdaptiveRttTolerance;
+
+    /**
+     * 每个窗口新估算值的权重（0~1），越小调整越平稳
+     */
+    @Value("${rag.rate-limit.global.adaptive.smoothing:0.2}")
+    private Double globalAdaptiveSmoothing;
+
+    /**
+     * 首字前失败率超过该值时直接按比例收缩上限
+     */
+    @Value("${rag.rate-limit.global.adaptive.error-rate-threshold:0.1}")
+    private Double globalAdaptiveErrorRateThreshold;
 }
@@ -38,4 +38,64 @@ public class RagTraceProperties {
      * 错误信息最大长度，防止落库过大
      */
     private int maxErrorLength = 1000;
+
+    /**
+     * 异步批量落库配置
+     */
+    private Async async = new Async();
+
+    /**
+     * Trace 异步写入配置
+     * <p>
+     * 开启后节点的开始 / 结束不再各自同步 INSERT / UPDATE，而是在内存里合并成一行已完成节点，
+     * 投递到有界队列，由后台写线程攒批后多行 INSERT，请求线程上不再有 trace 的 JDBC 往返
+     */
+    @Data
+    public static class Async {
+
+        /**
+         * 是否启用异步写入；关闭后退回逐条同步落库
+         */
+        private boolean enabled = true;
+
+        /**
+         * 待写队列容量，超出后按 overflowPolicy 处理
+         */
+        private int queueCapacity = 8192;
+
+        /**
+         * 单次批量写入的最大行数
+         */
+        private int batchSize = 200;
+
+        /**
+         * 攒批的最长等待时间，到点即使不满一批也写出
+         */
+        private long flushIntervalMs = 200L;
+
+        /**
+         * 队列满时的策略：drop 直接丢弃并计数；block 最多等待 blockTimeoutMs，仍无空位再丢弃
+         */
+        private String overflowPolicy = "drop";
+
+        /**
+         * block 策略下请求线程的最长等待时间
+         */
+        private long blockTimeoutMs = 50L;
+
+        /**
+         * 已开始未结束节点在内存中的最长保留时间，超时按 RUNNING 写出，防止泄漏；之后才结束的节点再补一次终态更新
+         */
+        private long pendingNodeTtlMs = 600_000L;
+
+        /**
+         * 已开始未结束节点的最大数量
+         */
+        private long maxPendingNodes = 100_000L;
+
+        /**
+         * 停机时等待队列写完的最长时间
+         */
+        private long shutdownTimeoutMs = 5000L;
+    }
 }
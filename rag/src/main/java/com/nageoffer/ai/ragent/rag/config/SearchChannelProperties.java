@@ -70,6 +70,18 @@ public class SearchChannelProperties implements InitializingBean {
      */
     private Evidence evidence = new Evidence();
 
+    /**
+     * 检索结果缓存
+     * 缓存的是「子问题 + 作用域」到后处理结果的映射，与检索怎么做无关，故与 scope / fusion 平级
+     */
+    private ResultCache cache = new ResultCache();
+
+    /**
+     * 推测检索
+     * 改写与意图识别在途时先按原问题做全局检索，事后判定能否复用，与 cache 同属检索外围的提速手段
+     */
+    private Speculation speculation = new Speculation();
+
     /**
      * 解析召回扇出基数：优先使用显式 recallBudget，未配置（<=0）时回退到最终条数
      */
@@ -133,6 +145,14 @@ public class SearchChannelProperties implements InitializingBean {
                             + "高于 1 会让全部证据被闸门丢弃、KB 侧恒为空；关闭闸门请填 0",
                     minRerankScore));
         }
+        // 相似度按归一化向量点积算，恒落在 [-1, 1]；阈值过低会把不同问题当成同一个，答非所问比慢更糟
+        double similarityThreshold = cache.getSimilarityThreshold();
+        if (cache.isEnabled() && similarityThreshold > 0 && (similarityThreshold < 0.8 || similarityThreshold > 1)) {
+            throw new IllegalStateException(String.format(
+                    "rag.search.cache.similarity-threshold(%s) 必须落在 [0.8, 1] 内：低于 0.8 的余弦已不足以判定两问同义，"
+                            + "命中会把别的问题的证据当成本题答案；只要精确命中请填 0",
+                    similarityThreshold));
+        }
     }
 
     /**
@@ -340,4 +360,66 @@ public class SearchChannelProperties implements InitializingBean {
          */
         private double minRerankScore = 0.2;
     }
+
+    /**
+     * 检索结果缓存：同一 / 近义子问题在同一作用域下短时间内重复出现时（公告后的 FAQ 高峰、重新生成）
+     * 直接复用上一次的后处理结果，跳过全部通道与精排
+     * <p>
+     * 键是归一化子问题 + 作用域（定向与否、命中库、补充库、定向意图），作用域不同的同一问题互不复用；
+     * 文档重建或删除后按库失效，失效跨节点广播
+     */
+    @Data
+    public static class ResultCache {
+
+        /**
+         * 是否启用
+         * 默认关闭：命中即跳过检索，知识库改动经由非整文档重建的路径（单 chunk 编辑 / 启停）只能等 TTL 过期
+         */
+        private boolean enabled = false;
+
+        /**
+         * 最多缓存条目数，超出按近期最少使用淘汰
+         * 语义匹配要逐条比对同作用域的向量，条目数同时也是单次查找的扫描上限
+         */
+        private int maxEntries = 1000;
+
+        /**
+         * 条目存活时间（秒），自写入起算
+         * 兜底未走整文档重建路径的知识库改动，不宜长于运营可接受的「改了没生效」窗口
+         */
+        private long ttlSeconds = 300;
+
+        /**
+         * 语义命中的余弦阈值
+         * 精确键未命中时，拿查询向量与同作用域近期问题比对，不低于此值即视为同一问题；
+         * 须落在 [0.8, 1]（启用时启动校验），<=0 关闭语义匹配、只做精确命中
+         */
+        private double similarityThreshold = 0.97;
+
+        /**
+         * 命中率统计日志间隔（毫秒）
+         */
+        private long statsLogIntervalMs = 300_000;
+    }
+
+    /**
+     * 推测检索：改写（LLM）与意图识别（每个子问题一次 LLM）在途时，先按术语归一化后的原问题跑一次全局作用域检索
+     * <p>
+     * 改写后只有一个子问题、归一化后与原问题相同，且该子问题最终也解析为全局作用域时，直接复用推测结果，
+     * 首字延迟省下与两三轮 LLM 重叠的那段检索耗时；否则丢弃并尽早取消（未进入后处理的推测不再精排）
+     */
+    @Data
+    public static class Speculation {
+
+        /**
+         * 是否启用
+         * 默认关闭：未命中时推测检索的向量化与通道查询是纯额外开销，多轮追问为主的场景命中率低
+         */
+        private boolean enabled = false;
+
+        /**
+         * 命中率与节省耗时统计日志间隔（毫秒）
+         */
+        private long statsLogIntervalMs = 300_000;
+    }
 }
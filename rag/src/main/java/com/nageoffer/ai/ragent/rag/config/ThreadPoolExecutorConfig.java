@@ -174,11 +174,14 @@ public class ThreadPoolExecutorConfig {
     }
 
     /**
-     * SSE 排队后执行入口线程池
+     * SSE 排队后执行入口线程池；自适应并发开启时按上界定容，上限调大后不至于被线程池拒绝
      */
     @Bean
     public Executor chatEntryExecutor(RAGRateLimitProperties rateLimitProperties) {
         int size = rateLimitProperties.getGlobalMaxConcurrent();
+        if (Boolean.TRUE.equals(rateLimitProperties.getGlobalAdaptiveEnabled())) {
+            size = Math.max(size, rateLimitProperties.getGlobalAdaptiveMaxConcurrent());
+        }
         ThreadPoolExecutor executor = new ThreadPoolExecutor(
                 size,
                 size,
@@ -213,6 +216,48 @@ public class ThreadPoolExecutorConfig {
         return TtlExecutors.getTtlExecutor(executor);
     }
 
+    /**
+     * 摄取流水线 DAG 节点线程池
+     * <p>
+     * 只承载同时就绪的并行分支，分支数通常很少；满了在调度线程上执行，分支仍会完成，只是不再并行
+     */
+    @Bean
+    public Executor ingestionNodeExecutor() {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                Math.max(2, CPU_COUNT >> 1),
+                Math.max(8, CPU_COUNT),
+                60,
+                TimeUnit.SECONDS,
+                new SynchronousQueue<>(),
+                ThreadFactoryBuilder.create()
+                        .setNamePrefix("ingestion_node_executor_")
+                        .build(),
+                new ThreadPoolExecutor.CallerRunsPolicy()
+        );
+        return TtlExecutors.getTtlExecutor(executor);
+    }
+
+    /**
+     * 摄取富集 / 增强的大模型调用线程池
+     * <p>
+     * 在途数由各任务的 concurrency 限制，线程池只是承载；满了在调用线程上执行，调用线程自身也是一个在途名额
+     */
+    @Bean
+    public Executor ingestionEnrichExecutor() {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                Math.max(2, CPU_COUNT >> 1),
+                Math.max(16, CPU_COUNT << 1),
+                60,
+                TimeUnit.SECONDS,
+                new SynchronousQueue<>(),
+                ThreadFactoryBuilder.create()
+                        .setNamePrefix("ingestion_enrich_executor_")
+                        .build(),
+                new ThreadPoolExecutor.CallerRunsPolicy()
+        );
+        return TtlExecutors.getTtlExecutor(executor);
+    }
+
     /**
      * 对话记忆加载线程池（并行加载摘要与历史记录）
      */
@@ -231,4 +276,25 @@ public class ThreadPoolExecutorConfig {
         );
         return TtlExecutors.getTtlExecutor(executor);
     }
+
+    /**
+     * 推测检索线程池
+     * <p>
+     * 推测只为提速，满了直接放弃推测、照常串行检索；不能在调用线程上执行，否则推测本身就卡住了对话主流程
+     */
+    @Bean
+    public Executor speculativeRetrievalExecutor() {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                Math.max(2, CPU_COUNT >> 1),
+                Math.max(4, CPU_COUNT),
+                60,
+                TimeUnit.SECONDS,
+                new SynchronousQueue<>(),
+                ThreadFactoryBuilder.create()
+                        .setNamePrefix("speculative_retrieval_executor_")
+                        .build(),
+                new ThreadPoolExecutor.AbortPolicy()
+        );
+        return TtlExecutors.getTtlExecutor(executor);
+    }
 }
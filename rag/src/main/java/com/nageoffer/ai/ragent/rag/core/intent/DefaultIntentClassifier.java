@@ -33,8 +33,11 @@ import com.nageoffer.ai.ragent.framework.convention.ChatMessage;
 import com.nageoffer.ai.ragent.framework.convention.ChatRequest;
 import com.nageoffer.ai.ragent.infra.chat.LLMService;
 import com.nageoffer.ai.ragent.rag.core.prompt.PromptTemplateLoader;
+import com.nageoffer.ai.ragent.rag.core.snapshot.AbstractVersionedCacheManager;
+import com.nageoffer.ai.ragent.rag.core.snapshot.AbstractVersionedSnapshotHolder;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayDeque;
@@ -52,23 +55,55 @@ import static com.nageoffer.ai.ragent.rag.constant.RAGConstant.INTENT_CLASSIFIER
  * LLM 树形意图分类器（串行实现）
  * <p>
  * 将所有意图节点一次性发送给 LLM 进行识别打分，适用于意图数量较少的场景
+ * <p>
+ * 意图树连同渲染好的分类提示词做成不可变快照常驻本地，提问路径上不访问 Redis、不反序列化也不重新拼提示词；
+ * 意图节点变更后各节点重建并整体替换引用，读路径无锁，快照维护见 {@link AbstractVersionedSnapshotHolder}。
+ * 快照里的节点被所有请求共享，只读不改
+ * <p>
+ * 叶子很多时可开启向量预筛（{@code rag.intent.prefilter}）：快照里附带叶子向量索引，
+ * 每个子问题只把最相近的若干叶子交给 LLM，预筛不可用时退回全量提示词
  */
 @Slf4j
 @Service
 @RequiredArgsConstructor
-public class DefaultIntentClassifier implements IntentClassifier, IntentNodeRegistry {
+public class DefaultIntentClassifier extends AbstractVersionedSnapshotHolder<DefaultIntentClassifier.IntentTreeData>
+        implements IntentClassifier, IntentNodeRegistry {
 
     private final LLMService llmService;
     private final IntentNodeMapper intentNodeMapper;
     private final PromptTemplateLoader promptTemplateLoader;
     private final IntentTreeCacheManager intentTreeCacheManager;
+    private final IntentLeafPrefilter intentLeafPrefilter;
 
     /**
-     * 从Redis加载意图树并构建内存结构
-     * 每次调用都会重新从Redis读取，确保数据是最新的
+     * 定时比对版本号：广播丢失时最迟一个周期内追上
      */
-    private IntentTreeData loadIntentTreeData() {
-        // 1. 从Redis读取（如果不存在会自动从数据库加载）
+    @Scheduled(fixedDelayString = "${rag.intent.version-check-interval-ms:30000}")
+    public void checkVersion() {
+        syncVersion();
+    }
+
+    @Override
+    protected AbstractVersionedCacheManager versionSource() {
+        return intentTreeCacheManager;
+    }
+
+    @Override
+    protected IntentTreeData emptySnapshot() {
+        return IntentTreeData.EMPTY;
+    }
+
+    @Override
+    protected String describe(IntentTreeData data) {
+        return "总节点数：" + data.allNodes().size() + "，叶子节点数：" + data.leafNodes().size();
+    }
+
+    /**
+     * 从Redis加载意图树并构建内存结构，连同分类提示词一起做成快照
+     */
+    @Override
+    protected IntentTreeData loadSnapshot() {
+        // 1. 从Redis读取
         List<IntentNode> roots = intentTreeCacheManager.getIntentTreeFromCache();
 
         // 2. 如果Redis也没有，从数据库加载并缓存
@@ -79,21 +114,22 @@ public class DefaultIntentClassifier implements IntentClassifier, IntentNodeRegi
             }
         }
 
-        // 3. 构建内存结构（临时使用）
+        // 3. 构建内存结构
         if (CollUtil.isEmpty(roots)) {
-            return new IntentTreeData(List.of(), List.of(), Map.of());
+            return IntentTreeData.EMPTY;
         }
 
         List<IntentNode> allNodes = flatten(roots);
         List<IntentNode> leafNodes = allNodes.stream()
                 .filter(IntentNode::isLeaf)
-                .collect(Collectors.toList());
+                .toList();
         Map<String, IntentNode> id2Node = allNodes.stream()
                 .collect(Collectors.toMap(IntentNode::getId, n -> n));
+        // 叶子为空时提示词用不上，不渲染
+        String prompt = leafNodes.isEmpty() ? null : buildPrompt(leafNodes);
+        IntentLeafPrefilter.LeafIndex leafIndex = leafNodes.isEmpty() ? null : intentLeafPrefilter.index(leafNodes);
 
-        log.debug("意图树数据加载完成, 总节点数: {}, 叶子节点数: {}", allNodes.size(), leafNodes.size());
-
-        return new IntentTreeData(allNodes, leafNodes, id2Node);
+        return new IntentTreeData(List.copyOf(allNodes), leafNodes, id2Node, prompt, leafIndex);
     }
 
     @Override
@@ -101,13 +137,12 @@ public class DefaultIntentClassifier implements IntentClassifier, IntentNodeRegi
         if (id == null || id.isBlank()) {
             return null;
         }
-        IntentTreeData data = loadIntentTreeData();
-        return data.id2Node.get(id);
+        return currentSnapshot().id2Node().get(id);
     }
 
     @Override
     public List<IntentNode> listMcpToolNodes() {
-        return loadIntentTreeData().leafNodes.stream()
+        return currentSnapshot().leafNodes().stream()
                 .filter(IntentNode::isMCP)
                 .filter(node -> node.getMcpToolId() != null && !node.getMcpToolId().isBlank())
                 .sorted(Comparator.comparing(IntentNode::getId))
@@ -115,13 +150,18 @@ public class DefaultIntentClassifier implements IntentClassifier, IntentNodeRegi
     }
 
     /**
-     * 意图树数据结构（临时对象，不持久化）
+     * 意图树快照（不可变，不持久化）
+     * prompt 为预渲染的全量分类提示词，无叶子节点时为 null；leafIndex 为叶子向量索引，未启用预筛时为 null
      */
-    private record IntentTreeData(
+    record IntentTreeData(
             List<IntentNode> allNodes,
             List<IntentNode> leafNodes,
-            Map<String, IntentNode> id2Node
+            Map<String, IntentNode> id2Node,
+            String prompt,
+            IntentLeafPrefilter.LeafIndex leafIndex
     ) {
+
+        static final IntentTreeData EMPTY = new IntentTreeData(List.of(), List.of(), Map.of(), null, null);
     }
 
     private List<IntentNode> flatten(List<IntentNode> roots) {
@@ -145,14 +185,15 @@ public class DefaultIntentClassifier implements IntentClassifier, IntentNodeRegi
      */
     @Override
     public List<NodeScore> classifyTargets(String question) {
-        // 每次都从Redis读取最新数据
-        IntentTreeData data = loadIntentTreeData();
-        if (data.leafNodes.isEmpty()) {
+        IntentTreeData data = currentSnapshot();
+        if (data.leafNodes().isEmpty()) {
             log.debug("意图树没有可用叶子节点，跳过 LLM 意图识别");
             return List.of();
         }
 
-        String systemPrompt = buildPrompt(data.leafNodes);
+        // 预筛命中时只渲染候选叶子，否则用快照里的全量提示词；候选为空同样退回全量，不能让 LLM 面对空列表
+        List<IntentNode> candidates = intentLeafPrefilter.candidates(data.leafIndex(), question);
+        String systemPrompt = CollUtil.isEmpty(candidates) ? data.prompt() : buildPrompt(candidates);
         ChatRequest request = ChatRequest.builder()
                 .messages(List.of(
                         ChatMessage.system(systemPrompt),
@@ -201,7 +242,7 @@ public class DefaultIntentClassifier implements IntentClassifier, IntentNodeRegi
                 if (!obj.has("id") || !obj.has("score")) continue;
 
                 String id = obj.get("id").getAsString();
-                IntentNode node = data.id2Node.get(id);
+                IntentNode node = data.id2Node().get(id);
                 if (node == null) {
                     log.warn("LLM 返回了未知的意图节点 ID: {}, 已跳过", id);
                     continue;
@@ -213,13 +254,16 @@ public class DefaultIntentClassifier implements IntentClassifier, IntentNodeRegi
             // 降序排序
             scores.sort(Comparator.comparingDouble(NodeScore::getScore).reversed());
 
+            // 节点属于共享快照，不能为了日志清掉 children，只输出打分要点
             log.info("当前问题：{}\n意图识别树如下所示：{}\n",
                     question,
                     JSONUtil.toJsonPrettyStr(
-                            scores.stream().peek(each -> {
-                                IntentNode node = each.getNode();
-                                node.setChildren(null);
-                            }).collect(Collectors.toList())
+                            scores.stream()
+                                    .map(each -> Map.of(
+                                            "id", each.getNode().getId(),
+                                            "path", String.valueOf(each.getNode().getFullPath()),
+                                            "score", each.getScore()))
+                                    .toList()
                     )
             );
             return scores;
@@ -0,0 +1,168 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nageoffer.ai.ragent.rag.core.intent;
+
+import com.nageoffer.ai.ragent.infra.embedding.EmbeddingService;
+import com.nageoffer.ai.ragent.rag.config.IntentPrefilterProperties;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * 意图叶子向量预筛
+ * <p>
+ * 意图树重建时把每个叶子的路径、描述和示例问题向量化一次，做成进程内的小索引随快照一起替换；
+ * 识别时只向量化子问题，取余弦最近的 topN 个叶子作为 LLM 的候选。
+ * 任一步失败或未启用都返回 null，调用方退回整棵树的全量提示词，预筛只影响性能不影响可用性
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class IntentLeafPrefilter {
+
+    private final EmbeddingService embeddingService;
+    private final IntentPrefilterProperties properties;
+
+    /**
+     * 为叶子建索引；未启用、叶子数不超过 topN 或向量化失败时返回 null
+     */
+    public LeafIndex index(List<IntentNode> leafNodes) {
+        if (!Boolean.TRUE.equals(properties.getEnabled()) || leafNodes.size() <= properties.getTopN()) {
+            return null;
+        }
+        long start = System.currentTimeMillis();
+        try {
+            List<float[]> vectors = embeddingService.embedBatch(leafNodes.stream().map(IntentLeafPrefilter::leafText).toList());
+            if (vectors.size() != leafNodes.size()) {
+                log.warn("意图叶子向量数与叶子数不一致，关闭本版本预筛，叶子数：{}，向量数：{}", leafNodes.size(), vectors.size());
+                return null;
+            }
+            float[][] normalized = new float[vectors.size()][];
+            for (int i = 0; i < vectors.size(); i++) {
+                normalized[i] = normalize(vectors.get(i));
+            }
+            log.info("意图叶子向量索引已构建，叶子数：{}，耗时：{}ms", leafNodes.size(), System.currentTimeMillis() - start);
+            return new LeafIndex(List.copyOf(leafNodes), normalized);
+        } catch (Exception e) {
+            log.warn("意图叶子向量化失败，本版本意图树走全量提示词", e);
+            return null;
+        }
+    }
+
+    /**
+     * 取与问题最相近的候选叶子，保持叶子在树中的原有顺序，让提示词在不同问题间尽量稳定；
+     * 索引为空或问题向量化失败返回 null
+     */
+    public List<IntentNode> candidates(LeafIndex index, String question) {
+        if (index == null) {
+            return null;
+        }
+        float[] query;
+        try {
+            query = normalize(embeddingService.embed(question));
+        } catch (Exception e) {
+            log.warn("意图预筛问题向量化失败，退回全量提示词", e);
+            return null;
+        }
+        return index.nearest(query, properties.getTopN(), Boolean.TRUE.equals(properties.getAlwaysIncludeSystem()));
+    }
+
+    /**
+     * 叶子的向量文本：路径 + 说明 + 示例问题，与分类提示词里 LLM 看到的信息一致
+     */
+    static String leafText(IntentNode node) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("路径: ").append(node.getFullPath()).append("\n");
+        sb.append("说明: ").append(node.getDescription()).append("\n");
+        if (node.getExamples() != null && !node.getExamples().isEmpty()) {
+            sb.append("示例问题: ");
+            for (String ex : node.getExamples()) {
+                sb.append("【").append(ex).append("】");
+            }
+        }
+        return sb.toString();
+    }
+
+    private static float[] normalize(float[] v) {
+        double sum = 0.0;
+        for (float x : v) sum += x * x;
+        if (sum == 0.0) return v;
+        double len = Math.sqrt(sum);
+        float[] nv = new float[v.length];
+        for (int i = 0; i < v.length; i++) nv[i] = (float) (v[i] / len);
+        return nv;
+    }
+
+    /**
+     * 叶子向量索引，不可变，随意图树快照整体替换；向量已归一化，点积即余弦
+     */
+    public static final class LeafIndex {
+
+        private final List<IntentNode> leafNodes;
+        private final float[][] vectors;
+
+        LeafIndex(List<IntentNode> leafNodes, float[][] vectors) {
+            this.leafNodes = leafNodes;
+            this.vectors = vectors;
+        }
+
+        public int size() {
+            return leafNodes.size();
+        }
+
+        List<IntentNode> nearest(float[] query, int topN, boolean includeSystem) {
+            double[] scores = new double[vectors.length];
+            for (int i = 0; i < vectors.length; i++) {
+                float[] v = vectors[i];
+                if (v.length != query.length) {
+                    // 维度对不上说明索引和问题不是同一个模型出的向量（路由降级到了别的模型），不可比
+                    return null;
+                }
+                double dot = 0;
+                for (int d = 0; d < v.length; d++) {
+                    dot += v[d] * query[d];
+                }
+                scores[i] = dot;
+            }
+            boolean[] selected = new boolean[vectors.length];
+            IntStream.range(0, vectors.length)
+                    .boxed()
+                    .sorted(Comparator.comparingDouble((Integer i) -> scores[i]).reversed())
+                    .limit(topN)
+                    .forEach(i -> selected[i] = true);
+
+            List<IntentNode> result = new ArrayList<>(topN);
+            for (int i = 0; i < leafNodes.size(); i++) {
+                IntentNode node = leafNodes.get(i);
+                if (selected[i] || (includeSystem && node.isSystem())) {
+                    result.add(node);
+                }
+            }
+            if (log.isDebugEnabled()) {
+                log.debug("意图预筛候选：{}，最高相似度：{}", result.stream().map(IntentNode::getId).toList(),
+                        Arrays.stream(scores).max().orElse(0));
+            }
+            return result;
+        }
+    }
+}
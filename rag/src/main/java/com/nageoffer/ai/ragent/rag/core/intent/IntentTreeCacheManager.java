@@ -19,8 +19,9 @@ package com.nageoffer.ai.ragent.rag.core.intent;
 
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import lombok.RequiredArgsConstructor;
+import com.nageoffer.ai.ragent.rag.core.snapshot.AbstractVersionedCacheManager;
 import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RedissonClient;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Component;
 
@@ -29,14 +30,14 @@ import java.util.concurrent.TimeUnit;
 
 /**
  * 意图树缓存管理器
- * 负责意图树在Redis中的缓存管理
+ * 负责意图树在Redis中的缓存管理，版本号与跨节点通知见 {@link AbstractVersionedCacheManager}
+ * <p>
+ * 各节点把意图树连同渲染好的分类提示词做成本地快照（见 {@link DefaultIntentClassifier}），Redis 里的 JSON 只在重建快照时读取
  */
 @Slf4j
 @Component
-@RequiredArgsConstructor
-public class IntentTreeCacheManager {
+public class IntentTreeCacheManager extends AbstractVersionedCacheManager {
 
-    private final StringRedisTemplate stringRedisTemplate;
     private final ObjectMapper objectMapper;
 
     /**
@@ -44,11 +45,22 @@ public class IntentTreeCacheManager {
      */
     private static final String INTENT_TREE_CACHE_KEY = "ragent:intent:tree";
 
+    private static final String INTENT_TREE_VERSION_KEY = "ragent:intent:tree:version";
+
+    private static final String INTENT_TREE_CHANGED_TOPIC = "ragent:intent:tree:changed";
+
     /**
      * 缓存过期时间：7天
      */
     private static final long CACHE_EXPIRE_DAYS = 7;
 
+    public IntentTreeCacheManager(StringRedisTemplate stringRedisTemplate,
+                                  ObjectMapper objectMapper,
+                                  RedissonClient redissonClient) {
+        super(stringRedisTemplate, redissonClient, INTENT_TREE_VERSION_KEY, INTENT_TREE_CHANGED_TOPIC, "意图树");
+        this.objectMapper = objectMapper;
+    }
+
     /**
      * 从Redis获取意图树缓存
      *
@@ -97,7 +109,8 @@ public class IntentTreeCacheManager {
      * 清除意图树缓存
      * 在意图节点发生增删改时调用
      */
-    public void clearIntentTreeCache() {
+    @Override
+    public void clearCache() {
         Boolean deleted = stringRedisTemplate.delete(INTENT_TREE_CACHE_KEY);
         if (deleted) {
             log.info("意图树缓存已清除，Key: {}", INTENT_TREE_CACHE_KEY);
@@ -0,0 +1,292 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nageoffer.ai.ragent.rag.core.memory;
+
+import cn.hutool.core.util.IdUtil;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.nageoffer.ai.ragent.framework.convention.ChatMessage;
+import com.nageoffer.ai.ragent.rag.config.MemoryProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RBucket;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * 热会话窗口缓存
+ * <p>
+ * 活跃会话每一轮都要读同样的「最新摘要 + 最近 N 轮原文」，这里按会话在进程内保留这段窗口：
+ * 首次读取回表填充，此后 {@link #append} 与 {@link #replaceSummary} 在落库后直写更新，不再整段重读。
+ * 空闲超时与总内存预算（按字符数估算）两条线淘汰
+ * <p>
+ * 跨节点一致性靠 Redis 里的会话版本戳：每次写都轮换戳，读时本地窗口的戳与 Redis 一致才算命中，
+ * 另一节点写过的会话必然不一致而重新回表。写分两次轮换——落库前换成「写入中」戳、落库后再换成「已提交」戳——
+ * 这样与写并发的回表无论读没读到新消息，都只会拿到中间戳，随后必然失配，不会把半新不旧的窗口当成最新；
+ * 回表还要求前后两次读戳一致才回填。戳用雪花 ID 而不是自增计数，Key 过期重建后也不会与旧窗口的戳撞上
+ * <p>
+ * Redis 不可用时读写都退化为直连数据库，本地窗口直接作废
+ */
+@Slf4j
+@Component
+public class ConversationMemoryCache {
+
+    private static final String STAMP_KEY_PREFIX = "ragent:memory:stamp:";
+
+    /**
+     * 单条消息在字符内容之外的估算开销（对象头、引用、枚举等），字节
+     */
+    private static final int MESSAGE_OVERHEAD_BYTES = 64;
+
+    private final MemoryProperties memoryProperties;
+    private final RedissonClient redissonClient;
+    private final Cache<String, HotWindow> windows;
+
+    /**
+     * 会话热窗口：摘要 + 最近若干条原文，不可变，每次写入整体替换，权重随之重算
+     *
+     * @param stamp   填充或最近一次直写时对应的版本戳
+     * @param summary 最新摘要（未装饰的 system 消息），无摘要为 null
+     * @param history 最近原文，按时间升序，已剔除开头的 assistant 消息
+     */
+    public record HotWindow(String stamp, ChatMessage summary, List<ChatMessage> history) {
+
+        HotWindow withStamp(String newStamp) {
+            return new HotWindow(newStamp, summary, history);
+        }
+
+        HotWindow withSummary(ChatMessage newSummary) {
+            return new HotWindow(stamp, newSummary, history);
+        }
+
+        /**
+         * 追加一条消息并裁剪到 maxMessages 条，与 {@link JdbcConversationMemoryStore#loadHistory} 的窗口口径一致
+         */
+        HotWindow append(ChatMessage message, int maxMessages) {
+            ChatMessage view = JdbcConversationMemoryStore.toHistoryMessage(message.getRole(), message.getContent());
+            if (view == null) {
+                return this;
+            }
+            Deque<ChatMessage> deque = new ArrayDeque<>(history);
+            deque.addLast(view);
+            while (deque.size() > maxMessages) {
+                deque.pollFirst();
+            }
+            while (!deque.isEmpty() && deque.peekFirst().getRole() == ChatMessage.Role.ASSISTANT) {
+                deque.pollFirst();
+            }
+            return new HotWindow(stamp, summary, List.copyOf(deque));
+        }
+
+        int weight() {
+            long bytes = weightOf(summary);
+            for (ChatMessage message : history) {
+                bytes += weightOf(message);
+            }
+            return (int) Math.min(Integer.MAX_VALUE, bytes);
+        }
+
+        private static long weightOf(ChatMessage message) {
+            if (message == null) {
+                return 0L;
+            }
+            String content = message.getContent();
+            return MESSAGE_OVERHEAD_BYTES + (content == null ? 0L : content.length() * 2L);
+        }
+    }
+
+    /**
+     * 一次读取的结果：命中时带窗口，未命中时带读取时刻的版本戳供回填校验
+     */
+    public record Lookup(String key, String stamp, HotWindow window) {
+
+        public boolean hit() {
+            return window != null;
+        }
+    }
+
+    public ConversationMemoryCache(MemoryProperties memoryProperties, RedissonClient redissonClient) {
+        this.memoryProperties = memoryProperties;
+        this.redissonClient = redissonClient;
+        MemoryProperties.HotCache config = memoryProperties.getHotCache();
+        this.windows = CacheBuilder.newBuilder()
+                .maximumWeight(Math.max(1L, config.getMemoryBudgetMb()) * 1024L * 1024L)
+                .weigher((String key, HotWindow window) -> window.weight())
+                .expireAfterAccess(Duration.ofSeconds(Math.max(1L, config.getIdleSeconds())))
+                .build();
+    }
+
+    /**
+     * 查本地窗口；戳与 Redis 一致才算命中。Redis 还没有戳时（新会话或已过期）顺手播种一个，供随后的回填使用
+     */
+    public Lookup lookup(String conversationId, String userId) {
+        String key = buildKey(conversationId, userId);
+        if (!isEnabled()) {
+            return new Lookup(key, null, null);
+        }
+        try {
+            RBucket<String> bucket = stampBucket(key);
+            String stamp = bucket.get();
+            if (stamp == null) {
+                String seeded = IdUtil.getSnowflakeNextIdStr();
+                stamp = bucket.setIfAbsent(seeded, stampTtl()) ? seeded : bucket.get();
+                return new Lookup(key, stamp, null);
+            }
+            HotWindow window = windows.getIfPresent(key);
+            if (window != null && stamp.equals(window.stamp())) {
+                return new Lookup(key, stamp, window);
+            }
+            return new Lookup(key, stamp, null);
+        } catch (Exception e) {
+            log.warn("读取会话版本戳失败，本次直接回表 - key: {}", key, e);
+            windows.invalidate(key);
+            return new Lookup(key, null, null);
+        }
+    }
+
+    /**
+     * 回表完成后回填；回表期间戳变过说明有写入并发，宁可下次再读也不回填
+     *
+     * @param miss    {@link #lookup} 返回的未命中结果
+     * @param summary 回表得到的最新摘要，可为 null
+     * @param history 回表得到的最近原文
+     */
+    public void fill(Lookup miss, ChatMessage summary, List<ChatMessage> history) {
+        if (!isEnabled() || miss.stamp() == null) {
+            return;
+        }
+        try {
+            if (miss.stamp().equals(stampBucket(miss.key()).get())) {
+                windows.put(miss.key(), new HotWindow(miss.stamp(), summary, List.copyOf(history)));
+            }
+        } catch (Exception e) {
+            log.warn("回填会话窗口时读取版本戳失败，跳过回填 - key: {}", miss.key(), e);
+        }
+    }
+
+    /**
+     * 落库一条消息并直写进本地窗口
+     *
+     * @param persist 真正的落库动作，返回消息 ID
+     */
+    public String append(String conversationId, String userId, ChatMessage message, Supplier<String> persist) {
+        int maxMessages = memoryProperties.getHistoryKeepTurns() * 2;
+        return writeThrough(buildKey(conversationId, userId), persist, window -> window.append(message, maxMessages));
+    }
+
+    /**
+     * 落库一条新摘要并直写进本地窗口
+     *
+     * @param summary 未装饰的摘要消息
+     * @param persist 真正的落库动作
+     */
+    public void replaceSummary(String conversationId, String userId, ChatMessage summary, Runnable persist) {
+        writeThrough(buildKey(conversationId, userId), () -> {
+            persist.run();
+            return null;
+        }, window -> window.withSummary(summary));
+    }
+
+    /**
+     * 作废会话窗口（全部节点）；处于事务中时推迟到提交之后，免得并发回表把提交前的数据按新戳填回去
+     */
+    public void invalidate(String conversationId, String userId) {
+        if (!isEnabled()) {
+            return;
+        }
+        String key = buildKey(conversationId, userId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    rotate(key);
+                }
+            });
+            return;
+        }
+        rotate(key);
+    }
+
+    private <T> T writeThrough(String key, Supplier<T> persist, UnaryOperator<HotWindow> mutation) {
+        if (!isEnabled()) {
+            return persist.get();
+        }
+        RBucket<String> bucket;
+        String pending = IdUtil.getSnowflakeNextIdStr();
+        String before;
+        try {
+            bucket = stampBucket(key);
+            before = bucket.getAndSet(pending, stampTtl());
+        } catch (Exception e) {
+            log.warn("轮换会话版本戳失败，本地窗口作废 - key: {}", key, e);
+            windows.invalidate(key);
+            return persist.get();
+        }
+
+        T result = persist.get();
+
+        // 本地窗口正好停在写入前的戳上、且落库期间没有别的写入插进来，才能在其上直写；否则作废等下次回表
+        try {
+            String committed = IdUtil.getSnowflakeNextIdStr();
+            String observed = bucket.getAndSet(committed, stampTtl());
+            HotWindow local = windows.getIfPresent(key);
+            if (local != null && pending.equals(observed) && local.stamp().equals(before)
+                    && windows.asMap().replace(key, local, mutation.apply(local).withStamp(committed))) {
+                return result;
+            }
+        } catch (Exception e) {
+            log.warn("提交会话版本戳失败，本地窗口作废 - key: {}", key, e);
+        }
+        windows.invalidate(key);
+        return result;
+    }
+
+    private void rotate(String key) {
+        windows.invalidate(key);
+        try {
+            stampBucket(key).set(IdUtil.getSnowflakeNextIdStr(), stampTtl());
+        } catch (Exception e) {
+            log.warn("轮换会话版本戳失败，其他节点的窗口将等待空闲淘汰 - key: {}", key, e);
+        }
+    }
+
+    private boolean isEnabled() {
+        return Boolean.TRUE.equals(memoryProperties.getHotCache().getEnabled());
+    }
+
+    private RBucket<String> stampBucket(String key) {
+        return redissonClient.getBucket(STAMP_KEY_PREFIX + key, StringCodec.INSTANCE);
+    }
+
+    private Duration stampTtl() {
+        return Duration.ofSeconds(Math.max(60L, memoryProperties.getHotCache().getStampTtlSeconds()));
+    }
+
+    private static String buildKey(String conversationId, String userId) {
+        return userId.trim() + ":" + conversationId.trim();
+    }
+}
@@ -28,6 +28,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 @Slf4j
 @Service
@@ -36,13 +37,16 @@ public class DefaultConversationMemoryService implements ConversationMemoryServi
     private final ConversationMemoryStore memoryStore;
     private final ConversationMemorySummaryService summaryService;
     private final Executor memoryLoadExecutor;
+    private final ConversationMemoryCache memoryCache;
 
     public DefaultConversationMemoryService(ConversationMemoryStore memoryStore,
                                             ConversationMemorySummaryService summaryService,
-                                            Executor memoryLoadExecutor) {
+                                            Executor memoryLoadExecutor,
+                                            ConversationMemoryCache memoryCache) {
         this.memoryStore = memoryStore;
         this.summaryService = summaryService;
         this.memoryLoadExecutor = memoryLoadExecutor;
+        this.memoryCache = memoryCache;
     }
 
     @Override
@@ -54,12 +58,22 @@ public class DefaultConversationMemoryService implements ConversationMemoryServi
 
         long startTime = System.currentTimeMillis();
         try {
-            // 并行加载摘要和历史记录
+            // 热窗口命中：本节点已有该会话最新的摘要与历史，不回表
+            ConversationMemoryCache.Lookup lookup = memoryCache.lookup(conversationId, userId);
+            if (lookup.hit()) {
+                ConversationMemoryCache.HotWindow window = lookup.window();
+                log.debug("对话记忆命中热窗口 - conversationId: {}, userId: {}, 历史消息数: {}",
+                        conversationId, userId, window.history().size());
+                return attachSummary(copyOf(window.summary()), window.history().stream().map(this::copyOf).toList());
+            }
+
+            // 并行加载摘要和历史记录；任一路降级的结果不回填热窗口
+            AtomicBoolean degraded = new AtomicBoolean(false);
             CompletableFuture<ChatMessage> summaryFuture = CompletableFuture.supplyAsync(
-                    () -> loadSummaryWithFallback(conversationId, userId), memoryLoadExecutor
+                    () -> loadSummaryWithFallback(conversationId, userId, degraded), memoryLoadExecutor
             );
             CompletableFuture<List<ChatMessage>> historyFuture = CompletableFuture.supplyAsync(
-                    () -> loadHistoryWithFallback(conversationId, userId), memoryLoadExecutor
+                    () -> loadHistoryWithFallback(conversationId, userId, degraded), memoryLoadExecutor
             );
 
             // 等待所有任务完成后合并结果
@@ -69,6 +83,9 @@ public class DefaultConversationMemoryService implements ConversationMemoryServi
                         List<ChatMessage> history = historyFuture.join();
                         log.debug("加载对话记忆 - conversationId: {}, userId: {}, 摘要: {}, 历史消息数: {}, 耗时: {}ms",
                                 conversationId, userId, summary != null, history.size(), System.currentTimeMillis() - startTime);
+                        if (!degraded.get()) {
+                            memoryCache.fill(lookup, summary, history);
+                        }
                         return attachSummary(summary, history);
                     })
                     .join();
@@ -81,11 +98,12 @@ public class DefaultConversationMemoryService implements ConversationMemoryServi
     /**
      * 加载摘要，失败时返回 null
      */
-    private ChatMessage loadSummaryWithFallback(String conversationId, String userId) {
+    private ChatMessage loadSummaryWithFallback(String conversationId, String userId, AtomicBoolean degraded) {
         try {
             return summaryService.loadLatestSummary(conversationId, userId);
         } catch (Exception e) {
             log.warn("加载摘要失败，将跳过摘要 - conversationId: {}, userId: {}", conversationId, userId, e);
+            degraded.set(true);
             return null;
         }
     }
@@ -93,12 +111,13 @@ public class DefaultConversationMemoryService implements ConversationMemoryServi
     /**
      * 加载历史记录，失败时返回空列表
      */
-    private List<ChatMessage> loadHistoryWithFallback(String conversationId, String userId) {
+    private List<ChatMessage> loadHistoryWithFallback(String conversationId, String userId, AtomicBoolean degraded) {
         try {
             List<ChatMessage> history = memoryStore.loadHistory(conversationId, userId);
             return history != null ? history : List.of();
         } catch (Exception e) {
             log.error("加载历史记录失败 - conversationId: {}, userId: {}", conversationId, userId, e);
+            degraded.set(true);
             return List.of();
         }
     }
@@ -108,11 +127,19 @@ public class DefaultConversationMemoryService implements ConversationMemoryServi
         if (StrUtil.isBlank(conversationId) || StrUtil.isBlank(userId)) {
             return null;
         }
-        String messageId = memoryStore.append(conversationId, userId, message);
+        String messageId = memoryCache.append(conversationId, userId, message,
+                () -> memoryStore.append(conversationId, userId, message));
         summaryService.compressIfNeeded(conversationId, userId, message);
         return messageId;
     }
 
+    /**
+     * 热窗口里的消息在节点内共享，交给调用方的是副本，防止下游改写污染缓存
+     */
+    private ChatMessage copyOf(ChatMessage message) {
+        return message == null ? null : new ChatMessage(message.getRole(), message.getContent());
+    }
+
     private List<ChatMessage> attachSummary(ChatMessage summary, List<ChatMessage> messages) {
         // 确保返回值不为 null
         if (CollUtil.isEmpty(messages)) {
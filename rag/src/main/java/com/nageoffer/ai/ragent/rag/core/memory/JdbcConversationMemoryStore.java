@@ -33,6 +33,7 @@ import org.springframework.stereotype.Service;
 
 import java.util.Date;
 import java.util.List;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -42,13 +43,16 @@ public class JdbcConversationMemoryStore implements ConversationMemoryStore {
     private final ConversationService conversationService;
     private final ConversationMessageService conversationMessageService;
     private final MemoryProperties memoryProperties;
+    private final ConversationMemoryCache memoryCache;
 
     public JdbcConversationMemoryStore(ConversationService conversationService,
                                        ConversationMessageService conversationMessageService,
-                                       MemoryProperties memoryProperties) {
+                                       MemoryProperties memoryProperties,
+                                       ConversationMemoryCache memoryCache) {
         this.conversationService = conversationService;
         this.conversationMessageService = conversationMessageService;
         this.memoryProperties = memoryProperties;
+        this.memoryCache = memoryCache;
     }
 
     @Override
@@ -66,7 +70,7 @@ public class JdbcConversationMemoryStore implements ConversationMemoryStore {
 
         List<ChatMessage> result = dbMessages.stream()
                 .map(this::toChatMessage)
-                .filter(this::isHistoryMessage)
+                .filter(Objects::nonNull)
                 .collect(Collectors.toList());
 
         return normalizeHistory(result);
@@ -102,21 +106,29 @@ public class JdbcConversationMemoryStore implements ConversationMemoryStore {
 
     @Override
     public void refreshCache(String conversationId, String userId) {
-        // JDBC 直读模式，无需刷新缓存
+        memoryCache.invalidate(conversationId, userId);
     }
 
     private ChatMessage toChatMessage(ConversationMessageVO record) {
         if (record == null || StrUtil.isBlank(record.getContent())) {
             return null;
         }
-        ChatMessage.Role role = ChatMessage.Role.fromString(record.getRole());
-        String content = role == ChatMessage.Role.ASSISTANT
-                ? CitationMarkup.strip(record.getContent())
-                : record.getContent();
-        return new ChatMessage(
-                role,
-                content
-        );
+        return toHistoryMessage(ChatMessage.Role.fromString(record.getRole()), record.getContent());
+    }
+
+    /**
+     * 转成进入记忆窗口的形态：只保留非空的 user / assistant 消息，assistant 去掉行内引用角标
+     * <p>
+     * 回表与热窗口直写共用这一口径，保证两条路径得到的历史逐条一致
+     *
+     * @return 不属于历史的消息返回 null
+     */
+    static ChatMessage toHistoryMessage(ChatMessage.Role role, String content) {
+        if (content == null || (role != ChatMessage.Role.USER && role != ChatMessage.Role.ASSISTANT)) {
+            return null;
+        }
+        String text = role == ChatMessage.Role.ASSISTANT ? CitationMarkup.strip(content) : content;
+        return StrUtil.isBlank(text) ? null : new ChatMessage(role, text);
     }
 
     private List<ChatMessage> normalizeHistory(List<ChatMessage> messages) {
@@ -133,12 +145,6 @@ public class JdbcConversationMemoryStore implements ConversationMemoryStore {
         return messages.subList(start, messages.size());
     }
 
-    private boolean isHistoryMessage(ChatMessage message) {
-        return message != null
-                && (message.getRole() == ChatMessage.Role.USER || message.getRole() == ChatMessage.Role.ASSISTANT)
-                && StrUtil.isNotBlank(message.getContent());
-    }
-
     private int resolveMaxHistoryMessages() {
         int maxTurns = memoryProperties.getHistoryKeepTurns();
         return maxTurns * 2;
@@ -65,6 +65,7 @@ public class JdbcConversationMemorySummaryService implements ConversationMemoryS
     private final AgentPromptResolver agentPromptResolver;
     private final RedissonClient redissonClient;
     private final Executor memorySummaryExecutor;
+    private final ConversationMemoryCache memoryCache;
 
     @Override
     public void compressIfNeeded(String conversationId, String userId, ChatMessage message) {
@@ -302,7 +303,8 @@ public class JdbcConversationMemorySummaryService implements ConversationMemoryS
                 .content(content)
                 .lastMessageId(lastMessageId)
                 .build();
-        conversationMessageService.addMessageSummary(summaryRecord);
+        memoryCache.replaceSummary(conversationId, userId, new ChatMessage(ChatMessage.Role.SYSTEM, content),
+                () -> conversationMessageService.addMessageSummary(summaryRecord));
     }
 
     private String buildLockKey(String conversationId, String userId) {
@@ -23,6 +23,7 @@ import com.nageoffer.ai.ragent.framework.convention.RetrievedChunkKey;
 import com.nageoffer.ai.ragent.framework.trace.RagTraceNode;
 import com.nageoffer.ai.ragent.rag.config.SearchChannelProperties;
 import com.nageoffer.ai.ragent.rag.core.intent.NodeScore;
+import com.nageoffer.ai.ragent.rag.core.retrieval.cache.SemanticRetrievalCache;
 import com.nageoffer.ai.ragent.rag.core.retrieval.channel.RetrievalScope;
 import com.nageoffer.ai.ragent.rag.core.retrieval.channel.RetrievalScopeResolver;
 import com.nageoffer.ai.ragent.rag.core.retrieval.channel.SearchChannel;
@@ -46,15 +47,17 @@ import java.util.concurrent.CompletionException;
 import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.function.BooleanSupplier;
 import java.util.stream.Collectors;
 
 /**
  * 多通道检索引擎
  * <p>
  * 负责协调多个检索通道和后置处理器：
- * 1. 并行执行所有启用的检索通道
- * 2. 依次执行后置处理器链
- * 3. 返回最终的检索结果
+ * 1. 查检索结果缓存，命中直接返回
+ * 2. 并行执行所有启用的检索通道
+ * 3. 依次执行后置处理器链
+ * 4. 返回最终的检索结果
  */
 @Slf4j
 @Service
@@ -66,6 +69,7 @@ public class MultiChannelRetrievalEngine {
     private final RetrievalScopeResolver retrievalScopeResolver;
     private final Executor ragRetrievalExecutor;
     private final SearchChannelProperties searchProperties;
+    private final SemanticRetrievalCache retrievalCache;
 
     /**
      * 执行多通道检索（仅 KB 场景）
@@ -79,12 +83,51 @@ public class MultiChannelRetrievalEngine {
     @RagTraceNode(name = "multi-channel-retrieval", type = "RETRIEVE_CHANNEL")
     public KnowledgeRetrievalResult retrieveKnowledgeChannels(SubQuestionIntent subIntent,
                                                                RetrievalBudget budget) {
+        return retrieveKnowledgeChannels(subIntent, budget, null);
+    }
+
+    /**
+     * 执行多通道检索，作用域解析后若与在途的推测检索对得上（全局作用域、同一问题、同一预算）则直接领取其结果
+     *
+     * @param speculation 推测检索，可为空；领取失败或对不上时照常检索
+     */
+    @RagTraceNode(name = "multi-channel-retrieval", type = "RETRIEVE_CHANNEL")
+    public KnowledgeRetrievalResult retrieveKnowledgeChannels(SubQuestionIntent subIntent,
+                                                               RetrievalBudget budget,
+                                                               RetrievalSpeculation speculation) {
         SearchContext context = buildSearchContext(subIntent, budget);
+        if (speculation != null) {
+            KnowledgeRetrievalResult speculated = speculation.claim(context);
+            if (speculated != null) {
+                return speculated;
+            }
+        }
+        // 作用域先于缓存解析：同一问题在不同作用域下证据不同，作用域是缓存键的一部分
+        return retrievalCache.getOrLoad(context, () -> retrieveUncached(context, () -> false));
+    }
+
+    /**
+     * 推测检索：意图尚未识别，按无意图解析作用域（必为全局），与事后「识别出意图但置信度不足」的全局检索走同一条链路，
+     * 结果才可原样复用。通道查询返回后若已被取消，跳过后处理（精排是远程调用），直接返回空结果
+     *
+     * @param question  术语归一化后的原问题
+     * @param cancelled 是否已被取消
+     */
+    public KnowledgeRetrievalResult retrieveSpeculatively(String question, RetrievalBudget budget,
+                                                          BooleanSupplier cancelled) {
+        SearchContext context = buildSearchContext(new SubQuestionIntent(question, List.of()), budget);
+        return retrievalCache.getOrLoad(context, () -> retrieveUncached(context, cancelled));
+    }
 
+    private KnowledgeRetrievalResult retrieveUncached(SearchContext context, BooleanSupplier cancelled) {
         List<SearchChannelResult> channelResults = executeSearchChannels(context);
         if (CollUtil.isEmpty(channelResults)) {
             return KnowledgeRetrievalResult.empty();
         }
+        if (cancelled.getAsBoolean()) {
+            log.info("推测检索已被取消，跳过后置处理器，question：{}", context.getMainQuestion());
+            return KnowledgeRetrievalResult.empty();
+        }
 
         List<RetrievedChunk> chunks = executePostProcessors(channelResults, context);
         // 异常或超时导致定向证据为空时，保留的定向范围会使其按未命中处理
@@ -17,6 +17,8 @@
 
 package com.nageoffer.ai.ragent.rag.core.retrieval;
 
+import com.nageoffer.ai.ragent.rag.config.SearchChannelProperties;
+
 /**
  * 检索漏斗的三段预算
  * <p>
@@ -33,6 +35,19 @@ package com.nageoffer.ai.ragent.rag.core.retrieval;
  */
 public record RetrievalBudget(int recallBudget, int candidateLimit, int contextTopK) {
 
+    /**
+     * 按配置算出请求级预算：全 subquestion 共用。最终条数即配置的 default-top-k（启动已校验 >0），是 contextTopK 段唯一真源，
+     * 不再被 max(意图节点 topK) 抬高（node.topK 只覆盖向量定向路的召回深度，见 VectorSearchChannel.resolveDirectedBudget）
+     */
+    public static RetrievalBudget from(SearchChannelProperties properties) {
+        int contextTopK = properties.getDefaultTopK();
+        return new RetrievalBudget(
+                properties.resolveRecallBudget(contextTopK),
+                properties.getFusion().getRerankCandidateLimit(),
+                contextTopK
+        );
+    }
+
     /**
      * 三段同值构造：用于测试或无需区分预算的平凡场景
      */
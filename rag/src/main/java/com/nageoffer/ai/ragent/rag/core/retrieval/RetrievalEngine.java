@@ -80,25 +80,29 @@ public class RetrievalEngine {
      */
     @RagTraceNode(name = "retrieval-engine", type = "RETRIEVE")
     public RetrievalContext retrieve(List<SubQuestionIntent> subIntents) {
+        return retrieve(subIntents, null);
+    }
+
+    /**
+     * 检索方法：可带一份在途的推测检索，子问题的问题与作用域都对得上时直接领取其结果
+     *
+     * @param speculation 推测检索，可为空
+     */
+    @RagTraceNode(name = "retrieval-engine", type = "RETRIEVE")
+    public RetrievalContext retrieve(List<SubQuestionIntent> subIntents, RetrievalSpeculation speculation) {
         if (CollUtil.isEmpty(subIntents)) {
             return RetrievalContext.builder()
                     .intentChunks(Map.of())
                     .build();
         }
 
-        // 一次算好检索预算：全 subquestion 共用。最终条数即配置的 default-top-k（启动已校验 >0），是 contextTopK 段唯一真源，
-        // 不再被 max(意图节点 topK) 抬高（node.topK 只覆盖向量定向路的召回深度，见 VectorSearchChannel.resolveDirectedBudget）
-        int contextTopK = searchProperties.getDefaultTopK();
-        RetrievalBudget budget = new RetrievalBudget(
-                searchProperties.resolveRecallBudget(contextTopK),
-                searchProperties.getFusion().getRerankCandidateLimit(),
-                contextTopK
-        );
+        // 一次算好检索预算：全 subquestion 共用
+        RetrievalBudget budget = RetrievalBudget.from(searchProperties);
         List<CompletableFuture<SubQuestionContext>> tasks = subIntents.stream()
                 .map(si -> CompletableFuture.supplyAsync(
                         () -> {
                             try {
-                                return buildSubQuestionContext(si, budget);
+                                return buildSubQuestionContext(si, budget, speculation);
                             } catch (Exception e) {
                                 log.error("子问题上下文构建失败，降级为空上下文，question：{}", si.subQuestion(), e);
                                 return new SubQuestionContext(
@@ -167,11 +171,12 @@ public class RetrievalEngine {
                 .build();
     }
 
-    private SubQuestionContext buildSubQuestionContext(SubQuestionIntent intent, RetrievalBudget budget) {
+    private SubQuestionContext buildSubQuestionContext(SubQuestionIntent intent, RetrievalBudget budget,
+                                                       RetrievalSpeculation speculation) {
         List<NodeScore> kbIntents = NodeScoreFilters.kb(intent.nodeScores());
         List<NodeScore> mcpIntents = NodeScoreFilters.mcp(intent.nodeScores());
 
-        KbResult kbResult = retrieveAndRerank(intent, kbIntents, budget);
+        KbResult kbResult = retrieveAndRerank(intent, kbIntents, budget, speculation);
 
         String mcpContext = CollUtil.isNotEmpty(mcpIntents)
                 ? executeMcpAndMerge(intent.subQuestion(), mcpIntents)
@@ -205,10 +210,12 @@ public class RetrievalEngine {
         return contextFormatter.formatMcpContext(toolResults, mcpIntents);
     }
 
-    private KbResult retrieveAndRerank(SubQuestionIntent intent, List<NodeScore> kbIntents, RetrievalBudget budget) {
+    private KbResult retrieveAndRerank(SubQuestionIntent intent, List<NodeScore> kbIntents, RetrievalBudget budget,
+                                       RetrievalSpeculation speculation) {
         // 使用多通道检索引擎（是否启用全局检索由置信度阈值决定）
-        KnowledgeRetrievalResult retrievalResult =
-                multiChannelRetrievalEngine.retrieveKnowledgeChannels(intent, budget);
+        KnowledgeRetrievalResult retrievalResult = speculation == null
+                ? multiChannelRetrievalEngine.retrieveKnowledgeChannels(intent, budget)
+                : multiChannelRetrievalEngine.retrieveKnowledgeChannels(intent, budget, speculation);
         List<RetrievedChunk> chunks = retrievalResult.chunks();
         Set<String> eligibleIntentIds = retrievalResult.eligibleIntentIds(kbIntents);
 
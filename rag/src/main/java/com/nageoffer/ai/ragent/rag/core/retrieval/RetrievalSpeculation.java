@@ -0,0 +1,106 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nageoffer.ai.ragent.rag.core.retrieval;
+
+import com.nageoffer.ai.ragent.rag.core.retrieval.cache.SemanticRetrievalCache;
+import com.nageoffer.ai.ragent.rag.core.retrieval.channel.RetrievalScope;
+import com.nageoffer.ai.ragent.rag.core.retrieval.channel.SearchContext;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 一次在途的推测检索
+ * <p>
+ * 只能结算一次：要么被某个子问题领取（命中），要么被丢弃（未命中、取消）。
+ * 结算结果回报给 {@link SpeculativeRetrievalService} 计入命中率与节省耗时
+ */
+@Slf4j
+public final class RetrievalSpeculation {
+
+    private final String question;
+    private final RetrievalBudget budget;
+    private final long startNanos;
+    private final SpeculativeRetrievalService owner;
+    private final AtomicBoolean settled = new AtomicBoolean();
+    private final AtomicBoolean cancelled = new AtomicBoolean();
+
+    private volatile long doneNanos;
+    private volatile CompletableFuture<KnowledgeRetrievalResult> future;
+
+    RetrievalSpeculation(String question, RetrievalBudget budget, SpeculativeRetrievalService owner) {
+        this.question = question;
+        this.budget = budget;
+        this.owner = owner;
+        this.startNanos = System.nanoTime();
+    }
+
+    void attach(CompletableFuture<KnowledgeRetrievalResult> future) {
+        this.future = future.whenComplete((result, error) -> doneNanos = System.nanoTime());
+    }
+
+    boolean isCancelled() {
+        return cancelled.get();
+    }
+
+    /**
+     * 领取推测结果：作用域为全局、归一化问题一致且预算一致才算同一次检索，否则返回 null 由调用方照常检索
+     * <p>
+     * 推测还在跑就等它跑完——它已先跑了一段，等剩余部分总比重新从头检索快；推测失败同样返回 null
+     */
+    KnowledgeRetrievalResult claim(SearchContext context) {
+        RetrievalScope scope = context.getRetrievalScope();
+        if (scope == null || scope.directed()
+                || !question.equals(SemanticRetrievalCache.normalizeQuestion(context.getMainQuestion()))
+                || !budget.equals(context.getBudget())) {
+            return null;
+        }
+        if (!settled.compareAndSet(false, true)) {
+            return null;
+        }
+        long claimNanos = System.nanoTime();
+        try {
+            KnowledgeRetrievalResult result = future.join();
+            // 推测在领取前已跑完则整段检索都省下了，否则省下的是从发起到领取这一段
+            long done = doneNanos;
+            long savedNanos = (done != 0 && done < claimNanos ? done : claimNanos) - startNanos;
+            owner.recordHit(savedNanos);
+            log.info("推测检索命中，复用全局检索结果，question：{}，节省耗时：{}ms", question, savedNanos / 1_000_000);
+            return result;
+        } catch (Exception e) {
+            owner.recordFailure();
+            log.warn("推测检索执行失败，改为照常检索，question：{}", question, e);
+            return null;
+        }
+    }
+
+    /**
+     * 丢弃：未被领取时取消并计入未命中，已结算则什么都不做，可重复调用
+     */
+    void discard() {
+        if (!settled.compareAndSet(false, true)) {
+            return;
+        }
+        cancelled.set(true);
+        CompletableFuture<KnowledgeRetrievalResult> current = future;
+        if (current != null) {
+            current.cancel(false);
+        }
+        owner.recordDiscard();
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nageoffer.ai.ragent.rag.core.retrieval;
+
+import com.nageoffer.ai.ragent.rag.config.SearchChannelProperties;
+import com.nageoffer.ai.ragent.rag.core.retrieval.cache.SemanticRetrievalCache;
+import com.nageoffer.ai.ragent.rag.core.rewrite.QueryTermMappingService;
+import com.nageoffer.ai.ragent.rag.core.rewrite.RewriteResult;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 推测检索
+ * <p>
+ * 对话流水线在改写、意图识别之前按术语归一化后的原问题发起一次全局作用域检索，与两三轮 LLM 调用并行；
+ * 检索阶段由 {@link MultiChannelRetrievalEngine} 判定能否领取，流水线在检索结束或短路返回时统一丢弃未领取的推测。
+ * 推测只为缩短首字延迟，任何失败都退回照常检索
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SpeculativeRetrievalService {
+
+    private final SearchChannelProperties searchProperties;
+    private final MultiChannelRetrievalEngine multiChannelRetrievalEngine;
+    private final QueryTermMappingService queryTermMappingService;
+    private final Executor speculativeRetrievalExecutor;
+
+    private final LongAdder started = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder discards = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder rejections = new LongAdder();
+    private final LongAdder savedNanos = new LongAdder();
+
+    /**
+     * 发起推测检索；未启用、问题为空或线程池已满时返回 null
+     */
+    public RetrievalSpeculation start(String question) {
+        if (!searchProperties.getSpeculation().isEnabled()) {
+            return null;
+        }
+        String normalized = queryTermMappingService.normalize(question);
+        String key = SemanticRetrievalCache.normalizeQuestion(normalized);
+        if (key.isEmpty()) {
+            return null;
+        }
+        RetrievalBudget budget = RetrievalBudget.from(searchProperties);
+        RetrievalSpeculation speculation = new RetrievalSpeculation(key, budget, this);
+        try {
+            speculation.attach(CompletableFuture.supplyAsync(
+                    () -> multiChannelRetrievalEngine.retrieveSpeculatively(normalized, budget, speculation::isCancelled),
+                    speculativeRetrievalExecutor));
+        } catch (RejectedExecutionException e) {
+            rejections.increment();
+            log.debug("推测检索线程池已满，本次不做推测");
+            return null;
+        }
+        started.increment();
+        return speculation;
+    }
+
+    /**
+     * 改写结果已知：拆出多个子问题时推测不可能被领取，提前丢弃，省下尚未开始的后处理
+     */
+    public void onRewritten(RetrievalSpeculation speculation, RewriteResult rewriteResult) {
+        if (speculation == null || rewriteResult == null) {
+            return;
+        }
+        if (rewriteResult.subQuestions() != null && rewriteResult.subQuestions().size() > 1) {
+            speculation.discard();
+        }
+    }
+
+    /**
+     * 结束推测：未被领取的一律取消并计入未命中，可重复调用
+     */
+    public void finish(RetrievalSpeculation speculation) {
+        if (speculation != null) {
+            speculation.discard();
+        }
+    }
+
+    void recordHit(long nanos) {
+        hits.increment();
+        savedNanos.add(Math.max(0, nanos));
+    }
+
+    void recordDiscard() {
+        discards.increment();
+    }
+
+    void recordFailure() {
+        failures.increment();
+    }
+
+    /**
+     * 当前计数快照
+     */
+    public SpeculationMetrics metrics() {
+        return new SpeculationMetrics(started.sum(), hits.sum(), discards.sum(), failures.sum(),
+                rejections.sum(), savedNanos.sum() / 1_000_000);
+    }
+
+    @Scheduled(fixedDelayString = "${rag.search.speculation.stats-log-interval-ms:300000}")
+    public void logMetrics() {
+        if (!searchProperties.getSpeculation().isEnabled()) {
+            return;
+        }
+        SpeculationMetrics metrics = metrics();
+        if (metrics.started() == 0) {
+            return;
+        }
+        log.info("推测检索统计 - 发起: {}, 命中: {}, 丢弃: {}, 失败: {}, 线程池满放弃: {}, 命中率: {}%, 累计节省首字延迟: {}ms, 命中平均节省: {}ms",
+                metrics.started(), metrics.hits(), metrics.discards(), metrics.failures(), metrics.rejections(),
+                String.format(Locale.ROOT, "%.1f", metrics.hitRate() * 100),
+                metrics.savedMillis(), metrics.averageSavedMillis());
+    }
+
+    /**
+     * 推测检索计数快照
+     *
+     * @param started     发起次数
+     * @param hits        被领取（命中）次数
+     * @param discards    未领取而丢弃次数
+     * @param failures    领取时推测执行失败、改为照常检索的次数
+     * @param rejections  线程池满而放弃推测的次数，不计入发起
+     * @param savedMillis 命中累计节省的检索耗时（毫秒），即推测与改写、意图识别重叠的部分
+     */
+    public record SpeculationMetrics(long started,
+                                     long hits,
+                                     long discards,
+                                     long failures,
+                                     long rejections,
+                                     long savedMillis) {
+
+        public double hitRate() {
+            return started == 0 ? 0 : (double) hits / started;
+        }
+
+        public long averageSavedMillis() {
+            return hits == 0 ? 0 : savedMillis / hits;
+        }
+    }
+}
@@ -0,0 +1,365 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nageoffer.ai.ragent.rag.core.retrieval.cache;
+
+import cn.hutool.core.util.StrUtil;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.nageoffer.ai.ragent.core.ingest.DocumentRef;
+import com.nageoffer.ai.ragent.core.ingest.VectorTarget;
+import com.nageoffer.ai.ragent.core.ingest.sink.ChunkIndexListener;
+import com.nageoffer.ai.ragent.framework.convention.RetrievedChunk;
+import com.nageoffer.ai.ragent.rag.config.SearchChannelProperties;
+import com.nageoffer.ai.ragent.rag.core.retrieval.KnowledgeRetrievalResult;
+import com.nageoffer.ai.ragent.rag.core.retrieval.RetrievalBudget;
+import com.nageoffer.ai.ragent.rag.core.retrieval.channel.RetrievalScope;
+import com.nageoffer.ai.ragent.rag.core.retrieval.channel.SearchContext;
+import com.nageoffer.ai.ragent.rag.core.vector.VectorRetrieverService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RedissonClient;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * 检索结果语义缓存
+ * <p>
+ * 挂在多通道检索之前：键是归一化子问题 + 检索作用域，命中即返回上一次后处理（融合 / 精排 / 闸门）之后的结果，
+ * 全部通道与精排一概跳过。精确键未命中时再拿查询向量与同作用域近期问题比对，余弦不低于阈值视为同一问题——
+ * 这一次 embedding 向量通道本来就要算，算完挂进 {@link SearchContext} 让通道复用，不额外多一次往返
+ * <p>
+ * 失效按库：任何文档在某库重建或删除后，所有范围覆盖该库的条目整体作废（全局作用域覆盖全部库，必然连带）；
+ * 失效经 Redis 主题广播，本节点也走监听统一处理。加载期间发生过失效的结果不回填，免得旧证据在失效之后写回
+ */
+@Slf4j
+@Component
+public class SemanticRetrievalCache implements ChunkIndexListener {
+
+    private static final String INVALIDATE_TOPIC = "ragent:retrieval-cache:invalidate";
+
+    /**
+     * 键内分段符：问题与库名都不会含这个控制字符
+     */
+    private static final char KEY_SEPARATOR = '\u0001';
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    /**
+     * 句末标点不改变问题语义，「年假几天？」与「年假几天」应命中同一条
+     */
+    private static final Pattern TRAILING_PUNCTUATION = Pattern.compile("[\\p{Punct}？！。，、；：…\\s]+$");
+
+    private final SearchChannelProperties properties;
+    private final VectorRetrieverService retrieverService;
+    private final RedissonClient redissonClient;
+    private final Cache<String, CachedEntry> entries;
+
+    /**
+     * 失效代次：加载开始与结束之间代次变化，说明期间有库被改过，结果不回填
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    private final LongAdder exactHits = new LongAdder();
+    private final LongAdder semanticHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+    private int listenerId = -1;
+
+    public SemanticRetrievalCache(SearchChannelProperties properties,
+                                  VectorRetrieverService retrieverService,
+                                  RedissonClient redissonClient) {
+        this.properties = properties;
+        this.retrieverService = retrieverService;
+        this.redissonClient = redissonClient;
+        SearchChannelProperties.ResultCache config = properties.getCache();
+        this.entries = CacheBuilder.newBuilder()
+                .maximumSize(Math.max(1, config.getMaxEntries()))
+                .expireAfterWrite(Duration.ofSeconds(Math.max(1, config.getTtlSeconds())))
+                .recordStats()
+                .build();
+    }
+
+    @PostConstruct
+    public void subscribe() {
+        listenerId = redissonClient.getTopic(INVALIDATE_TOPIC)
+                .addListener(String.class, (channel, collection) -> invalidateLocal(collection));
+    }
+
+    @PreDestroy
+    public void unsubscribe() {
+        if (listenerId == -1) {
+            return;
+        }
+        redissonClient.getTopic(INVALIDATE_TOPIC).removeListener(listenerId);
+    }
+
+    /**
+     * 命中则返回缓存结果的副本，未命中执行加载并按需回填
+     * <p>
+     * 只缓存非空结果：空结果可能来自通道超时降级，缓存它等于把一次抖动放大成整个 TTL 的「库里没料」
+     *
+     * @param context 已解析好作用域的检索上下文；语义匹配算出的查询向量会回写进去
+     * @param loader  真正的多通道检索
+     */
+    public KnowledgeRetrievalResult getOrLoad(SearchContext context, Supplier<KnowledgeRetrievalResult> loader) {
+        SearchChannelProperties.ResultCache config = properties.getCache();
+        RetrievalScope scope = context.getRetrievalScope();
+        String question = normalizeQuestion(context.getMainQuestion());
+        if (!config.isEnabled() || scope == null || question.isEmpty()) {
+            return loader.get();
+        }
+
+        String scopeKey = scopeKey(scope, context.getBudget());
+        String key = scopeKey + KEY_SEPARATOR + question;
+        CachedEntry exact = entries.getIfPresent(key);
+        if (exact != null) {
+            exactHits.increment();
+            log.info("检索结果缓存精确命中，跳过多通道检索，question：{}", question);
+            return exact.copyResult();
+        }
+
+        float[] queryVector = null;
+        if (isSemanticEnabled(config)) {
+            queryVector = embedQuietly(context.getMainQuestion());
+            if (queryVector != null) {
+                context.setQueryVector(queryVector);
+                CachedEntry similar = findSimilar(scopeKey, queryVector, config.getSimilarityThreshold());
+                if (similar != null) {
+                    semanticHits.increment();
+                    log.info("检索结果缓存语义命中，跳过多通道检索，question：{}，命中问题：{}", question, similar.question());
+                    return similar.copyResult();
+                }
+            }
+        }
+
+        misses.increment();
+        long startGeneration = generation.get();
+        KnowledgeRetrievalResult result = loader.get();
+        if (result == null || result.chunks().isEmpty()) {
+            return result;
+        }
+        if (generation.get() != startGeneration) {
+            log.info("检索期间知识库发生变更，本次结果不写入缓存，question：{}", question);
+            return result;
+        }
+        entries.put(key, new CachedEntry(question, scopeKey, collectionsOf(scope), queryVector, copyOf(result)));
+        return result;
+    }
+
+    /**
+     * 文档块提交后广播失效；Redis 不可用时至少保证本节点失效
+     */
+    @Override
+    public void onDocumentChanged(VectorTarget target, DocumentRef doc) {
+        if (!properties.getCache().isEnabled()) {
+            return;
+        }
+        String collection = target.partition();
+        try {
+            redissonClient.getTopic(INVALIDATE_TOPIC).publish(collection);
+        } catch (Exception e) {
+            log.warn("检索结果缓存失效广播失败，仅失效本节点，collection：{}", collection, e);
+            invalidateLocal(collection);
+        }
+    }
+
+    /**
+     * 作废范围覆盖该库的全部条目
+     */
+    public void invalidateLocal(String collection) {
+        if (StrUtil.isBlank(collection)) {
+            return;
+        }
+        generation.incrementAndGet();
+        int before = (int) entries.size();
+        entries.asMap().values().removeIf(entry -> entry.collections().contains(collection));
+        int removed = before - (int) entries.size();
+        invalidations.add(Math.max(removed, 0));
+        log.info("检索结果缓存按库失效，collection：{}，作废条目：{}", collection, removed);
+    }
+
+    /**
+     * 当前计数快照
+     */
+    public CacheMetrics metrics() {
+        CacheStats stats = entries.stats();
+        return new CacheMetrics(exactHits.sum(), semanticHits.sum(), misses.sum(),
+                stats.evictionCount(), invalidations.sum(), entries.size());
+    }
+
+    @Scheduled(fixedDelayString = "${rag.search.cache.stats-log-interval-ms:300000}")
+    public void logMetrics() {
+        if (!properties.getCache().isEnabled()) {
+            return;
+        }
+        CacheMetrics metrics = metrics();
+        if (metrics.lookups() == 0) {
+            return;
+        }
+        log.info("检索结果缓存统计 - 精确命中: {}, 语义命中: {}, 未命中: {}, 命中率: {}%, 容量淘汰: {}, 失效作废: {}, 当前条目: {}",
+                metrics.exactHits(), metrics.semanticHits(), metrics.misses(),
+                String.format(Locale.ROOT, "%.1f", metrics.hitRate() * 100),
+                metrics.evictions(), metrics.invalidations(), metrics.size());
+    }
+
+    /**
+     * 语义匹配只在向量通道开着时做：查询向量本就要算，关掉通道还为缓存专门 embedding 一次就是纯增开销
+     */
+    private boolean isSemanticEnabled(SearchChannelProperties.ResultCache config) {
+        return config.getSimilarityThreshold() > 0
+                && retrieverService != null
+                && properties.getChannels().getVector().isEnabled();
+    }
+
+    private float[] embedQuietly(String question) {
+        try {
+            return retrieverService.embedAndNormalize(question);
+        } catch (Exception e) {
+            log.warn("检索结果缓存计算查询向量失败，退化为仅精确匹配：{}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 线性扫描同作用域条目取最高余弦：条目数有上限，扫一遍的点积远小于一次检索往返
+     * 向量均已归一化，点积即余弦
+     */
+    private CachedEntry findSimilar(String scopeKey, float[] queryVector, double threshold) {
+        CachedEntry best = null;
+        double bestScore = threshold;
+        for (CachedEntry entry : entries.asMap().values()) {
+            float[] vector = entry.queryVector();
+            if (vector == null || vector.length != queryVector.length || !scopeKey.equals(entry.scopeKey())) {
+                continue;
+            }
+            double score = dot(vector, queryVector);
+            if (score >= bestScore) {
+                bestScore = score;
+                best = entry;
+            }
+        }
+        return best;
+    }
+
+    private static double dot(float[] left, float[] right) {
+        double sum = 0;
+        for (int i = 0; i < left.length; i++) {
+            sum += left[i] * right[i];
+        }
+        return sum;
+    }
+
+    /**
+     * 问题归一化：折叠空白、转小写、去句末标点；推测检索判定「改写前后是否同一问题」也用这一口径
+     */
+    public static String normalizeQuestion(String question) {
+        if (StrUtil.isBlank(question)) {
+            return "";
+        }
+        String collapsed = WHITESPACE.matcher(question.trim()).replaceAll(" ").toLowerCase(Locale.ROOT);
+        return TRAILING_PUNCTUATION.matcher(collapsed).replaceAll("");
+    }
+
+    /**
+     * 作用域键：定向与否 + 命中库 + 补充库 + 定向意图 + 预算，库与意图排序后拼接，与解析顺序无关
+     */
+    private static String scopeKey(RetrievalScope scope, RetrievalBudget budget) {
+        StringBuilder builder = new StringBuilder()
+                .append(scope.directed() ? 'D' : 'G')
+                .append(KEY_SEPARATOR).append(String.join(",", new TreeSet<>(scope.targetCollections())))
+                .append(KEY_SEPARATOR).append(String.join(",", new TreeSet<>(scope.supplementCollections())))
+                .append(KEY_SEPARATOR).append(String.join(",", new TreeSet<>(scope.directedIntentIds())));
+        if (budget != null) {
+            builder.append(KEY_SEPARATOR).append(budget.recallBudget())
+                    .append('/').append(budget.candidateLimit())
+                    .append('/').append(budget.contextTopK());
+        }
+        return builder.toString();
+    }
+
+    private static Set<String> collectionsOf(RetrievalScope scope) {
+        Set<String> collections = new LinkedHashSet<>(scope.targetCollections());
+        collections.addAll(scope.supplementCollections());
+        return Set.copyOf(collections);
+    }
+
+    /**
+     * 后处理器与下游会就地改写 chunk（补文档名、回写分数），缓存里存一份、取出再给一份，请求之间互不串改
+     */
+    private static KnowledgeRetrievalResult copyOf(KnowledgeRetrievalResult result) {
+        List<RetrievedChunk> chunks = result.chunks().stream()
+                .map(chunk -> chunk.toBuilder().build())
+                .toList();
+        return new KnowledgeRetrievalResult(chunks,
+                Collections.unmodifiableMap(new LinkedHashMap<>(result.intentIdsByChunkKey())),
+                result.directedIntentIds());
+    }
+
+    private record CachedEntry(String question,
+                               String scopeKey,
+                               Set<String> collections,
+                               float[] queryVector,
+                               KnowledgeRetrievalResult result) {
+
+        KnowledgeRetrievalResult copyResult() {
+            return copyOf(result);
+        }
+    }
+
+    /**
+     * 缓存计数快照
+     *
+     * @param exactHits     精确键命中次数
+     * @param semanticHits  语义相似命中次数
+     * @param misses        未命中（走了完整检索）次数
+     * @param evictions     容量 / 过期淘汰条数
+     * @param invalidations 因知识库变更作废的条数
+     * @param size          当前条目数
+     */
+    public record CacheMetrics(long exactHits,
+                               long semanticHits,
+                               long misses,
+                               long evictions,
+                               long invalidations,
+                               long size) {
+
+        public long lookups() {
+            return exactHits + semanticHits + misses;
+        }
+
+        public double hitRate() {
+            long lookups = lookups();
+            return lookups == 0 ? 0 : (double) (exactHits + semanticHits) / lookups;
+        }
+    }
+}
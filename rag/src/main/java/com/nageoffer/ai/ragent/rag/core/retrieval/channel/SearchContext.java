@@ -66,6 +66,12 @@ public class SearchContext {
      */
     private RetrievalScope retrievalScope;
 
+    /**
+     * 主问题的归一化查询向量，可为空
+     * 检索结果缓存做语义匹配时已算过一次，挂在这里让向量通道复用，为空时通道自行计算
+     */
+    private float[] queryVector;
+
     /**
      * 扩展元数据
      */
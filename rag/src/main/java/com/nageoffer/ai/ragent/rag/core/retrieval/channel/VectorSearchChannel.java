@@ -112,7 +112,7 @@ public class VectorSearchChannel implements SearchChannel {
      */
     private List<RetrievedChunk> retrieveDirected(SearchContext context, RetrievalScope scope) {
         String question = context.getMainQuestion();
-        float[] queryVector = retrieverService.embedAndNormalize(question);
+        float[] queryVector = resolveQueryVector(context);
         ScopeQuota quota = ScopeQuota.split(scope, resolveDirectedBudget(scope, context.getBudget()), supplementRatio());
 
         // 补充路失败必须只损失自己：它拿到的是兜底名额，而 join() 抛出会让已经取回的定向证据一起被
@@ -164,7 +164,7 @@ public class VectorSearchChannel implements SearchChannel {
             return List.of();
         }
         String question = context.getMainQuestion();
-        List<RetrievedChunk> chunks = retrieveOver(question, retrieverService.embedAndNormalize(question),
+        List<RetrievedChunk> chunks = retrieveOver(question, resolveQueryVector(context),
                 scope.targetCollections(), context.getBudget().recallBudget());
 
         log.info("向量检索完成（全局），意图 top1={}，{} 库 {} 条（最高余弦 {}）",
@@ -196,6 +196,14 @@ public class VectorSearchChannel implements SearchChannel {
         return ScopeQuota.cap(ChunkRanking.sortedByScore(chunks), budget);
     }
 
+    /**
+     * 上游（检索结果缓存的语义匹配）已算过查询向量则直接复用，省一次 embedding 往返
+     */
+    private float[] resolveQueryVector(SearchContext context) {
+        float[] queryVector = context.getQueryVector();
+        return queryVector != null ? queryVector : retrieverService.embedAndNormalize(context.getMainQuestion());
+    }
+
     private double supplementRatio() {
         return properties.getScope().getSupplementRatio();
     }
@@ -36,6 +36,8 @@ import java.util.Set;
  * <p>
  * 使用 Rerank 模型对结果进行重排序
  * 这是最后一个处理器，输出最终的 Top-K 结果
+ * <p>
+ * 同一问题对同一分块的打分由精排服务按模型缓存，热门问题与重新生成只把新候选发往供应商
  */
 @Slf4j
 @Component
@@ -0,0 +1,280 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nageoffer.ai.ragent.rag.core.rewrite;
+
+import com.nageoffer.ai.ragent.rag.dao.entity.QueryTermMappingDO;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 术语映射规则编译成的 Aho–Corasick 自动机，不可变、可跨线程共享
+ * <p>
+ * 原实现按规则逐条 {@code indexOf} 扫描并重建字符串，成本是 O(规则数 × 文本长度)；
+ * 这里一遍扫描找出全部命中，按优先级取舍后一遍输出，成本与文本长度和命中数相关，与规则总数无关。
+ * <p>
+ * 语义与逐条替换保持一致的部分：
+ * <ul>
+ *   <li>命中区间重叠时排序靠前的规则（优先级高、原始词长的在前）胜出，同一规则从左到右不重叠地替换</li>
+ *   <li>当前位置已经是目标词开头（如原始词「平安」、目标词「平安保司」、文本已是「平安保司」）时不重复替换，整段跳过目标词</li>
+ * </ul>
+ * 不再保留的是「前一条规则的替换结果被后一条规则再次匹配」的链式替换：单遍只在原文上匹配，替换结果不再参与匹配
+ */
+public final class QueryTermAutomaton {
+
+    private static final QueryTermAutomaton EMPTY = new QueryTermAutomaton(
+            new String[0], new String[0], new char[1][0], new int[1][0], new int[1], new int[]{-1}, new int[]{-1});
+
+    /**
+     * 规则按排序后的下标存放，下标越小优先级越高
+     */
+    private final String[] sources;
+    private final String[] targets;
+
+    /**
+     * 转移表：每个状态的出边按字符升序，二分查找
+     */
+    private final char[][] edgeChars;
+    private final int[][] edgeTargets;
+    private final int[] fail;
+
+    /**
+     * 以该状态结尾的最优规则，-1 表示该状态不是任何原始词的结尾
+     */
+    private final int[] output;
+
+    /**
+     * 沿失败链最近的一个有输出的状态，-1 表示没有；匹配时顺着它枚举所有以当前位置结尾的原始词
+     */
+    private final int[] dictLink;
+
+    private QueryTermAutomaton(String[] sources, String[] targets, char[][] edgeChars, int[][] edgeTargets,
+                               int[] fail, int[] output, int[] dictLink) {
+        this.sources = sources;
+        this.targets = targets;
+        this.edgeChars = edgeChars;
+        this.edgeTargets = edgeTargets;
+        this.fail = fail;
+        this.output = output;
+        this.dictLink = dictLink;
+    }
+
+    public static QueryTermAutomaton empty() {
+        return EMPTY;
+    }
+
+    /**
+     * 编译规则：只收生效的精确匹配规则，入参顺序即优先级顺序
+     *
+     * @param mappings 已按优先级排好序的规则
+     */
+    public static QueryTermAutomaton compile(List<QueryTermMappingDO> mappings) {
+        List<String> sourceList = new ArrayList<>();
+        List<String> targetList = new ArrayList<>();
+        for (QueryTermMappingDO mapping : mappings == null ? List.<QueryTermMappingDO>of() : mappings) {
+            if (mapping.getEnabled() == null || mapping.getEnabled() == 0) {
+                continue;
+            }
+            if (mapping.getMatchType() != null && mapping.getMatchType() != 1) {
+                continue;
+            }
+            String source = mapping.getSourceTerm();
+            String target = mapping.getTargetTerm();
+            if (source == null || source.isEmpty() || target == null || target.isEmpty()) {
+                continue;
+            }
+            sourceList.add(source);
+            targetList.add(target);
+        }
+        if (sourceList.isEmpty()) {
+            return EMPTY;
+        }
+
+        // 建 trie：构建期用 Map，编译完转成有序数组
+        List<Map<Character, Integer>> children = new ArrayList<>();
+        List<Integer> outputs = new ArrayList<>();
+        children.add(new HashMap<>());
+        outputs.add(-1);
+        for (int rule = 0; rule < sourceList.size(); rule++) {
+            String source = sourceList.get(rule);
+            int state = 0;
+            for (int i = 0; i < source.length(); i++) {
+                char c = source.charAt(i);
+                Integer next = children.get(state).get(c);
+                if (next == null) {
+                    next = children.size();
+                    children.get(state).put(c, next);
+                    children.add(new HashMap<>());
+                    outputs.add(-1);
+                }
+                state = next;
+            }
+            // 原始词重复时保留排在前面的规则
+            if (outputs.get(state) == -1) {
+                outputs.set(state, rule);
+            }
+        }
+
+        int size = children.size();
+        char[][] edgeChars = new char[size][];
+        int[][] edgeTargets = new int[size][];
+        for (int state = 0; state < size; state++) {
+            Map<Character, Integer> edges = children.get(state);
+            char[] chars = new char[edges.size()];
+            int k = 0;
+            for (Character c : edges.keySet()) {
+                chars[k++] = c;
+            }
+            Arrays.sort(chars);
+            int[] next = new int[chars.length];
+            for (int i = 0; i < chars.length; i++) {
+                next[i] = edges.get(chars[i]);
+            }
+            edgeChars[state] = chars;
+            edgeTargets[state] = next;
+        }
+
+        int[] output = new int[size];
+        for (int state = 0; state < size; state++) {
+            output[state] = outputs.get(state);
+        }
+
+        // BFS 求失败链与输出链
+        int[] fail = new int[size];
+        int[] dictLink = new int[size];
+        Arrays.fill(dictLink, -1);
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        for (int child : edgeTargets[0]) {
+            fail[child] = 0;
+            queue.add(child);
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            for (int i = 0; i < edgeChars[state].length; i++) {
+                char c = edgeChars[state][i];
+                int child = edgeTargets[state][i];
+                int f = fail[state];
+                int next;
+                while ((next = step(edgeChars, edgeTargets, f, c)) < 0 && f != 0) {
+                    f = fail[f];
+                }
+                fail[child] = Math.max(next, 0);
+                int failState = fail[child];
+                dictLink[child] = output[failState] >= 0 ? failState : dictLink[failState];
+                queue.add(child);
+            }
+        }
+
+        return new QueryTermAutomaton(
+                sourceList.toArray(new String[0]), targetList.toArray(new String[0]),
+                edgeChars, edgeTargets, fail, output, dictLink);
+    }
+
+    /**
+     * 规则条数
+     */
+    public int size() {
+        return sources.length;
+    }
+
+    /**
+     * 单遍归一化
+     */
+    public String apply(String text) {
+        if (text == null || text.isEmpty() || sources.length == 0) {
+            return text;
+        }
+        int len = text.length();
+
+        // 扫描：收集全部命中，编码为 (规则下标 << 32 | 起点)，排序后即「优先级优先、同规则从左到右」
+        long[] hits = new long[8];
+        int hitCount = 0;
+        int state = 0;
+        for (int i = 0; i < len; i++) {
+            char c = text.charAt(i);
+            int next;
+            while ((next = step(edgeChars, edgeTargets, state, c)) < 0 && state != 0) {
+                state = fail[state];
+            }
+            state = Math.max(next, 0);
+            for (int s = output[state] >= 0 ? state : dictLink[state]; s >= 0; s = dictLink[s]) {
+                int rule = output[s];
+                if (hitCount == hits.length) {
+                    hits = Arrays.copyOf(hits, hitCount << 1);
+                }
+                hits[hitCount++] = ((long) rule << 32) | (i - sources[rule].length() + 1);
+            }
+        }
+        if (hitCount == 0) {
+            return text;
+        }
+        Arrays.sort(hits, 0, hitCount);
+
+        // 取舍：按优先级依次占位，与已选区间重叠的丢弃——等价于逐条替换时高优先级规则先改写、低优先级规则碰不到被改写的部分
+        int[] chosen = new int[len];
+        Arrays.fill(chosen, -1);
+        boolean[] occupied = new boolean[len];
+        for (int h = 0; h < hitCount; h++) {
+            int rule = (int) (hits[h] >>> 32);
+            int start = (int) hits[h];
+            int end = start + span(text, rule, start);
+            if (isFree(occupied, start, end)) {
+                Arrays.fill(occupied, start, end, true);
+                chosen[start] = rule;
+            }
+        }
+
+        StringBuilder sb = new StringBuilder(len + 16);
+        int idx = 0;
+        while (idx < len) {
+            int rule = chosen[idx];
+            if (rule < 0) {
+                sb.append(text.charAt(idx++));
+                continue;
+            }
+            sb.append(targets[rule]);
+            idx += span(text, rule, idx);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 命中占用的原文长度：当前位置已经是目标词开头时整段跳过目标词，否则是原始词长度
+     */
+    private int span(String text, int rule, int start) {
+        return text.startsWith(targets[rule], start) ? targets[rule].length() : sources[rule].length();
+    }
+
+    private static boolean isFree(boolean[] occupied, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (occupied[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int step(char[][] edgeChars, int[][] edgeTargets, int state, char c) {
+        int pos = Arrays.binarySearch(edgeChars[state], c);
+        return pos >= 0 ? edgeTargets[state][pos] : -1;
+    }
+}
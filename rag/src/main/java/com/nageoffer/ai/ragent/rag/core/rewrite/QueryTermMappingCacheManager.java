@@ -19,9 +19,10 @@ package com.nageoffer.ai.ragent.rag.core.rewrite;
 
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nageoffer.ai.ragent.rag.core.snapshot.AbstractVersionedCacheManager;
 import com.nageoffer.ai.ragent.rag.dao.entity.QueryTermMappingDO;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RedissonClient;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Component;
 
@@ -30,23 +31,34 @@ import java.util.concurrent.TimeUnit;
 
 /**
  * 术语映射缓存管理器
- * 负责术语映射规则在 Redis 中的缓存管理
+ * 负责术语映射规则在 Redis 中的缓存管理，版本号与跨节点通知见 {@link AbstractVersionedCacheManager}
+ * <p>
+ * 各节点把规则编译成本地自动机（见 {@link QueryTermMappingService}），Redis 里的规则列表只在重建时读取
  */
 @Slf4j
 @Component
-@RequiredArgsConstructor
-public class QueryTermMappingCacheManager {
+public class QueryTermMappingCacheManager extends AbstractVersionedCacheManager {
 
-    private final StringRedisTemplate stringRedisTemplate;
     private final ObjectMapper objectMapper;
 
     private static final String CACHE_KEY = "ragent:query-term:mappings";
 
+    private static final String VERSION_KEY = "ragent:query-term:version";
+
+    private static final String CHANGED_TOPIC = "ragent:query-term:changed";
+
     /**
      * 缓存过期时间：7天
      */
     private static final long CACHE_EXPIRE_DAYS = 7;
 
+    public QueryTermMappingCacheManager(StringRedisTemplate stringRedisTemplate,
+                                        ObjectMapper objectMapper,
+                                        RedissonClient redissonClient) {
+        super(stringRedisTemplate, redissonClient, VERSION_KEY, CHANGED_TOPIC, "术语映射");
+        this.objectMapper = objectMapper;
+    }
+
     /**
      * 从 Redis 获取术语映射缓存
      *
@@ -86,6 +98,7 @@ public class QueryTermMappingCacheManager {
      * 清除术语映射缓存
      * 在映射规则发生增删改时调用
      */
+    @Override
     public void clearCache() {
         Boolean deleted = stringRedisTemplate.delete(CACHE_KEY);
         if (deleted) {
@@ -18,20 +18,29 @@
 package com.nageoffer.ai.ragent.rag.core.rewrite;
 
 import com.baomidou.mybatisplus.core.toolkit.Wrappers;
+import com.nageoffer.ai.ragent.rag.core.snapshot.AbstractVersionedCacheManager;
+import com.nageoffer.ai.ragent.rag.core.snapshot.AbstractVersionedSnapshotHolder;
 import com.nageoffer.ai.ragent.rag.dao.entity.QueryTermMappingDO;
 import com.nageoffer.ai.ragent.rag.dao.mapper.QueryTermMappingMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.util.Comparator;
 import java.util.List;
 import java.util.Objects;
 
+/**
+ * 术语归一化
+ * <p>
+ * 生效规则编译成不可变的 {@link QueryTermAutomaton} 常驻本地，提问路径上不访问 Redis 也不反序列化规则列表；
+ * 规则变更后各节点重建并整体替换引用，读路径无锁，快照维护见 {@link AbstractVersionedSnapshotHolder}
+ */
 @Slf4j
 @Service
 @RequiredArgsConstructor
-public class QueryTermMappingService {
+public class QueryTermMappingService extends AbstractVersionedSnapshotHolder<QueryTermAutomaton> {
 
     private final QueryTermMappingMapper mappingMapper;
     private final QueryTermMappingCacheManager cacheManager;
@@ -44,26 +53,7 @@ public class QueryTermMappingService {
             return text;
         }
 
-        List<QueryTermMappingDO> mappings = loadMappings();
-        if (mappings.isEmpty()) {
-            return text;
-        }
-
-        String result = text;
-        for (QueryTermMappingDO mapping : mappings) {
-            if (mapping.getEnabled() == null || mapping.getEnabled() == 0) {
-                continue;
-            }
-            if (mapping.getMatchType() != null && mapping.getMatchType() != 1) {
-                continue;
-            }
-            String source = mapping.getSourceTerm();
-            String target = mapping.getTargetTerm();
-            if (source == null || source.isEmpty() || target == null || target.isEmpty()) {
-                continue;
-            }
-            result = QueryTermMappingUtil.applyMapping(result, source, target);
-        }
+        String result = currentSnapshot().apply(text);
 
         if (!Objects.equals(text, result)) {
             log.info("查询归一化：original='{}', normalized='{}'", text, result);
@@ -71,6 +61,34 @@ public class QueryTermMappingService {
         return result;
     }
 
+    /**
+     * 定时比对版本号：广播丢失时最迟一个周期内追上
+     */
+    @Scheduled(fixedDelayString = "${rag.query-term.version-check-interval-ms:30000}")
+    public void checkVersion() {
+        syncVersion();
+    }
+
+    @Override
+    protected AbstractVersionedCacheManager versionSource() {
+        return cacheManager;
+    }
+
+    @Override
+    protected QueryTermAutomaton loadSnapshot() {
+        return QueryTermAutomaton.compile(loadMappings());
+    }
+
+    @Override
+    protected QueryTermAutomaton emptySnapshot() {
+        return QueryTermAutomaton.empty();
+    }
+
+    @Override
+    protected String describe(QueryTermAutomaton automaton) {
+        return "规则数：" + automaton.size();
+    }
+
     /**
      * 加载映射规则：优先从 Redis 缓存读取，缓存未命中则从数据库加载并回填缓存
      */
@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nageoffer.ai.ragent.rag.core.snapshot;
+
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RedissonClient;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.function.LongConsumer;
+
+/**
+ * 版本化缓存管理器抽象基类
+ * 封装数据变更的版本号与跨节点通知，子类只需提供 Redis Key、广播主题和清缓存逻辑
+ * <p>
+ * 各节点把数据做成本地快照（见 {@link AbstractVersionedSnapshotHolder}），Redis 里的数据只在重建快照时读取；
+ * 数据增删改时清缓存、版本号自增并广播，各节点收到后重建并整体替换本地快照
+ */
+@Slf4j
+public abstract class AbstractVersionedCacheManager {
+
+    protected final StringRedisTemplate stringRedisTemplate;
+    protected final RedissonClient redissonClient;
+
+    private final String versionKey;
+    private final String changedTopic;
+    private final String displayName;
+
+    protected AbstractVersionedCacheManager(StringRedisTemplate stringRedisTemplate,
+                                            RedissonClient redissonClient,
+                                            String versionKey,
+                                            String changedTopic,
+                                            String displayName) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.redissonClient = redissonClient;
+        this.versionKey = versionKey;
+        this.changedTopic = changedTopic;
+        this.displayName = displayName;
+    }
+
+    /**
+     * 清除 Redis 中的数据缓存，变更广播前调用
+     */
+    public abstract void clearCache();
+
+    /**
+     * 数据名称，用于日志
+     */
+    public String displayName() {
+        return displayName;
+    }
+
+    /**
+     * 当前版本号，从未变更过为 0；读取失败返回 -1，调用方按「未知」处理
+     */
+    public long currentVersion() {
+        try {
+            String value = stringRedisTemplate.opsForValue().get(versionKey);
+            return value == null ? 0L : Long.parseLong(value);
+        } catch (Exception e) {
+            log.warn("读取{}版本号失败", displayName, e);
+            return -1L;
+        }
+    }
+
+    /**
+     * 数据变更：清缓存、版本号自增并广播新版本号
+     * <p>
+     * 写库在事务里调用时，提交前广播会让其他节点读到旧数据却记成新版本号，直到下一次变更都不会再重建，
+     * 故有活跃事务同步时推迟到 afterCommit；广播失败不影响写入，各节点的定时版本比对会兜底
+     */
+    public void publishChange() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    doPublishChange();
+                }
+            });
+            return;
+        }
+        doPublishChange();
+    }
+
+    /**
+     * 订阅变更广播，回调参数为新版本号，无法解析时为 -1
+     *
+     * @return 监听器 ID，用于 {@link #removeChangeListener(int)}
+     */
+    public int addChangeListener(LongConsumer listener) {
+        return redissonClient.getTopic(changedTopic)
+                .addListener(String.class, (channel, version) -> listener.accept(parseVersion(version)));
+    }
+
+    public void removeChangeListener(int listenerId) {
+        redissonClient.getTopic(changedTopic).removeListener(listenerId);
+    }
+
+    private void doPublishChange() {
+        clearCache();
+        try {
+            Long version = stringRedisTemplate.opsForValue().increment(versionKey);
+            redissonClient.getTopic(changedTopic).publish(String.valueOf(version));
+            log.info("{}版本号已更新并广播，version={}", displayName, version);
+        } catch (Exception e) {
+            log.warn("{}变更广播失败，等待各节点定时比对版本号", displayName, e);
+        }
+    }
+
+    private static long parseVersion(String version) {
+        try {
+            return Long.parseLong(version);
+        } catch (NumberFormatException e) {
+            return -1L;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nageoffer.ai.ragent.rag.core.snapshot;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 本地版本化快照抽象基类
+ * 封装快照的订阅、版本比对与重建，子类只需提供版本来源和快照的构建逻辑
+ * <p>
+ * 快照不可变且常驻本地，读路径只读 volatile 引用、无锁；收到变更广播后重建并整体替换引用。
+ * 广播可能丢失（节点重连、Redis 抖动），子类需定时调用 {@link #syncVersion()} 比对版本号兜底
+ *
+ * @param <T> 快照类型
+ */
+@Slf4j
+public abstract class AbstractVersionedSnapshotHolder<T> {
+
+    private volatile Versioned<T> snapshot;
+    private int listenerId = -1;
+
+    // ==================== 子类钩子方法 ====================
+
+    /**
+     * 版本号与变更广播的来源
+     */
+    protected abstract AbstractVersionedCacheManager versionSource();
+
+    /**
+     * 构建新快照，抛出异常时沿用当前快照
+     */
+    protected abstract T loadSnapshot();
+
+    /**
+     * 一次都没建成时顶上的空快照
+     */
+    protected abstract T emptySnapshot();
+
+    /**
+     * 重建日志里的快照概要，如规则数、节点数
+     */
+    protected abstract String describe(T snapshot);
+
+    // ==================== 快照维护 ====================
+
+    @PostConstruct
+    public void subscribe() {
+        listenerId = versionSource().addChangeListener(this::onVersionChanged);
+    }
+
+    @PreDestroy
+    public void unsubscribe() {
+        if (listenerId == -1) {
+            return;
+        }
+        versionSource().removeChangeListener(listenerId);
+    }
+
+    /**
+     * 比对版本号：广播丢失时最迟一个比对周期内追上
+     */
+    protected void syncVersion() {
+        Versioned<T> current = snapshot;
+        if (current == null) {
+            return;
+        }
+        long version = versionSource().currentVersion();
+        if (version >= 0 && version != current.version()) {
+            rebuild();
+        }
+    }
+
+    /**
+     * 当前快照，首次访问时同步构建
+     */
+    protected T currentSnapshot() {
+        Versioned<T> current = snapshot;
+        return (current != null ? current : rebuild()).value();
+    }
+
+    private void onVersionChanged(long version) {
+        Versioned<T> current = snapshot;
+        if (current == null || version < 0 || version > current.version()) {
+            rebuild();
+        }
+    }
+
+    /**
+     * 先读版本号再构建快照：期间若又有变更，新数据会被标成旧版本号，下一次比对再重建一次，不会漏
+     * <p>
+     * 重建失败保留旧快照；一次都没建成时用空快照顶上，版本号记 -1 让下一次比对重试
+     */
+    private synchronized Versioned<T> rebuild() {
+        long start = System.currentTimeMillis();
+        String displayName = versionSource().displayName();
+        try {
+            long version = versionSource().currentVersion();
+            T value = loadSnapshot();
+            snapshot = new Versioned<>(version, value);
+            log.info("{}快照已重建，version={}，{}，耗时：{}ms",
+                    displayName, version, describe(value), System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.error("{}快照重建失败，沿用当前版本", displayName, e);
+            if (snapshot == null) {
+                snapshot = new Versioned<>(-1L, emptySnapshot());
+            }
+        }
+        return snapshot;
+    }
+
+    private record Versioned<T>(long version, T value) {
+    }
+}
@@ -21,8 +21,8 @@ import cn.hutool.core.collection.CollUtil;
 import cn.hutool.core.util.StrUtil;
 import com.nageoffer.ai.ragent.framework.convention.RetrievedChunk;
 import com.nageoffer.ai.ragent.framework.convention.SourceRef;
-import com.nageoffer.ai.ragent.knowledge.dao.entity.KnowledgeDocumentDO;
-import com.nageoffer.ai.ragent.knowledge.dao.mapper.KnowledgeDocumentMapper;
+import com.nageoffer.ai.ragent.knowledge.service.impl.DocumentMetadataCache;
+import com.nageoffer.ai.ragent.knowledge.service.impl.DocumentMetadataCache.DocumentMeta;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 
@@ -50,7 +50,7 @@ public class SourcesAssembler {
     private static final String SOURCE_TYPE_URL = "url";
     private static final String SOURCE_TYPE_FEISHU = "feishu";
 
-    private final KnowledgeDocumentMapper documentMapper;
+    private final DocumentMetadataCache documentMetadataCache;
 
     /**
      * 由检索上下文的意图分片装配文档级来源列表
@@ -81,21 +81,21 @@ public class SourcesAssembler {
                         .thenComparing(RetrievedChunk::getDocId))
                 .toList();
 
-        // 批量补齐来源类型与外部链接
+        // 批量补齐来源类型与外部链接；元数据富化阶段已把这批文档读进缓存，这里通常不再回表
         List<String> docIds = ordered.stream().map(RetrievedChunk::getDocId).toList();
-        Map<String, KnowledgeDocumentDO> docs = loadDocs(docIds);
+        Map<String, DocumentMeta> docs = documentMetadataCache.getAll(docIds);
 
         List<SourceRef> sources = new ArrayList<>(ordered.size());
         int index = 1;
         for (RetrievedChunk chunk : ordered) {
-            KnowledgeDocumentDO doc = docs.get(chunk.getDocId());
-            String sourceType = doc != null ? doc.getSourceType() : null;
+            DocumentMeta doc = docs.get(chunk.getDocId());
+            String sourceType = doc != null ? doc.sourceType() : null;
             sources.add(SourceRef.builder()
                     .index(index++)
                     .docId(chunk.getDocId())
                     .docName(resolveDocName(chunk, doc))
                     .sourceType(sourceType)
-                    .fileType(doc != null ? doc.getFileType() : null)
+                    .fileType(doc != null ? doc.fileType() : null)
                     .url(resolveUrl(sourceType, doc))
                     .excerpt(StrUtil.maxLength(StrUtil.trim(chunk.getText()), EXCERPT_MAX_LENGTH))
                     .build());
@@ -103,33 +103,24 @@ public class SourcesAssembler {
         return sources;
     }
 
-    private Map<String, KnowledgeDocumentDO> loadDocs(List<String> docIds) {
-        List<KnowledgeDocumentDO> docs = documentMapper.selectBatchIds(docIds);
-        Map<String, KnowledgeDocumentDO> map = new LinkedHashMap<>();
-        if (CollUtil.isNotEmpty(docs)) {
-            docs.forEach(doc -> map.put(doc.getId(), doc));
-        }
-        return map;
-    }
-
     /**
      * 外部原始链接：仅 url/feishu 来源携带 file 走 docId 预览提取正文
      */
-    private String resolveUrl(String sourceType, KnowledgeDocumentDO doc) {
+    private String resolveUrl(String sourceType, DocumentMeta doc) {
         if (doc == null || sourceType == null) {
             return null;
         }
         if (SOURCE_TYPE_URL.equalsIgnoreCase(sourceType) || SOURCE_TYPE_FEISHU.equalsIgnoreCase(sourceType)) {
-            return StrUtil.blankToDefault(doc.getSourceLocation(), null);
+            return StrUtil.blankToDefault(doc.sourceLocation(), null);
         }
         return null;
     }
 
-    private String resolveDocName(RetrievedChunk chunk, KnowledgeDocumentDO doc) {
+    private String resolveDocName(RetrievedChunk chunk, DocumentMeta doc) {
         if (StrUtil.isNotBlank(chunk.getDocName())) {
             return chunk.getDocName();
         }
-        return doc != null ? doc.getDocName() : null;
+        return doc != null ? doc.docName() : null;
     }
 
     private static double score(RetrievedChunk chunk) {
@@ -63,7 +63,7 @@ public class MilvusVectorRetrieverService implements VectorRetrieverService {
 
     @Override
     public float[] embedAndNormalize(String query) {
-        return normalize(toArray(embeddingService.embed(query)));
+        return normalize(embeddingService.embed(query));
     }
 
     @Override
@@ -129,12 +129,6 @@ public class MilvusVectorRetrieverService implements VectorRetrieverService {
                 .collect(Collectors.toList());
     }
 
-    private static float[] toArray(List<Float> list) {
-        float[] arr = new float[list.size()];
-        for (int i = 0; i < list.size(); i++) arr[i] = list.get(i);
-        return arr;
-    }
-
     private static float[] normalize(float[] v) {
         double sum = 0.0;
         for (float x : v) sum += x * x;
@@ -0,0 +1,475 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nageoffer.ai.ragent.rag.core.vector;
+
+import com.nageoffer.ai.ragent.core.chunk.model.EmbeddedChunk;
+import com.nageoffer.ai.ragent.framework.exception.ServiceException;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.redisson.api.RAtomicLong;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * pgvector 二进制 COPY 批量写入
+ * <p>
+ * 行以 PostgreSQL 二进制 COPY 格式流式写进会话级临时表，再用一条 INSERT ... SELECT ... ON CONFLICT 合并进
+ * {@code t_knowledge_vector}：服务端不再逐行解析向量文本与 JSON，合并时 HNSW 的维护也集中在一条语句里。
+ * 大批量时可按 {@link PgVectorBulkProperties.IndexMode} 先删 HNSW 索引、合并后重建或延后重建。
+ * <p>
+ * 写入与 REBUILD 的删建用同一个连接：有外层事务时加入事务，没有则自行开启事务，要么全部生效要么全部回滚。
+ * DEFER 的删建不进事务：在独立的自动提交连接上用 CONCURRENTLY 执行，不持有表级独占锁；CONCURRENTLY 要等表上
+ * 全部在途事务结束，调用方事务里已删过旧向量时会等到它自己，故有外层事务时由 {@link #prepare} 在事务开启前删好，
+ * {@link #load} 在事务内不再删；
+ * 待重建标记与最后一次批量写入时间放在 Redis，删索引和重建在同一把分布式锁下互斥，任一节点都能在空闲后完成重建
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "rag.vector.type", havingValue = "pg")
+public class PgVectorBulkLoader {
+
+    /**
+     * 与建表脚本中的索引名一致
+     */
+    static final String EMBEDDING_INDEX = "idx_kv_embedding";
+
+    private static final String STAGING_TABLE = "t_knowledge_vector_staging";
+    private static final byte[] COPY_SIGNATURE = {'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xFF, '\r', '\n', 0};
+    private static final int COPY_BUFFER_BYTES = 256 * 1024;
+    private static final byte JSONB_VERSION = 1;
+
+    /**
+     * 集群内待重建标记：值为最后一次 DEFER 批量写入的时间戳，0 或不存在表示无需重建
+     */
+    private static final String DEFERRED_KEY = "ragent:vector:pg:hnsw:deferred";
+    private static final String INDEX_LOCK_KEY = "ragent:vector:pg:hnsw:lock";
+    private static final long INDEX_LOCK_WAIT_SECONDS = 30;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PgVectorBulkProperties properties;
+    private final RedissonClient redissonClient;
+
+    /**
+     * 本次写入是否走 COPY
+     */
+    public boolean shouldUse(int rows) {
+        return properties.isEnabled() && rows >= Math.max(1, properties.getMinRows());
+    }
+
+    /**
+     * 入库事务开启前调用：DEFER 模式且本批行数达到阈值时先在事务外删掉索引，随后事务内的 {@link #load} 不再删
+     *
+     * @param rows 随后要写入的行数
+     */
+    public void prepare(int rows) {
+        if (!shouldUse(rows) || rows < properties.getIndexMinRows()
+                || properties.getIndexMode() != PgVectorBulkProperties.IndexMode.DEFER) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            log.warn("已处于事务中，无法在事务外删除 HNSW 索引，本批写入按 KEEP 处理，rows={}", rows);
+            return;
+        }
+        dropIndexesForDefer();
+    }
+
+    /**
+     * 批量写入并按 ID upsert，语义与逐行 INSERT ... ON CONFLICT 一致
+     *
+     * @param collectionName 向量空间名称
+     * @param chunks         已向量化的块
+     * @param metadataJson   块元数据序列化，与 batchUpdate 路径共用同一序列化点
+     */
+    public void load(String collectionName, List<EmbeddedChunk> chunks, Function<EmbeddedChunk, String> metadataJson) {
+        PgVectorBulkProperties.IndexMode indexMode = resolveIndexMode(chunks.size());
+
+        long start = System.currentTimeMillis();
+        long deferDropMillis = 0;
+        if (indexMode == PgVectorBulkProperties.IndexMode.DEFER
+                && !TransactionSynchronizationManager.isActualTransactionActive()) {
+            deferDropMillis = dropIndexesForDefer();
+        }
+        long[] phases = jdbcTemplate.execute((ConnectionCallback<long[]>) con -> {
+            boolean ownTransaction = con.getAutoCommit();
+            if (ownTransaction) {
+                con.setAutoCommit(false);
+            }
+            try {
+                long[] result = loadInTransaction(con, collectionName, chunks, metadataJson, indexMode);
+                if (ownTransaction) {
+                    con.commit();
+                }
+                return result;
+            } catch (SQLException | RuntimeException e) {
+                if (ownTransaction) {
+                    con.rollback();
+                }
+                throw e;
+            } finally {
+                if (ownTransaction) {
+                    con.setAutoCommit(true);
+                }
+            }
+        });
+        if (indexMode == PgVectorBulkProperties.IndexMode.DEFER) {
+            // 写完再刷新一次，空闲计时从本批结束算起
+            deferredMarker().set(System.currentTimeMillis());
+            phases[2] += deferDropMillis;
+        }
+
+        long elapsed = Math.max(1, System.currentTimeMillis() - start);
+        log.info("PG 向量 COPY 写入完成，collectionName={}, rows={}, copy={}ms, merge={}ms, index={}ms({}), total={}ms, rows/s={}",
+                collectionName, chunks.size(), phases[0], phases[1], phases[2], indexMode, elapsed,
+                chunks.size() * 1000L / elapsed);
+    }
+
+    /**
+     * 启动时检查向量索引：缺失或为 INVALID（上次 DEFER 删掉后整个集群都没来得及重建、CONCURRENTLY 中途失败）时
+     * 打上待重建标记并立即可重建，交给定时任务在锁内用 CONCURRENTLY 补建，不拖慢启动
+     */
+    @PostConstruct
+    public void checkEmbeddingIndex() {
+        try {
+            if (isEmbeddingIndexValid()) {
+                return;
+            }
+            deferredMarker().compareAndSet(0L, 1L);
+            log.warn("HNSW 索引 {} 缺失或失效，已标记待重建", EMBEDDING_INDEX);
+        } catch (Exception e) {
+            log.warn("检查 HNSW 索引失败，跳过", e);
+        }
+    }
+
+    /**
+     * DEFER 模式：集群内最后一次批量写入空闲后用 CONCURRENTLY 重建，重建期间检索与写入都不阻塞
+     * <p>
+     * 各节点都会检查，拿到锁的节点执行；重建期间若又有批量写入，标记时间戳已变，不清标记，下一轮再建
+     */
+    @Scheduled(fixedDelayString = "${rag.vector.pg.bulk.defer-check-interval-ms:30000}")
+    public void rebuildDeferredIndex() {
+        RAtomicLong marker = deferredMarker();
+        long deferredAt = marker.get();
+        if (deferredAt <= 0
+                || System.currentTimeMillis() - deferredAt < properties.getDeferIdleSeconds() * 1000L) {
+            return;
+        }
+        RLock lock = redissonClient.getLock(INDEX_LOCK_KEY);
+        if (!lock.tryLock()) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        try {
+            deferredAt = marker.get();
+            if (deferredAt <= 0) {
+                return;
+            }
+            if (!isEmbeddingIndexValid()) {
+                // CREATE ... IF NOT EXISTS 会跳过同名的 INVALID 索引，先清掉
+                executeOutsideTransaction("DROP INDEX CONCURRENTLY IF EXISTS " + EMBEDDING_INDEX);
+                executeOutsideTransaction("CREATE INDEX CONCURRENTLY IF NOT EXISTS " + EMBEDDING_INDEX
+                        + " ON t_knowledge_vector USING hnsw (embedding vector_cosine_ops)");
+            }
+            marker.compareAndSet(deferredAt, 0L);
+            log.info("延后的 HNSW 索引重建完成，耗时：{}ms", System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            // 标记保留，下一轮先删掉失败留下的 INVALID 索引再重试
+            log.warn("延后的 HNSW 索引重建失败，下一轮重试", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 事务内的 DEFER 只认 {@link #prepare} 已在事务外删过索引（待重建标记已打上），否则退化为 KEEP：
+     * 在事务内 CONCURRENTLY 删索引会等调用方自己的事务，持着索引锁永远等不到
+     */
+    private PgVectorBulkProperties.IndexMode resolveIndexMode(int rows) {
+        if (rows < properties.getIndexMinRows()) {
+            return PgVectorBulkProperties.IndexMode.KEEP;
+        }
+        PgVectorBulkProperties.IndexMode indexMode = properties.getIndexMode();
+        if (indexMode == PgVectorBulkProperties.IndexMode.DEFER
+                && TransactionSynchronizationManager.isActualTransactionActive()
+                && deferredMarker().get() <= 0) {
+            log.warn("DEFER 写入处于事务中且索引未在事务外预先删除，本批按 KEEP 处理，rows={}", rows);
+            return PgVectorBulkProperties.IndexMode.KEEP;
+        }
+        return indexMode;
+    }
+
+    /**
+     * @return 各阶段耗时：copy、merge、index
+     */
+    private long[] loadInTransaction(Connection con, String collectionName, List<EmbeddedChunk> chunks,
+                                     Function<EmbeddedChunk, String> metadataJson,
+                                     PgVectorBulkProperties.IndexMode indexMode) throws SQLException {
+        try (Statement st = con.createStatement()) {
+            // noinspection SqlDialectInspection,SqlNoDataSourceInspection
+            st.execute("CREATE TEMP TABLE IF NOT EXISTS " + STAGING_TABLE
+                    + " (LIKE t_knowledge_vector INCLUDING DEFAULTS)");
+            // noinspection SqlDialectInspection,SqlNoDataSourceInspection
+            st.execute("TRUNCATE " + STAGING_TABLE);
+        }
+
+        long copyStart = System.currentTimeMillis();
+        copyRows(con, collectionName, chunks, metadataJson);
+        long copyMillis = System.currentTimeMillis() - copyStart;
+
+        long indexMillis = 0;
+        if (indexMode == PgVectorBulkProperties.IndexMode.REBUILD) {
+            long dropStart = System.currentTimeMillis();
+            dropEmbeddingIndexes(con);
+            indexMillis += System.currentTimeMillis() - dropStart;
+        }
+
+        long mergeStart = System.currentTimeMillis();
+        try (Statement st = con.createStatement()) {
+            // noinspection SqlDialectInspection,SqlNoDataSourceInspection
+            st.executeUpdate("INSERT INTO t_knowledge_vector (id, collection_name, content, metadata, embedding) "
+                    + "SELECT id, collection_name, content, metadata, embedding FROM " + STAGING_TABLE + " "
+                    + "ON CONFLICT (id) DO UPDATE SET collection_name = EXCLUDED.collection_name, content = EXCLUDED.content, "
+                    + "metadata = EXCLUDED.metadata, embedding = EXCLUDED.embedding");
+            // noinspection SqlDialectInspection,SqlNoDataSourceInspection
+            st.execute("TRUNCATE " + STAGING_TABLE);
+        }
+        long mergeMillis = System.currentTimeMillis() - mergeStart;
+
+        if (indexMode == PgVectorBulkProperties.IndexMode.REBUILD) {
+            long buildStart = System.currentTimeMillis();
+            try (Statement st = con.createStatement()) {
+                // noinspection SqlDialectInspection,SqlNoDataSourceInspection
+                st.execute("CREATE INDEX IF NOT EXISTS " + EMBEDDING_INDEX
+                        + " ON t_knowledge_vector USING hnsw (embedding vector_cosine_ops)");
+            }
+            indexMillis += System.currentTimeMillis() - buildStart;
+        }
+        return new long[]{copyMillis, mergeMillis, indexMillis};
+    }
+
+    private void copyRows(Connection con, String collectionName, List<EmbeddedChunk> chunks,
+                          Function<EmbeddedChunk, String> metadataJson) throws SQLException {
+        CopyIn copyIn = con.unwrap(PGConnection.class).getCopyAPI().copyIn(
+                "COPY " + STAGING_TABLE + " (id, collection_name, content, metadata, embedding) FROM STDIN (FORMAT binary)");
+        try {
+            DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(new CopyInOutputStream(copyIn), COPY_BUFFER_BYTES));
+            out.write(COPY_SIGNATURE);
+            out.writeInt(0);
+            out.writeInt(0);
+            byte[] collection = collectionName.getBytes(StandardCharsets.UTF_8);
+            for (EmbeddedChunk chunk : chunks) {
+                out.writeShort(5);
+                writeText(out, chunk.chunkId().getBytes(StandardCharsets.UTF_8));
+                writeText(out, collection);
+                writeText(out, chunk.content() == null ? null : chunk.content().getBytes(StandardCharsets.UTF_8));
+                writeJsonb(out, metadataJson.apply(chunk).getBytes(StandardCharsets.UTF_8));
+                writeVector(out, chunk.embedding());
+            }
+            out.writeShort(-1);
+            out.flush();
+            copyIn.endCopy();
+        } catch (IOException e) {
+            throw new SQLException("COPY 写入向量失败: " + e.getMessage(), e);
+        } finally {
+            if (copyIn.isActive()) {
+                copyIn.cancelCopy();
+            }
+        }
+    }
+
+    /**
+     * 删掉表上全部 HNSW 索引：历史版本由 {@link PgVectorStoreAdmin} 另建过同类索引，只删一个则合并照样逐行维护另一个
+     */
+    private void dropEmbeddingIndexes(Connection con) throws SQLException {
+        List<String> indexes = listEmbeddingIndexes(con);
+        try (Statement st = con.createStatement()) {
+            for (String index : indexes) {
+                // noinspection SqlDialectInspection,SqlNoDataSourceInspection
+                st.execute("DROP INDEX IF EXISTS \"" + index + "\"");
+            }
+        }
+        log.info("批量写入前删除 HNSW 索引：{}", indexes);
+    }
+
+    /**
+     * DEFER 模式的删索引：先打待重建标记再删，进程在两步之间退出也不会漏建；
+     * 与重建共用分布式锁，避免一边在 CONCURRENTLY 建、一边在删
+     *
+     * @return 删索引耗时
+     */
+    private long dropIndexesForDefer() {
+        long start = System.currentTimeMillis();
+        RLock lock = redissonClient.getLock(INDEX_LOCK_KEY);
+        boolean locked;
+        try {
+            locked = lock.tryLock(INDEX_LOCK_WAIT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceException("等待 HNSW 索引锁被中断");
+        }
+        if (!locked) {
+            throw new ServiceException("等待 HNSW 索引锁超时，其他节点可能正在重建索引");
+        }
+        try {
+            deferredMarker().set(System.currentTimeMillis());
+            List<String> indexes = withOwnConnection(this::listEmbeddingIndexes);
+            for (String index : indexes) {
+                executeOutsideTransaction("DROP INDEX CONCURRENTLY IF EXISTS \"" + index + "\"");
+            }
+            log.info("批量写入前删除 HNSW 索引（延后重建）：{}", indexes);
+        } catch (SQLException e) {
+            throw jdbcTemplate.getExceptionTranslator().translate("删除 HNSW 索引", null, e);
+        } finally {
+            lock.unlock();
+        }
+        return System.currentTimeMillis() - start;
+    }
+
+    private List<String> listEmbeddingIndexes(Connection con) throws SQLException {
+        List<String> indexes = new ArrayList<>();
+        try (Statement st = con.createStatement();
+             // noinspection SqlDialectInspection,SqlNoDataSourceInspection
+             ResultSet rs = st.executeQuery("SELECT indexname FROM pg_indexes WHERE tablename = 't_knowledge_vector' "
+                     + "AND indexdef ILIKE '%USING hnsw%'")) {
+            while (rs.next()) {
+                indexes.add(rs.getString(1));
+            }
+        }
+        return indexes;
+    }
+
+    private boolean isEmbeddingIndexValid() throws SQLException {
+        return withOwnConnection(con -> {
+            try (Statement st = con.createStatement();
+                 // noinspection SqlDialectInspection,SqlNoDataSourceInspection
+                 ResultSet rs = st.executeQuery("SELECT i.indisvalid FROM pg_index i JOIN pg_class c ON c.oid = i.indexrelid "
+                         + "WHERE c.relname = '" + EMBEDDING_INDEX + "'")) {
+                return rs.next() && rs.getBoolean(1);
+            }
+        });
+    }
+
+    /**
+     * CONCURRENTLY 不能在事务块中执行，也不应加入调用方的入库事务：直接从数据源取一个自动提交连接
+     */
+    private void executeOutsideTransaction(String sql) throws SQLException {
+        withOwnConnection(con -> {
+            try (Statement st = con.createStatement()) {
+                st.execute(sql);
+            }
+            return null;
+        });
+    }
+
+    private <T> T withOwnConnection(SqlFunction<T> action) throws SQLException {
+        try (Connection con = jdbcTemplate.getDataSource().getConnection()) {
+            con.setAutoCommit(true);
+            return action.apply(con);
+        }
+    }
+
+    private RAtomicLong deferredMarker() {
+        return redissonClient.getAtomicLong(DEFERRED_KEY);
+    }
+
+    @FunctionalInterface
+    private interface SqlFunction<T> {
+
+        T apply(Connection con) throws SQLException;
+    }
+
+    private static void writeText(DataOutputStream out, byte[] value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        out.writeInt(value.length);
+        out.write(value);
+    }
+
+    /**
+     * jsonb 二进制格式：1 字节版本号 + JSON 文本
+     */
+    private static void writeJsonb(DataOutputStream out, byte[] json) throws IOException {
+        out.writeInt(json.length + 1);
+        out.writeByte(JSONB_VERSION);
+        out.write(json);
+    }
+
+    /**
+     * pgvector 二进制格式：int16 维度 + int16 保留位 + 维度个 float4，均为网络字节序
+     */
+    private static void writeVector(DataOutputStream out, float[] vector) throws IOException {
+        out.writeInt(4 + 4 * vector.length);
+        out.writeShort(vector.length);
+        out.writeShort(0);
+        for (float v : vector) {
+            out.writeFloat(v);
+        }
+    }
+
+    /**
+     * 把缓冲后的字节交给驱动，驱动按需发往服务端，不在内存里攒完整份 COPY 数据
+     */
+    private static final class CopyInOutputStream extends OutputStream {
+
+        private final CopyIn copyIn;
+
+        private CopyInOutputStream(CopyIn copyIn) {
+            this.copyIn = copyIn;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            try {
+                copyIn.writeToCopy(b, off, len);
+            } catch (SQLException e) {
+                throw new IOException(e.getMessage(), e);
+            }
+        }
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nageoffer.ai.ragent.rag.core.vector;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * pgvector 批量写入配置
+ *
+ * <pre>
+ * rag:
+ *   vector:
+ *     pg:
+ *       bulk:
+ *         enabled: true
+ *         min-rows: 500
+ *         index-mode: rebuild
+ * </pre>
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "rag.vector.pg.bulk")
+public class PgVectorBulkProperties {
+
+    /**
+     * 是否启用二进制 COPY 批量写入；关闭则始终走 batchUpdate
+     */
+    private boolean enabled = false;
+
+    /**
+     * 单次写入行数达到该值才走 COPY：行数少时建临时表、合并的固定开销抵不过省下的解析开销
+     */
+    private int minRows = 500;
+
+    /**
+     * 大批量写入时 HNSW 索引的处理方式
+     */
+    private IndexMode indexMode = IndexMode.KEEP;
+
+    /**
+     * 单次写入行数达到该值才按 {@link #indexMode} 处理索引，否则照常逐行维护
+     * <p>
+     * 重建是对全表重建，表里已有大量向量时给一篇小文档重建得不偿失，只适合初次导入这类大批量场景
+     */
+    private int indexMinRows = 20000;
+
+    /**
+     * DEFER 模式下距集群内最后一次批量写入空闲多久后重建索引（秒）
+     */
+    private int deferIdleSeconds = 120;
+
+    public enum IndexMode {
+
+        /**
+         * 不动索引，合并时逐行维护 HNSW
+         */
+        KEEP,
+
+        /**
+         * 合并前删索引、合并后在同一事务内重建；期间表被独占锁住，检索会等待
+         */
+        REBUILD,
+
+        /**
+         * 入库事务开启前 CONCURRENTLY 删索引，等批量导入空闲后再 CONCURRENTLY 重建；期间检索不阻塞但走全表扫描。
+         * 删索引须经写入链路在事务外预先完成，未预先删除的事务内写入按 KEEP 处理
+         */
+        DEFER
+    }
+}
@@ -20,6 +20,7 @@ package com.nageoffer.ai.ragent.rag.core.vector;
 import com.nageoffer.ai.ragent.rag.core.retrieval.RetrieveRequest;
 import com.nageoffer.ai.ragent.framework.convention.RetrievedChunk;
 import com.nageoffer.ai.ragent.infra.embedding.EmbeddingService;
+import com.pgvector.PGvector;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
@@ -55,7 +56,7 @@ public class PgVectorRetrieverService implements VectorRetrieverService {
 
     @Override
     public float[] embedAndNormalize(String query) {
-        return normalize(toArray(embeddingService.embed(query)));
+        return normalize(embeddingService.embed(query));
     }
 
     @Override
@@ -75,15 +76,15 @@ public class PgVectorRetrieverService implements VectorRetrieverService {
         // noinspection SqlDialectInspection,SqlNoDataSourceInspection
         jdbcTemplate.execute("SET hnsw.iterative_scan = relaxed_order");
 
-        String vectorLiteral = toVectorLiteral(vector);
+        PGvector queryVector = new PGvector(vector);
         String placeholders = collectionNames.stream().map(c -> "?").collect(java.util.stream.Collectors.joining(", "));
 
         Object[] args = new Object[collectionNames.size() + 3];
-        args[0] = vectorLiteral;
+        args[0] = queryVector;
         for (int i = 0; i < collectionNames.size(); i++) {
             args[i + 1] = collectionNames.get(i);
         }
-        args[collectionNames.size() + 1] = vectorLiteral;
+        args[collectionNames.size() + 1] = queryVector;
         args[collectionNames.size() + 2] = limit;
 
         // noinspection SqlDialectInspection,SqlNoDataSourceInspection
@@ -111,21 +112,4 @@ public class PgVectorRetrieverService implements VectorRetrieverService {
         }
         return vector;
     }
-
-    private float[] toArray(List<Float> list) {
-        float[] arr = new float[list.size()];
-        for (int i = 0; i < list.size(); i++) {
-            arr[i] = list.get(i);
-        }
-        return arr;
-    }
-
-    private String toVectorLiteral(float[] embedding) {
-        StringBuilder sb = new StringBuilder("[");
-        for (int i = 0; i < embedding.length; i++) {
-            if (i > 0) sb.append(",");
-            sb.append(embedding[i]);
-        }
-        return sb.append("]").toString();
-    }
 }
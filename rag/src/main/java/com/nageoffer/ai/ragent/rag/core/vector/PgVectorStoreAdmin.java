@@ -36,19 +36,21 @@ public class PgVectorStoreAdmin implements VectorStoreAdmin {
 
     @Override
     public void ensureVectorSpace(VectorSpaceSpec spec) {
-        String indexName = "idx_kv_embedding_hnsw";
-
+        // 按「表上是否已有 HNSW 索引」判断而不是按名字：建表脚本建的是 idx_kv_embedding，
+        // 按名字查会在其旁边再建一份同样的索引，写入时要维护两遍
         // noinspection SqlDialectInspection,SqlNoDataSourceInspection
-        Integer count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM pg_indexes WHERE indexname = ?", Integer.class, indexName);
+        Integer count = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM pg_indexes WHERE tablename = 't_knowledge_vector' AND indexdef ILIKE '%USING hnsw%'",
+                Integer.class);
 
         if (count != null && count > 0) {
-            log.debug("HNSW索引已存在: {}", indexName);
+            log.debug("HNSW索引已存在");
             return;
         }
 
         int dimension = ragDefaultProperties.getDimension();
         log.info("创建pgvector HNSW索引，维度: {}", dimension);
-        jdbcTemplate.execute(String.format("CREATE INDEX IF NOT EXISTS %s ON t_knowledge_vector USING hnsw (embedding vector_cosine_ops)", indexName));
+        jdbcTemplate.execute(String.format("CREATE INDEX IF NOT EXISTS %s ON t_knowledge_vector USING hnsw (embedding vector_cosine_ops)", PgVectorBulkLoader.EMBEDDING_INDEX));
     }
 
     @Override
@@ -19,6 +19,7 @@ package com.nageoffer.ai.ragent.rag.core.vector;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.nageoffer.ai.ragent.core.chunk.model.EmbeddedChunk;
+import com.pgvector.PGvector;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
@@ -37,13 +38,24 @@ public class PgVectorStoreService implements VectorStoreService {
 
     private final JdbcTemplate jdbcTemplate;
     private final ObjectMapper objectMapper;
+    private final PgVectorBulkLoader bulkLoader;
+
+    @Override
+    public void prepareBulkIndex(String collectionName, int rows) {
+        bulkLoader.prepare(rows);
+    }
 
     @Override
     public void indexDocumentChunks(String collectionName, String docId, List<EmbeddedChunk> chunks) {
         if (chunks == null || chunks.isEmpty()) {
             return;
         }
+        if (bulkLoader.shouldUse(chunks.size())) {
+            bulkLoader.load(collectionName, chunks, chunk -> buildMetadataJson(docId, chunk));
+            return;
+        }
 
+        long start = System.currentTimeMillis();
         // noinspection SqlDialectInspection,SqlNoDataSourceInspection
         jdbcTemplate.batchUpdate(
                 "INSERT INTO t_knowledge_vector (id, collection_name, content, metadata, embedding) VALUES (?, ?, ?, ?::jsonb, ?::vector)",
@@ -52,10 +64,14 @@ public class PgVectorStoreService implements VectorStoreService {
                     ps.setString(2, collectionName);
                     ps.setString(3, chunk.content());
                     ps.setString(4, buildMetadataJson(docId, chunk));
-                    ps.setString(5, toVectorLiteral(chunk.embedding()));
+                    // 向量以 PGvector 参数绑定而不是拼文本字面量：1536 维每块省掉约 20KB 的临时字符串；
+                    // JDBC URL 配置 binaryTransferEnable=<vector 类型 OID> 后驱动直接按二进制格式发送
+                    ps.setObject(5, new PGvector(chunk.embedding()));
                 });
 
-        log.info("批量写入向量到 PostgreSQL，collectionName={}, docId={}, count={}", collectionName, docId, chunks.size());
+        long elapsed = Math.max(1, System.currentTimeMillis() - start);
+        log.info("批量写入向量到 PostgreSQL，collectionName={}, docId={}, count={}, 耗时：{}ms, rows/s={}",
+                collectionName, docId, chunks.size(), elapsed, chunks.size() * 1000L / elapsed);
     }
 
     @Override
@@ -94,7 +110,7 @@ public class PgVectorStoreService implements VectorStoreService {
                 collectionName,
                 chunk.content(),
                 buildMetadataJson(docId, chunk),
-                toVectorLiteral(chunk.embedding())
+                new PGvector(chunk.embedding())
         );
     }
 
@@ -109,13 +125,4 @@ public class PgVectorStoreService implements VectorStoreService {
             throw new RuntimeException("元数据序列化失败", e);
         }
     }
-
-    private String toVectorLiteral(float[] embedding) {
-        StringBuilder sb = new StringBuilder("[");
-        for (int i = 0; i < embedding.length; i++) {
-            if (i > 0) sb.append(",");
-            sb.append(embedding[i]);
-        }
-        return sb.append("]").toString();
-    }
 }
@@ -26,6 +26,15 @@ import java.util.List;
  */
 public interface VectorStoreService {
 
+    /**
+     * 即将批量写入前、入库事务开启前调用，供后端做不能进事务的准备工作；默认无操作
+     *
+     * @param collectionName 向量空间名称（知识库 collectionName）
+     * @param rows           随后 {@link #indexDocumentChunks} 要写入的块数
+     */
+    default void prepareBulkIndex(String collectionName, int rows) {
+    }
+
     /**
      * 批量建立文档的向量索引
      *
@@ -67,4 +76,16 @@ public interface VectorStoreService {
      * @param chunkIds       chunk 唯一标识列表
      */
     void deleteChunksByIds(String collectionName, List<String> chunkIds);
+
+    /**
+     * 单块粒度的增量写入（updateChunk / deleteChunksByIds）全部落完后调用一次，附带整篇文档的分块正文
+     * <p>
+     * 向量后端按块存储，无需处理，默认空实现；按文档维护的副作用（图谱）借此整篇刷新
+     *
+     * @param collectionName 向量空间名称（知识库 collectionName）
+     * @param docId          文档唯一标识
+     * @param contents       应用增量后整篇文档按顺序的全部分块正文
+     */
+    default void syncDocumentContent(String collectionName, String docId, List<String> contents) {
+    }
 }
@@ -32,8 +32,9 @@ import java.util.stream.Collectors;
  * 与 {@link KeywordSyncingVectorStoreService} 同构，包裹真实的 {@link VectorStoreService}，写入 / 删除
  * 成功后同步维护 LightRAG 知识图谱；图谱抽取是文档级（跨 chunk 合并实体）故按文档同步，写入以在手全量
  * 分块拼成全文，删除按文档清除，重建路径「先删后建」的既有调用顺序天然构成 upsert；单块粒度的
- * updateChunk / deleteChunkById / deleteChunksByIds 不同步图谱，整文重摄即可刷新，不为它引入
- * chunkId→docId 反查；图谱写入 best-effort，失败只记日志、不回滚向量、不中断主链路
+ * updateChunk / deleteChunkById / deleteChunksByIds 自身不同步图谱，增量重摄在单块操作落完后经
+ * {@link #syncDocumentContent} 带上整篇正文，按文档「先删后建」刷新一次，不为单块引入 chunkId→docId 反查；
+ * 图谱写入 best-effort，失败只记日志、不回滚向量、不中断主链路
  */
 @Slf4j
 public class GraphSyncingVectorStoreService implements VectorStoreService {
@@ -46,6 +47,11 @@ public class GraphSyncingVectorStoreService implements VectorStoreService {
         this.lightRagClient = lightRagClient;
     }
 
+    @Override
+    public void prepareBulkIndex(String collectionName, int rows) {
+        delegate.prepareBulkIndex(collectionName, rows);
+    }
+
     @Override
     public void indexDocumentChunks(String collectionName, String docId, List<EmbeddedChunk> chunks) {
         delegate.indexDocumentChunks(collectionName, docId, chunks);
@@ -55,7 +61,7 @@ public class GraphSyncingVectorStoreService implements VectorStoreService {
     @Override
     public void updateChunk(String collectionName, String docId, EmbeddedChunk chunk) {
         delegate.updateChunk(collectionName, docId, chunk);
-        // 子文档粒度，Phase1 不单独同步图谱（见类注释）
+        // 子文档粒度不单独同步图谱，由 syncDocumentContent 整篇刷新（见类注释）
     }
 
     @Override
@@ -73,7 +79,19 @@ public class GraphSyncingVectorStoreService implements VectorStoreService {
     @Override
     public void deleteChunksByIds(String collectionName, List<String> chunkIds) {
         delegate.deleteChunksByIds(collectionName, chunkIds);
-        // 子文档粒度，Phase1 不单独同步图谱（见类注释）
+        // 子文档粒度不单独同步图谱，由 syncDocumentContent 整篇刷新（见类注释）
+    }
+
+    @Override
+    public void syncDocumentContent(String collectionName, String docId, List<String> contents) {
+        delegate.syncDocumentContent(collectionName, docId, contents);
+        syncGraph(docId, () -> {
+            lightRagClient.deleteByDoc(docId);
+            String text = concatText(contents);
+            if (!text.isEmpty()) {
+                lightRagClient.insertText(text, fileSource(collectionName, docId));
+            }
+        });
     }
 
     /**
@@ -90,8 +108,14 @@ public class GraphSyncingVectorStoreService implements VectorStoreService {
         if (chunks == null || chunks.isEmpty()) {
             return "";
         }
-        return chunks.stream()
-                .map(EmbeddedChunk::content)
+        return concatText(chunks.stream().map(EmbeddedChunk::content).toList());
+    }
+
+    private String concatText(List<String> contents) {
+        if (contents == null || contents.isEmpty()) {
+            return "";
+        }
+        return contents.stream()
                 .filter(c -> c != null && !c.isBlank())
                 .collect(Collectors.joining("\n\n"));
     }
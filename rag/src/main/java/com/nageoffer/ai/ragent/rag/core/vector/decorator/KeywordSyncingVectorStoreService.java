@@ -43,6 +43,11 @@ public class KeywordSyncingVectorStoreService implements VectorStoreService {
         this.keywordIndexService = keywordIndexService;
     }
 
+    @Override
+    public void prepareBulkIndex(String collectionName, int rows) {
+        delegate.prepareBulkIndex(collectionName, rows);
+    }
+
     @Override
     public void indexDocumentChunks(String collectionName, String docId, List<EmbeddedChunk> chunks) {
         delegate.indexDocumentChunks(collectionName, docId, chunks);
@@ -73,6 +78,12 @@ public class KeywordSyncingVectorStoreService implements VectorStoreService {
         syncKeyword(null, () -> keywordIndexService.deleteChunksByIds(collectionName, chunkIds));
     }
 
+    @Override
+    public void syncDocumentContent(String collectionName, String docId, List<String> contents) {
+        // 关键词索引已随单块操作同步，只需透传给链上的下一层
+        delegate.syncDocumentContent(collectionName, docId, contents);
+    }
+
     /**
      * best-effort 执行关键词同步，失败仅告警，不影响向量主链路
      */
@@ -20,6 +20,7 @@ package com.nageoffer.ai.ragent.rag.core.vector.sink;
 import com.nageoffer.ai.ragent.core.chunk.model.EmbeddedChunk;
 import com.nageoffer.ai.ragent.core.ingest.DocumentRef;
 import com.nageoffer.ai.ragent.core.ingest.VectorTarget;
+import com.nageoffer.ai.ragent.core.ingest.sink.ChunkDelta;
 import com.nageoffer.ai.ragent.core.ingest.sink.ChunkSink;
 import com.nageoffer.ai.ragent.rag.core.vector.VectorStoreService;
 import lombok.RequiredArgsConstructor;
@@ -43,6 +44,13 @@ public class VectorChunkSink implements ChunkSink {
 
     private final VectorStoreService vectorStoreService;
 
+    @Override
+    public void beforeReplace(VectorTarget target, DocumentRef doc, List<EmbeddedChunk> chunks) {
+        if (!chunks.isEmpty()) {
+            vectorStoreService.prepareBulkIndex(target.partition(), chunks.size());
+        }
+    }
+
     @Override
     public void replaceDocument(VectorTarget target, DocumentRef doc, List<EmbeddedChunk> chunks) {
         // 先删后建：装饰器链的图谱同步正是依赖这个顺序构成 upsert 语义，
@@ -53,6 +61,20 @@ public class VectorChunkSink implements ChunkSink {
         }
     }
 
+    @Override
+    public void applyDelta(VectorTarget target, DocumentRef doc, ChunkDelta delta) {
+        // 单块粒度走 updateChunk / deleteChunksByIds，两者在各后端都是按 ID 的 upsert / 删除；
+        // 图谱按文档维护，单块操作落完后带整篇正文刷新一次（见 GraphSyncingVectorStoreService）
+        if (!delta.removedIds().isEmpty()) {
+            vectorStoreService.deleteChunksByIds(target.partition(), delta.removedIds());
+        }
+        delta.changed().forEach(chunk -> vectorStoreService.updateChunk(target.partition(), doc.docId(), chunk));
+        delta.added().forEach(chunk -> vectorStoreService.updateChunk(target.partition(), doc.docId(), chunk));
+        if (!delta.isEmpty()) {
+            vectorStoreService.syncDocumentContent(target.partition(), doc.docId(), delta.contents());
+        }
+    }
+
     @Override
     public void deleteDocument(VectorTarget target, DocumentRef doc) {
         vectorStoreService.deleteDocumentVectors(target.partition(), doc.docId());
@@ -19,6 +19,30 @@ package com.nageoffer.ai.ragent.rag.dao.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.nageoffer.ai.ragent.rag.dao.entity.RagTraceNodeDO;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
 
 public interface RagTraceNodeMapper extends BaseMapper<RagTraceNodeDO> {
+
+    /**
+     * 多行插入已完成节点，供 Trace 异步写线程攒批落库；唯一键冲突（重试重复写入）时忽略
+     */
+    @Insert("""
+            <script>
+            INSERT INTO t_rag_trace_node
+                (id, trace_id, node_id, parent_node_id, depth, node_type, node_name, class_name, method_name,
+                 status, error_message, start_time, end_time, duration_ms, extra_data, create_time, update_time, deleted)
+            VALUES
+            <foreach collection="nodes" item="item" separator=",">
+                (#{item.id}, #{item.traceId}, #{item.nodeId}, #{item.parentNodeId}, #{item.depth},
+                 #{item.nodeType}, #{item.nodeName}, #{item.className}, #{item.methodName}, #{item.status},
+                 #{item.errorMessage}, #{item.startTime}, #{item.endTime}, #{item.durationMs}, #{item.extraData},
+                 #{item.createTime}, #{item.updateTime}, 0)
+            </foreach>
+            ON CONFLICT (trace_id, node_id) DO NOTHING
+            </script>
+            """)
+    int insertBatchIgnoreConflict(@Param("nodes") List<RagTraceNodeDO> nodes);
 }
@@ -19,6 +19,29 @@ package com.nageoffer.ai.ragent.rag.dao.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.nageoffer.ai.ragent.rag.dao.entity.RagTraceRunDO;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
 
 public interface RagTraceRunMapper extends BaseMapper<RagTraceRunDO> {
+
+    /**
+     * 多行插入运行记录，供 Trace 异步写线程攒批落库；唯一键冲突（重试重复写入）时忽略
+     */
+    @Insert("""
+            <script>
+            INSERT INTO t_rag_trace_run
+                (id, trace_id, trace_name, entry_method, conversation_id, task_id, user_id,
+                 status, error_message, start_time, end_time, duration_ms, extra_data, create_time, update_time, deleted)
+            VALUES
+            <foreach collection="runs" item="item" separator=",">
+                (#{item.id}, #{item.traceId}, #{item.traceName}, #{item.entryMethod}, #{item.conversationId},
+                 #{item.taskId}, #{item.userId}, #{item.status}, #{item.errorMessage}, #{item.startTime},
+                 #{item.endTime}, #{item.durationMs}, #{item.extraData}, #{item.createTime}, #{item.updateTime}, 0)
+            </foreach>
+            ON CONFLICT (trace_id) DO NOTHING
+            </script>
+            """)
+    int insertBatchIgnoreConflict(@Param("runs") List<RagTraceRunDO> runs);
 }
@@ -0,0 +1,204 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nageoffer.ai.ragent.rag.service.handler;
+
+import com.nageoffer.ai.ragent.framework.web.SseEmitterSender;
+import com.nageoffer.ai.ragent.infra.config.AIModelProperties;
+import com.nageoffer.ai.ragent.rag.enums.SSEEventType;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 单条流的 SSE 增量合并器
+ * <p>
+ * 上游增量先进缓冲，满足以下任一条件才写出一个 message 事件：
+ * <ul>
+ *   <li>缓冲字数达到 maxChars</li>
+ *   <li>缓冲中最早的字已等待 maxDelayMs（由共享调度线程触发，模型停顿时不会把内容压在缓冲里）</li>
+ *   <li>增量以句末标点或换行结尾</li>
+ *   <li>类型在 think 与 response 之间切换，先把另一种类型的缓冲写出，保证顺序</li>
+ * </ul>
+ * 事件体直接拼成与 {@code MessageDelta} 序列化结果等价的 JSON 字符串：固定部分按类型预先拼好，
+ * 只对增量文本做转义，省掉每个事件一次反射序列化。
+ * 所有方法在同一把锁内完成缓冲与写出，定时写出与上游线程之间不会乱序
+ */
+final class SseDeltaCoalescer {
+
+    private static final String SENTENCE_ENDS = "。！？；!?;.\n";
+    private static final String RESPONSE_PREFIX = jsonPrefixOf(StreamChatEventHandler.TYPE_RESPONSE);
+    private static final String THINK_PREFIX = jsonPrefixOf(StreamChatEventHandler.TYPE_THINK);
+    private static final String JSON_SUFFIX = "\"}";
+
+    private final SseEmitterSender sender;
+    private final ScheduledExecutorService scheduler;
+    private final int maxChars;
+    private final long maxDelayMs;
+    private final boolean flushOnSentenceEnd;
+
+    private final StringBuilder buffer = new StringBuilder();
+    private final StringBuilder json = new StringBuilder();
+    private String bufferedType;
+    private int bufferedChars;
+    private ScheduledFuture<?> pendingFlush;
+    private boolean closed;
+    private int writes;
+
+    SseDeltaCoalescer(SseEmitterSender sender, ScheduledExecutorService scheduler, AIModelProperties.Coalesce config) {
+        this.sender = sender;
+        this.scheduler = scheduler;
+        this.maxChars = Math.max(1, config.getMaxChars());
+        this.maxDelayMs = Math.max(0L, config.getMaxDelayMs());
+        this.flushOnSentenceEnd = Boolean.TRUE.equals(config.getFlushOnSentenceEnd());
+    }
+
+    synchronized void append(String type, String delta) {
+        if (closed) {
+            return;
+        }
+        if (bufferedType != null && !bufferedType.equals(type)) {
+            flushLocked();
+        }
+        bufferedType = type;
+        buffer.append(delta);
+        bufferedChars += delta.codePointCount(0, delta.length());
+        if (bufferedChars >= maxChars || (flushOnSentenceEnd && endsWithSentence(delta)) || maxDelayMs == 0L) {
+            flushLocked();
+            return;
+        }
+        if (pendingFlush == null) {
+            try {
+                pendingFlush = scheduler.schedule(this::flush, maxDelayMs, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                // 调度器已关闭（应用停机中），退化为逐条写出
+                flushLocked();
+            }
+        }
+    }
+
+    /**
+     * 写出缓冲中的内容
+     */
+    synchronized void flush() {
+        if (!closed) {
+            flushLocked();
+        }
+    }
+
+    /**
+     * 写出剩余内容并停止合并，终态事件（finish/cancel）之前调用
+     */
+    synchronized void flushAndClose() {
+        if (closed) {
+            return;
+        }
+        flushLocked();
+        closed = true;
+    }
+
+    /**
+     * 丢弃缓冲并停止合并，出错收尾时调用
+     */
+    synchronized void discard() {
+        closed = true;
+        buffer.setLength(0);
+        bufferedChars = 0;
+        cancelPendingFlush();
+    }
+
+    /**
+     * 已写出的 message 事件数
+     */
+    synchronized int writes() {
+        return writes;
+    }
+
+    private void flushLocked() {
+        cancelPendingFlush();
+        if (buffer.isEmpty()) {
+            return;
+        }
+        json.setLength(0);
+        json.append(jsonPrefix(bufferedType));
+        appendEscaped(json, buffer);
+        json.append(JSON_SUFFIX);
+        buffer.setLength(0);
+        bufferedChars = 0;
+        writes++;
+        sender.sendEvent(SSEEventType.MESSAGE.value(), json.toString());
+    }
+
+    private void cancelPendingFlush() {
+        if (pendingFlush != null) {
+            pendingFlush.cancel(false);
+            pendingFlush = null;
+        }
+    }
+
+    private static String jsonPrefix(String type) {
+        return switch (type) {
+            case StreamChatEventHandler.TYPE_RESPONSE -> RESPONSE_PREFIX;
+            case StreamChatEventHandler.TYPE_THINK -> THINK_PREFIX;
+            default -> jsonPrefixOf(type);
+        };
+    }
+
+    private static String jsonPrefixOf(String type) {
+        return "{\"type\":\"" + type + "\",\"delta\":\"";
+    }
+
+    private static boolean endsWithSentence(String delta) {
+        for (int i = delta.length() - 1; i >= 0; i--) {
+            char c = delta.charAt(i);
+            if (c == '\n') {
+                return true;
+            }
+            if (!Character.isWhitespace(c)) {
+                return SENTENCE_ENDS.indexOf(c) >= 0;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 按 JSON 字符串规则转义：引号、反斜杠与控制字符，其余字符原样输出（与 Jackson 默认行为一致）
+     */
+    static void appendEscaped(StringBuilder out, CharSequence text) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '"' -> out.append("\\\"");
+                case '\\' -> out.append("\\\\");
+                case '\n' -> out.append("\\n");
+                case '\r' -> out.append("\\r");
+                case '\t' -> out.append("\\t");
+                case '\b' -> out.append("\\b");
+                case '\f' -> out.append("\\f");
+                default -> {
+                    if (c < 0x20) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+                }
+            }
+        }
+    }
+}
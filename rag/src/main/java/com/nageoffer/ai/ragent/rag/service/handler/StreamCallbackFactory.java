@@ -17,15 +17,20 @@
 
 package com.nageoffer.ai.ragent.rag.service.handler;
 
+import cn.hutool.core.thread.ThreadFactoryBuilder;
 import com.nageoffer.ai.ragent.framework.web.StreamTaskManager;
 import com.nageoffer.ai.ragent.infra.chat.StreamCallback;
 import com.nageoffer.ai.ragent.infra.config.AIModelProperties;
 import com.nageoffer.ai.ragent.rag.core.memory.ConversationMemoryService;
 import com.nageoffer.ai.ragent.rag.service.ConversationGroupService;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
 /**
  * StreamCallback 工厂
  * 负责创建各种类型的 StreamCallback 实例
@@ -39,6 +44,18 @@ public class StreamCallbackFactory {
     private final ConversationGroupService conversationGroupService;
     private final StreamTaskManager taskManager;
 
+    /**
+     * 所有流共享的增量定时写出线程
+     * 定时写出会直接写 SSE 响应，个别慢客户端可能短暂占住线程，留几个线程避免拖慢其他流
+     */
+    private final ScheduledExecutorService flushScheduler = Executors.newScheduledThreadPool(
+            Math.max(2, Runtime.getRuntime().availableProcessors() >> 1),
+            ThreadFactoryBuilder.create()
+                    .setNamePrefix("sse_delta_flush_")
+                    .setDaemon(true)
+                    .build()
+    );
+
     /**
      * 创建聊天事件处理器
      *
@@ -58,8 +75,14 @@ public class StreamCallbackFactory {
                 .memoryService(memoryService)
                 .conversationGroupService(conversationGroupService)
                 .taskManager(taskManager)
+                .flushScheduler(flushScheduler)
                 .build();
 
         return new StreamChatEventHandler(params);
     }
+
+    @PreDestroy
+    public void shutdown() {
+        flushScheduler.shutdownNow();
+    }
 }
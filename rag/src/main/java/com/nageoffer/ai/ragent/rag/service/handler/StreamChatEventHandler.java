@@ -42,8 +42,8 @@ import java.util.Optional;
 @Slf4j
 public class StreamChatEventHandler implements StreamCallback {
 
-    private static final String TYPE_THINK = "think";
-    private static final String TYPE_RESPONSE = "response";
+    static final String TYPE_THINK = "think";
+    static final String TYPE_RESPONSE = "response";
 
     private final int messageChunkSize;
     private final SseEmitterSender sender;
@@ -53,6 +53,7 @@ public class StreamChatEventHandler implements StreamCallback {
     private final String taskId;
     private final String userId;
     private final StreamTaskManager taskManager;
+    private final SseDeltaCoalescer coalescer;
     private final boolean sendTitleOnComplete;
     private final StringBuilder answer = new StringBuilder();
     private final StringBuilder thinking = new StringBuilder();
@@ -78,6 +79,7 @@ public class StreamChatEventHandler implements StreamCallback {
 
         // 计算配置
         this.messageChunkSize = resolveMessageChunkSize(params.getModelProperties());
+        this.coalescer = resolveCoalescer(params);
         this.sendTitleOnComplete = shouldSendTitle();
 
         // 初始化（发送初始事件、注册任务）
@@ -101,6 +103,18 @@ public class StreamChatEventHandler implements StreamCallback {
                 .orElse(5));
     }
 
+    /**
+     * 开启合并且有调度器时按流创建合并器，否则沿用按 messageChunkSize 逐块下发
+     */
+    private SseDeltaCoalescer resolveCoalescer(StreamChatHandlerParams params) {
+        AIModelProperties.Stream stream = params.getModelProperties().getStream();
+        if (stream == null || stream.getCoalesce() == null || !Boolean.TRUE.equals(stream.getCoalesce().getEnabled())
+                || params.getFlushScheduler() == null) {
+            return null;
+        }
+        return new SseDeltaCoalescer(sender, params.getFlushScheduler(), stream.getCoalesce());
+    }
+
     /**
      * 判断是否需要发送标题
      */
@@ -142,6 +156,10 @@ public class StreamChatEventHandler implements StreamCallback {
     private void finishCancelledStream() {
         CompletionPayload payload = buildCompletionPayloadOnCancel();
         CompletionPayload actualPayload = payload == null ? new CompletionPayload(null, null) : payload;
+        // 已落库的内容先全部送达前端，再发取消事件
+        if (coalescer != null) {
+            coalescer.flushAndClose();
+        }
         sender.sendEvent(SSEEventType.CANCEL.value(), actualPayload);
         sender.sendEvent(SSEEventType.DONE.value(), "[DONE]");
         sender.complete();
@@ -188,7 +206,7 @@ public class StreamChatEventHandler implements StreamCallback {
             thinkingDurationSeconds = Math.max(1, Math.round((System.currentTimeMillis() - thinkingStartMs) / 1000.0f));
         }
         answer.append(chunk);
-        sendChunked(TYPE_RESPONSE, chunk);
+        sendDelta(TYPE_RESPONSE, chunk);
     }
 
     @Override
@@ -203,7 +221,7 @@ public class StreamChatEventHandler implements StreamCallback {
             thinkingStartMs = System.currentTimeMillis();
         }
         thinking.append(chunk);
-        sendChunked(TYPE_THINK, chunk);
+        sendDelta(TYPE_THINK, chunk);
     }
 
     @Override
@@ -225,6 +243,9 @@ public class StreamChatEventHandler implements StreamCallback {
         }
         String title = resolveTitleForEvent();
         String messageIdText = StrUtil.isBlank(messageId) ? null : messageId;
+        if (coalescer != null) {
+            coalescer.flushAndClose();
+        }
         sender.sendEvent(SSEEventType.FINISH.value(),
                 new CompletionPayload(messageIdText, title, sources, ChatMessage.MessageStatus.NORMAL));
         sender.sendEvent(SSEEventType.DONE.value(), "[DONE]");
@@ -238,9 +259,20 @@ public class StreamChatEventHandler implements StreamCallback {
             return;
         }
         taskManager.unregister(taskId);
+        if (coalescer != null) {
+            coalescer.discard();
+        }
         sender.fail(t);
     }
 
+    private void sendDelta(String type, String content) {
+        if (coalescer != null) {
+            coalescer.append(type, content);
+            return;
+        }
+        sendChunked(type, content);
+    }
+
     private void sendChunked(String type, String content) {
         int length = content.length();
         int idx = 0;
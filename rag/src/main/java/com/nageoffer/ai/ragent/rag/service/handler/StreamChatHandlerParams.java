@@ -25,6 +25,8 @@ import lombok.Builder;
 import lombok.Getter;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.util.concurrent.ScheduledExecutorService;
+
 /**
  * StreamChatEventHandler 构建参数
  * 使用参数对象模式，将多个参数封装成一个对象
@@ -67,4 +69,9 @@ public class StreamChatHandlerParams {
      * 任务管理器
      */
     private final StreamTaskManager taskManager;
+
+    /**
+     * 增量合并的定时写出调度器，为空时不合并
+     */
+    private final ScheduledExecutorService flushScheduler;
 }
@@ -22,6 +22,7 @@ import com.baomidou.mybatisplus.core.toolkit.Wrappers;
 import com.nageoffer.ai.ragent.rag.config.MemoryProperties;
 import com.nageoffer.ai.ragent.rag.controller.request.ConversationUpdateRequest;
 import com.nageoffer.ai.ragent.rag.controller.vo.ConversationVO;
+import com.nageoffer.ai.ragent.rag.core.memory.ConversationMemoryCache;
 import com.nageoffer.ai.ragent.rag.dao.entity.ConversationDO;
 import com.nageoffer.ai.ragent.rag.dao.entity.ConversationMessageDO;
 import com.nageoffer.ai.ragent.rag.dao.entity.ConversationSummaryDO;
@@ -54,6 +55,7 @@ public class ConversationServiceImpl implements ConversationService {
     private final ConversationSummaryMapper summaryMapper;
     private final MemoryProperties memoryProperties;
     private final ConversationTitleGenerator titleGenerator;
+    private final ConversationMemoryCache memoryCache;
 
     @Override
     public List<ConversationVO> listByUserId(String userId) {
@@ -173,6 +175,7 @@ public class ConversationServiceImpl implements ConversationService {
                         .eq(ConversationSummaryDO::getUserId, userId)
                         .eq(ConversationSummaryDO::getDeleted, 0)
         );
+        memoryCache.invalidate(conversationId, userId);
     }
 
 }
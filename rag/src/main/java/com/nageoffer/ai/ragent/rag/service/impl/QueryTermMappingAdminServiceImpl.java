@@ -73,7 +73,7 @@ public class QueryTermMappingAdminServiceImpl implements QueryTermMappingAdminSe
         record.setRemark(StrUtil.trimToNull(requestParam.getRemark()));
 
         queryTermMappingMapper.insert(record);
-        queryTermMappingCacheManager.clearCache();
+        queryTermMappingCacheManager.publishChange();
         bizChangeLogContext.put(String.valueOf(record.getId()), null, record);
         return String.valueOf(record.getId());
     }
@@ -117,7 +117,7 @@ public class QueryTermMappingAdminServiceImpl implements QueryTermMappingAdminSe
         }
 
         queryTermMappingMapper.updateById(record);
-        queryTermMappingCacheManager.clearCache();
+        queryTermMappingCacheManager.publishChange();
         bizChangeLogContext.put(id, before, queryTermMappingMapper.selectById(id));
     }
 
@@ -135,7 +135,7 @@ public class QueryTermMappingAdminServiceImpl implements QueryTermMappingAdminSe
         QueryTermMappingDO record = loadById(id);
         QueryTermMappingDO before = BeanUtil.copyProperties(record, QueryTermMappingDO.class);
         queryTermMappingMapper.deleteById(record.getId());
-        queryTermMappingCacheManager.clearCache();
+        queryTermMappingCacheManager.publishChange();
         bizChangeLogContext.put(id, before, null);
     }
 
@@ -54,17 +54,18 @@ public class RAGChatServiceImpl implements RAGChatService {
         StreamCallback callback = callbackFactory.createChatEventHandler(emitter, actualConversationId, taskId);
 
         chatQueueLimiter.enqueue(question, actualConversationId, emitter,
-                () -> traceRunner.run(question, actualConversationId, taskId, callback, traceAware -> {
-                    StreamChatContext ctx = StreamChatContext.builder()
-                            .question(question)
-                            .conversationId(actualConversationId)
-                            .taskId(taskId)
-                            .deepThinking(Boolean.TRUE.equals(deepThinking))
-                            .userId(UserContext.getUserId())
-                            .callback(traceAware)
-                            .build();
-                    chatPipeline.execute(ctx);
-                }));
+                () -> traceRunner.run(question, actualConversationId, taskId, callback,
+                        traceAware -> {
+                            StreamChatContext ctx = StreamChatContext.builder()
+                                    .question(question)
+                                    .conversationId(actualConversationId)
+                                    .taskId(taskId)
+                                    .deepThinking(Boolean.TRUE.equals(deepThinking))
+                                    .userId(UserContext.getUserId())
+                                    .callback(traceAware)
+                                    .build();
+                            chatPipeline.execute(ctx);
+                        }));
     }
 
     @Override
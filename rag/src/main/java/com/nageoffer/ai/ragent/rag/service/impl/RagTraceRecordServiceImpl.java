@@ -23,13 +23,17 @@ import com.nageoffer.ai.ragent.rag.dao.entity.RagTraceRunDO;
 import com.nageoffer.ai.ragent.rag.dao.mapper.RagTraceNodeMapper;
 import com.nageoffer.ai.ragent.rag.dao.mapper.RagTraceRunMapper;
 import com.nageoffer.ai.ragent.rag.service.RagTraceRecordService;
+import com.nageoffer.ai.ragent.rag.trace.RagTraceAsyncWriter;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Service;
 
 import java.util.Date;
 
 /**
  * RAG Trace 记录服务实现
+ * <p>
+ * 启用 rag.trace.async 时交给 {@link RagTraceAsyncWriter} 在后台攒批写入，否则逐条同步落库
  */
 @Service
 @RequiredArgsConstructor
@@ -37,14 +41,25 @@ public class RagTraceRecordServiceImpl implements RagTraceRecordService {
 
     private final RagTraceRunMapper runMapper;
     private final RagTraceNodeMapper nodeMapper;
+    private final ObjectProvider<RagTraceAsyncWriter> asyncWriter;
 
     @Override
     public void startRun(RagTraceRunDO run) {
+        RagTraceAsyncWriter writer = asyncWriter.getIfAvailable();
+        if (writer != null) {
+            writer.startRun(run);
+            return;
+        }
         runMapper.insert(run);
     }
 
     @Override
     public void finishRun(String traceId, String status, String errorMessage, Date endTime, long durationMs) {
+        RagTraceAsyncWriter writer = asyncWriter.getIfAvailable();
+        if (writer != null) {
+            writer.finishRun(traceId, status, errorMessage, endTime, durationMs);
+            return;
+        }
         RagTraceRunDO update = RagTraceRunDO.builder()
                 .status(status)
                 .errorMessage(errorMessage)
@@ -57,11 +72,21 @@ public class RagTraceRecordServiceImpl implements RagTraceRecordService {
 
     @Override
     public void startNode(RagTraceNodeDO node) {
+        RagTraceAsyncWriter writer = asyncWriter.getIfAvailable();
+        if (writer != null) {
+            writer.startNode(node);
+            return;
+        }
         nodeMapper.insert(node);
     }
 
     @Override
     public void finishNode(String traceId, String nodeId, String status, String errorMessage, Date endTime, long durationMs) {
+        RagTraceAsyncWriter writer = asyncWriter.getIfAvailable();
+        if (writer != null) {
+            writer.finishNode(traceId, nodeId, status, errorMessage, endTime, durationMs);
+            return;
+        }
         RagTraceNodeDO update = RagTraceNodeDO.builder()
                 .status(status)
                 .errorMessage(errorMessage)
@@ -34,6 +34,8 @@ import com.nageoffer.ai.ragent.rag.core.prompt.AgentPromptSlot;
 import com.nageoffer.ai.ragent.rag.core.prompt.PromptContext;
 import com.nageoffer.ai.ragent.rag.core.prompt.RAGPromptService;
 import com.nageoffer.ai.ragent.rag.core.retrieval.RetrievalEngine;
+import com.nageoffer.ai.ragent.rag.core.retrieval.RetrievalSpeculation;
+import com.nageoffer.ai.ragent.rag.core.retrieval.SpeculativeRetrievalService;
 import com.nageoffer.ai.ragent.rag.core.rewrite.QueryRewriteService;
 import com.nageoffer.ai.ragent.rag.core.rewrite.RewriteResult;
 import com.nageoffer.ai.ragent.rag.core.source.CitationContextEnricher;
@@ -42,6 +44,7 @@ import com.nageoffer.ai.ragent.rag.core.source.SourcesAssembler;
 import com.nageoffer.ai.ragent.rag.dto.IntentGroup;
 import com.nageoffer.ai.ragent.rag.dto.RetrievalContext;
 import com.nageoffer.ai.ragent.rag.dto.SubQuestionIntent;
+import com.nageoffer.ai.ragent.rag.service.ratelimit.AdaptiveConcurrencyController;
 import com.nageoffer.ai.ragent.framework.web.StreamTaskManager;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -57,6 +60,9 @@ import java.util.List;
  * 记忆加载 -> 改写拆分 -> 意图解析 -> 歧义引导 -> 系统响应 / 检索 -> Prompt 组装 -> 流式输出
  * <p>
  * 流水线模式：通过私有方法 + boolean 返回值（handleXxx 返回 true 表示已处理并短路）
+ * <p>
+ * 开启推测检索时（{@code rag.search.speculation.enabled}），入口先按原问题发起一次全局检索与改写、意图识别并行，
+ * 检索阶段对得上就直接复用；无论走到哪个出口，未被复用的推测都在返回前取消
  */
 @Slf4j
 @Service
@@ -75,28 +81,38 @@ public class StreamChatPipeline {
     private final SourcesAssembler sourcesAssembler;
     private final GroundingChunksAssembler groundingChunksAssembler;
     private final CitationContextEnricher citationContextEnricher;
+    private final SpeculativeRetrievalService speculativeRetrieval;
+    private final AdaptiveConcurrencyController concurrencyController;
 
     /**
      * 执行流式对话管道
      */
     public void execute(StreamChatContext ctx) {
-        loadMemory(ctx);
-        rewriteQuery(ctx);
-        resolveIntents(ctx);
+        RetrievalSpeculation speculation = speculativeRetrieval.start(ctx.getQuestion());
+        try {
+            loadMemory(ctx);
+            rewriteQuery(ctx);
+            speculativeRetrieval.onRewritten(speculation, ctx.getRewriteResult());
+            resolveIntents(ctx);
 
-        if (handleGuidance(ctx)) {
-            return;
-        }
-        if (handleSystemOnly(ctx)) {
-            return;
-        }
+            if (handleGuidance(ctx)) {
+                return;
+            }
+            if (handleSystemOnly(ctx)) {
+                return;
+            }
 
-        RetrievalContext retrievalCtx = retrieve(ctx);
-        if (handleEmptyRetrieval(ctx, retrievalCtx)) {
-            return;
-        }
+            RetrievalContext retrievalCtx = retrieve(ctx, speculation);
+            // 检索已结束，没被领取的推测尽早取消，不拖到流式输出之后
+            speculativeRetrieval.finish(speculation);
+            if (handleEmptyRetrieval(ctx, retrievalCtx)) {
+                return;
+            }
 
-        streamRagResponse(ctx, retrievalCtx);
+            streamRagResponse(ctx, retrievalCtx);
+        } finally {
+            speculativeRetrieval.finish(speculation);
+        }
     }
 
     // ==================== 流水线阶段 ====================
@@ -156,8 +172,10 @@ public class StreamChatPipeline {
         return true;
     }
 
-    private RetrievalContext retrieve(StreamChatContext ctx) {
-        return retrievalEngine.retrieve(ctx.getSubIntents());
+    private RetrievalContext retrieve(StreamChatContext ctx, RetrievalSpeculation speculation) {
+        return speculation == null
+                ? retrievalEngine.retrieve(ctx.getSubIntents())
+                : retrievalEngine.retrieve(ctx.getSubIntents(), speculation);
     }
 
     private boolean handleEmptyRetrieval(StreamChatContext ctx, RetrievalContext retrievalCtx) {
@@ -214,7 +232,7 @@ public class StreamChatPipeline {
                 .temperature(0.7D)
                 .thinking(false)
                 .build();
-        return llmService.streamChat(req, callback);
+        return llmService.streamChat(req, concurrencyController.track(callback));
     }
 
     private StreamCancellationHandle streamLLMResponse(RewriteResult rewriteResult, RetrievalContext ctx,
@@ -242,6 +260,7 @@ public class StreamChatPipeline {
                 .topP(ctx.hasMcp() ? 0.8D : 1D)
                 .build();
 
-        return llmService.streamChat(chatRequest, callback);
+        // 只有真正发起的大模型调用计入自适应并发的首字样本，引导语、检索为空等固定回复不计
+        return llmService.streamChat(chatRequest, concurrencyController.track(callback));
     }
 }
@@ -0,0 +1,294 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nageoffer.ai.ragent.rag.service.ratelimit;
+
+import com.nageoffer.ai.ragent.infra.chat.ForwardingStreamCallback;
+import com.nageoffer.ai.ragent.infra.chat.StreamCallback;
+import com.nageoffer.ai.ragent.rag.config.RAGRateLimitProperties;
+import com.nageoffer.ai.ragent.rag.service.ratelimit.GradientConcurrencyLimit.Window;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RAtomicDouble;
+import org.redisson.api.RScript;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 对话入口的自适应并发上限
+ * <p>
+ * 以大模型流式调用的首字耗时和首字前失败率为信号，按 {@link GradientConcurrencyLimit} 周期性调整
+ * {@link FairDistributedRateLimiter} 的许可总数，上限落在配置的 [min, max] 之间。引导语、检索为空等
+ * 不经过大模型的固定回复几乎瞬时返回，不代表下游压力，不计入样本。
+ * <p>
+ * 集群共享一个上限值，每个窗口只调整一次：各节点在窗口结束时把本地观测累加到 Redis 的集群窗口里，
+ * 只有持有调整租约的节点取走集群窗口、推导新值、写回上限并改 semaphore 的许可数。租约由持有者逐窗口续期，
+ * 持有者下线后租约过期，其他节点接手并沿用 Redis 中保存的基线，调整节奏不随节点数变化
+ */
+@Slf4j
+@Component
+public class AdaptiveConcurrencyController {
+
+    private static final String LIMIT_KEY = "rag:global:chat:adaptive-limit";
+    private static final String BASELINE_KEY = "rag:global:chat:adaptive-baseline";
+    private static final String WINDOW_KEY = "rag:global:chat:adaptive-window";
+    private static final String LEADER_KEY = "rag:global:chat:adaptive-leader";
+    private static final int BASELINE_WINDOWS = 60;
+
+    /**
+     * 租约与集群窗口的存活时长（以窗口计）：持有者连续错过这么多窗口才让出，集群窗口无人领取时随之过期
+     */
+    private static final int LEASE_WINDOWS = 3;
+
+    private static final String FLUSH_LUA = """
+            redis.call('HINCRBY', KEYS[1], 'samples', ARGV[1])
+            redis.call('HINCRBYFLOAT', KEYS[1], 'latencyMs', ARGV[2])
+            redis.call('HINCRBY', KEYS[1], 'errors', ARGV[3])
+            redis.call('PEXPIRE', KEYS[1], ARGV[4])
+            return 1
+            """;
+
+    /**
+     * 集群窗口样本够数才取走，不够则留在原处继续累积
+     */
+    private static final String DRAIN_LUA = """
+            local samples = tonumber(redis.call('HGET', KEYS[1], 'samples') or '0')
+            local errors = tonumber(redis.call('HGET', KEYS[1], 'errors') or '0')
+            if samples + errors < tonumber(ARGV[1]) then
+                return nil
+            end
+            local latency = redis.call('HGET', KEYS[1], 'latencyMs') or '0'
+            redis.call('DEL', KEYS[1])
+            return {tostring(samples), latency, tostring(errors)}
+            """;
+
+    private static final String LEASE_LUA = """
+            local owner = redis.call('GET', KEYS[1])
+            if owner == false or owner == ARGV[1] then
+                redis.call('SET', KEYS[1], ARGV[1], 'PX', ARGV[2])
+                return 1
+            end
+            return 0
+            """;
+
+    private final FairDistributedRateLimiter chatRateLimiter;
+    private final RedissonClient redissonClient;
+    private final RAGRateLimitProperties rateLimitProperties;
+    private final GradientConcurrencyLimit algorithm;
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private long samples;
+    private long latencySumNanos;
+    private long errors;
+
+    /**
+     * 上个窗口是否持有调整租约，只在调度线程上读写
+     */
+    private boolean leading;
+
+    public AdaptiveConcurrencyController(FairDistributedRateLimiter chatRateLimiter,
+                                         RedissonClient redissonClient,
+                                         RAGRateLimitProperties rateLimitProperties) {
+        this.chatRateLimiter = chatRateLimiter;
+        this.redissonClient = redissonClient;
+        this.rateLimitProperties = rateLimitProperties;
+        this.algorithm = new GradientConcurrencyLimit(
+                rateLimitProperties.getGlobalAdaptiveMinConcurrent(),
+                rateLimitProperties.getGlobalAdaptiveMaxConcurrent(),
+                rateLimitProperties.getGlobalAdaptiveRttTolerance(),
+                rateLimitProperties.getGlobalAdaptiveSmoothing(),
+                rateLimitProperties.getGlobalAdaptiveErrorRateThreshold(),
+                BASELINE_WINDOWS);
+    }
+
+    /**
+     * 首次启用时以静态 max-concurrent 作为起点；已有集群值时先夹回 [min, max]（上下界可能在两次启动间收窄），
+     * 再把 semaphore 对齐过去，兜住上次写回上限但改许可数前进程退出的情况
+     */
+    @PostConstruct
+    public void init() {
+        if (!isEnabled()) {
+            return;
+        }
+        RAtomicDouble limit = redissonClient.getAtomicDouble(LIMIT_KEY);
+        limit.compareAndSet(0D, algorithm.clamp(rateLimitProperties.getGlobalMaxConcurrent()));
+        double stored = limit.get();
+        double clamped = algorithm.clamp(stored);
+        if (clamped != stored) {
+            limit.compareAndSet(stored, clamped);
+        }
+        chatRateLimiter.resize((int) clamped);
+    }
+
+    /**
+     * 包装交给大模型流式调用的回调，记录发起调用到首字的耗时与首字前失败；未启用时原样返回
+     * <p>
+     * 只能包在真正发起大模型调用的地方，固定回复不经过这里
+     */
+    public StreamCallback track(StreamCallback callback) {
+        if (!isEnabled()) {
+            return callback;
+        }
+        long startNanos = System.nanoTime();
+        return new ForwardingStreamCallback(callback) {
+
+            private volatile boolean firstContentSeen;
+
+            @Override
+            protected void onFirstContent() {
+                firstContentSeen = true;
+                recordLatency(System.nanoTime() - startNanos);
+            }
+
+            @Override
+            protected void onFinish(boolean success, Throwable error) {
+                // 首字之后的失败与并发压力关系不大（多为用户取消、输出中途断流），只统计首字前失败
+                if (!success && !firstContentSeen) {
+                    recordError();
+                }
+            }
+        };
+    }
+
+    @Scheduled(fixedDelayString = "${rag.rate-limit.global.adaptive.window-ms:1000}")
+    public void adjust() {
+        if (!isEnabled()) {
+            return;
+        }
+        try {
+            flushLocalWindow();
+            if (!holdLease()) {
+                leading = false;
+                return;
+            }
+            if (!leading) {
+                // 刚接手：沿用上一任留下的基线，不从零学起
+                algorithm.restoreBaseline(redissonClient.getAtomicDouble(BASELINE_KEY).get());
+                leading = true;
+            }
+            Window window = drainClusterWindow();
+            if (window == null) {
+                return;
+            }
+            RAtomicDouble limit = redissonClient.getAtomicDouble(LIMIT_KEY);
+            double stored = limit.get();
+            if (stored <= 0) {
+                return;
+            }
+            double current = algorithm.clamp(stored);
+            Window observed = new Window(window.samples(), window.avgLatencyMs(), window.errors(),
+                    (int) current - chatRateLimiter.availablePermits());
+            double next = algorithm.next(current, observed);
+            redissonClient.getAtomicDouble(BASELINE_KEY).set(algorithm.baselineLatencyMs());
+            if (next == stored) {
+                return;
+            }
+            limit.set(next);
+            if ((int) next != (int) stored) {
+                chatRateLimiter.resize((int) next);
+                log.info("对话并发上限调整：{} -> {}，首字均值 {}ms，基线 {}ms，失败 {}/{}，占用 {}",
+                        (int) stored, (int) next, Math.round(observed.avgLatencyMs()),
+                        Math.round(algorithm.baselineLatencyMs()), observed.errors(),
+                        observed.samples() + observed.errors(), observed.inFlight());
+            }
+        } catch (Exception ex) {
+            log.warn("调整对话并发上限失败，保持当前值", ex);
+        }
+    }
+
+    private boolean isEnabled() {
+        return Boolean.TRUE.equals(rateLimitProperties.getGlobalEnabled())
+                && Boolean.TRUE.equals(rateLimitProperties.getGlobalAdaptiveEnabled());
+    }
+
+    private synchronized void recordLatency(long nanos) {
+        samples++;
+        latencySumNanos += nanos;
+    }
+
+    private synchronized void recordError() {
+        errors++;
+    }
+
+    /**
+     * 把本节点窗口内的观测累加进集群窗口，本地计数清零
+     */
+    private void flushLocalWindow() {
+        long flushSamples;
+        long flushLatencyNanos;
+        long flushErrors;
+        synchronized (this) {
+            flushSamples = samples;
+            flushLatencyNanos = latencySumNanos;
+            flushErrors = errors;
+            samples = 0;
+            latencySumNanos = 0;
+            errors = 0;
+        }
+        if (flushSamples + flushErrors == 0) {
+            return;
+        }
+        redissonClient.getScript(StringCodec.INSTANCE).eval(
+                RScript.Mode.READ_WRITE,
+                FLUSH_LUA,
+                RScript.ReturnType.LONG,
+                List.of(WINDOW_KEY),
+                String.valueOf(flushSamples),
+                String.valueOf(flushLatencyNanos / 1_000_000D),
+                String.valueOf(flushErrors),
+                String.valueOf(leaseMs()));
+    }
+
+    private boolean holdLease() {
+        Long held = redissonClient.getScript(StringCodec.INSTANCE).eval(
+                RScript.Mode.READ_WRITE,
+                LEASE_LUA,
+                RScript.ReturnType.LONG,
+                List.of(LEADER_KEY),
+                nodeId,
+                String.valueOf(leaseMs()));
+        return held != null && held == 1L;
+    }
+
+    /**
+     * 全集群样本不足时继续累积到下个窗口，避免低流量下凭一两个请求大幅调整
+     */
+    private Window drainClusterWindow() {
+        List<Object> drained = redissonClient.getScript(StringCodec.INSTANCE).eval(
+                RScript.Mode.READ_WRITE,
+                DRAIN_LUA,
+                RScript.ReturnType.LIST,
+                List.of(WINDOW_KEY),
+                String.valueOf(rateLimitProperties.getGlobalAdaptiveMinSamples()));
+        if (drained == null || drained.size() < 3) {
+            return null;
+        }
+        long windowSamples = Long.parseLong(String.valueOf(drained.get(0)));
+        double latencyMs = Double.parseDouble(String.valueOf(drained.get(1)));
+        long windowErrors = Long.parseLong(String.valueOf(drained.get(2)));
+        return new Window(windowSamples, windowSamples == 0 ? 0D : latencyMs / windowSamples, windowErrors, 0);
+    }
+
+    private long leaseMs() {
+        return (long) rateLimitProperties.getGlobalAdaptiveWindowMs() * LEASE_WINDOWS;
+    }
+}
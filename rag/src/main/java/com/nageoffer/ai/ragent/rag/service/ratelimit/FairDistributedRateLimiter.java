@@ -50,11 +50,25 @@ import java.util.function.IntSupplier;
 
 /**
  * 分布式公平限流器
+ * <p>
+ * 两种发放模式（{@link GrantMode}）：
+ * <ul>
+ *   <li>{@code POLL}：许可变化时广播通知，各节点唤醒本地全部排队者各自跑一次 claim 脚本抢占，外加固定间隔轮询</li>
+ *   <li>{@code PUSH}：许可变化时由 grant 脚本原子地弹出存活队头票据，向其所属节点的专属频道定向发布，
+ *       节点本地分发器直接认领对应 {@link Ticket}。排队者不再轮询抢占，轮询只作为找回丢失 grant、
+ *       回收租约过期许可的慢速兜底。几千人排队时 Redis 压力从「每次释放 × 全部排队者」降为「每次释放 × 1」</li>
+ * </ul>
+ * 模式是集群级设置；滚动升级期间轮询模式节点写入的票据不参与推送，仍由其自身轮询抢占
  */
 @Slf4j
 public final class FairDistributedRateLimiter {
 
     private static final String LUA_PATH = "lua/queue_claim_atomic.lua";
+    private static final String GRANT_LUA_PATH = "lua/queue_grant_atomic.lua";
+    /**
+     * 轮询模式的 entry 标记值；推送模式写入节点 ID，grant 脚本据此定向发布
+     */
+    private static final String POLL_ENTRY_MARKER = "1";
     /**
      * entry TTL 在 maxWaitMillis 之上的额外缓冲，避免毫秒级时钟漂移导致存活条目被误判为僵尸
      */
@@ -65,46 +79,76 @@ public final class FairDistributedRateLimiter {
     private final IntSupplier maxPermitsSupplier;
     private final IntSupplier leaseSecondsSupplier;
     private final IntSupplier pollIntervalMsSupplier;
+    private final GrantMode grantMode;
+    private final String nodeId = IdUtil.getSnowflakeNextIdStr();
 
     private final String semaphoreKey;
     private final String queueKey;
     private final String queueSeqKey;
     private final String notifyTopicKey;
     private final String entryKeyPrefix;
+    private final String grantedKey;
+    private final String grantTopicPrefix;
     private final String claimLua;
+    private final String grantLua;
 
     private final ScheduledExecutorService scheduler;
     private final PollNotifier pollNotifier;
+    /**
+     * 推送模式下本节点仍在排队的票据，grant 到达时按 requestId 直接找到
+     */
+    private final ConcurrentHashMap<String, Ticket> waitingTickets = new ConcurrentHashMap<>();
     private final AtomicBoolean started = new AtomicBoolean(false);
     private volatile int notifyListenerId = -1;
+    private volatile int grantListenerId = -1;
 
     public FairDistributedRateLimiter(String name,
                                       RedissonClient redissonClient,
                                       IntSupplier maxPermitsSupplier,
                                       IntSupplier leaseSecondsSupplier,
                                       IntSupplier pollIntervalMsSupplier) {
+        this(name, redissonClient, maxPermitsSupplier, leaseSecondsSupplier, pollIntervalMsSupplier, GrantMode.POLL);
+    }
+
+    /**
+     * @param pollIntervalMsSupplier 轮询间隔；推送模式下即兜底轮询间隔，应远大于轮询模式
+     * @param grantMode              许可发放模式
+     */
+    public FairDistributedRateLimiter(String name,
+                                      RedissonClient redissonClient,
+                                      IntSupplier maxPermitsSupplier,
+                                      IntSupplier leaseSecondsSupplier,
+                                      IntSupplier pollIntervalMsSupplier,
+                                      GrantMode grantMode) {
         this.name = Objects.requireNonNull(name);
         this.redissonClient = Objects.requireNonNull(redissonClient);
         this.maxPermitsSupplier = Objects.requireNonNull(maxPermitsSupplier);
         this.leaseSecondsSupplier = Objects.requireNonNull(leaseSecondsSupplier);
         this.pollIntervalMsSupplier = Objects.requireNonNull(pollIntervalMsSupplier);
+        this.grantMode = Objects.requireNonNull(grantMode);
 
         this.semaphoreKey = name + ":semaphore";
         this.queueKey = name + ":queue";
         this.queueSeqKey = name + ":queue:seq";
         this.notifyTopicKey = name + ":queue:notify";
         this.entryKeyPrefix = name + ":entry:";
-        this.claimLua = loadLuaScript();
+        this.grantedKey = name + ":queue:granted";
+        this.grantTopicPrefix = name + ":grant:";
+        this.claimLua = loadLuaScript(LUA_PATH);
+        this.grantLua = loadLuaScript(GRANT_LUA_PATH);
 
         String threadPrefix = name.replace(':', '_');
         int schedulerSize = Math.min(4, Math.max(2, Runtime.getRuntime().availableProcessors() / 2));
         AtomicInteger threadCounter = new AtomicInteger();
-        this.scheduler = new ScheduledThreadPoolExecutor(schedulerSize, r -> {
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(schedulerSize, r -> {
             Thread t = new Thread(r);
             t.setName(threadPrefix + "_scheduler_" + threadCounter.incrementAndGet());
             t.setDaemon(true);
             return t;
         });
+        // 推送模式的截止时间任务是一次性延迟任务，停机时不必等它们到点
+        executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        this.scheduler = executor;
         this.pollNotifier = new PollNotifier(this::availablePermits, scheduler);
     }
 
@@ -115,6 +159,12 @@ public final class FairDistributedRateLimiter {
         // 一次性初始化 semaphore permits 数；trySetPermits 自身幂等，仅首次生效
         // 后续 acquire/availablePermits 不再重复调用，避免每个 poller 多一次 Redis 往返
         redissonClient.getPermitExpirableSemaphore(semaphoreKey).trySetPermits(maxPermitsSupplier.getAsInt());
+        if (grantMode == GrantMode.PUSH) {
+            // grant 脚本直接 PUBLISH 原始字符串，频道必须用 StringCodec 解码
+            RTopic grantTopic = redissonClient.getTopic(grantTopicPrefix + nodeId, StringCodec.INSTANCE);
+            grantListenerId = grantTopic.addListener(String.class, (channel, msg) -> onGrantMessage(msg));
+            return;
+        }
         RTopic topic = redissonClient.getTopic(notifyTopicKey);
         notifyListenerId = topic.addListener(String.class, (channel, msg) -> pollNotifier.fire());
     }
@@ -127,9 +177,23 @@ public final class FairDistributedRateLimiter {
             redissonClient.getTopic(notifyTopicKey).removeListener(notifyListenerId);
             notifyListenerId = -1;
         }
+        if (grantListenerId != -1) {
+            redissonClient.getTopic(grantTopicPrefix + nodeId, StringCodec.INSTANCE).removeListener(grantListenerId);
+            grantListenerId = -1;
+        }
         scheduler.shutdown();
         awaitShutdown(scheduler);
         pollNotifier.clear();
+        waitingTickets.clear();
+    }
+
+    /**
+     * 把许可总数改为 permits。Redisson 按与当前总数的差值增减可用许可，已被占用的许可不受影响；
+     * 缩容时占用者照常释放，占用数回落到新上限以下后才会继续发放
+     */
+    public void resize(int permits) {
+        redissonClient.getPermitExpirableSemaphore(semaphoreKey).setPermits(permits);
+        publishQueueNotify();
     }
 
     /**
@@ -137,6 +201,10 @@ public final class FairDistributedRateLimiter {
      */
     public void acquire(AcquireRequest req) {
         Ticket ticket = new Ticket(req);
+        if (grantMode == GrantMode.PUSH) {
+            // 先登记再入队：入队后 grant 随时可能到达，分发器必须能找到票据
+            waitingTickets.put(ticket.requestId, ticket);
+        }
         if (req.cancelBinder() != null) {
             req.cancelBinder().accept(ticket::cancel);
         }
@@ -165,6 +233,7 @@ public final class FairDistributedRateLimiter {
         final AtomicReference<State> state = new AtomicReference<>(State.PENDING);
         final AtomicReference<String> permitRef = new AtomicReference<>();
         volatile ScheduledFuture<?> future;
+        volatile ScheduledFuture<?> deadlineFuture;
 
         Ticket(AcquireRequest req) {
             this.req = req;
@@ -256,6 +325,10 @@ public final class FairDistributedRateLimiter {
             boolean removed = false;
             try {
                 removed = redissonClient.getScoredSortedSet(queueKey, StringCodec.INSTANCE).remove(requestId);
+                if (grantMode == GrantMode.PUSH) {
+                    // 已发放未认领：这次 grant 作废，要重新发放给下一位，否则许可空闲到兜底轮询
+                    removed |= redissonClient.getScoredSortedSet(grantedKey, StringCodec.INSTANCE).remove(requestId);
+                }
             } catch (Exception ex) {
                 log.debug("[{}] 移除队列失败 (requestId={})", name, requestId, ex);
             }
@@ -278,10 +351,15 @@ public final class FairDistributedRateLimiter {
 
         void unregisterFromNotifier() {
             pollNotifier.unregister(requestId);
+            waitingTickets.remove(requestId);
         }
 
         void cancelFutureQuietly() {
-            ScheduledFuture<?> f = future;
+            cancelQuietly(future);
+            cancelQuietly(deadlineFuture);
+        }
+
+        private void cancelQuietly(ScheduledFuture<?> f) {
             if (f != null && !f.isCancelled()) {
                 f.cancel(false);
             }
@@ -312,17 +390,7 @@ public final class FairDistributedRateLimiter {
         }
         String permitId = tryAcquirePermit();
         if (permitId == null) {
-            // 队头但无 permit：按原 score 重入队，保留排队位次（公平性）
-            // 与 cancel/timeout 的 race：claimIfReady 已 ZREM，cleanup 的 remove 在此刻是 no-op；
-            // 必须 add 后回查 state，若已终态则自行回滚，避免僵尸条目永久占据队头窗口
-            setEntryMarker(ticket.requestId, Math.max(1, ticket.deadline - System.currentTimeMillis()));
-            RScoredSortedSet<String> queue = redissonClient.getScoredSortedSet(queueKey, StringCodec.INSTANCE);
-            queue.add(claimedScore, ticket.requestId);
-            publishQueueNotify();
-            if (!ticket.isPending()) {
-                queue.remove(ticket.requestId);
-                deleteEntryMarker(ticket.requestId);
-            }
+            requeue(ticket, claimedScore);
             return false;
         }
         if (!ticket.isPending()) {
@@ -335,6 +403,117 @@ public final class FairDistributedRateLimiter {
         return ticket.grant(permitId);
     }
 
+    /**
+     * 队头但无 permit：按原 score 重入队，保留排队位次（公平性）
+     * <p>
+     * 与 cancel/timeout 的 race：claim / grant 已把条目移出队列，cleanup 的 remove 在此刻是 no-op；
+     * 必须 add 后回查 state，若已终态则自行回滚，避免僵尸条目永久占据队头窗口
+     */
+    private void requeue(Ticket ticket, long score) {
+        setEntryMarker(ticket.requestId, Math.max(1, ticket.deadline - System.currentTimeMillis()));
+        RScoredSortedSet<String> queue = redissonClient.getScoredSortedSet(queueKey, StringCodec.INSTANCE);
+        queue.add(score, ticket.requestId);
+        publishQueueNotify();
+        if (!ticket.isPending()) {
+            queue.remove(ticket.requestId);
+            deleteEntryMarker(ticket.requestId);
+        }
+    }
+
+    // ==================== 推送发放 ====================
+
+    /**
+     * 许可可能空出时按队头顺序发放 grant；推送模式下替代广播通知
+     */
+    private void dispatchGrants() {
+        try {
+            int avail = availablePermits();
+            if (avail <= 0) {
+                return;
+            }
+            redissonClient.getScript(StringCodec.INSTANCE).eval(
+                    RScript.Mode.READ_WRITE,
+                    grantLua,
+                    RScript.ReturnType.LONG,
+                    List.of(queueKey, grantedKey),
+                    String.valueOf(avail),
+                    entryKeyPrefix,
+                    grantTopicPrefix
+            );
+        } catch (Exception ex) {
+            // 发放失败不影响正确性：兜底轮询会把停在队头的票据捞起来
+            log.debug("[{}] 发放 grant 失败", name, ex);
+        }
+    }
+
+    /**
+     * grant 消息到达：Redisson 监听线程不做阻塞调用，转到 scheduler 上认领
+     */
+    private void onGrantMessage(String payload) {
+        int sep = payload == null ? -1 : payload.lastIndexOf(':');
+        if (sep <= 0) {
+            return;
+        }
+        String requestId = payload.substring(0, sep);
+        long score = (long) Double.parseDouble(payload.substring(sep + 1));
+        try {
+            scheduler.execute(() -> handleGrant(requestId, score));
+        } catch (RejectedExecutionException ex) {
+            log.debug("[{}] 限流器已停止，丢弃 grant (requestId={})", name, requestId);
+        }
+    }
+
+    /**
+     * 认领 grant。已发放集合的 ZREM 是唯一认领点：分发器、兜底轮询与 cleanup 三方谁删成功谁负责后续，
+     * 票据已不在本节点（取消/超时）时把这次 grant 转发给下一位
+     */
+    private void handleGrant(String requestId, long score) {
+        boolean taken = redissonClient.getScoredSortedSet(grantedKey, StringCodec.INSTANCE).remove(requestId);
+        Ticket ticket = waitingTickets.get(requestId);
+        if (ticket == null) {
+            if (taken) {
+                dispatchGrants();
+            }
+            return;
+        }
+        if (taken) {
+            claimGranted(ticket, score);
+        }
+    }
+
+    /**
+     * 兜底轮询发现自己在已发放集合里，说明 grant 消息丢了，自行认领
+     */
+    private boolean takeLostGrant(Ticket ticket) {
+        RScoredSortedSet<String> granted = redissonClient.getScoredSortedSet(grantedKey, StringCodec.INSTANCE);
+        Double score = granted.getScore(ticket.requestId);
+        if (score == null || !granted.remove(ticket.requestId)) {
+            return false;
+        }
+        claimGranted(ticket, score.longValue());
+        return true;
+    }
+
+    private void claimGranted(Ticket ticket, long score) {
+        if (!ticket.isPending()) {
+            dispatchGrants();
+            return;
+        }
+        String permitId = tryAcquirePermit();
+        if (permitId == null) {
+            // 被入队快路径或租约回收抢先：回到原位次，等下一次许可变化
+            requeue(ticket, score);
+            return;
+        }
+        deleteEntryMarker(ticket.requestId);
+        if (!ticket.isPending()) {
+            releasePermitQuietly(permitId);
+            publishQueueNotify();
+            return;
+        }
+        ticket.grant(permitId);
+    }
+
     private void scheduleQueuePoll(Ticket ticket) {
         int interval = Math.max(50, pollIntervalMsSupplier.getAsInt());
         Runnable poller = () -> {
@@ -347,10 +526,19 @@ public final class FairDistributedRateLimiter {
                 ticket.timeout();
                 return;
             }
+            if (grantMode == GrantMode.PUSH && takeLostGrant(ticket)) {
+                return;
+            }
             tryAcquireIfReady(ticket);
         };
         ticket.future = scheduler.scheduleAtFixedRate(poller, interval, interval, TimeUnit.MILLISECONDS);
-        pollNotifier.register(ticket.requestId, poller);
+        if (grantMode == GrantMode.POLL) {
+            pollNotifier.register(ticket.requestId, poller);
+        } else {
+            // 兜底轮询间隔远大于轮询模式，超时不能再依赖它来判定，单独按截止时间触发
+            long delay = Math.max(0L, ticket.deadline - System.currentTimeMillis());
+            ticket.deadlineFuture = scheduler.schedule(ticket::timeout, delay, TimeUnit.MILLISECONDS);
+        }
     }
 
     // ==================== Redis 操作 ====================
@@ -365,7 +553,7 @@ public final class FairDistributedRateLimiter {
         }
     }
 
-    private int availablePermits() {
+    int availablePermits() {
         return redissonClient.getPermitExpirableSemaphore(semaphoreKey).availablePermits();
     }
 
@@ -385,7 +573,7 @@ public final class FairDistributedRateLimiter {
         long ttlMillis = Math.max(remainingMillis, 1L) + ENTRY_TTL_BUFFER_MILLIS;
         try {
             RBucket<String> bucket = redissonClient.getBucket(entryKeyPrefix + requestId, StringCodec.INSTANCE);
-            bucket.set("1", Duration.ofMillis(ttlMillis));
+            bucket.set(grantMode == GrantMode.PUSH ? nodeId : POLL_ENTRY_MARKER, Duration.ofMillis(ttlMillis));
         } catch (Exception ex) {
             log.debug("[{}] 写入 entry 标记失败 (requestId={})", name, requestId, ex);
         }
@@ -404,11 +592,13 @@ public final class FairDistributedRateLimiter {
      */
     private long claimIfReady(String requestId, int availablePermits) {
         RScript script = redissonClient.getScript(StringCodec.INSTANCE);
+        // 推送模式带上已发放集合：已发放未认领的票据占着许可额度，后来者不能越过它们
+        List<Object> keys = grantMode == GrantMode.PUSH ? List.of(queueKey, grantedKey) : List.of(queueKey);
         List<Object> result = script.eval(
                 RScript.Mode.READ_WRITE,
                 claimLua,
                 RScript.ReturnType.LIST,
-                List.of(queueKey),
+                keys,
                 requestId,
                 String.valueOf(availablePermits),
                 entryKeyPrefix
@@ -425,6 +615,10 @@ public final class FairDistributedRateLimiter {
     }
 
     private void publishQueueNotify() {
+        if (grantMode == GrantMode.PUSH) {
+            dispatchGrants();
+            return;
+        }
         redissonClient.getTopic(notifyTopicKey).publish("permit_changed");
     }
 
@@ -444,12 +638,12 @@ public final class FairDistributedRateLimiter {
         return 0L;
     }
 
-    private static String loadLuaScript() {
+    private static String loadLuaScript(String path) {
         try {
-            ClassPathResource resource = new ClassPathResource(LUA_PATH);
+            ClassPathResource resource = new ClassPathResource(path);
             return StreamUtils.copyToString(resource.getInputStream(), StandardCharsets.UTF_8);
         } catch (Exception ex) {
-            throw new IllegalStateException("加载 Lua 脚本失败：" + LUA_PATH, ex);
+            throw new IllegalStateException("加载 Lua 脚本失败：" + path, ex);
         }
     }
 
@@ -466,6 +660,22 @@ public final class FairDistributedRateLimiter {
 
     // ==================== 公开类型 ====================
 
+    /**
+     * 许可发放模式
+     */
+    public enum GrantMode {
+
+        /**
+         * 广播通知 + 各节点轮询抢占
+         */
+        POLL,
+
+        /**
+         * 释放时定向推送给队头票据所属节点，轮询只做慢速兜底
+         */
+        PUSH
+    }
+
     /**
      * 抢占请求参数
      */
@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nageoffer.ai.ragent.rag.service.ratelimit;
+
+/**
+ * 基于延迟梯度的并发上限估算（Gradient2 思路）
+ * <p>
+ * 以「无排队」基线延迟与本窗口平均首字延迟相比得到梯度：短期延迟明显高于基线说明下游开始排队，
+ * 按梯度收缩上限；延迟持平则每个窗口多放 √limit 个名额试探容量。结果经平滑后落在 [min, max] 内。
+ * 错误率超阈值时直接乘性退让，不更新基线，避免失败请求的短延迟把基线拉低。
+ * <p>
+ * 基线是缓慢移动的 EMA 而非历史最小值：更低的延迟随时可以把它往下拉，但每个窗口只拉一小步，
+ * 偶发的极快窗口（缓存命中、极短回答）不会把基线一把拉塌、让上限一路缩到下界；上调则只从未拥塞的窗口学习
+ * （占用不到一半，或上限已压到下界仍然慢）：若饱和窗口也参与上调，基线会一路跟着排队延迟上涨，梯度恒为 1，上限只增不减。
+ * 下游整体变慢时上限先被压到下界，随后基线在下界处学到新的延迟水平，上限再重新爬升。
+ * <p>
+ * 上限以浮点保存：小数值下单个窗口的调整不足一个许可，累积到整数后才真正改变许可数。非线程安全，由调用方串行驱动
+ */
+final class GradientConcurrencyLimit {
+
+    private static final double MIN_GRADIENT = 0.5;
+    private static final double ERROR_BACKOFF = 0.9;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double rttTolerance;
+    private final double smoothing;
+    private final double errorRateThreshold;
+    private final double baselineAlpha;
+
+    private double baselineLatencyMs;
+
+    /**
+     * @param rttTolerance    容忍短期延迟达到基线的倍数，超过才开始收缩
+     * @param smoothing       新估算值的权重，越小越平稳
+     * @param baselineWindows 基线 EMA 覆盖的窗口数
+     */
+    GradientConcurrencyLimit(int minLimit, int maxLimit, double rttTolerance, double smoothing,
+                             double errorRateThreshold, int baselineWindows) {
+        if (minLimit < 1 || maxLimit < minLimit) {
+            throw new IllegalArgumentException("require 1 <= minLimit <= maxLimit");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.rttTolerance = rttTolerance;
+        this.smoothing = smoothing;
+        this.errorRateThreshold = errorRateThreshold;
+        this.baselineAlpha = 2D / (Math.max(1, baselineWindows) + 1);
+    }
+
+    /**
+     * 根据一个窗口的观测推导下一个上限
+     *
+     * @param current 当前集群上限
+     * @param window  本窗口观测
+     */
+    double next(double current, Window window) {
+        long total = window.samples() + window.errors();
+        if (total == 0) {
+            return clamp(current);
+        }
+        if ((double) window.errors() / total > errorRateThreshold) {
+            return clamp(current * ERROR_BACKOFF);
+        }
+        if (window.samples() == 0) {
+            return clamp(current);
+        }
+
+        double shortLatency = window.avgLatencyMs();
+        // 占用不到一半说明瓶颈不在并发上限（流量本身就少），此时无从判断容量，不放大也不收缩
+        boolean appLimited = window.inFlight() < current / 2;
+        if (baselineLatencyMs <= 0) {
+            baselineLatencyMs = shortLatency;
+        } else if (shortLatency < baselineLatencyMs || appLimited || current <= minLimit) {
+            baselineLatencyMs += (shortLatency - baselineLatencyMs) * baselineAlpha;
+        }
+        if (appLimited) {
+            return clamp(current);
+        }
+
+        double gradient = Math.max(MIN_GRADIENT, Math.min(1D, rttTolerance * baselineLatencyMs / shortLatency));
+        double estimated = current * gradient + Math.sqrt(current);
+        return clamp(current * (1 - smoothing) + estimated * smoothing);
+    }
+
+    double baselineLatencyMs() {
+        return baselineLatencyMs;
+    }
+
+    /**
+     * 接手调整时沿用上一任调整节点留下的基线，非正数表示没有可用基线
+     */
+    void restoreBaseline(double baselineLatencyMs) {
+        this.baselineLatencyMs = Math.max(0D, baselineLatencyMs);
+    }
+
+    double clamp(double limit) {
+        return Math.max(minLimit, Math.min(maxLimit, limit));
+    }
+
+    /**
+     * 一个调整窗口内的观测
+     *
+     * @param samples      LLM 调用拿到首字的请求数
+     * @param avgLatencyMs 发起 LLM 调用到首字的平均耗时（不含检索等前置阶段）
+     * @param errors       LLM 调用首字前失败的请求数
+     * @param inFlight     窗口结束时集群内占用的许可数
+     */
+    record Window(long samples, double avgLatencyMs, long errors, int inFlight) {
+    }
+}
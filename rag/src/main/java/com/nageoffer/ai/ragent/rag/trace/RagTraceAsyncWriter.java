@@ -0,0 +1,375 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nageoffer.ai.ragent.rag.trace;
+
+import cn.hutool.core.util.IdUtil;
+import com.baomidou.mybatisplus.core.toolkit.Wrappers;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalNotification;
+import com.nageoffer.ai.ragent.rag.config.RagTraceProperties;
+import com.nageoffer.ai.ragent.rag.dao.entity.RagTraceNodeDO;
+import com.nageoffer.ai.ragent.rag.dao.entity.RagTraceRunDO;
+import com.nageoffer.ai.ragent.rag.dao.mapper.RagTraceNodeMapper;
+import com.nageoffer.ai.ragent.rag.dao.mapper.RagTraceRunMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * RAG Trace 异步批量写入器
+ * <p>
+ * 同步模式下每个 @RagTraceNode 方法进出各一次 JDBC（开始 INSERT、结束 UPDATE），一轮对话 15~30 次往返，
+ * 全压在请求线程上并与业务争抢连接池。这里把写入挪出请求线程：
+ * <ul>
+ *     <li>节点开始只在内存登记，结束时与开始信息合并成一行已完成节点，整条生命周期只落一次库</li>
+ *     <li>待写记录进有界队列，后台单线程按 batchSize / flushIntervalMs 攒批，多行 INSERT 写出</li>
+ *     <li>队列满按 overflowPolicy 丢弃或短暂阻塞，trace 不能反过来拖垮对话</li>
+ *     <li>开始记录已因超时 / 容量被按 RUNNING 写出的节点，结束时入队一条终态，由写线程按 (trace_id, node_id) 更新</li>
+ *     <li>停机时先把未结束节点按 RUNNING 写出，再等队列写完</li>
+ * </ul>
+ * 代价是节点在结束后才可见，运行中的链路详情里看不到进行中的节点；运行记录仍在开始时写入，列表页不受影响
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "rag.trace.async", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class RagTraceAsyncWriter {
+
+    private static final String POLICY_BLOCK = "block";
+
+    /**
+     * 等待新记录时检查停机标志的间隔，flushIntervalMs 配得再大停机也不会被卡住
+     */
+    private static final long STOP_CHECK_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+    private final RagTraceRunMapper runMapper;
+    private final RagTraceNodeMapper nodeMapper;
+    private final RagTraceProperties.Async config;
+    private final BlockingQueue<TraceWrite> queue;
+    private final Cache<String, RagTraceNodeDO> pendingNodes;
+    private final AtomicLong dropped = new AtomicLong();
+    private final Thread worker;
+    private volatile boolean running = true;
+
+    public RagTraceAsyncWriter(RagTraceRunMapper runMapper,
+                               RagTraceNodeMapper nodeMapper,
+                               RagTraceProperties traceProperties) {
+        this.runMapper = runMapper;
+        this.nodeMapper = nodeMapper;
+        this.config = traceProperties.getAsync();
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, config.getQueueCapacity()));
+        // 开始了却迟迟没结束的节点（调用方漏收尾）按 RUNNING 写出后移除，内存有上界
+        this.pendingNodes = CacheBuilder.newBuilder()
+                .maximumSize(Math.max(1, config.getMaxPendingNodes()))
+                .expireAfterWrite(Duration.ofMillis(Math.max(1, config.getPendingNodeTtlMs())))
+                .removalListener((RemovalNotification<String, RagTraceNodeDO> notification) -> {
+                    if (notification.wasEvicted() && notification.getValue() != null) {
+                        enqueue(TraceWrite.node(notification.getValue()));
+                    }
+                })
+                .build();
+        this.worker = new Thread(this::runLoop, "rag_trace_writer");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    public void startRun(RagTraceRunDO run) {
+        enqueue(TraceWrite.runStart(run));
+    }
+
+    public void finishRun(String traceId, String status, String errorMessage, Date endTime, long durationMs) {
+        enqueue(TraceWrite.runFinish(RagTraceRunDO.builder()
+                .traceId(traceId)
+                .status(status)
+                .errorMessage(errorMessage)
+                .endTime(endTime)
+                .durationMs(durationMs)
+                .build()));
+    }
+
+    public void startNode(RagTraceNodeDO node) {
+        pendingNodes.put(node.getNodeId(), node);
+    }
+
+    public void finishNode(String traceId, String nodeId, String status, String errorMessage, Date endTime, long durationMs) {
+        RagTraceNodeDO node = pendingNodes.asMap().remove(nodeId);
+        if (node == null) {
+            // 开始记录已因超时 / 容量被按 RUNNING 写出（其写入先于本条入队），终态交给写线程补一次 UPDATE，请求线程不碰 SQL
+            enqueue(TraceWrite.nodeFinish(RagTraceNodeDO.builder()
+                    .traceId(traceId)
+                    .nodeId(nodeId)
+                    .status(status)
+                    .errorMessage(errorMessage)
+                    .endTime(endTime)
+                    .durationMs(durationMs)
+                    .build()));
+            return;
+        }
+        node.setStatus(status);
+        node.setErrorMessage(errorMessage);
+        node.setEndTime(endTime);
+        node.setDurationMs(durationMs);
+        enqueue(TraceWrite.node(node));
+    }
+
+    /**
+     * 因队列满被丢弃的记录数
+     */
+    public long droppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * 尚未写出的记录数
+     */
+    public int backlog() {
+        return queue.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // 先把仍在运行的节点按 RUNNING 写出，与同步模式下停机时库里留下的状态一致
+        List<RagTraceNodeDO> unfinished = new ArrayList<>(pendingNodes.asMap().values());
+        pendingNodes.invalidateAll();
+        unfinished.forEach(node -> enqueue(TraceWrite.node(node)));
+
+        running = false;
+        try {
+            worker.join(Math.max(1, config.getShutdownTimeoutMs()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (worker.isAlive() || !queue.isEmpty()) {
+            log.warn("trace 写入器停机超时，未写出记录数：{}", queue.size());
+        }
+    }
+
+    private void enqueue(TraceWrite write) {
+        if (!running) {
+            // 停机过程中才到的尾部事件直接同步写，量很小
+            writeBatch(List.of(write));
+            return;
+        }
+        boolean accepted;
+        if (POLICY_BLOCK.equalsIgnoreCase(config.getOverflowPolicy())) {
+            try {
+                accepted = queue.offer(write, config.getBlockTimeoutMs(), TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                accepted = false;
+            }
+        } else {
+            accepted = queue.offer(write);
+        }
+        if (!accepted) {
+            long count = dropped.incrementAndGet();
+            // 按 1、2、4、8... 次打印，持续过载时日志量是对数级
+            if ((count & (count - 1)) == 0) {
+                log.warn("trace 写入队列已满，累计丢弃：{}，队列容量：{}", count, config.getQueueCapacity());
+            }
+        }
+    }
+
+    private void runLoop() {
+        int batchSize = Math.max(1, config.getBatchSize());
+        long flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, config.getFlushIntervalMs()));
+        List<TraceWrite> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                pendingNodes.cleanUp();
+                TraceWrite first = pollWhileRunning(flushIntervalNanos);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + flushIntervalNanos;
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0 || !running) {
+                        break;
+                    }
+                    TraceWrite next = pollWhileRunning(remaining);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                writeBatch(batch);
+            } catch (InterruptedException e) {
+                if (!batch.isEmpty()) {
+                    writeBatch(batch);
+                }
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Throwable t) {
+                log.error("trace 写入线程异常", t);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private TraceWrite pollWhileRunning(long timeoutNanos) throws InterruptedException {
+        long deadline = System.nanoTime() + timeoutNanos;
+        while (true) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return null;
+            }
+            TraceWrite write = queue.poll(Math.min(remaining, STOP_CHECK_NANOS), TimeUnit.NANOSECONDS);
+            if (write != null || !running) {
+                return write;
+            }
+        }
+    }
+
+    /**
+     * 自定义多行 INSERT 不经过 MyBatis-Plus 的主键生成与自动填充，写出前在这里补齐。
+     * 同一批内的运行记录开始 + 结束、被提前写出的节点 + 其终态各合并成一次 INSERT；结束先于开始落库的不会出现，
+     * 因为同一写线程按入队顺序处理，跨批的结束一定晚于其开始所在的批
+     */
+    void writeBatch(List<TraceWrite> batch) {
+        Date now = new Date();
+        Map<String, RagTraceRunDO> runInserts = new LinkedHashMap<>();
+        List<RagTraceRunDO> runFinishes = new ArrayList<>();
+        Map<String, RagTraceNodeDO> nodeInserts = new LinkedHashMap<>();
+        List<RagTraceNodeDO> nodeFinishes = new ArrayList<>();
+        for (TraceWrite write : batch) {
+            switch (write.kind()) {
+                case RUN_START -> runInserts.put(write.run().getTraceId(), write.run());
+                case RUN_FINISH -> {
+                    RagTraceRunDO started = runInserts.get(write.run().getTraceId());
+                    if (started == null) {
+                        runFinishes.add(write.run());
+                    } else {
+                        started.setStatus(write.run().getStatus());
+                        started.setErrorMessage(write.run().getErrorMessage());
+                        started.setEndTime(write.run().getEndTime());
+                        started.setDurationMs(write.run().getDurationMs());
+                    }
+                }
+                case NODE -> nodeInserts.put(nodeKey(write.node()), write.node());
+                case NODE_FINISH -> {
+                    RagTraceNodeDO started = nodeInserts.get(nodeKey(write.node()));
+                    if (started == null) {
+                        nodeFinishes.add(write.node());
+                    } else {
+                        started.setStatus(write.node().getStatus());
+                        started.setErrorMessage(write.node().getErrorMessage());
+                        started.setEndTime(write.node().getEndTime());
+                        started.setDurationMs(write.node().getDurationMs());
+                    }
+                }
+            }
+        }
+
+        if (!runInserts.isEmpty()) {
+            List<RagTraceRunDO> runs = new ArrayList<>(runInserts.values());
+            for (RagTraceRunDO run : runs) {
+                if (run.getId() == null) {
+                    run.setId(IdUtil.getSnowflakeNextIdStr());
+                }
+                run.setCreateTime(now);
+                run.setUpdateTime(now);
+            }
+            try {
+                runMapper.insertBatchIgnoreConflict(runs);
+            } catch (Exception e) {
+                log.warn("批量写入 trace 运行记录失败，条数：{}", runs.size(), e);
+            }
+        }
+        if (!nodeInserts.isEmpty()) {
+            List<RagTraceNodeDO> nodes = new ArrayList<>(nodeInserts.values());
+            for (RagTraceNodeDO node : nodes) {
+                if (node.getId() == null) {
+                    node.setId(IdUtil.getSnowflakeNextIdStr());
+                }
+                node.setCreateTime(now);
+                node.setUpdateTime(now);
+            }
+            try {
+                nodeMapper.insertBatchIgnoreConflict(nodes);
+            } catch (Exception e) {
+                log.warn("批量写入 trace 节点失败，条数：{}", nodes.size(), e);
+            }
+        }
+        for (RagTraceRunDO finish : runFinishes) {
+            String traceId = finish.getTraceId();
+            finish.setTraceId(null);
+            try {
+                runMapper.update(finish, Wrappers.lambdaUpdate(RagTraceRunDO.class)
+                        .eq(RagTraceRunDO::getTraceId, traceId));
+            } catch (Exception e) {
+                log.warn("更新 trace 运行记录失败，traceId：{}", traceId, e);
+            }
+        }
+        for (RagTraceNodeDO finish : nodeFinishes) {
+            String traceId = finish.getTraceId();
+            String nodeId = finish.getNodeId();
+            finish.setTraceId(null);
+            finish.setNodeId(null);
+            try {
+                nodeMapper.update(finish, Wrappers.lambdaUpdate(RagTraceNodeDO.class)
+                        .eq(RagTraceNodeDO::getTraceId, traceId)
+                        .eq(RagTraceNodeDO::getNodeId, nodeId));
+            } catch (Exception e) {
+                log.warn("更新 trace 节点失败，traceId：{}，nodeId：{}", traceId, nodeId, e);
+            }
+        }
+    }
+
+    private static String nodeKey(RagTraceNodeDO node) {
+        return node.getTraceId() + ":" + node.getNodeId();
+    }
+
+    enum Kind {
+        RUN_START, RUN_FINISH, NODE, NODE_FINISH
+    }
+
+    record TraceWrite(Kind kind, RagTraceRunDO run, RagTraceNodeDO node) {
+
+        static TraceWrite runStart(RagTraceRunDO run) {
+            return new TraceWrite(Kind.RUN_START, run, null);
+        }
+
+        static TraceWrite runFinish(RagTraceRunDO run) {
+            return new TraceWrite(Kind.RUN_FINISH, run, null);
+        }
+
+        static TraceWrite node(RagTraceNodeDO node) {
+            return new TraceWrite(Kind.NODE, null, node);
+        }
+
+        static TraceWrite nodeFinish(RagTraceNodeDO node) {
+            return new TraceWrite(Kind.NODE_FINISH, null, node);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 -- 当请求位于允许的队头窗口内时，进行出队 claim；同时清理过期僵尸条目
 -- KEYS[1]: 队列 ZSET Key
+-- KEYS[2]: （可选，推送模式）已发放未认领 ZSET Key，其中的票据各自占用一个许可额度
 -- ARGV[1]: 请求 ID
 -- ARGV[2]: 最大可进入的 rank（可用许可数）
 -- ARGV[3]: entry 存活标记 Key 前缀（Java 侧已 set with TTL，缺失即视为僵尸）
@@ -8,6 +9,11 @@ local requestId = ARGV[1]
 local maxRank = tonumber(ARGV[2])
 local entryPrefix = ARGV[3]
 
+if KEYS[2] then
+    maxRank = maxRank - redis.call('ZCARD', KEYS[2])
+    if maxRank <= 0 then return {0} end
+end
+
 -- 取头部窗口 + 额外 slack：slack 用于在僵尸密集时尽量推进存活条目至 maxRank 之内
 local slack = 16
 local headEntries = redis.call('ZRANGE', queueKey, 0, maxRank + slack - 1)
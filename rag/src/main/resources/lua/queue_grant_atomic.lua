@@ -0,0 +1,47 @@
+-- 推送模式发放：许可变化后把存活的队头票据移入已发放集合，并向票据所属节点定向发布 grant
+-- KEYS[1]: 队列 ZSET Key
+-- KEYS[2]: 已发放未认领 ZSET Key（score 沿用排队 score，认领失败时按原位次重入队）
+-- ARGV[1]: 当前可用许可数
+-- ARGV[2]: entry 存活标记 Key 前缀（值为所属节点 ID；轮询模式节点写入 "1"，不参与推送）
+-- ARGV[3]: grant 频道前缀（拼接节点 ID 即该节点的专属频道）
+-- 返回本次发放的票据数
+local queueKey = KEYS[1]
+local grantedKey = KEYS[2]
+local available = tonumber(ARGV[1])
+local entryPrefix = ARGV[2]
+local channelPrefix = ARGV[3]
+
+-- 已发放集合里 entry 标记已过期的条目：所属节点宕机或消息丢失后票据已超时，移除以归还额度
+local pending = redis.call('ZRANGE', grantedKey, 0, 15)
+for i = 1, #pending do
+    if redis.call('EXISTS', entryPrefix .. pending[i]) == 0 then
+        redis.call('ZREM', grantedKey, pending[i])
+    end
+end
+
+-- 已发放但尚未认领的票据马上会各自去拿许可，额度要先扣掉，避免同一许可被重复发放
+local budget = available - redis.call('ZCARD', grantedKey)
+if budget <= 0 then return 0 end
+
+-- 取头部窗口 + 额外 slack：slack 用于跳过僵尸与轮询模式条目后仍能凑满额度
+local slack = 16
+local headEntries = redis.call('ZRANGE', queueKey, 0, budget + slack - 1, 'WITHSCORES')
+
+local granted = 0
+for i = 1, #headEntries, 2 do
+    if granted >= budget then break end
+    local member = headEntries[i]
+    local score = headEntries[i + 1]
+    local owner = redis.call('GET', entryPrefix .. member)
+    if not owner then
+        -- 僵尸（entry 标记已 TTL 过期或被显式删除），从队列移除
+        redis.call('ZREM', queueKey, member)
+    elseif owner ~= '1' then
+        redis.call('ZREM', queueKey, member)
+        redis.call('ZADD', grantedKey, score, member)
+        redis.call('PUBLISH', channelPrefix .. owner, member .. ':' .. score)
+        granted = granted + 1
+    end
+end
+
+return granted
@@ -0,0 +1,166 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nageoffer.ai.ragent.admin.rollup;
+
+import com.nageoffer.ai.ragent.rag.config.DashboardRollupProperties;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class DashboardRollupTest {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2026, 10, 17, 9, 0);
+
+    @Test
+    @DisplayName("分钟桶序列化后合并成小时桶再合并成窗口，分位数与原先全量排序的结果误差在 1% 内")
+    void rollupPercentilesMatchExactComputation() {
+        Random random = new Random(20261017L);
+        List<Long> durations = new ArrayList<>();
+        Map<LocalDateTime, DashboardRollup> minutes = new TreeMap<>();
+        for (int minute = 0; minute < 6 * 60; minute++) {
+            DashboardRollup bucket = new DashboardRollup();
+            int requests = 20 + random.nextInt(60);
+            for (int i = 0; i < requests; i++) {
+                // 对数正态：主体在 1~5 秒，长尾到几十秒，和真实对话耗时形状接近
+                long duration = Math.max(1L, Math.round(Math.exp(7.8 + 0.6 * random.nextGaussian())));
+                durations.add(duration);
+                bucket.recordLatency(duration);
+            }
+            minutes.put(BASE.plusMinutes(minute), roundTrip(bucket));
+        }
+
+        Map<LocalDateTime, DashboardRollup> hours = new TreeMap<>();
+        minutes.forEach((start, bucket) -> hours.computeIfAbsent(start.withMinute(0), key -> new DashboardRollup()).merge(bucket));
+        DashboardRollup window = new DashboardRollup();
+        hours.values().stream().map(DashboardRollupTest::roundTrip).forEach(window::merge);
+
+        assertEquals(durations.size(), window.getLatencyCount());
+        assertEquals(exactAverage(durations), window.averageLatency());
+        assertEquals(durations.stream().filter(d -> d > DashboardRollup.SLOW_LATENCY_THRESHOLD_MS).count(), window.getSlowCount());
+        for (double percentile : new double[]{50, 95, 99}) {
+            long exact = exactPercentile(durations, percentile / 100);
+            long estimated = window.getLatency().percentile(percentile);
+            assertTrue(Math.abs(estimated - exact) <= Math.max(1, exact / 100),
+                    "p" + (int) percentile + " 期望 " + exact + "，实际 " + estimated);
+        }
+    }
+
+    @Test
+    @DisplayName("查询范围拆成原始表零头、分钟桶、小时桶与水位之后的原始表")
+    void readerSplitsRangeAtMinuteHourAndWatermark() {
+        DashboardRollupStore store = mock(DashboardRollupStore.class);
+        when(store.loadWatermark()).thenReturn(LocalDateTime.of(2026, 10, 17, 12, 7));
+        when(store.scanRaw(any(), any())).thenReturn(Map.of());
+        when(store.load(anyString(), any(), any())).thenReturn(Map.of());
+        DashboardRollupReader reader = new DashboardRollupReader(store, new DashboardRollupProperties());
+
+        reader.aggregate(LocalDateTime.of(2026, 10, 17, 9, 30, 30), LocalDateTime.of(2026, 10, 17, 12, 10, 15));
+
+        InOrder order = inOrder(store);
+        order.verify(store).scanRaw(LocalDateTime.of(2026, 10, 17, 9, 30, 30), LocalDateTime.of(2026, 10, 17, 9, 31));
+        order.verify(store).load(DashboardRollupStore.GRANULARITY_MINUTE,
+                LocalDateTime.of(2026, 10, 17, 9, 31), LocalDateTime.of(2026, 10, 17, 10, 0));
+        order.verify(store).load(DashboardRollupStore.GRANULARITY_HOUR,
+                LocalDateTime.of(2026, 10, 17, 10, 0), LocalDateTime.of(2026, 10, 17, 12, 0));
+        order.verify(store).load(DashboardRollupStore.GRANULARITY_MINUTE,
+                LocalDateTime.of(2026, 10, 17, 12, 0), LocalDateTime.of(2026, 10, 17, 12, 7));
+        order.verify(store).scanRaw(LocalDateTime.of(2026, 10, 17, 12, 7), LocalDateTime.of(2026, 10, 17, 12, 10, 15));
+    }
+
+    @Test
+    @DisplayName("没有水位时整段扫原始表")
+    void readerFallsBackToRawScanWithoutWatermark() {
+        DashboardRollupStore store = mock(DashboardRollupStore.class);
+        when(store.scanRaw(any(), any())).thenReturn(Map.of());
+        DashboardRollupReader reader = new DashboardRollupReader(store, new DashboardRollupProperties());
+
+        reader.aggregate(BASE, BASE.plusHours(24));
+
+        verify(store).scanRaw(BASE, BASE.plusHours(24));
+    }
+
+    @Test
+    @DisplayName("任务按小时推进水位到封口时间，整点跨过后合并出小时桶")
+    void jobAdvancesWatermarkHourByHour() {
+        DashboardRollupStore store = mock(DashboardRollupStore.class);
+        when(store.loadWatermark()).thenReturn(LocalDateTime.of(2026, 10, 17, 10, 30));
+        DashboardRollup minute = new DashboardRollup();
+        minute.addSessions(3);
+        when(store.scanRaw(any(), any())).thenReturn(Map.of());
+        when(store.load(eq(DashboardRollupStore.GRANULARITY_MINUTE), any(), any()))
+                .thenReturn(Map.of(LocalDateTime.of(2026, 10, 17, 10, 45), minute));
+        DashboardRollupJob job = new DashboardRollupJob(store, new DashboardRollupProperties(), null);
+
+        job.rollup(LocalDateTime.of(2026, 10, 17, 12, 10, 40));
+
+        InOrder order = inOrder(store);
+        order.verify(store).scanRaw(LocalDateTime.of(2026, 10, 17, 10, 30), LocalDateTime.of(2026, 10, 17, 11, 0));
+        order.verify(store).save(eq(DashboardRollupStore.GRANULARITY_HOUR), anyMap());
+        order.verify(store).saveWatermark(LocalDateTime.of(2026, 10, 17, 11, 0));
+        order.verify(store).scanRaw(LocalDateTime.of(2026, 10, 17, 11, 0), LocalDateTime.of(2026, 10, 17, 12, 0));
+        order.verify(store).saveWatermark(LocalDateTime.of(2026, 10, 17, 12, 0));
+        order.verify(store).scanRaw(LocalDateTime.of(2026, 10, 17, 12, 0), LocalDateTime.of(2026, 10, 17, 12, 5));
+        order.verify(store).saveWatermark(LocalDateTime.of(2026, 10, 17, 12, 5));
+    }
+
+    /**
+     * 经过一次落库编码再读回，覆盖草图的序列化
+     */
+    private static DashboardRollup roundTrip(DashboardRollup rollup) {
+        return DashboardRollup.restore(rollup.getSessions(), rollup.getMessages(), rollup.getAssistantMessages(),
+                rollup.getNoDocMessages(), rollup.getTraceSuccess(), rollup.getTraceError(), rollup.getLatencyCount(),
+                rollup.getLatencySum(), rollup.getSlowCount(), rollup.getLatency().toBytes());
+    }
+
+    /**
+     * 原 DashboardServiceImpl 的全量口径：排序后取 ceil(n * p) - 1
+     */
+    private static long exactPercentile(List<Long> values, double percentile) {
+        List<Long> sorted = new ArrayList<>(values);
+        sorted.sort(Long::compareTo);
+        int index = (int) Math.ceil(sorted.size() * percentile) - 1;
+        index = Math.max(0, Math.min(index, sorted.size() - 1));
+        return sorted.get(index);
+    }
+
+    private static long exactAverage(List<Long> values) {
+        long sum = 0L;
+        for (Long value : values) {
+            sum += value;
+        }
+        return Math.round(sum / (double) values.size());
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nageoffer.ai.ragent.core.ingest;
+
+import cn.hutool.crypto.SecureUtil;
+import com.nageoffer.ai.ragent.core.chunk.model.Chunk;
+import com.nageoffer.ai.ragent.core.ingest.sink.PersistedChunk;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 增量比对契约：未变块零写入、移动块沿用原 ID、删除只删没被认领的旧块
+ */
+class ChunkDiffTest {
+
+    @Test
+    @DisplayName("内容与位置都没变：全部计为未变，沿用原 ID，无需向量化")
+    void identicalDocumentIsAllUnchanged() {
+        List<PersistedChunk> persisted = List.of(persisted("old-0", 0, "A"), persisted("old-1", 1, "B"));
+
+        ChunkDiff diff = ChunkDiff.compute(List.of(fresh(0, "A"), fresh(1, "B")), persisted, SecureUtil::sha256);
+
+        assertEquals(new IngestionOutcome.ChunkChangeStats(0, 0, 0, 2), diff.stats());
+        assertTrue(diff.toEmbed().isEmpty());
+        assertEquals(List.of("old-0", "old-1"), diff.allChunks().stream().map(Chunk::chunkId).toList());
+    }
+
+    @Test
+    @DisplayName("改一段：只有该位置计为变化，沿用该位置原 ID")
+    void editedParagraphIsChanged() {
+        List<PersistedChunk> persisted = List.of(
+                persisted("old-0", 0, "A"), persisted("old-1", 1, "B"), persisted("old-2", 2, "C"));
+
+        ChunkDiff diff = ChunkDiff.compute(List.of(fresh(0, "A"), fresh(1, "B2"), fresh(2, "C")), persisted, SecureUtil::sha256);
+
+        assertEquals(new IngestionOutcome.ChunkChangeStats(0, 1, 0, 2), diff.stats());
+        assertEquals("old-1", diff.changed().get(0).chunkId());
+        assertEquals("B2", diff.changed().get(0).content());
+    }
+
+    @Test
+    @DisplayName("开头插入一段：后续块按内容认领原 ID，只新增一块，不删不重建")
+    void insertionShiftsButReusesIds() {
+        List<PersistedChunk> persisted = List.of(persisted("old-0", 0, "A"), persisted("old-1", 1, "B"));
+
+        ChunkDiff diff = ChunkDiff.compute(List.of(fresh(0, "X"), fresh(1, "A"), fresh(2, "B")), persisted, SecureUtil::sha256);
+
+        // 位置 0 的旧块已被 "A" 按内容认领，"X" 只能新增；A、B 序号变了，记为变化但向量文本不变，嵌入缓存命中
+        assertEquals(new IngestionOutcome.ChunkChangeStats(1, 2, 0, 0), diff.stats());
+        assertEquals(List.of("new-0", "old-0", "old-1"), diff.allChunks().stream().map(Chunk::chunkId).toList());
+    }
+
+    @Test
+    @DisplayName("文档变短：多出来的旧块删除")
+    void truncatedDocumentRemovesTail() {
+        List<PersistedChunk> persisted = List.of(
+                persisted("old-0", 0, "A"), persisted("old-1", 1, "B"), persisted("old-2", 2, "C"));
+
+        ChunkDiff diff = ChunkDiff.compute(List.of(fresh(0, "A")), persisted, SecureUtil::sha256);
+
+        assertEquals(new IngestionOutcome.ChunkChangeStats(0, 0, 2, 1), diff.stats());
+        assertEquals(List.of("old-1", "old-2"), diff.removedIds());
+    }
+
+    @Test
+    @DisplayName("被人工禁用的旧块不复用：与整篇替换一致，由新块取代")
+    void disabledChunkIsReplaced() {
+        List<PersistedChunk> persisted = new ArrayList<>();
+        persisted.add(persisted("old-0", 0, "A"));
+        persisted.add(new PersistedChunk("old-1", 1, SecureUtil.sha256("B"), "B", false));
+
+        ChunkDiff diff = ChunkDiff.compute(List.of(fresh(0, "A"), fresh(1, "B")), persisted, SecureUtil::sha256);
+
+        assertEquals(new IngestionOutcome.ChunkChangeStats(1, 0, 1, 1), diff.stats());
+        assertEquals(List.of("old-1"), diff.removedIds());
+    }
+
+    private static Chunk fresh(int index, String content) {
+        return new Chunk("new-" + index, index, content, content, null);
+    }
+
+    private static PersistedChunk persisted(String id, int index, String content) {
+        return new PersistedChunk(id, index, SecureUtil.sha256(content), content, true);
+    }
+}
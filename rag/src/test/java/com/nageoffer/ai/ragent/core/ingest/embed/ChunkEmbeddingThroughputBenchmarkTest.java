@@ -0,0 +1,180 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nageoffer.ai.ragent.core.ingest.embed;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.nageoffer.ai.ragent.core.chunk.model.Chunk;
+import com.nageoffer.ai.ragent.core.chunk.model.EmbeddedChunk;
+import com.nageoffer.ai.ragent.core.ingest.VectorTarget;
+import com.nageoffer.ai.ragent.infra.config.AIModelProperties;
+import com.nageoffer.ai.ragent.infra.embedding.EmbeddingBatchExecutor;
+import com.nageoffer.ai.ragent.infra.embedding.EmbeddingCache;
+import com.nageoffer.ai.ragent.infra.embedding.RoutingEmbeddingService;
+import com.nageoffer.ai.ragent.infra.embedding.SiliconFlowEmbeddingClient;
+import com.nageoffer.ai.ragent.infra.model.ModelHealthStore;
+import com.nageoffer.ai.ragent.infra.model.ModelRoutingExecutor;
+import com.nageoffer.ai.ragent.infra.model.ModelSelector;
+import com.nageoffer.ai.ragent.infra.model.ModelTarget;
+import com.sun.net.httpserver.HttpServer;
+import okhttp3.OkHttpClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 入库向量化吞吐基准：本地桩 HTTP 服务按批注入固定延迟，对比顺序切片与并发切片
+ * <p>
+ * 走真实的 ChunkEmbeddingService → RoutingEmbeddingService → OpenAI 兼容客户端链路，只把供应商换成桩；
+ * 嵌入缓存关闭，量到的是纯网络往返。耗时数秒，默认不跑：{@code -Dragent.benchmark=true}
+ */
+@EnabledIfSystemProperty(named = "ragent.benchmark", matches = "true")
+class ChunkEmbeddingThroughputBenchmarkTest {
+
+    private static final int CHUNKS = 2000;
+    private static final int DIMENSION = 8;
+    private static final long LATENCY_MS = 80;
+
+    private HttpServer server;
+    private ExecutorService serverPool;
+    private ExecutorService slicePool;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        serverPool = Executors.newFixedThreadPool(16);
+        slicePool = Executors.newFixedThreadPool(16);
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(serverPool);
+        server.createContext("/v1/embeddings", exchange -> {
+            JsonObject request = JsonParser.parseString(
+                    new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8)).getAsJsonObject();
+            int count = request.getAsJsonArray("input").size();
+            sleep(LATENCY_MS);
+            JsonArray data = new JsonArray();
+            for (int i = 0; i < count; i++) {
+                JsonArray embedding = new JsonArray();
+                for (int d = 0; d < DIMENSION; d++) {
+                    embedding.add(0.1F * (d + 1));
+                }
+                JsonObject item = new JsonObject();
+                item.add("embedding", embedding);
+                data.add(item);
+            }
+            JsonObject response = new JsonObject();
+            response.add("data", data);
+            byte[] bytes = response.toString().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(bytes);
+            }
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+        serverPool.shutdownNow();
+        slicePool.shutdownNow();
+    }
+
+    @Test
+    void parallelSlicesOutperformSequential() {
+        List<Chunk> chunks = IntStream.range(0, CHUNKS)
+                .mapToObj(i -> new Chunk("c" + i, i, "内容 " + i, "向量文本 " + i, null))
+                .toList();
+        VectorTarget target = new VectorTarget("bench", "stub-emb", DIMENSION);
+
+        // 预热一轮，排除连接建立与类加载
+        newService(false).embed(chunks.subList(0, 64), target);
+
+        long sequentialMs = measure(newService(false), chunks, target);
+        long parallelMs = measure(newService(true), chunks, target);
+
+        System.out.printf("ChunkEmbeddingService 吞吐（%d 块，单批延迟 %dms）：顺序 %dms / %.0f 块每秒，并发 %dms / %.0f 块每秒，提升 %.1fx%n",
+                CHUNKS, LATENCY_MS, sequentialMs, CHUNKS * 1000.0 / sequentialMs,
+                parallelMs, CHUNKS * 1000.0 / parallelMs, (double) sequentialMs / parallelMs);
+        assertTrue(parallelMs * 2 < sequentialMs, "并发切片应至少快一倍");
+    }
+
+    private long measure(ChunkEmbeddingService service, List<Chunk> chunks, VectorTarget target) {
+        long start = System.nanoTime();
+        List<EmbeddedChunk> embedded = service.embed(chunks, target);
+        long elapsed = (System.nanoTime() - start) / 1_000_000;
+        assertEquals(chunks.size(), embedded.size());
+        for (int i = 0; i < embedded.size(); i++) {
+            assertEquals(chunks.get(i).chunkId(), embedded.get(i).chunkId());
+        }
+        return elapsed;
+    }
+
+    private ChunkEmbeddingService newService(boolean parallel) {
+        AIModelProperties properties = new AIModelProperties();
+        properties.getEmbeddingCache().setEnabled(false);
+        properties.getEmbeddingBatch().setEnabled(parallel);
+        properties.getEmbeddingBatch().setMaxConcurrency(8);
+        properties.getEmbeddingBatch().setInitialConcurrency(4);
+
+        AIModelProperties.ProviderConfig provider = new AIModelProperties.ProviderConfig();
+        provider.setUrl("http://127.0.0.1:" + server.getAddress().getPort());
+        provider.setApiKey("stub");
+        provider.getEndpoints().put("embedding", "/v1/embeddings");
+        AIModelProperties.ModelCandidate candidate = new AIModelProperties.ModelCandidate();
+        candidate.setId("stub-emb");
+        candidate.setProvider("siliconflow");
+        candidate.setModel("stub-model");
+        candidate.setDimension(DIMENSION);
+        ModelTarget modelTarget = new ModelTarget("stub-emb", candidate, provider, null);
+
+        ModelSelector selector = mock(ModelSelector.class);
+        when(selector.selectEmbeddingCandidates()).thenReturn(List.of(modelTarget));
+
+        RoutingEmbeddingService embeddingService = new RoutingEmbeddingService(
+                selector,
+                new ModelRoutingExecutor(new ModelHealthStore(properties)),
+                List.of(new SiliconFlowEmbeddingClient(new OkHttpClient())),
+                new EmbeddingCache(properties, null),
+                new EmbeddingBatchExecutor(properties, slicePool));
+        return new ChunkEmbeddingService(embeddingService);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -323,7 +323,7 @@ public class InvoiceIndexDocumentTests {
             String chunk = chunks.get(i);
             if (!StringUtils.hasText(chunk)) continue;
 
-            List<Float> emb = embeddingService.embed(chunk);
+            float[] emb = embeddingService.embed(chunk);
 
             JsonObject row = new JsonObject();
             // 每个 chunk 一个独立主键
@@ -345,9 +345,11 @@ public class InvoiceIndexDocumentTests {
     }
 
 
-    private JsonArray floatListToJson(List<Float> list) {
+    private JsonArray floatListToJson(float[] vector) {
         JsonArray arr = new JsonArray();
-        list.forEach(arr::add);
+        for (float v : vector) {
+            arr.add(v);
+        }
         return arr;
     }
 }
@@ -0,0 +1,219 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nageoffer.ai.ragent.infra.chat;
+
+import com.nageoffer.ai.ragent.framework.convention.ChatRequest;
+import com.nageoffer.ai.ragent.framework.trace.RagStreamTraceSupport;
+import com.nageoffer.ai.ragent.infra.config.AIModelProperties;
+import com.nageoffer.ai.ragent.infra.http.ModelClientErrorType;
+import com.nageoffer.ai.ragent.infra.http.ModelClientException;
+import com.nageoffer.ai.ragent.infra.model.ModelTarget;
+import com.sun.net.httpserver.HttpServer;
+import okhttp3.OkHttpClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 非阻塞流式传输：经真实 OpenAI 兼容客户端打本地 SSE stub，验证终态语义与取消语义和阻塞实现一致
+ */
+class AsyncSseTransportTest {
+
+    private HttpServer server;
+    private AsyncSseTransport transport;
+    private OllamaChatClient client;
+
+    private volatile int status = 200;
+    private volatile int deltas = 3;
+    private volatile long intervalMs = 10L;
+    private volatile boolean sendDone = true;
+    private final AtomicBoolean clientDisconnected = new AtomicBoolean(false);
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/v1/chat/completions", exchange -> {
+            try {
+                exchange.getRequestBody().readAllBytes();
+                if (status != 200) {
+                    byte[] body = "{\"error\":\"busy\"}".getBytes(StandardCharsets.UTF_8);
+                    exchange.sendResponseHeaders(status, body.length);
+                    exchange.getResponseBody().write(body);
+                    return;
+                }
+                exchange.getResponseHeaders().add("Content-Type", "text/event-stream");
+                exchange.sendResponseHeaders(200, 0);
+                OutputStream os = exchange.getResponseBody();
+                for (int i = 0; i < deltas; i++) {
+                    os.write(("data: {\"choices\":[{\"delta\":{\"content\":\"t" + i + "\"}}]}\n\n").getBytes(StandardCharsets.UTF_8));
+                    os.flush();
+                    Thread.sleep(intervalMs);
+                }
+                if (sendDone) {
+                    os.write("data: [DONE]\n\n".getBytes(StandardCharsets.UTF_8));
+                }
+            } catch (IOException e) {
+                clientDisconnected.set(true);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                exchange.close();
+            }
+        });
+        server.start();
+
+        AIModelProperties properties = new AIModelProperties();
+        properties.getStream().setAsyncIoThreads(2);
+        transport = new AsyncSseTransport(properties);
+
+        client = new OllamaChatClient();
+        ReflectionTestUtils.setField(client, "syncHttpClient", new OkHttpClient());
+        ReflectionTestUtils.setField(client, "streamingHttpClient", new OkHttpClient());
+        // 阻塞路径的线程池一旦被用到就直接失败
+        ReflectionTestUtils.setField(client, "modelStreamExecutor", (Executor) task -> {
+            throw new AssertionError("async 传输不应占用 modelStreamExecutor");
+        });
+        ReflectionTestUtils.setField(client, "streamTraceSupport",
+                (RagStreamTraceSupport) (name, type) -> RagStreamTraceSupport.NOOP_SPAN);
+        ReflectionTestUtils.setField(client, "asyncSseTransport",
+                new StaticListableBeanFactory(Map.of("asyncSseTransport", transport)).getBeanProvider(AsyncSseTransport.class));
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+        transport.shutdown();
+    }
+
+    @Test
+    @DisplayName("逐行回调内容，收到 [DONE] 后完成")
+    void streamsContentUntilDone() throws InterruptedException {
+        RecordingCallback callback = new RecordingCallback();
+        client.streamChat(new ChatRequest(), callback, target());
+
+        assertTrue(callback.finished.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of("t0", "t1", "t2"), callback.contents);
+        assertTrue(callback.completed);
+        assertNull(callback.error);
+    }
+
+    @Test
+    @DisplayName("非 2xx 响应按状态码分类并带上错误体")
+    void httpErrorIsClassified() throws InterruptedException {
+        status = 429;
+        RecordingCallback callback = new RecordingCallback();
+        client.streamChat(new ChatRequest(), callback, target());
+
+        assertTrue(callback.finished.await(5, TimeUnit.SECONDS));
+        ModelClientException error = assertInstanceOf(ModelClientException.class, callback.error);
+        assertEquals(ModelClientErrorType.RATE_LIMITED, error.getErrorType());
+        assertTrue(error.getMessage().contains("busy"));
+    }
+
+    @Test
+    @DisplayName("连接关闭但未收到结束事件时按异常结束处理")
+    void endWithoutDoneIsError() throws InterruptedException {
+        sendDone = false;
+        RecordingCallback callback = new RecordingCallback();
+        client.streamChat(new ChatRequest(), callback, target());
+
+        assertTrue(callback.finished.await(5, TimeUnit.SECONDS));
+        assertEquals(3, callback.contents.size());
+        ModelClientException error = assertInstanceOf(ModelClientException.class, callback.error);
+        assertEquals(ModelClientErrorType.INVALID_RESPONSE, error.getErrorType());
+    }
+
+    @Test
+    @DisplayName("取消后不再回调内容与错误，并断开上游连接")
+    void cancelStopsCallbacksAndDisconnects() throws InterruptedException {
+        deltas = 200;
+        intervalMs = 20L;
+        RecordingCallback callback = new RecordingCallback();
+        StreamCancellationHandle handle = client.streamChat(new ChatRequest(), callback, target());
+
+        assertTrue(callback.firstContent.await(5, TimeUnit.SECONDS));
+        handle.cancel();
+        handle.cancel();
+        int received = callback.contents.size();
+
+        Thread.sleep(300L);
+        assertTrue(callback.contents.size() <= received + 1, "取消时最多还有一行正在分发");
+        assertNull(callback.error);
+        assertFalse(callback.completed);
+        assertTrue(clientDisconnected.get(), "上游应感知到连接断开");
+    }
+
+    private ModelTarget target() {
+        AIModelProperties.ModelCandidate candidate = new AIModelProperties.ModelCandidate();
+        candidate.setId("stub");
+        candidate.setProvider("ollama");
+        candidate.setModel("stub");
+        candidate.setUrl("http://127.0.0.1:" + server.getAddress().getPort() + "/v1/chat/completions");
+        return new ModelTarget("stub", candidate, new AIModelProperties.ProviderConfig(), null);
+    }
+
+    private static final class RecordingCallback implements StreamCallback {
+
+        private final List<String> contents = new CopyOnWriteArrayList<>();
+        private final CountDownLatch firstContent = new CountDownLatch(1);
+        private final CountDownLatch finished = new CountDownLatch(1);
+        private volatile boolean completed;
+        private volatile Throwable error;
+
+        @Override
+        public void onContent(String content) {
+            contents.add(content);
+            firstContent.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+            finished.countDown();
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            this.error = error;
+            finished.countDown();
+        }
+    }
+}
@@ -0,0 +1,241 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nageoffer.ai.ragent.infra.chat;
+
+import com.nageoffer.ai.ragent.framework.convention.ChatRequest;
+import com.nageoffer.ai.ragent.framework.trace.RagStreamTraceSupport;
+import com.nageoffer.ai.ragent.infra.config.AIModelProperties;
+import com.nageoffer.ai.ragent.infra.model.ModelTarget;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import okhttp3.ConnectionPool;
+import okhttp3.OkHttpClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 单节点能同时挂住多少路模型流：本地 SSE stub 让每路流按固定间隔慢慢出字，对比阻塞与非阻塞传输
+ * <p>
+ * stub 自身用 4 个调度线程驱动所有连接，不随流数增加线程；量的是客户端一侧的线程数与堆占用。
+ * 阻塞传输使用与 ThreadPoolExecutorConfig#modelStreamExecutor 同形的线程池（CPU 核数线程 + 200 队列 + 拒绝），
+ * 超出部分直接被拒；非阻塞传输全部流同时在途，线程数恒定。
+ * 耗时约半分钟，默认不跑：{@code -Dragent.benchmark=true}，流数用 {@code -Dragent.benchmark.streams} 调整
+ * （每路流占客户端与 stub 各一个文件描述符，注意 ulimit -n）
+ */
+@EnabledIfSystemProperty(named = "ragent.benchmark", matches = "true")
+class AsyncStreamingLoadBenchmarkTest {
+
+    private static final int STREAMS = Integer.getInteger("ragent.benchmark.streams", 2000);
+    private static final int DELTAS_PER_STREAM = 20;
+    private static final long DELTA_INTERVAL_MS = 250L;
+    private static final int IO_THREADS = 4;
+
+    private HttpServer server;
+    private ExecutorService serverPool;
+    private ScheduledExecutorService emitter;
+    private final AtomicInteger openStreams = new AtomicInteger();
+    private final AtomicInteger peakOpenStreams = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        serverPool = Executors.newFixedThreadPool(4);
+        emitter = Executors.newScheduledThreadPool(4);
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 4096);
+        server.setExecutor(serverPool);
+        server.createContext("/v1/chat/completions", this::startStream);
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+        emitter.shutdownNow();
+        serverPool.shutdownNow();
+    }
+
+    @Test
+    void asyncTransportHoldsAllStreamsOnFixedThreads() throws InterruptedException {
+        AIModelProperties properties = new AIModelProperties();
+        properties.getStream().setAsyncIoThreads(IO_THREADS);
+        AsyncSseTransport transport = new AsyncSseTransport(properties);
+        try {
+            OllamaChatClient client = newClient(Executors.newSingleThreadExecutor());
+            ReflectionTestUtils.setField(client, "asyncSseTransport",
+                    new StaticListableBeanFactory(Map.of("asyncSseTransport", transport)).getBeanProvider(AsyncSseTransport.class));
+
+            Result result = run(client, true);
+            print("async", result);
+            assertEquals(STREAMS, result.completed(), "全部流都应完整结束");
+            assertEquals(STREAMS, peakOpenStreams.get(), "全部流应同时在途");
+            assertTrue(result.transportThreads() <= IO_THREADS, "回调线程数不随流数增长");
+        } finally {
+            transport.shutdown();
+        }
+    }
+
+    @Test
+    void blockingTransportIsCappedByStreamPool() throws InterruptedException {
+        int cpu = Runtime.getRuntime().availableProcessors();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(Math.max(2, cpu >> 1), Math.max(4, cpu), 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(200), runnable -> new Thread(runnable, "model_stream_executor_bench"),
+                new ThreadPoolExecutor.AbortPolicy());
+        try {
+            // 队列里的流要排在前面的流之后逐批读完，等不完；取样后直接收尾
+            Result result = run(newClient(pool), false);
+            print("blocking", result);
+            assertTrue(result.rejected() > 0, "超出线程数 + 队列长度的流应被拒绝");
+            assertTrue(peakOpenStreams.get() <= pool.getMaximumPoolSize(), "同时在读的流数受线程数约束");
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private Result run(OllamaChatClient client, boolean awaitCompletion) throws InterruptedException {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        System.gc();
+        long heapBefore = memory.getHeapMemoryUsage().getUsed();
+        int threadsBefore = Thread.activeCount();
+
+        CountDownLatch finished = new CountDownLatch(STREAMS);
+        AtomicInteger completed = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        for (int i = 0; i < STREAMS; i++) {
+            client.streamChat(new ChatRequest(), new StreamCallback() {
+                @Override
+                public void onContent(String content) {
+                }
+
+                @Override
+                public void onComplete() {
+                    completed.incrementAndGet();
+                    finished.countDown();
+                }
+
+                @Override
+                public void onError(Throwable error) {
+                    rejected.incrementAndGet();
+                    finished.countDown();
+                }
+            }, target());
+        }
+
+        // 流过半时取样：此时所有能建立的流都在途
+        Thread.sleep(DELTAS_PER_STREAM * DELTA_INTERVAL_MS / 2);
+        System.gc();
+        long heapDuring = memory.getHeapMemoryUsage().getUsed();
+        int transportThreads = (int) Thread.getAllStackTraces().keySet().stream()
+                .filter(t -> t.getName().startsWith("model_stream_"))
+                .count();
+        int threadsDuring = Thread.activeCount();
+
+        if (awaitCompletion) {
+            assertTrue(finished.await(DELTAS_PER_STREAM * DELTA_INTERVAL_MS * 4 + 30_000L, TimeUnit.MILLISECONDS));
+        }
+        return new Result(completed.get(), rejected.get(), transportThreads, threadsDuring - threadsBefore,
+                heapDuring - heapBefore);
+    }
+
+    private void print(String mode, Result result) {
+        System.out.printf("[%s] streams=%d completed=%d rejected=%d peakOpen=%d transportThreads=%d extraThreads=%d "
+                        + "heapDelta=%.1fMB (%.1fKB/stream)%n",
+                mode, STREAMS, result.completed(), result.rejected(), peakOpenStreams.get(), result.transportThreads(),
+                result.extraThreads(), result.heapDelta() / 1024D / 1024D,
+                result.heapDelta() / 1024D / Math.max(1, peakOpenStreams.get()));
+    }
+
+    private record Result(int completed, int rejected, int transportThreads, int extraThreads, long heapDelta) {
+    }
+
+    /**
+     * 返回响应头后立即交还 handler 线程，后续增量由调度线程按间隔写出
+     */
+    private void startStream(HttpExchange exchange) throws IOException {
+        exchange.getRequestBody().readAllBytes();
+        exchange.getResponseHeaders().add("Content-Type", "text/event-stream");
+        exchange.sendResponseHeaders(200, 0);
+        peakOpenStreams.accumulateAndGet(openStreams.incrementAndGet(), Math::max);
+        OutputStream os = exchange.getResponseBody();
+        AtomicInteger sent = new AtomicInteger();
+        AtomicReference<ScheduledFuture<?>> task = new AtomicReference<>();
+        task.set(emitter.scheduleAtFixedRate(() -> {
+            try {
+                int seq = sent.getAndIncrement();
+                if (seq < DELTAS_PER_STREAM) {
+                    os.write(("data: {\"choices\":[{\"delta\":{\"content\":\"t" + seq + "\"}}]}\n\n")
+                            .getBytes(StandardCharsets.UTF_8));
+                    os.flush();
+                    return;
+                }
+                os.write("data: [DONE]\n\n".getBytes(StandardCharsets.UTF_8));
+                os.close();
+            } catch (IOException ignored) {
+                // 客户端断开
+            }
+            openStreams.decrementAndGet();
+            exchange.close();
+            task.get().cancel(false);
+        }, DELTA_INTERVAL_MS, DELTA_INTERVAL_MS, TimeUnit.MILLISECONDS));
+    }
+
+    private OllamaChatClient newClient(ExecutorService streamExecutor) {
+        OkHttpClient okHttp = new OkHttpClient.Builder()
+                .connectionPool(new ConnectionPool(STREAMS, 1, TimeUnit.MINUTES))
+                .build();
+        OllamaChatClient client = new OllamaChatClient();
+        ReflectionTestUtils.setField(client, "syncHttpClient", okHttp);
+        ReflectionTestUtils.setField(client, "streamingHttpClient", okHttp);
+        ReflectionTestUtils.setField(client, "modelStreamExecutor", streamExecutor);
+        ReflectionTestUtils.setField(client, "streamTraceSupport",
+                (RagStreamTraceSupport) (name, type) -> RagStreamTraceSupport.NOOP_SPAN);
+        return client;
+    }
+
+    private ModelTarget target() {
+        AIModelProperties.ModelCandidate candidate = new AIModelProperties.ModelCandidate();
+        candidate.setId("stub");
+        candidate.setProvider("ollama");
+        candidate.setModel("stub");
+        candidate.setUrl("http://127.0.0.1:" + server.getAddress().getPort() + "/v1/chat/completions");
+        return new ModelTarget("stub", candidate, new AIModelProperties.ProviderConfig(), null);
+    }
+}
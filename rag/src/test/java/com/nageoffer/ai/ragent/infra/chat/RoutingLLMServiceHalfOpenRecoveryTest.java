@@ -77,7 +77,7 @@ class RoutingLLMServiceHalfOpenRecoveryTest {
 
         callback = mock(StreamCallback.class);
         service = new RoutingLLMService(selector, healthStore,
-                mock(ModelRoutingExecutor.class), probe, List.of(client));
+                mock(ModelRoutingExecutor.class), probe, new StreamHedgePolicy(properties), List.of(client));
     }
 
     private void streamChatExpectingInterrupt() {
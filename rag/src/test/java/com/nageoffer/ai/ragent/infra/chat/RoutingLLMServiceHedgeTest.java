@@ -0,0 +1,258 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nageoffer.ai.ragent.infra.chat;
+
+import com.nageoffer.ai.ragent.framework.convention.ChatRequest;
+import com.nageoffer.ai.ragent.framework.trace.RagStreamTraceSupport;
+import com.nageoffer.ai.ragent.infra.config.AIModelProperties;
+import com.nageoffer.ai.ragent.infra.model.ModelHealthStore;
+import com.nageoffer.ai.ragent.infra.model.ModelRoutingExecutor;
+import com.nageoffer.ai.ragent.infra.model.ModelSelector;
+import com.nageoffer.ai.ragent.infra.model.ModelTarget;
+import com.sun.net.httpserver.HttpServer;
+import okhttp3.OkHttpClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 流式首包对冲：两个本地 SSE stub 按可配置延迟出首包，验证对冲触发条件、胜者提交与额度约束
+ */
+class RoutingLLMServiceHedgeTest {
+
+    private static final String TIER = "standard";
+    private static final long FIRST_PACKET_TIMEOUT_MS = 5000L;
+
+    private final ExecutorService streamExecutor = Executors.newCachedThreadPool();
+    private StubSseServer primaryServer;
+    private StubSseServer backupServer;
+    private AIModelProperties.StreamHedge hedge;
+    private StreamHedgePolicy hedgePolicy;
+    private RoutingLLMService service;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        primaryServer = new StubSseServer("primary");
+        backupServer = new StubSseServer("backup");
+
+        AIModelProperties properties = new AIModelProperties();
+        AIModelProperties.TierConfig tier = new AIModelProperties.TierConfig();
+        hedge = tier.getHedge();
+        hedge.setEnabled(true);
+        hedge.setMinSamples(1);
+        hedge.setMinDelayMs(50L);
+        properties.getChat().getTiers().put(TIER, tier);
+        hedgePolicy = new StreamHedgePolicy(properties);
+
+        ModelSelector selector = mock(ModelSelector.class);
+        when(selector.selectChatCandidates(anyBoolean()))
+                .thenReturn(List.of(target("primary", primaryServer), target("backup", backupServer)));
+        when(selector.resolveChatTierName(anyBoolean())).thenReturn(TIER);
+
+        OllamaChatClient client = new OllamaChatClient();
+        ReflectionTestUtils.setField(client, "syncHttpClient", new OkHttpClient());
+        ReflectionTestUtils.setField(client, "streamingHttpClient", new OkHttpClient());
+        ReflectionTestUtils.setField(client, "modelStreamExecutor", streamExecutor);
+        ReflectionTestUtils.setField(client, "streamTraceSupport",
+                (RagStreamTraceSupport) (name, type) -> RagStreamTraceSupport.NOOP_SPAN);
+
+        service = new RoutingLLMService(selector, new ModelHealthStore(properties), mock(ModelRoutingExecutor.class),
+                new LlmFirstPacketProbe(), hedgePolicy, List.of(client));
+    }
+
+    @AfterEach
+    void tearDown() {
+        primaryServer.stop();
+        backupServer.stop();
+        streamExecutor.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("主候选超过学到的首包分位点仍无首包时并行启动备用，备用先出首包即采用备用并撤掉主候选")
+    void slowPrimaryIsHedgedByBackup() throws InterruptedException {
+        hedgePolicy.recordFirstPacket("primary", 100L);
+        primaryServer.firstPacketDelayMs = 1500L;
+        backupServer.firstPacketDelayMs = 50L;
+
+        RecordingCallback callback = new RecordingCallback();
+        long start = System.nanoTime();
+        service.streamChat(new ChatRequest(), callback);
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertTrue(callback.completed.await(2, TimeUnit.SECONDS));
+        assertTrue(elapsedMs < 1000L, "首包不应等到主候选的 1.5 秒延迟，实际 " + elapsedMs + "ms");
+        assertEquals(List.of("backup"), callback.contents);
+        assertEquals(1, backupServer.requests.get());
+        Thread.sleep(1700L);
+        assertEquals(List.of("backup"), callback.contents, "被撤掉的主候选晚到的内容不能漏给下游");
+    }
+
+    @Test
+    @DisplayName("主候选在对冲点之前出首包时不启动备用")
+    void fastPrimaryIsNotHedged() throws InterruptedException {
+        hedgePolicy.recordFirstPacket("primary", 500L);
+        primaryServer.firstPacketDelayMs = 20L;
+
+        RecordingCallback callback = new RecordingCallback();
+        service.streamChat(new ChatRequest(), callback);
+
+        assertTrue(callback.completed.await(2, TimeUnit.SECONDS));
+        assertEquals(List.of("primary"), callback.contents);
+        assertEquals(0, backupServer.requests.get());
+    }
+
+    @Test
+    @DisplayName("没有学到首包延迟前不对冲，慢主候选照常等到出首包")
+    void noHedgeWithoutLatencySamples() throws InterruptedException {
+        primaryServer.firstPacketDelayMs = 400L;
+
+        RecordingCallback callback = new RecordingCallback();
+        service.streamChat(new ChatRequest(), callback);
+
+        assertTrue(callback.completed.await(2, TimeUnit.SECONDS));
+        assertEquals(List.of("primary"), callback.contents);
+        assertEquals(0, backupServer.requests.get());
+    }
+
+    @Test
+    @DisplayName("档位对冲额度耗尽时不再对冲，上游负载不被放大")
+    void exhaustedBudgetSuppressesHedge() throws InterruptedException {
+        hedge.setMaxBurst(0);
+        hedge.setBudgetRatio(0D);
+        hedgePolicy.recordFirstPacket("primary", 100L);
+        primaryServer.firstPacketDelayMs = 400L;
+        backupServer.firstPacketDelayMs = 20L;
+
+        RecordingCallback callback = new RecordingCallback();
+        service.streamChat(new ChatRequest(), callback);
+
+        assertTrue(callback.completed.await(2, TimeUnit.SECONDS));
+        assertEquals(List.of("primary"), callback.contents);
+        assertEquals(0, backupServer.requests.get());
+    }
+
+    @Test
+    @DisplayName("按比例攒额度：一次对冲花掉额度后，需攒够请求数才能再次对冲")
+    void budgetRefillsByRequestRatio() {
+        hedge.setMaxBurst(1);
+        hedge.setBudgetRatio(0.5D);
+
+        assertTrue(hedgePolicy.admit(TIER));
+        assertTrue(hedgePolicy.tryAcquire(TIER));
+        hedgePolicy.release(TIER);
+        assertFalse(hedgePolicy.tryAcquire(TIER));
+
+        hedgePolicy.admit(TIER);
+        assertFalse(hedgePolicy.tryAcquire(TIER));
+        hedgePolicy.admit(TIER);
+        assertTrue(hedgePolicy.tryAcquire(TIER));
+    }
+
+    private static ModelTarget target(String id, StubSseServer server) {
+        AIModelProperties.ModelCandidate candidate = new AIModelProperties.ModelCandidate();
+        candidate.setId(id);
+        candidate.setProvider("ollama");
+        candidate.setModel(id);
+        candidate.setUrl(server.url());
+        return new ModelTarget(id, candidate, new AIModelProperties.ProviderConfig(), FIRST_PACKET_TIMEOUT_MS);
+    }
+
+    private static final class RecordingCallback implements StreamCallback {
+
+        private final List<String> contents = new CopyOnWriteArrayList<>();
+        private final CountDownLatch completed = new CountDownLatch(1);
+
+        @Override
+        public void onContent(String content) {
+            contents.add(content);
+        }
+
+        @Override
+        public void onComplete() {
+            completed.countDown();
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            completed.countDown();
+        }
+    }
+
+    /**
+     * OpenAI 兼容的 SSE stub：延迟 firstPacketDelayMs 后输出一条以自身名字为内容的增量和 [DONE]
+     */
+    private static final class StubSseServer {
+
+        private final HttpServer server;
+        private final AtomicInteger requests = new AtomicInteger();
+        private volatile long firstPacketDelayMs;
+
+        private StubSseServer(String name) throws IOException {
+            server = HttpServer.create(new InetSocketAddress(0), 0);
+            server.setExecutor(Executors.newCachedThreadPool());
+            server.createContext("/v1/chat/completions", exchange -> {
+                requests.incrementAndGet();
+                try {
+                    Thread.sleep(firstPacketDelayMs);
+                    exchange.getResponseHeaders().add("Content-Type", "text/event-stream");
+                    exchange.sendResponseHeaders(200, 0);
+                    try (OutputStream os = exchange.getResponseBody()) {
+                        os.write(("data: {\"choices\":[{\"delta\":{\"content\":\"" + name + "\"}}]}\n\n")
+                                .getBytes(StandardCharsets.UTF_8));
+                        os.write("data: [DONE]\n\n".getBytes(StandardCharsets.UTF_8));
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (IOException ignored) {
+                    // 客户端撤掉连接
+                } finally {
+                    exchange.close();
+                }
+            });
+            server.start();
+        }
+
+        private String url() {
+            return "http://localhost:" + server.getAddress().getPort() + "/v1/chat/completions";
+        }
+
+        private void stop() {
+            server.stop(0);
+        }
+    }
+}
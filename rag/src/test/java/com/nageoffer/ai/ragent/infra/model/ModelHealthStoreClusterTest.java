@@ -0,0 +1,151 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nageoffer.ai.ragent.infra.model;
+
+import com.nageoffer.ai.ragent.infra.config.AIModelProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * 集群熔断：远端结论写入本地状态、半开探测受租约约束、本地状态切换对外通知
+ */
+class ModelHealthStoreClusterTest {
+
+    private final AIModelProperties properties = new AIModelProperties();
+    private final ModelHealthStore store = new ModelHealthStore(properties);
+    private final RecordingSync sync = new RecordingSync();
+
+    @BeforeEach
+    void setUp() {
+        properties.getSelection().setFailureThreshold(2);
+        store.attachClusterSync(sync);
+    }
+
+    @Test
+    @DisplayName("其他节点判定熔断后本节点立即拒绝，恢复广播后放行")
+    void remoteOpenBlocksAndRemoteCloseRestores() {
+        store.applyRemoteOpen("m", 60_000L);
+        assertNull(store.allowCall("m"));
+
+        store.applyRemoteClose("m");
+        assertNotNull(store.allowCall("m"));
+    }
+
+    @Test
+    @DisplayName("熔断到期后只有拿到探测租约的节点才能发起半开探测")
+    void expiredOpenRequiresProbeLease() {
+        store.applyRemoteOpen("m", 0L);
+
+        sync.probeGranted = false;
+        assertNull(store.allowCall("m"));
+
+        sync.probeGranted = true;
+        ModelHealthStore.CallPermit permit = store.allowCall("m");
+        assertNotNull(permit);
+        // 半开探测在途，本节点其他请求同样拒绝
+        assertNull(store.allowCall("m"));
+
+        store.releaseHalfOpenPermit(permit);
+        assertEquals(List.of("probe:m", "probe:m", "release:m"), sync.events);
+    }
+
+    @Test
+    @DisplayName("本地失败先上报计数，跨过阈值报熔断，半开探测成功报恢复")
+    void localTransitionsAreReported() {
+        properties.getSelection().setOpenDurationMs(0L);
+        store.markSuccess("m");
+        store.markFailure("m");
+        store.markFailure("m");
+        // 已熔断后的迟到失败不重复广播
+        store.markFailure("m");
+
+        ModelHealthStore.CallPermit permit = store.allowCall("m");
+        assertNotNull(permit);
+        store.markSuccess("m");
+
+        assertEquals(List.of("success:m", "failure:m", "opened:m:0", "failure:m",
+                "probe:m", "closed:m"), sync.events);
+    }
+
+    @Test
+    @DisplayName("熔断后迟到的成功不关闭熔断，也不向集群广播恢复")
+    void lateSuccessWhileOpenNeitherClosesNorBroadcasts() {
+        store.applyRemoteOpen("m", 60_000L);
+
+        store.markSuccess("m");
+
+        assertNull(store.allowCall("m"));
+        assertEquals(List.of(), sync.events);
+    }
+
+    @Test
+    @DisplayName("卸下同步后回到单节点熔断")
+    void detachedStoreIgnoresSync() {
+        store.detachClusterSync(sync);
+        store.applyRemoteOpen("m", 0L);
+        sync.probeGranted = false;
+
+        assertNotNull(store.allowCall("m"));
+        assertEquals(List.of(), sync.events);
+    }
+
+    private static final class RecordingSync implements ModelCircuitSync {
+
+        private final List<String> events = new ArrayList<>();
+        private boolean probeGranted = true;
+
+        @Override
+        public void onFailure(String modelId) {
+            events.add("failure:" + modelId);
+        }
+
+        @Override
+        public void onSuccess(String modelId) {
+            events.add("success:" + modelId);
+        }
+
+        @Override
+        public void onOpened(String modelId, long openDurationMs) {
+            events.add("opened:" + modelId + ":" + openDurationMs);
+        }
+
+        @Override
+        public void onClosed(String modelId) {
+            events.add("closed:" + modelId);
+        }
+
+        @Override
+        public boolean tryAcquireProbe(String modelId) {
+            events.add("probe:" + modelId);
+            return probeGranted;
+        }
+
+        @Override
+        public void releaseProbe(String modelId) {
+            events.add("release:" + modelId);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nageoffer.ai.ragent.infra.model;
+
+import com.nageoffer.ai.ragent.infra.config.AIModelProperties;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 模型负载统计：首包延迟峰值敏感、错误率随成败收敛、吞吐按生成阶段计
+ */
+class ModelHealthStoreStatsTest {
+
+    private final ModelHealthStore store = new ModelHealthStore(new AIModelProperties());
+
+    @Test
+    @DisplayName("首包变慢立刻取峰值，变快逐步回落")
+    void firstPacketLatencyIsPeakSensitive() {
+        store.recordFirstPacket("m", 200L);
+        store.recordFirstPacket("m", 900L);
+        assertEquals(900D, store.stats("m").firstPacketLatencyMs());
+
+        store.recordFirstPacket("m", 100L);
+        double latency = store.stats("m").firstPacketLatencyMs();
+        assertTrue(latency > 100D && latency < 900D, "回落应是渐进的，实际 " + latency);
+        assertEquals(3L, store.stats("m").latencySamples());
+    }
+
+    @Test
+    @DisplayName("连续失败推高错误率，随后的成功把它拉回")
+    void errorRateTracksOutcomes() {
+        for (int i = 0; i < 5; i++) {
+            store.markFailure("m");
+        }
+        double afterFailures = store.stats("m").errorRate();
+        assertTrue(afterFailures > 0.5D, "同一时刻的连续失败也应计入，实际 " + afterFailures);
+
+        for (int i = 0; i < 5; i++) {
+            store.markSuccess("m");
+        }
+        assertTrue(store.stats("m").errorRate() < afterFailures);
+    }
+
+    @Test
+    @DisplayName("长时间没有新样本时峰值与错误率逐步回落，让被冷落的模型重新获得采样机会")
+    void idleStatsDecay() throws InterruptedException {
+        AIModelProperties properties = new AIModelProperties();
+        properties.getSelection().setEwmaDecayMs(20L);
+        ModelHealthStore idleStore = new ModelHealthStore(properties);
+        idleStore.recordFirstPacket("m", 900L);
+        idleStore.markFailure("m");
+
+        Thread.sleep(150L);
+
+        ModelHealthStore.ModelStats stats = idleStore.stats("m");
+        assertTrue(stats.firstPacketLatencyMs() < 100D, "空闲数个衰减周期后峰值应大幅回落，实际 " + stats.firstPacketLatencyMs());
+        assertTrue(stats.errorRate() < 0.1D, "实际 " + stats.errorRate());
+        assertTrue(stats.hasLatency(), "回落不等于丢弃样本");
+
+        idleStore.recordFirstPacket("m", 900L);
+        assertEquals(900D, idleStore.stats("m").firstPacketLatencyMs(), 1e-6, "新样本仍然慢时峰值立刻回来");
+    }
+
+    @Test
+    @DisplayName("吞吐按增量数与生成耗时折算，无样本的模型返回空统计")
+    void throughputAndEmptyStats() {
+        store.recordThroughput("m", 200L, 4000L);
+        assertEquals(50D, store.stats("m").tokensPerSecond());
+
+        assertFalse(store.stats("unknown").hasLatency());
+        assertEquals(ModelHealthStore.ModelStats.EMPTY, store.stats("unknown"));
+    }
+}
@@ -27,6 +27,7 @@ import java.util.List;
 import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.mock;
@@ -46,7 +47,7 @@ class ModelSelectorTest {
         properties = buildProperties();
         healthStore = mock(ModelHealthStore.class);
         when(healthStore.isUnavailable(anyString())).thenReturn(false);
-        selector = new ModelSelector(properties, healthStore);
+        selector = new ModelSelector(properties, healthStore, List.of(new StaticScoringPolicy()));
     }
 
     private static List<String> ids(List<ModelTarget> targets) {
@@ -161,4 +162,62 @@ class ModelSelectorTest {
         List<ModelTarget> targets = selector.selectChatCandidates(false);
         assertEquals(List.of("qwen3-local", "gpt-5.4"), ids(targets));
     }
+
+    @Test
+    void peak_ewma_同组内慢模型让位() {
+        selector = peakEwmaSelector();
+        when(healthStore.stats("qwen-plus")).thenReturn(new ModelHealthStore.ModelStats(3000D, 40D, 0D, 10L));
+        when(healthStore.stats("qwen3-local")).thenReturn(new ModelHealthStore.ModelStats(800D, 40D, 0D, 10L));
+        when(healthStore.stats("gpt-5.4")).thenReturn(new ModelHealthStore.ModelStats(1000D, 40D, 0D, 10L));
+
+        List<ModelTarget> targets = selector.selectChatCandidates(false);
+
+        assertEquals(List.of("qwen3-local", "gpt-5.4", "qwen-plus"), ids(targets));
+    }
+
+    @Test
+    void peak_ewma_错误率加罚且无样本按中位数估计() {
+        selector = peakEwmaSelector();
+        when(healthStore.stats("qwen-plus")).thenReturn(new ModelHealthStore.ModelStats(800D, 40D, 0.5D, 10L));
+        when(healthStore.stats("gpt-5.4")).thenReturn(new ModelHealthStore.ModelStats(1000D, 40D, 0D, 10L));
+
+        List<ModelTarget> targets = selector.selectChatCandidates(false);
+
+        // qwen-plus 代价 (800+7500)×3，gpt-5.4 为 1000+7500，无样本的 qwen3-local 取中位数与 qwen-plus 同档
+        assertEquals(List.of("gpt-5.4", "qwen-plus", "qwen3-local"), ids(targets));
+    }
+
+    @Test
+    void peak_ewma_不跨越优先级组与_preferred() {
+        properties.getChat().getCandidates().stream()
+                .filter(c -> c.getId().equals("qwen-plus"))
+                .forEach(c -> c.setPriority(1));
+        selector = peakEwmaSelector();
+        when(healthStore.stats("qwen-plus")).thenReturn(new ModelHealthStore.ModelStats(5000D, 40D, 0D, 10L));
+        when(healthStore.stats("qwen3-local")).thenReturn(new ModelHealthStore.ModelStats(2000D, 40D, 0D, 10L));
+        when(healthStore.stats("gpt-5.4")).thenReturn(new ModelHealthStore.ModelStats(900D, 40D, 0D, 10L));
+
+        assertEquals(List.of("qwen-plus", "gpt-5.4", "qwen3-local"), ids(selector.selectChatCandidates(false)));
+        assertEquals(List.of("qwen3-local", "qwen-plus", "gpt-5.4"),
+                ids(selector.selectChatCandidates(false, Tier.STANDARD, "qwen3-local")));
+    }
+
+    @Test
+    void 档位计划复用且配置替换后重建() {
+        List<ModelTarget> first = selector.selectChatCandidates(false);
+        assertSame(first.get(0), selector.selectChatCandidates(false).get(0), "档位候选应复用预构建的目标");
+
+        AIModelProperties replaced = buildProperties();
+        replaced.getChat().getTiers().put("standard", tier(List.of("gpt-5.4"), 30000L));
+        properties.setChat(replaced.getChat());
+
+        assertEquals(List.of("gpt-5.4"), ids(selector.selectChatCandidates(false)));
+    }
+
+    private ModelSelector peakEwmaSelector() {
+        properties.getSelection().setScoringPolicy("peak-ewma");
+        when(healthStore.stats(anyString())).thenReturn(ModelHealthStore.ModelStats.EMPTY);
+        return new ModelSelector(properties, healthStore,
+                List.of(new StaticScoringPolicy(), new PeakEwmaScoringPolicy(new ModelLoadCost(properties, healthStore))));
+    }
 }
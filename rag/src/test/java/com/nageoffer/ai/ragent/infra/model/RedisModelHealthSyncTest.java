@@ -0,0 +1,149 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nageoffer.ai.ragent.infra.model;
+
+import com.nageoffer.ai.ragent.infra.config.AIModelProperties;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.redisson.api.RFuture;
+import org.redisson.api.RScoredSortedSet;
+import org.redisson.api.RScript;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.Codec;
+
+import java.util.List;
+import java.util.function.BiConsumer;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 熔断广播的解析与落地
+ */
+class RedisModelHealthSyncTest {
+
+    private final ModelHealthStore store = new ModelHealthStore(new AIModelProperties());
+    private final RedisModelHealthSync sync =
+            new RedisModelHealthSync(mock(RedissonClient.class), store, new AIModelProperties());
+
+    @Test
+    @DisplayName("OPEN 广播按本机时钟熔断，CLOSED 广播恢复")
+    void appliesOpenAndClose() {
+        sync.onMessage("OPEN|qwen-plus|60000");
+        assertNull(store.allowCall("qwen-plus"));
+
+        sync.onMessage("CLOSED|qwen-plus");
+        assertNotNull(store.allowCall("qwen-plus"));
+    }
+
+    @Test
+    @DisplayName("模型 ID 含分隔符时按首尾分隔符切分")
+    void modelIdMayContainSeparator() {
+        sync.onMessage("OPEN|vendor|model-a|60000");
+        assertNull(store.allowCall("vendor|model-a"));
+        assertNotNull(store.allowCall("vendor"));
+    }
+
+    @Test
+    @DisplayName("无法解析的广播被忽略")
+    void ignoresMalformedPayload() {
+        sync.onMessage("OPEN|m|not-a-number");
+        sync.onMessage("UNKNOWN|m");
+        sync.onMessage("");
+        assertNotNull(store.allowCall("m"));
+    }
+
+    @Test
+    @DisplayName("失败记入滑动窗口：窗口从空变为非空时广播 FAILING，恰好跨过阈值时广播熔断并清空窗口")
+    void failuresGoThroughSlidingWindow() {
+        AIModelProperties properties = new AIModelProperties();
+        properties.getSelection().setFailureThreshold(2);
+        RedisFixture redis = new RedisFixture();
+        RedisModelHealthSync clusterSync = new RedisModelHealthSync(redis.client, store, properties);
+
+        redis.nextCount = 1L;
+        clusterSync.onFailure("m");
+        redis.nextCount = 2L;
+        clusterSync.onFailure("m");
+
+        verify(redis.script, times(2)).evalAsync(eq(RScript.Mode.READ_WRITE), anyString(),
+                eq(RScript.ReturnType.LONG), eq(List.of("ragent:model:circuit:failures:m")),
+                anyString(), eq(String.valueOf(properties.getSelection().getCluster().getFailureWindowMs())), anyString());
+        verify(redis.topic).publishAsync("FAILING|m");
+        verify(redis.topic).publishAsync("OPEN|m|" + properties.getSelection().getOpenDurationMs());
+        verify(redis.failures).deleteAsync();
+    }
+
+    @Test
+    @DisplayName("其他节点记录的失败，本节点的一次成功即清空集群窗口")
+    void successClearsFailuresRecordedElsewhere() {
+        RedisFixture redis = new RedisFixture();
+        RedisModelHealthSync clusterSync = new RedisModelHealthSync(redis.client, store, new AIModelProperties());
+
+        clusterSync.onSuccess("m");
+        verify(redis.failures, never()).deleteAsync();
+
+        clusterSync.onMessage("FAILING|m");
+        clusterSync.onSuccess("m");
+        clusterSync.onSuccess("m");
+
+        verify(redis.failures, times(1)).deleteAsync();
+    }
+
+    /**
+     * 只覆盖失败窗口脚本、窗口清空与 Topic 广播的 Redisson 桩
+     */
+    @SuppressWarnings("unchecked")
+    private static final class RedisFixture {
+
+        private final RedissonClient client = mock(RedissonClient.class);
+        private final RScript script = mock(RScript.class);
+        private final RTopic topic = mock(RTopic.class);
+        private final RScoredSortedSet<Object> failures = mock(RScoredSortedSet.class);
+        private long nextCount;
+
+        RedisFixture() {
+            when(client.getScript(any(Codec.class))).thenReturn(script);
+            when(client.getTopic(anyString(), any(Codec.class))).thenReturn(topic);
+            when(client.getScoredSortedSet(anyString(), any(Codec.class))).thenReturn(failures);
+            when(topic.publishAsync(any())).thenReturn(mock(RFuture.class));
+            when(script.evalAsync(any(RScript.Mode.class), anyString(), any(RScript.ReturnType.class), anyList(),
+                    any(Object[].class))).thenAnswer(inv -> completed(nextCount));
+        }
+
+        private static RFuture<Object> completed(Object value) {
+            RFuture<Object> future = mock(RFuture.class);
+            when(future.whenComplete(any())).thenAnswer(inv -> {
+                BiConsumer<Object, Throwable> action = inv.getArgument(0);
+                action.accept(value, null);
+                return future;
+            });
+            return future;
+        }
+    }
+}
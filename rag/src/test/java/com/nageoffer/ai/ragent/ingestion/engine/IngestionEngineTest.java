@@ -25,16 +25,40 @@ import com.nageoffer.ai.ragent.ingestion.domain.pipeline.NodeConfig;
 import com.nageoffer.ai.ragent.ingestion.domain.pipeline.PipelineDefinition;
 import com.nageoffer.ai.ragent.ingestion.domain.result.NodeResult;
 import com.nageoffer.ai.ragent.ingestion.node.IngestionNode;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class IngestionEngineTest {
 
+    private ExecutorService nodeExecutor;
+
+    @BeforeEach
+    void setUp() {
+        nodeExecutor = Executors.newFixedThreadPool(4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        nodeExecutor.shutdownNow();
+    }
+
     @Test
     void multipleStartNodesFailBeforeAnyNodeExecutes() {
         List<String> executedNodeIds = new ArrayList<>();
@@ -107,7 +131,199 @@ class IngestionEngineTest {
         assertEquals(IngestionStatus.COMPLETED, context.getStatus());
     }
 
+    @Test
+    void cycleThroughExtraSuccessorIsRejectedBeforeExecution() {
+        List<String> executedNodeIds = new ArrayList<>();
+        IngestionEngine engine = engine(executedNodeIds);
+        PipelineDefinition pipeline = PipelineDefinition.builder()
+                .nodes(List.of(
+                        node("root", "b"),
+                        node("b", "c"),
+                        dagNode("c", null, "b", "leaf"),
+                        node("leaf", null)))
+                .build();
+
+        ClientException exception = assertThrows(
+                ClientException.class,
+                () -> engine.execute(pipeline, IngestionContext.builder().build()));
+
+        assertEquals("流水线存在环: b", exception.getMessage());
+        assertEquals(List.of(), executedNodeIds);
+    }
+
+    @Test
+    void missingExtraSuccessorIsRejectedBeforeExecution() {
+        List<String> executedNodeIds = new ArrayList<>();
+        IngestionEngine engine = engine(executedNodeIds);
+        PipelineDefinition pipeline = PipelineDefinition.builder()
+                .nodes(List.of(dagNode("root", null, "ghost")))
+                .build();
+
+        ClientException exception = assertThrows(
+                ClientException.class,
+                () -> engine.execute(pipeline, IngestionContext.builder().build()));
+
+        assertEquals("找不到下一个节点: ghost，被节点 root 引用", exception.getMessage());
+        assertEquals(List.of(), executedNodeIds);
+    }
+
+    @Test
+    void parallelBranchesOverlapInWallClockTime() {
+        long branchSleepMs = 400;
+        List<String> executedNodeIds = Collections.synchronizedList(new ArrayList<>());
+        Map<String, Consumer<IngestionContext>> behaviours = Map.of(
+                "left", context -> sleep(branchSleepMs),
+                "right", context -> sleep(branchSleepMs));
+        IngestionEngine engine = engine(executedNodeIds, behaviours);
+        PipelineDefinition pipeline = PipelineDefinition.builder()
+                .nodes(List.of(
+                        dagNode("root", "left", "right"),
+                        node("left", "join"),
+                        node("right", "join"),
+                        node("join", null)))
+                .build();
+        IngestionContext context = IngestionContext.builder().build();
+
+        long start = System.nanoTime();
+        engine.execute(pipeline, context);
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertEquals(IngestionStatus.COMPLETED, context.getStatus());
+        assertTrue(elapsedMs < branchSleepMs * 2 - 100,
+                "两条分支应并行执行，实际耗时 " + elapsedMs + "ms");
+        assertEquals("root", executedNodeIds.get(0));
+        assertEquals("join", executedNodeIds.get(3));
+        assertEquals(4, context.getLogs().size());
+    }
+
+    @Test
+    void joinMergesBranchChangesInDeclarationOrder() {
+        Map<String, Consumer<IngestionContext>> behaviours = Map.of(
+                "root", context -> {
+                    context.setRawText("raw");
+                    context.setMetadata(new HashMap<>(Map.of("source", "root")));
+                },
+                "left", context -> {
+                    // 晚于 right 完成，汇合结果仍不受完成先后影响
+                    sleep(100);
+                    context.setKeywords(List.of("k1"));
+                    context.setEnhancedText("from-left");
+                    context.getMetadata().put("left", true);
+                },
+                "right", context -> {
+                    context.setQuestions(List.of("q1"));
+                    context.setEnhancedText("from-right");
+                    context.getMetadata().put("right", true);
+                },
+                "join", context -> assertEquals(List.of("k1"), context.getKeywords()));
+        IngestionEngine engine = engine(Collections.synchronizedList(new ArrayList<>()), behaviours);
+        PipelineDefinition pipeline = PipelineDefinition.builder()
+                .nodes(List.of(
+                        dagNode("root", "left", "right"),
+                        node("left", "join"),
+                        node("right", "join"),
+                        node("join", null)))
+                .build();
+        IngestionContext context = IngestionContext.builder().build();
+
+        IngestionContext result = engine.execute(pipeline, context);
+
+        assertSame(context, result);
+        assertEquals(IngestionStatus.COMPLETED, result.getStatus());
+        assertEquals("raw", result.getRawText());
+        assertEquals(List.of("k1"), result.getKeywords());
+        assertEquals(List.of("q1"), result.getQuestions());
+        assertEquals("from-right", result.getEnhancedText());
+        assertEquals(Map.of("source", "root", "left", true, "right", true), result.getMetadata());
+    }
+
+    @Test
+    void nestedJoinKeepsOuterBranchChangesMadeBeforeInnerFork() {
+        Map<String, Consumer<IngestionContext>> behaviours = Map.of(
+                "root", context -> context.setRawText("raw"),
+                "outer", context -> context.setRawText("outer"),
+                "b1", context -> context.setKeywords(List.of("k1")),
+                "b2", context -> context.setQuestions(List.of("q1")),
+                "side", context -> context.setEnhancedText("side"));
+        IngestionEngine engine = engine(Collections.synchronizedList(new ArrayList<>()), behaviours);
+        // side 先于 outer 声明，外层汇合以 side 为起点，outer 分支的改动只能靠与外层基线比较带过来
+        PipelineDefinition pipeline = PipelineDefinition.builder()
+                .nodes(List.of(
+                        dagNode("root", "side", "outer"),
+                        node("side", "outerJoin"),
+                        dagNode("outer", "b1", "b2"),
+                        node("b1", "innerJoin"),
+                        node("b2", "innerJoin"),
+                        node("innerJoin", "outerJoin"),
+                        node("outerJoin", null)))
+                .build();
+        IngestionContext context = IngestionContext.builder().build();
+
+        engine.execute(pipeline, context);
+
+        assertEquals(IngestionStatus.COMPLETED, context.getStatus());
+        assertEquals("outer", context.getRawText(), "外层分支在内层分叉前的改动不能丢");
+        assertEquals(List.of("k1"), context.getKeywords());
+        assertEquals(List.of("q1"), context.getQuestions());
+        assertEquals("side", context.getEnhancedText());
+    }
+
+    @Test
+    void conditionSkippedBranchStillReachesJoin() {
+        List<String> executedNodeIds = Collections.synchronizedList(new ArrayList<>());
+        IngestionEngine engine = engine(executedNodeIds);
+        NodeConfig markdownOnly = node("markdown", "join");
+        markdownOnly.setCondition(new ObjectMapper().createObjectNode()
+                .put("field", "mimeType")
+                .put("operator", "eq")
+                .put("value", "text/markdown"));
+        PipelineDefinition pipeline = PipelineDefinition.builder()
+                .nodes(List.of(
+                        dagNode("root", "markdown", "plain"),
+                        markdownOnly,
+                        node("plain", "join"),
+                        node("join", null)))
+                .build();
+        IngestionContext context = IngestionContext.builder().mimeType("text/plain").build();
+
+        engine.execute(pipeline, context);
+
+        assertEquals(IngestionStatus.COMPLETED, context.getStatus());
+        assertEquals(List.of("root", "plain", "join"), executedNodeIds);
+        assertEquals(4, context.getLogs().size());
+    }
+
+    @Test
+    void failedBranchStopsPipelineBeforeJoin() {
+        List<String> executedNodeIds = Collections.synchronizedList(new ArrayList<>());
+        Map<String, Consumer<IngestionContext>> behaviours = Map.of(
+                "left", context -> {
+                    throw new IllegalStateException("boom");
+                },
+                "right", context -> context.setKeywords(List.of("k1")));
+        IngestionEngine engine = engine(executedNodeIds, behaviours);
+        PipelineDefinition pipeline = PipelineDefinition.builder()
+                .nodes(List.of(
+                        dagNode("root", "left", "right"),
+                        node("left", "join"),
+                        node("right", "join"),
+                        node("join", null)))
+                .build();
+        IngestionContext context = IngestionContext.builder().build();
+
+        engine.execute(pipeline, context);
+
+        assertEquals(IngestionStatus.FAILED, context.getStatus());
+        assertEquals("boom", context.getError().getMessage());
+        assertFalse(executedNodeIds.contains("join"));
+        assertEquals(List.of("k1"), context.getKeywords());
+    }
+
     private IngestionEngine engine(List<String> executedNodeIds) {
+        return engine(executedNodeIds, Map.of());
+    }
+
+    private IngestionEngine engine(List<String> executedNodeIds, Map<String, Consumer<IngestionContext>> behaviours) {
         IngestionNode node = new IngestionNode() {
             @Override
             public String getNodeType() {
@@ -117,13 +333,16 @@ class IngestionEngineTest {
             @Override
             public NodeResult execute(IngestionContext context, NodeConfig config) {
                 executedNodeIds.add(config.getNodeId());
+                behaviours.getOrDefault(config.getNodeId(), c -> {
+                }).accept(context);
                 return NodeResult.ok();
             }
         };
         return new IngestionEngine(
                 List.of(node),
                 new ConditionEvaluator(new ObjectMapper()),
-                new NodeOutputExtractor());
+                new NodeOutputExtractor(),
+                nodeExecutor);
     }
 
     private NodeConfig node(String nodeId, String nextNodeId) {
@@ -133,4 +352,18 @@ class IngestionEngineTest {
                 .nextNodeId(nextNodeId)
                 .build();
     }
+
+    private NodeConfig dagNode(String nodeId, String nextNodeId, String... nextNodeIds) {
+        NodeConfig config = node(nodeId, nextNodeId);
+        config.setNextNodeIds(List.of(nextNodeIds));
+        return config;
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
 }
@@ -0,0 +1,130 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nageoffer.ai.ragent.ingestion.node;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nageoffer.ai.ragent.core.chunk.model.Chunk;
+import com.nageoffer.ai.ragent.core.chunk.model.EmbeddedChunk;
+import com.nageoffer.ai.ragent.core.ingest.IngestionProperties;
+import com.nageoffer.ai.ragent.infra.chat.LLMService;
+import com.nageoffer.ai.ragent.ingestion.domain.context.IngestionContext;
+import com.nageoffer.ai.ragent.ingestion.domain.enums.ChunkEnrichType;
+import com.nageoffer.ai.ragent.ingestion.domain.pipeline.NodeConfig;
+import com.nageoffer.ai.ragent.ingestion.domain.settings.EnricherSettings;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 打包 + 并行富集：输出必须与逐块串行调用完全一致
+ */
+class EnricherNodeTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ExecutorService pool = Executors.newCachedThreadPool();
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("打包调用拆回各块结果，顺序与逐块调用一致，调用次数按批计算")
+    void shouldSplitBatchedResponsesBackToChunksInOrder() {
+        StubChatService llm = new StubChatService(objectMapper, 0);
+        List<EmbeddedChunk> chunks = chunks(5);
+
+        IngestionContext batched = enrich(llm, chunks, 2, 3);
+        int batchedCalls = llm.calls.get();
+        IngestionContext sequential = enrich(new StubChatService(objectMapper, 0), chunks, 1, 1);
+
+        assertEquals(extras(sequential), extras(batched));
+        assertEquals(List.of("c0", "c1", "c2", "c3", "c4"), batched.getChunks().stream().map(EmbeddedChunk::chunkId).toList());
+        assertEquals(List.of("kw-text-0"), batched.getChunks().get(0).metadata().extras().get("keywords"));
+        assertEquals("sum-text-4", batched.getChunks().get(4).metadata().extras().get("summary"));
+        // 两个任务各 3 批（2 + 2 + 1），最后一批只有一块时直接走单块提示词
+        assertEquals(6, batchedCalls);
+    }
+
+    @Test
+    @DisplayName("打包结果缺项时逐块补做，单块失败按次数重试")
+    void shouldRetryMissingItemsIndividually() {
+        StubChatService llm = new StubChatService(objectMapper, 0);
+        llm.omitFromBatch = text -> text.equals("text-1");
+        llm.failOnceFor.add("text-1");
+        List<EmbeddedChunk> chunks = chunks(4);
+
+        IngestionContext batched = enrich(llm, chunks, 4, 2);
+
+        assertEquals(extras(enrich(new StubChatService(objectMapper, 0), chunks, 1, 1)), extras(batched));
+        // 两个任务各 1 次打包 + 1 次 text-1 补做，先补做的那次失败后重试 1 次
+        assertEquals(5, llm.calls.get());
+    }
+
+    @Test
+    @DisplayName("在途调用数不超过任务配置的并发")
+    void shouldBoundInFlightCallsPerTask() {
+        StubChatService llm = new StubChatService(objectMapper, 20);
+        enrich(llm, chunks(24), 1, 3, ChunkEnrichType.SUMMARY);
+
+        assertTrue(llm.maxInFlight.get() <= 3, "max in-flight = " + llm.maxInFlight.get());
+        assertTrue(llm.maxInFlight.get() > 1, "应当并行调用");
+    }
+
+    private IngestionContext enrich(LLMService llm, List<EmbeddedChunk> chunks, int batchSize, int concurrency,
+                                    ChunkEnrichType... types) {
+        IngestionProperties properties = new IngestionProperties();
+        EnricherNode node = new EnricherNode(objectMapper, new EnrichmentExecutor(llm, properties, pool));
+        ChunkEnrichType[] taskTypes = types.length == 0
+                ? new ChunkEnrichType[]{ChunkEnrichType.KEYWORDS, ChunkEnrichType.SUMMARY}
+                : types;
+        List<EnricherSettings.ChunkEnrichTask> tasks = new ArrayList<>();
+        for (ChunkEnrichType type : taskTypes) {
+            tasks.add(EnricherSettings.ChunkEnrichTask.builder()
+                    .type(type)
+                    .batchSize(batchSize)
+                    .concurrency(concurrency)
+                    .build());
+        }
+        EnricherSettings settings = EnricherSettings.builder().tasks(tasks).attachDocumentMetadata(false).build();
+        IngestionContext context = IngestionContext.builder().chunks(chunks).build();
+        node.execute(context, NodeConfig.builder().settings(objectMapper.valueToTree(settings)).build());
+        return context;
+    }
+
+    private static List<Map<String, Object>> extras(IngestionContext context) {
+        return context.getChunks().stream().map(chunk -> chunk.metadata().extras()).toList();
+    }
+
+    private static List<EmbeddedChunk> chunks(int count) {
+        List<EmbeddedChunk> chunks = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            chunks.add(new EmbeddedChunk(new Chunk("c" + i, i, "text-" + i, "text-" + i, null), new float[]{1F}));
+        }
+        return chunks;
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nageoffer.ai.ragent.ingestion.node;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nageoffer.ai.ragent.framework.convention.ChatRequest;
+import com.nageoffer.ai.ragent.infra.chat.LLMService;
+import com.nageoffer.ai.ragent.infra.chat.StreamCallback;
+import com.nageoffer.ai.ragent.infra.chat.StreamCancellationHandle;
+import com.nageoffer.ai.ragent.infra.enums.Tier;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+/**
+ * 固定延迟的桩模型：按提示词判断任务类型（关键词 / 摘要）与是否打包，结果由正文确定性生成，记录调用数与最大在途数
+ */
+final class StubChatService implements LLMService {
+
+    private static final String BATCH_MARKER = "每项包含 id 与 text";
+
+    final AtomicInteger calls = new AtomicInteger();
+    final AtomicInteger inFlight = new AtomicInteger();
+    final AtomicInteger maxInFlight = new AtomicInteger();
+    final Set<String> failOnceFor = ConcurrentHashMap.newKeySet();
+    volatile Predicate<String> omitFromBatch = text -> false;
+    private final ObjectMapper objectMapper;
+    private final long latencyMs;
+
+    StubChatService(ObjectMapper objectMapper, long latencyMs) {
+        this.objectMapper = objectMapper;
+        this.latencyMs = latencyMs;
+    }
+
+    @Override
+    public String chat(ChatRequest request) {
+        return chat(request, null, null);
+    }
+
+    @Override
+    public String chat(ChatRequest request, Tier tier) {
+        return chat(request, tier, null);
+    }
+
+    @Override
+    public String chat(ChatRequest request, Tier tier, String preferredModelId) {
+        calls.incrementAndGet();
+        maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+        try {
+            if (latencyMs > 0) {
+                TimeUnit.MILLISECONDS.sleep(latencyMs);
+            }
+            String system = request.getMessages().get(0).getContent();
+            String user = request.getMessages().get(1).getContent();
+            boolean keywords = system.contains("关键词");
+            if (!system.contains(BATCH_MARKER)) {
+                if (failOnceFor.remove(user)) {
+                    throw new IllegalStateException("模型调用失败");
+                }
+                return keywords ? "[\"kw-" + user + "\"]" : "sum-" + user;
+            }
+            List<Map<String, String>> items = objectMapper.readValue(user, new TypeReference<>() {
+            });
+            Map<String, Object> results = new LinkedHashMap<>();
+            for (Map<String, String> item : items) {
+                String text = item.get("text");
+                if (!omitFromBatch.test(text)) {
+                    results.put(item.get("id"), keywords ? List.of("kw-" + text) : "sum-" + text);
+                }
+            }
+            return "```json\n" + objectMapper.writeValueAsString(results) + "\n```";
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(ex);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException(ex);
+        } finally {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    @Override
+    public StreamCancellationHandle streamChat(ChatRequest request, StreamCallback callback) {
+        throw new UnsupportedOperationException();
+    }
+}
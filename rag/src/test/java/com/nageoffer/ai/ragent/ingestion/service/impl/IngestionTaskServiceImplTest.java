@@ -26,12 +26,17 @@ import com.nageoffer.ai.ragent.ingestion.dao.entity.IngestionTaskDO;
 import com.nageoffer.ai.ragent.ingestion.dao.entity.IngestionTaskNodeDO;
 import com.nageoffer.ai.ragent.ingestion.dao.mapper.IngestionTaskMapper;
 import com.nageoffer.ai.ragent.ingestion.dao.mapper.IngestionTaskNodeMapper;
+import com.nageoffer.ai.ragent.ingestion.domain.context.IngestionContext;
+import com.nageoffer.ai.ragent.ingestion.domain.context.NodeLog;
+import com.nageoffer.ai.ragent.ingestion.domain.enums.IngestionStatus;
+import com.nageoffer.ai.ragent.ingestion.domain.pipeline.NodeConfig;
 import com.nageoffer.ai.ragent.ingestion.domain.pipeline.PipelineDefinition;
 import com.nageoffer.ai.ragent.ingestion.engine.IngestionEngine;
 import com.nageoffer.ai.ragent.ingestion.service.IngestionPipelineService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.mock.web.MockMultipartFile;
@@ -39,6 +44,7 @@ import org.springframework.mock.web.MockMultipartFile;
 import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertSame;
@@ -46,6 +52,8 @@ import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -138,6 +146,39 @@ class IngestionTaskServiceImplTest {
         assertTrue(service.get("task-1").getMetadata().isEmpty());
     }
 
+    @Test
+    void parallelBranchNodesAreNumberedInDeclarationOrder() {
+        NodeConfig root = NodeConfig.builder().nodeId("root").nodeType("fetcher").nextNodeId("b").build();
+        root.setNextNodeIds(List.of("a"));
+        PipelineDefinition pipeline = PipelineDefinition.builder()
+                .nodes(List.of(
+                        root,
+                        NodeConfig.builder().nodeId("a").nodeType("parser").nextNodeId("join").build(),
+                        NodeConfig.builder().nodeId("b").nodeType("parser").nextNodeId("join").build(),
+                        NodeConfig.builder().nodeId("join").nodeType("indexer").build()))
+                .build();
+        when(pipelineService.getDefinition("pipeline-1")).thenReturn(pipeline);
+        when(engine.execute(any(), any())).thenAnswer(invocation -> {
+            IngestionContext context = invocation.getArgument(1);
+            // 分支完成先后与声明顺序相反
+            for (String nodeId : List.of("root", "b", "a", "join")) {
+                context.getLogs().add(NodeLog.builder().nodeId(nodeId).success(true).build());
+            }
+            context.setStatus(IngestionStatus.COMPLETED);
+            return context;
+        });
+        MockMultipartFile file = new MockMultipartFile(
+                "file", "doc.txt", "text/plain", "hello".getBytes(StandardCharsets.UTF_8));
+
+        service.upload("pipeline-1", file);
+
+        ArgumentCaptor<IngestionTaskNodeDO> inserted = ArgumentCaptor.forClass(IngestionTaskNodeDO.class);
+        verify(taskNodeMapper, times(4)).insert(inserted.capture());
+        Map<String, Integer> orders = inserted.getAllValues().stream()
+                .collect(Collectors.toMap(IngestionTaskNodeDO::getNodeId, IngestionTaskNodeDO::getNodeOrder));
+        assertEquals(Map.of("root", 1, "a", 2, "b", 3, "join", 4), orders);
+    }
+
     @Test
     void uploadPropagatesEngineClientExceptionWithoutWrapping() {
         ClientException engineFailure = new ClientException("流水线存在多个起始节点: a-root, z-root");
@@ -0,0 +1,194 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nageoffer.ai.ragent.knowledge.service.impl;
+
+import com.nageoffer.ai.ragent.core.ingest.DocumentRef;
+import com.nageoffer.ai.ragent.core.ingest.VectorTarget;
+import com.nageoffer.ai.ragent.framework.convention.RetrievedChunk;
+import com.nageoffer.ai.ragent.framework.convention.SourceRef;
+import com.nageoffer.ai.ragent.knowledge.config.DocumentMetadataCacheProperties;
+import com.nageoffer.ai.ragent.knowledge.dao.entity.KnowledgeChunkDO;
+import com.nageoffer.ai.ragent.knowledge.dao.entity.KnowledgeDocumentDO;
+import com.nageoffer.ai.ragent.knowledge.dao.mapper.KnowledgeChunkMapper;
+import com.nageoffer.ai.ragent.knowledge.dao.mapper.KnowledgeDocumentMapper;
+import com.nageoffer.ai.ragent.knowledge.service.impl.DocumentMetadataCache.DocumentMeta;
+import com.nageoffer.ai.ragent.rag.core.source.SourcesAssembler;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class DocumentMetadataCacheTest {
+
+    private DocumentMetadataCacheProperties properties;
+    private KnowledgeDocumentMapper documentMapper;
+    private KnowledgeChunkMapper chunkMapper;
+    private RTopic topic;
+    private DocumentMetadataCache cache;
+
+    /**
+     * 每次 selectByIds 收到的 ID 集合，用于断言往返次数与批量语义
+     */
+    private List<List<String>> documentQueries;
+    private AtomicInteger chunkQueries;
+
+    @BeforeEach
+    void setUp() {
+        properties = new DocumentMetadataCacheProperties();
+        documentMapper = mock(KnowledgeDocumentMapper.class);
+        chunkMapper = mock(KnowledgeChunkMapper.class);
+        RedissonClient redissonClient = mock(RedissonClient.class);
+        topic = mock(RTopic.class);
+        when(redissonClient.getTopic(anyString())).thenReturn(topic);
+        cache = new DocumentMetadataCache(properties, documentMapper, redissonClient);
+
+        documentQueries = new ArrayList<>();
+        chunkQueries = new AtomicInteger();
+        when(documentMapper.selectByIds(anyCollection())).thenAnswer(invocation -> {
+            Collection<?> ids = invocation.getArgument(0);
+            documentQueries.add(ids.stream().map(String::valueOf).toList());
+            return ids.stream().map(String::valueOf).map(DocumentMetadataCacheTest::document).toList();
+        });
+        when(chunkMapper.selectByIds(anyCollection())).thenAnswer(invocation -> {
+            chunkQueries.incrementAndGet();
+            Collection<?> ids = invocation.getArgument(0);
+            return ids.stream().map(String::valueOf)
+                    .map(id -> KnowledgeChunkDO.builder().id(id).docId("doc-" + id.substring(id.length() - 1)).chunkIndex(0).build())
+                    .toList();
+        });
+    }
+
+    @Test
+    @DisplayName("未命中的文档合并为一次批量查询，命中部分不再回表")
+    void getAllQueriesOnlyMissingIdsInOneBatch() {
+        cache.getAll(List.of("doc-1", "doc-2"));
+        Map<String, DocumentMeta> result = cache.getAll(List.of("doc-1", "doc-2", "doc-3", "doc-3", " "));
+
+        assertEquals(2, documentQueries.size());
+        assertEquals(List.of("doc-3"), documentQueries.get(1), "第二次只应查询缺失的 doc-3");
+        assertEquals(3, result.size());
+        assertEquals("文档-doc-3", result.get("doc-3").docName());
+        assertEquals("https://example.com/doc-3", result.get("doc-3").sourceLocation());
+    }
+
+    @Test
+    @DisplayName("本地失效后重新回表，未失效的文档继续命中")
+    void invalidateLocalReloadsOnlyThatDocument() {
+        cache.getAll(List.of("doc-1", "doc-2"));
+
+        cache.invalidateLocal("doc-1");
+        cache.getAll(List.of("doc-1", "doc-2"));
+
+        assertEquals(List.of("doc-1"), documentQueries.get(1));
+    }
+
+    @Test
+    @DisplayName("加载期间发生失效时结果不回填缓存")
+    void invalidationDuringLoadSkipsBackfill() {
+        when(documentMapper.selectByIds(anyCollection())).thenAnswer(invocation -> {
+            Collection<?> ids = invocation.getArgument(0);
+            documentQueries.add(ids.stream().map(String::valueOf).toList());
+            cache.invalidateLocal("doc-1");
+            return ids.stream().map(String::valueOf).map(DocumentMetadataCacheTest::document).toList();
+        });
+
+        cache.getAll(List.of("doc-1"));
+        cache.getAll(List.of("doc-1"));
+
+        assertEquals(2, documentQueries.size(), "期间失效过的旧值不得写回");
+    }
+
+    @Test
+    @DisplayName("文档变更经主题广播，广播失败时至少失效本节点")
+    void evictBroadcastsAndFallsBackToLocal() {
+        cache.onDocumentChanged(new VectorTarget("kb-fin", "emb", 2), DocumentRef.of("doc-1", "kb-1"));
+        verify(topic).publish("doc-1");
+
+        cache.getAll(List.of("doc-2"));
+        doThrow(new IllegalStateException("redis down")).when(topic).publish(any());
+        cache.evict("doc-2");
+        cache.getAll(List.of("doc-2"));
+
+        assertEquals(2, documentQueries.size(), "广播失败须退化为本节点失效");
+    }
+
+    @Test
+    @DisplayName("单轮问答的 t_knowledge_document 往返：无缓存 2 次，冷缓存 1 次，热缓存 0 次")
+    void documentRoundTripsPerChatTurn() {
+        properties.setEnabled(false);
+        int uncached = documentRoundTripsOfOneTurn();
+        properties.setEnabled(true);
+        int cold = documentRoundTripsOfOneTurn();
+        int warm = documentRoundTripsOfOneTurn();
+
+        assertEquals(2, uncached, "富化与来源装配各回表一次");
+        assertEquals(1, cold, "富化阶段一次批量加载，来源装配直接命中");
+        assertEquals(0, warm);
+        assertEquals(3, chunkQueries.get(), "分块回表不在本缓存范围内，每轮仍是一次");
+    }
+
+    /**
+     * 模拟一轮问答的回表路径：元数据富化按 chunkId 解析，再由来源装配按 docId 补链接
+     */
+    private int documentRoundTripsOfOneTurn() {
+        ChunkMetadataResolver resolver = new ChunkMetadataResolver(chunkMapper, cache);
+        SourcesAssembler assembler = new SourcesAssembler(cache);
+        int before = documentQueries.size();
+
+        List<RetrievedChunk> chunks = List.of(
+                RetrievedChunk.builder().id("chunk-1").text("年假规定").score(0.9F).build(),
+                RetrievedChunk.builder().id("chunk-2").text("报销流程").score(0.8F).build(),
+                RetrievedChunk.builder().id("chunk-3").text("考勤制度").score(0.7F).build());
+        Map<String, ChunkMetadataResolver.ChunkMeta> metas =
+                resolver.resolve(chunks.stream().map(RetrievedChunk::getId).toList());
+        chunks.forEach(chunk -> chunk.setDocId(metas.get(chunk.getId()).docId()));
+        List<SourceRef> sources = assembler.assemble(Map.of("intent-1", chunks));
+
+        assertEquals(3, sources.size());
+        assertTrue(sources.stream().allMatch(source -> source.getUrl() != null));
+        return documentQueries.size() - before;
+    }
+
+    private static KnowledgeDocumentDO document(String id) {
+        return KnowledgeDocumentDO.builder()
+                .id(id)
+                .kbId("kb-1")
+                .docName("文档-" + id)
+                .sourceType("url")
+                .sourceLocation("https://example.com/" + id)
+                .fileType("html")
+                .build();
+    }
+}
@@ -31,10 +31,13 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import java.util.List;
 import java.util.Map;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyMap;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
@@ -54,6 +57,9 @@ class DefaultIntentClassifierTest {
     @Mock
     private IntentTreeCacheManager intentTreeCacheManager;
 
+    @Mock
+    private IntentLeafPrefilter intentLeafPrefilter;
+
     private DefaultIntentClassifier classifier;
 
     @BeforeEach
@@ -62,7 +68,8 @@ class DefaultIntentClassifierTest {
                 llmService,
                 intentNodeMapper,
                 promptTemplateLoader,
-                intentTreeCacheManager
+                intentTreeCacheManager,
+                intentLeafPrefilter
         );
     }
 
@@ -99,4 +106,49 @@ class DefaultIntentClassifierTest {
         verify(promptTemplateLoader).render(anyString(), captor.capture());
         assertTrue(captor.getValue().get("intent_list").contains("examples=回答得不错 / 你答错了"));
     }
+
+    @Test
+    void reusesSnapshotUntilVersionChanges() {
+        IntentNode leaf = IntentNode.builder()
+                .id("oa-leave")
+                .name("请假")
+                .fullPath("OA系统 > 请假")
+                .build();
+        when(intentTreeCacheManager.currentVersion()).thenReturn(1L, 1L, 2L);
+        when(intentTreeCacheManager.getIntentTreeFromCache()).thenReturn(List.of(leaf));
+        when(promptTemplateLoader.render(anyString(), anyMap())).thenReturn("system-prompt");
+        when(llmService.chat(any())).thenReturn("[{\"id\":\"oa-leave\",\"score\":0.9}]");
+
+        classifier.classifyTargets("怎么请假");
+        List<NodeScore> scores = classifier.classifyTargets("请假流程");
+        classifier.checkVersion();
+        classifier.checkVersion();
+
+        assertEquals(1, scores.size());
+        assertEquals("oa-leave", scores.get(0).getNode().getId());
+        assertEquals("oa-leave", classifier.getNodeById("oa-leave").getId());
+        // 首次构建一次、版本号变化后重建一次，提问路径本身不再读 Redis、不重新渲染提示词
+        verify(intentTreeCacheManager, times(2)).getIntentTreeFromCache();
+        verify(promptTemplateLoader, times(2)).render(anyString(), anyMap());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void rendersOnlyPrefilterCandidatesWhenAvailable() {
+        IntentNode leave = IntentNode.builder().id("oa-leave").name("请假").fullPath("OA系统 > 请假").build();
+        IntentNode invoice = IntentNode.builder().id("fin-invoice").name("发票").fullPath("财务 > 发票").build();
+        when(intentTreeCacheManager.getIntentTreeFromCache()).thenReturn(List.of(leave, invoice));
+        when(intentLeafPrefilter.candidates(any(), anyString())).thenReturn(List.of(leave));
+        when(promptTemplateLoader.render(anyString(), anyMap())).thenReturn("system-prompt");
+        when(llmService.chat(any())).thenReturn("[]");
+
+        classifier.classifyTargets("怎么请假");
+
+        // 第一次是快照里的全量提示词，第二次是本问题的候选提示词
+        ArgumentCaptor<Map<String, String>> captor = ArgumentCaptor.forClass(Map.class);
+        verify(promptTemplateLoader, times(2)).render(anyString(), captor.capture());
+        String candidatePrompt = captor.getAllValues().get(1).get("intent_list");
+        assertTrue(candidatePrompt.contains("id=oa-leave"));
+        assertFalse(candidatePrompt.contains("id=fin-invoice"));
+    }
 }
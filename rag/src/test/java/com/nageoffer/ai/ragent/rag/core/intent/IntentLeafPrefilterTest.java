@@ -0,0 +1,96 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nageoffer.ai.ragent.rag.core.intent;
+
+import com.nageoffer.ai.ragent.infra.embedding.EmbeddingService;
+import com.nageoffer.ai.ragent.rag.config.IntentPrefilterProperties;
+import com.nageoffer.ai.ragent.rag.enums.IntentKind;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class IntentLeafPrefilterTest {
+
+    private EmbeddingService embeddingService;
+    private IntentPrefilterProperties properties;
+    private IntentLeafPrefilter prefilter;
+
+    private final IntentNode leave = leaf("oa-leave", IntentKind.KB);
+    private final IntentNode invoice = leaf("fin-invoice", IntentKind.KB);
+    private final IntentNode vpn = leaf("it-vpn", IntentKind.KB);
+    private final IntentNode welcome = leaf("sys-welcome", IntentKind.SYSTEM);
+
+    @BeforeEach
+    void setUp() {
+        embeddingService = mock(EmbeddingService.class);
+        properties = new IntentPrefilterProperties();
+        properties.setEnabled(true);
+        properties.setTopN(1);
+        prefilter = new IntentLeafPrefilter(embeddingService, properties);
+    }
+
+    @Test
+    @DisplayName("只取最相近的 topN 个叶子，系统类叶子始终保留，顺序与树中一致")
+    void selectsNearestLeavesAndKeepsSystemLeaves() {
+        when(embeddingService.embedBatch(anyList())).thenReturn(List.of(
+                new float[]{1, 0, 0}, new float[]{0, 1, 0}, new float[]{0, 0, 1}, new float[]{0, 0, 0}));
+        when(embeddingService.embed("发票抬头怎么写")).thenReturn(new float[]{0.1F, 0.9F, 0.2F});
+
+        IntentLeafPrefilter.LeafIndex index = prefilter.index(List.of(leave, invoice, vpn, welcome));
+
+        assertNotNull(index);
+        assertEquals(List.of(invoice, welcome), prefilter.candidates(index, "发票抬头怎么写"));
+    }
+
+    @Test
+    @DisplayName("未启用或叶子数不超过 topN 时不建索引，也不调用向量模型")
+    void skipsIndexWhenDisabledOrTreeIsSmall() {
+        properties.setTopN(4);
+        assertNull(prefilter.index(List.of(leave, invoice, vpn, welcome)));
+
+        properties.setTopN(1);
+        properties.setEnabled(false);
+        assertNull(prefilter.index(List.of(leave, invoice, vpn, welcome)));
+
+        verifyNoInteractions(embeddingService);
+    }
+
+    @Test
+    @DisplayName("问题向量维度与索引不一致（模型被降级）时退回全量")
+    void fallsBackWhenQueryDimensionDiffers() {
+        when(embeddingService.embedBatch(anyList())).thenReturn(List.of(new float[]{1, 0}, new float[]{0, 1}));
+        when(embeddingService.embed("怎么请假")).thenReturn(new float[]{1, 0, 0});
+
+        IntentLeafPrefilter.LeafIndex index = prefilter.index(List.of(leave, invoice));
+
+        assertNull(prefilter.candidates(index, "怎么请假"));
+    }
+
+    private static IntentNode leaf(String id, IntentKind kind) {
+        return IntentNode.builder().id(id).name(id).fullPath(id).kind(kind).build();
+    }
+}
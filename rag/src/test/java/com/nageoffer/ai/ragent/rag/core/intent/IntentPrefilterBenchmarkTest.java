@@ -0,0 +1,246 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nageoffer.ai.ragent.rag.core.intent;
+
+import com.nageoffer.ai.ragent.framework.convention.ChatRequest;
+import com.nageoffer.ai.ragent.infra.chat.LLMService;
+import com.nageoffer.ai.ragent.infra.embedding.EmbeddingService;
+import com.nageoffer.ai.ragent.infra.token.TokenCounterService;
+import com.nageoffer.ai.ragent.rag.config.IntentPrefilterProperties;
+import com.nageoffer.ai.ragent.rag.core.prompt.PromptTemplateLoader;
+import com.nageoffer.ai.ragent.rag.dao.mapper.IntentNodeMapper;
+import com.nageoffer.ai.ragent.rag.enums.IntentKind;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.AdditionalAnswers.delegatesTo;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 意图预筛基准：用初始化器模板 enterprise-knowledge-base 的意图树和演示问题，
+ * 对比全量提示词与向量预筛两种模式的提示词 token 数、识别耗时和 top-1 一致率
+ * <p>
+ * 走真实的对话模型与向量模型，意图树直接读模板文件、不经数据库与 Redis。模板只有十几个叶子，
+ * 用 {@code -Dragent.benchmark.top-n} 把候选数压到叶子数以下才看得出差别。耗时取决于模型，默认不跑：
+ * {@code -Dragent.benchmark=true [-Dragent.benchmark.dataset=...] [-Dragent.benchmark.top-n=5]}
+ */
+@SpringBootTest
+@EnabledIfSystemProperty(named = "ragent.benchmark", matches = "true")
+class IntentPrefilterBenchmarkTest {
+
+    private static final String DATASET = System.getProperty(
+            "ragent.benchmark.dataset", "../resources/initializer/enterprise-knowledge-base");
+    private static final int TOP_N = Integer.getInteger("ragent.benchmark.top-n", 5);
+
+    @Autowired
+    private LLMService llmService;
+
+    @Autowired
+    private EmbeddingService embeddingService;
+
+    @Autowired
+    private PromptTemplateLoader promptTemplateLoader;
+
+    @Autowired
+    private TokenCounterService tokenCounterService;
+
+    @Test
+    void comparePrefilterWithFullTreePrompt() throws IOException {
+        List<IntentNode> roots = loadIntentTree(Path.of(DATASET, "intents"));
+        List<String> questions = loadQuestions(Path.of(DATASET, "questions.properties"));
+        assertFalse(questions.isEmpty(), "模板里没有演示问题：" + DATASET);
+
+        List<Integer> fullTokens = new ArrayList<>();
+        List<Integer> filteredTokens = new ArrayList<>();
+        DefaultIntentClassifier full = newClassifier(roots, false, fullTokens);
+        DefaultIntentClassifier filtered = newClassifier(roots, true, filteredTokens);
+
+        // 预热：建快照（含叶子向量化）并建立连接，不计入结果
+        full.classifyTargets(questions.get(0));
+        filtered.classifyTargets(questions.get(0));
+        fullTokens.clear();
+        filteredTokens.clear();
+
+        long[] fullMs = new long[questions.size()];
+        long[] filteredMs = new long[questions.size()];
+        int agreed = 0;
+        for (int i = 0; i < questions.size(); i++) {
+            String question = questions.get(i);
+            long start = System.nanoTime();
+            List<NodeScore> fullScores = full.classifyTargets(question);
+            fullMs[i] = (System.nanoTime() - start) / 1_000_000;
+
+            start = System.nanoTime();
+            List<NodeScore> filteredScores = filtered.classifyTargets(question);
+            filteredMs[i] = (System.nanoTime() - start) / 1_000_000;
+
+            String fullTop = top1(fullScores);
+            String filteredTop = top1(filteredScores);
+            if (Objects.equals(fullTop, filteredTop)) {
+                agreed++;
+            }
+            System.out.printf("[%02d] 全量=%s 预筛=%s %s%n", i + 1, fullTop, filteredTop, question);
+        }
+
+        System.out.printf("意图预筛基准（%d 个问题，候选 topN=%d）：%n", questions.size(), TOP_N);
+        System.out.printf("  全量提示词：平均 %.0f token，耗时 p50 %dms / 均值 %.0fms%n",
+                average(fullTokens), percentile(fullMs, 50), average(fullMs));
+        System.out.printf("  向量预筛：  平均 %.0f token，耗时 p50 %dms / 均值 %.0fms%n",
+                average(filteredTokens), percentile(filteredMs, 50), average(filteredMs));
+        System.out.printf("  top-1 一致率：%d/%d（%.0f%%）%n", agreed, questions.size(), agreed * 100.0 / questions.size());
+        assertTrue(average(filteredTokens) < average(fullTokens), "预筛后的提示词应短于全量提示词");
+    }
+
+    private DefaultIntentClassifier newClassifier(List<IntentNode> roots, boolean prefilter, List<Integer> promptTokens) {
+        IntentTreeCacheManager cacheManager = mock(IntentTreeCacheManager.class);
+        when(cacheManager.getIntentTreeFromCache()).thenReturn(roots);
+
+        // 透传到真实模型，顺手记下每次请求的系统提示词 token 数
+        LLMService recording = mock(LLMService.class, delegatesTo(llmService));
+        doAnswer(invocation -> {
+            ChatRequest request = invocation.getArgument(0);
+            promptTokens.add(tokenCounterService.countTokens(request.getMessages().get(0).getContent()));
+            return llmService.chat(request);
+        }).when(recording).chat(any(ChatRequest.class));
+
+        IntentPrefilterProperties properties = new IntentPrefilterProperties();
+        properties.setEnabled(prefilter);
+        properties.setTopN(TOP_N);
+        return new DefaultIntentClassifier(
+                recording,
+                mock(IntentNodeMapper.class),
+                promptTemplateLoader,
+                cacheManager,
+                new IntentLeafPrefilter(embeddingService, properties)
+        );
+    }
+
+    /**
+     * 按初始化器的意图文件格式组树：code / parent-code / kind / description / examples（| 分隔），跳过未启用的节点
+     */
+    private static List<IntentNode> loadIntentTree(Path dir) throws IOException {
+        Map<String, IntentNode> id2Node = new HashMap<>();
+        List<IntentNode> ordered = new ArrayList<>();
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path file : files.filter(p -> p.toString().endsWith(".properties")).sorted().toList()) {
+                Properties p = read(file);
+                if ("false".equalsIgnoreCase(p.getProperty("enabled"))) {
+                    continue;
+                }
+                String examples = p.getProperty("examples", "");
+                IntentNode node = IntentNode.builder()
+                        .id(p.getProperty("code"))
+                        .name(p.getProperty("name"))
+                        .parentId(p.getProperty("parent-code"))
+                        .description(p.getProperty("description"))
+                        .kind(IntentKind.fromCode(Integer.parseInt(p.getProperty("kind", "0"))))
+                        .mcpToolId(p.getProperty("mcp-tool-id"))
+                        .examples(examples.isBlank() ? List.of() : Arrays.asList(examples.split("\\|")))
+                        .children(new ArrayList<>())
+                        .build();
+                id2Node.put(node.getId(), node);
+                ordered.add(node);
+            }
+        }
+        List<IntentNode> roots = new ArrayList<>();
+        for (IntentNode node : ordered) {
+            IntentNode parent = node.getParentId() == null ? null : id2Node.get(node.getParentId());
+            if (parent == null) {
+                node.setFullPath(node.getName());
+                roots.add(node);
+            } else {
+                parent.getChildren().add(node);
+            }
+        }
+        // 文件按编号有序，父节点总在子节点之前，按序填路径即可
+        for (IntentNode node : ordered) {
+            IntentNode parent = node.getParentId() == null ? null : id2Node.get(node.getParentId());
+            if (parent != null) {
+                node.setFullPath(parent.getFullPath() + " > " + node.getName());
+            }
+        }
+        return roots;
+    }
+
+    /**
+     * 演示问题连同追问一起作为识别样本，追问里有评价、寒暄这类系统意图
+     */
+    private static List<String> loadQuestions(Path file) throws IOException {
+        Properties p = read(file);
+        List<String> questions = new ArrayList<>();
+        for (String ref : p.getProperty("question.refs", "").split(",")) {
+            String text = p.getProperty("question." + ref.trim() + ".text");
+            if (text != null && !text.isBlank()) {
+                questions.add(text);
+            }
+            String followUps = p.getProperty("question." + ref.trim() + ".follow-ups", "");
+            for (String followUp : followUps.split("\\|")) {
+                if (!followUp.isBlank()) {
+                    questions.add(followUp);
+                }
+            }
+        }
+        return questions;
+    }
+
+    private static Properties read(Path file) throws IOException {
+        Properties p = new Properties();
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            p.load(reader);
+        }
+        return p;
+    }
+
+    private static String top1(List<NodeScore> scores) {
+        return scores.isEmpty() ? null : scores.get(0).getNode().getId();
+    }
+
+    private static double average(List<Integer> values) {
+        return values.stream().mapToInt(Integer::intValue).average().orElse(0);
+    }
+
+    private static double average(long[] values) {
+        return Arrays.stream(values).average().orElse(0);
+    }
+
+    private static long percentile(long[] values, int p) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[Math.max(0, (int) Math.ceil(p / 100.0 * sorted.length) - 1)];
+    }
+}
@@ -0,0 +1,211 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nageoffer.ai.ragent.rag.core.memory;
+
+import com.nageoffer.ai.ragent.framework.convention.ChatMessage;
+import com.nageoffer.ai.ragent.rag.config.MemoryProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.redisson.api.RBucket;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ConversationMemoryCacheTest {
+
+    private static final String CONVERSATION_ID = "conversation-1";
+    private static final String USER_ID = "user-1";
+
+    private MemoryProperties properties;
+    private RedissonClient redissonClient;
+
+    /**
+     * 模拟 Redis 里的会话版本戳，多个「节点」共享同一份
+     */
+    private AtomicReference<String> stamp;
+    private ConversationMemoryCache cache;
+
+    @BeforeEach
+    void setUp() {
+        properties = new MemoryProperties();
+        properties.setHistoryKeepTurns(2);
+        stamp = new AtomicReference<>();
+        redissonClient = mock(RedissonClient.class);
+        RBucket<String> bucket = stampBucket(stamp);
+        when(redissonClient.<String>getBucket(anyString(), eq(StringCodec.INSTANCE))).thenReturn(bucket);
+        cache = new ConversationMemoryCache(properties, redissonClient);
+    }
+
+    @Test
+    @DisplayName("首次回表后回填，后续读取命中热窗口")
+    void fillThenHit() {
+        ConversationMemoryCache.Lookup miss = cache.lookup(CONVERSATION_ID, USER_ID);
+        assertFalse(miss.hit());
+
+        cache.fill(miss, ChatMessage.system("摘要"), List.of(ChatMessage.user("q1"), ChatMessage.assistant("a1")));
+        ConversationMemoryCache.Lookup hit = cache.lookup(CONVERSATION_ID, USER_ID);
+
+        assertTrue(hit.hit());
+        assertEquals("摘要", hit.window().summary().getContent());
+        assertEquals(2, hit.window().history().size());
+    }
+
+    @Test
+    @DisplayName("追加直写进窗口，按保留轮数裁剪且不以 assistant 开头")
+    void appendWritesThroughAndTrims() {
+        cache.fill(cache.lookup(CONVERSATION_ID, USER_ID), null,
+                List.of(ChatMessage.user("q1"), ChatMessage.assistant("a1"), ChatMessage.user("q2"), ChatMessage.assistant("a2")));
+        AtomicInteger persisted = new AtomicInteger();
+
+        String messageId = cache.append(CONVERSATION_ID, USER_ID, ChatMessage.user("q3"), () -> {
+            persisted.incrementAndGet();
+            return "m-5";
+        });
+        ConversationMemoryCache.Lookup hit = cache.lookup(CONVERSATION_ID, USER_ID);
+
+        assertEquals("m-5", messageId);
+        assertEquals(1, persisted.get());
+        assertTrue(hit.hit(), "直写后本节点窗口仍与 Redis 戳一致");
+        assertEquals(List.of("q2", "a2", "q3"), contents(hit.window().history()),
+                "窗口上限 4 条，裁掉最早的 q1 后以 assistant 开头的 a1 也要剔除");
+    }
+
+    @Test
+    @DisplayName("摘要生成直写进窗口，历史保持不变")
+    void replaceSummaryWritesThrough() {
+        cache.fill(cache.lookup(CONVERSATION_ID, USER_ID), null, List.of(ChatMessage.user("q1")));
+
+        cache.replaceSummary(CONVERSATION_ID, USER_ID, ChatMessage.system("新摘要"), () -> {
+        });
+        ConversationMemoryCache.Lookup hit = cache.lookup(CONVERSATION_ID, USER_ID);
+
+        assertTrue(hit.hit());
+        assertEquals("新摘要", hit.window().summary().getContent());
+        assertEquals(List.of("q1"), contents(hit.window().history()));
+    }
+
+    @Test
+    @DisplayName("另一节点写过的会话，本节点窗口按戳失配并重新回表")
+    void writeOnAnotherNodeInvalidatesLocalWindow() {
+        ConversationMemoryCache otherNode = new ConversationMemoryCache(properties, redissonClient);
+        cache.fill(cache.lookup(CONVERSATION_ID, USER_ID), null, List.of(ChatMessage.user("q1")));
+
+        otherNode.append(CONVERSATION_ID, USER_ID, ChatMessage.assistant("a1"), () -> "m-2");
+
+        assertFalse(cache.lookup(CONVERSATION_ID, USER_ID).hit(), "不得读到缺少 a1 的旧窗口");
+    }
+
+    @Test
+    @DisplayName("回表期间有写入并发时不回填")
+    void concurrentWriteDuringLoadSkipsFill() {
+        ConversationMemoryCache.Lookup miss = cache.lookup(CONVERSATION_ID, USER_ID);
+
+        // 回表进行中，另一请求完成了一次追加
+        cache.append(CONVERSATION_ID, USER_ID, ChatMessage.user("q2"), () -> "m-2");
+        cache.fill(miss, null, List.of(ChatMessage.user("q1")));
+
+        assertFalse(cache.lookup(CONVERSATION_ID, USER_ID).hit());
+    }
+
+    @Test
+    @DisplayName("落库期间另一节点插入写入时，本节点放弃直写")
+    void interleavedWriteAbandonsWriteThrough() {
+        cache.fill(cache.lookup(CONVERSATION_ID, USER_ID), null, List.of(ChatMessage.user("q1")));
+
+        cache.append(CONVERSATION_ID, USER_ID, ChatMessage.assistant("a1"), () -> {
+            stamp.set("stamp-from-other-node");
+            return "m-2";
+        });
+
+        assertFalse(cache.lookup(CONVERSATION_ID, USER_ID).hit());
+    }
+
+    @Test
+    @DisplayName("Redis 不可用时退化为直连数据库")
+    void redisFailureFallsBackToDatabase() {
+        when(redissonClient.<String>getBucket(anyString(), eq(StringCodec.INSTANCE)))
+                .thenThrow(new IllegalStateException("redis down"));
+
+        ConversationMemoryCache.Lookup miss = cache.lookup(CONVERSATION_ID, USER_ID);
+        cache.fill(miss, null, List.of(ChatMessage.user("q1")));
+        String messageId = cache.append(CONVERSATION_ID, USER_ID, ChatMessage.user("q2"), () -> "m-2");
+
+        assertFalse(miss.hit());
+        assertNull(miss.stamp());
+        assertEquals("m-2", messageId, "缓存故障不得影响落库");
+    }
+
+    @Test
+    @DisplayName("活跃会话连续多轮只回表一次")
+    void activeConversationLoadsFromDatabaseOnce() {
+        ConversationMemoryStore store = mock(ConversationMemoryStore.class);
+        ConversationMemorySummaryService summaryService = mock(ConversationMemorySummaryService.class);
+        when(store.loadHistory(CONVERSATION_ID, USER_ID)).thenReturn(List.of(ChatMessage.user("q1"), ChatMessage.assistant("a1")));
+        when(store.append(eq(CONVERSATION_ID), eq(USER_ID), any())).thenReturn("m");
+        DefaultConversationMemoryService memoryService =
+                new DefaultConversationMemoryService(store, summaryService, Runnable::run, cache);
+
+        for (int turn = 2; turn <= 4; turn++) {
+            memoryService.load(CONVERSATION_ID, USER_ID);
+            memoryService.append(CONVERSATION_ID, USER_ID, ChatMessage.user("q" + turn));
+            memoryService.append(CONVERSATION_ID, USER_ID, ChatMessage.assistant("a" + turn));
+        }
+        List<ChatMessage> history = memoryService.load(CONVERSATION_ID, USER_ID);
+
+        verify(store, times(1)).loadHistory(CONVERSATION_ID, USER_ID);
+        verify(summaryService, times(1)).loadLatestSummary(CONVERSATION_ID, USER_ID);
+        assertEquals(List.of("q3", "a3", "q4", "a4"), contents(history));
+    }
+
+    private static List<String> contents(List<ChatMessage> messages) {
+        return messages.stream().map(ChatMessage::getContent).toList();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static RBucket<String> stampBucket(AtomicReference<String> value) {
+        RBucket<String> bucket = mock(RBucket.class);
+        when(bucket.get()).thenAnswer(invocation -> value.get());
+        when(bucket.getAndSet(anyString(), any(Duration.class)))
+                .thenAnswer(invocation -> value.getAndSet(invocation.getArgument(0)));
+        when(bucket.setIfAbsent(anyString(), any(Duration.class)))
+                .thenAnswer(invocation -> value.compareAndSet(null, invocation.getArgument(0)));
+        doAnswer(invocation -> {
+            value.set(invocation.getArgument(0));
+            return null;
+        }).when(bucket).set(anyString(), any(Duration.class));
+        return bucket;
+    }
+}
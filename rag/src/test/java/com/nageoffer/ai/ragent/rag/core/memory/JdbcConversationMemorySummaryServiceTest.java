@@ -88,6 +88,9 @@ class JdbcConversationMemorySummaryServiceTest {
         memoryProperties.setHistoryKeepTurns(4);
         memoryProperties.setSummaryMaxChars(200);
 
+        // 热窗口关闭：本用例只验证摘要生成，落库动作直接执行
+        memoryProperties.getHotCache().setEnabled(false);
+
         Executor directExecutor = Runnable::run;
         service = new JdbcConversationMemorySummaryService(
                 conversationGroupService,
@@ -97,7 +100,8 @@ class JdbcConversationMemorySummaryServiceTest {
                 promptTemplateLoader,
                 agentPromptResolver,
                 redissonClient,
-                directExecutor
+                directExecutor,
+                new ConversationMemoryCache(memoryProperties, redissonClient)
         );
 
         when(redissonClient.getLock(anyString())).thenReturn(lock);
@@ -22,6 +22,7 @@ import com.nageoffer.ai.ragent.framework.convention.RetrievedChunkKey;
 import com.nageoffer.ai.ragent.rag.config.SearchChannelProperties;
 import com.nageoffer.ai.ragent.rag.core.intent.IntentNode;
 import com.nageoffer.ai.ragent.rag.core.intent.NodeScore;
+import com.nageoffer.ai.ragent.rag.core.retrieval.cache.SemanticRetrievalCache;
 import com.nageoffer.ai.ragent.rag.core.retrieval.channel.RetrievalScope;
 import com.nageoffer.ai.ragent.rag.core.retrieval.channel.RetrievalScopeResolver;
 import com.nageoffer.ai.ragent.rag.core.retrieval.channel.SearchChannel;
@@ -36,16 +37,19 @@ import org.mockito.ArgumentCaptor;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -162,7 +166,8 @@ class MultiChannelRetrievalEngineTest {
                     List.of(),
                     resolver,
                     pool,
-                    properties)
+                    properties,
+                    new SemanticRetrievalCache(properties, null, null))
                     .retrieveKnowledgeChannels(
                             new SubQuestionIntent("问题", List.of()),
                             RetrievalBudget.uniform(10)
@@ -187,13 +192,47 @@ class MultiChannelRetrievalEngineTest {
         }
     }
 
+    @Test
+    void claimsMatchingSpeculationWithoutRunningChannels() {
+        RetrievedChunk speculatedChunk = chunk("p1", "推测资料", "kb-a", 0.9F);
+        KnowledgeRetrievalResult speculated = new KnowledgeRetrievalResult(List.of(speculatedChunk), Map.of(), Set.of());
+        SearchChannel vector = channel("vector", SearchChannelType.VECTOR,
+                channelResult(SearchChannelType.VECTOR, "vector", chunk("v1", "通道资料", "kb-a", 0.8F)));
+        RetrievalSpeculation speculation = new RetrievalSpeculation(
+                "问题", RetrievalBudget.uniform(10), mock(SpeculativeRetrievalService.class));
+        speculation.attach(CompletableFuture.completedFuture(speculated));
+
+        KnowledgeRetrievalResult result = engine(List.of(vector), List.of(), RetrievalScope.global(0.3, List.of("kb-a")))
+                .retrieveKnowledgeChannels(new SubQuestionIntent("问题？", List.of()), RetrievalBudget.uniform(10), speculation);
+
+        assertSame(speculated, result);
+        verify(vector, never()).search(any(SearchContext.class));
+    }
+
+    @Test
+    void cancelledSpeculationSkipsPostProcessors() {
+        // 精排是远程调用，推测一旦被丢弃，通道查询回来后不再往下走
+        SearchChannel vector = channel("vector", SearchChannelType.VECTOR,
+                channelResult(SearchChannelType.VECTOR, "vector", chunk("v1", "资料", "kb-a", 0.9F)));
+        SearchResultPostProcessor rerank = mock(SearchResultPostProcessor.class);
+        when(rerank.isEnabled(any(SearchContext.class))).thenReturn(true);
+
+        KnowledgeRetrievalResult result = engine(List.of(vector), List.of(rerank), RetrievalScope.global(0, List.of("kb-a")))
+                .retrieveSpeculatively("问题", RetrievalBudget.uniform(10), () -> true);
+
+        assertTrue(result.chunks().isEmpty());
+        verify(rerank, never()).process(anyList(), anyList(), any(SearchContext.class));
+    }
+
     private MultiChannelRetrievalEngine engine(List<SearchChannel> channels,
                                                List<SearchResultPostProcessor> processors,
                                                RetrievalScope scope) {
         RetrievalScopeResolver resolver = mock(RetrievalScopeResolver.class);
         when(resolver.resolve(anyList())).thenReturn(scope);
+        SearchChannelProperties properties = new SearchChannelProperties();
         return new MultiChannelRetrievalEngine(
-                channels, processors, resolver, Runnable::run, new SearchChannelProperties());
+                channels, processors, resolver, Runnable::run, properties,
+                new SemanticRetrievalCache(properties, null, null));
     }
 
     private static RetrievalScope directedScope(List<NodeScore> intents,
@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nageoffer.ai.ragent.rag.core.retrieval;
+
+import com.nageoffer.ai.ragent.framework.convention.RetrievedChunk;
+import com.nageoffer.ai.ragent.rag.config.SearchChannelProperties;
+import com.nageoffer.ai.ragent.rag.core.retrieval.channel.RetrievalScope;
+import com.nageoffer.ai.ragent.rag.core.retrieval.channel.SearchContext;
+import com.nageoffer.ai.ragent.rag.core.rewrite.QueryTermMappingService;
+import com.nageoffer.ai.ragent.rag.core.rewrite.RewriteResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.AdditionalAnswers.returnsFirstArg;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SpeculativeRetrievalServiceTest {
+
+    private SearchChannelProperties properties;
+    private MultiChannelRetrievalEngine multiChannel;
+    private SpeculativeRetrievalService service;
+
+    private final KnowledgeRetrievalResult speculated = new KnowledgeRetrievalResult(
+            List.of(RetrievedChunk.builder().id("c1").text("年假规定").build()), Map.of(), Set.of());
+
+    @BeforeEach
+    void setUp() {
+        properties = new SearchChannelProperties();
+        properties.getSpeculation().setEnabled(true);
+        multiChannel = mock(MultiChannelRetrievalEngine.class);
+        QueryTermMappingService termMapping = mock(QueryTermMappingService.class);
+        when(termMapping.normalize(anyString())).then(returnsFirstArg());
+        when(multiChannel.retrieveSpeculatively(eq("年假有几天？"), any(), any())).thenReturn(speculated);
+        service = new SpeculativeRetrievalService(properties, multiChannel, termMapping, Runnable::run);
+    }
+
+    @Test
+    @DisplayName("改写后问题只差空白与句末标点且作用域为全局时复用推测结果，只能领取一次")
+    void claimsSpeculationForEquivalentGlobalQuestion() {
+        RetrievalSpeculation speculation = service.start("年假有几天？");
+
+        assertSame(speculated, speculation.claim(context(" 年假有几天 ", RetrievalScope.global(0.3, List.of("kb-a")))));
+        assertNull(speculation.claim(context("年假有几天", RetrievalScope.global(0.3, List.of("kb-a")))));
+        service.finish(speculation);
+
+        SpeculativeRetrievalService.SpeculationMetrics metrics = service.metrics();
+        assertEquals(1, metrics.started());
+        assertEquals(1, metrics.hits());
+        assertEquals(0, metrics.discards());
+        assertEquals(1.0, metrics.hitRate());
+    }
+
+    @Test
+    @DisplayName("作用域收窄或问题被改写时不领取，结束时取消并计入丢弃")
+    void discardsWhenScopeDirectedOrQuestionChanged() {
+        RetrievalSpeculation speculation = service.start("年假有几天？");
+
+        assertNull(speculation.claim(context("年假有几天", new RetrievalScope(
+                true, 0.9, List.of(), List.of("kb-a"), List.of()))));
+        assertNull(speculation.claim(context("入职满一年后年假有几天", RetrievalScope.global(0.3, List.of("kb-a")))));
+        service.finish(speculation);
+        service.finish(speculation);
+
+        assertTrue(speculation.isCancelled());
+        assertEquals(0, service.metrics().hits());
+        assertEquals(1, service.metrics().discards());
+    }
+
+    @Test
+    @DisplayName("改写拆出多个子问题时提前丢弃")
+    void discardsEarlyWhenRewriteSplitsQuestion() {
+        RetrievalSpeculation speculation = service.start("年假有几天？");
+
+        service.onRewritten(speculation, new RewriteResult("年假有几天，病假呢", List.of("年假有几天", "病假有几天")));
+
+        assertTrue(speculation.isCancelled());
+        assertNull(speculation.claim(context("年假有几天", RetrievalScope.global(0.3, List.of("kb-a")))));
+    }
+
+    @Test
+    @DisplayName("未启用或线程池已满时不发起推测")
+    void skipsWhenDisabledOrRejected() {
+        properties.getSpeculation().setEnabled(false);
+        assertNull(service.start("年假有几天？"));
+
+        properties.getSpeculation().setEnabled(true);
+        SpeculativeRetrievalService saturated = new SpeculativeRetrievalService(
+                properties, multiChannel, mock(QueryTermMappingService.class, invocation -> "年假有几天？"),
+                command -> {
+                    throw new RejectedExecutionException("full");
+                });
+        assertNull(saturated.start("年假有几天？"));
+        assertEquals(1, saturated.metrics().rejections());
+        assertEquals(0, saturated.metrics().started());
+    }
+
+    private static SearchContext context(String question, RetrievalScope scope) {
+        return SearchContext.builder()
+                .originalQuestion(question)
+                .rewrittenQuestion(question)
+                .budget(RetrievalBudget.from(new SearchChannelProperties()))
+                .retrievalScope(scope)
+                .build();
+    }
+}
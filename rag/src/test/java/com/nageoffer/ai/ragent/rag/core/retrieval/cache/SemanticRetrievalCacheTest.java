@@ -0,0 +1,180 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nageoffer.ai.ragent.rag.core.retrieval.cache;
+
+import com.nageoffer.ai.ragent.core.ingest.DocumentRef;
+import com.nageoffer.ai.ragent.core.ingest.VectorTarget;
+import com.nageoffer.ai.ragent.framework.convention.RetrievedChunk;
+import com.nageoffer.ai.ragent.rag.config.SearchChannelProperties;
+import com.nageoffer.ai.ragent.rag.core.retrieval.KnowledgeRetrievalResult;
+import com.nageoffer.ai.ragent.rag.core.retrieval.RetrievalBudget;
+import com.nageoffer.ai.ragent.rag.core.retrieval.channel.RetrievalScope;
+import com.nageoffer.ai.ragent.rag.core.retrieval.channel.SearchContext;
+import com.nageoffer.ai.ragent.rag.core.vector.VectorRetrieverService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SemanticRetrievalCacheTest {
+
+    private static final RetrievalBudget BUDGET = new RetrievalBudget(20, 40, 10);
+
+    private SearchChannelProperties properties;
+    private VectorRetrieverService retrieverService;
+    private RTopic topic;
+    private SemanticRetrievalCache cache;
+    private AtomicInteger loads;
+
+    @BeforeEach
+    void setUp() {
+        properties = new SearchChannelProperties();
+        properties.getCache().setEnabled(true);
+        properties.getCache().setSimilarityThreshold(0.95);
+        retrieverService = mock(VectorRetrieverService.class);
+        RedissonClient redissonClient = mock(RedissonClient.class);
+        topic = mock(RTopic.class);
+        when(redissonClient.getTopic(anyString())).thenReturn(topic);
+        cache = new SemanticRetrievalCache(properties, retrieverService, redissonClient);
+        loads = new AtomicInteger();
+    }
+
+    @Test
+    void exactHitIgnoresWhitespaceCaseAndTrailingPunctuation() {
+        properties.getCache().setSimilarityThreshold(0);
+
+        cache.getOrLoad(context("年假有几天？", global("kb-hr")), loader("c1"));
+        KnowledgeRetrievalResult second = cache.getOrLoad(context("  年假有几天 ", global("kb-hr")), loader("c2"));
+
+        assertEquals(1, loads.get(), "归一化后同一问题只应检索一次");
+        assertEquals("c1", second.chunks().get(0).getId());
+        assertEquals(1, cache.metrics().exactHits());
+        assertEquals(1, cache.metrics().misses());
+    }
+
+    @Test
+    void semanticHitAboveThresholdAndReusesVectorForChannel() {
+        when(retrieverService.embedAndNormalize("年假有几天")).thenReturn(new float[]{1F, 0F});
+        when(retrieverService.embedAndNormalize("年假一共多少天")).thenReturn(new float[]{0.98F, 0.199F});
+        when(retrieverService.embedAndNormalize("病假怎么请")).thenReturn(new float[]{0F, 1F});
+
+        cache.getOrLoad(context("年假有几天", global("kb-hr")), loader("c1"));
+        SearchContext similar = context("年假一共多少天", global("kb-hr"));
+        KnowledgeRetrievalResult hit = cache.getOrLoad(similar, loader("c2"));
+        SearchContext different = context("病假怎么请", global("kb-hr"));
+        cache.getOrLoad(different, loader("c3"));
+
+        assertEquals("c1", hit.chunks().get(0).getId(), "近义问题应复用已缓存结果");
+        assertEquals(2, loads.get(), "语义不相近的问题必须走完整检索");
+        assertEquals(1, cache.metrics().semanticHits());
+        assertArrayEquals(new float[]{0F, 1F}, different.getQueryVector(), "算过的查询向量须挂进上下文供向量通道复用");
+    }
+
+    @Test
+    void differentScopeNeverShares() {
+        properties.getCache().setSimilarityThreshold(0);
+
+        cache.getOrLoad(context("报销流程", global("kb-hr", "kb-fin")), loader("c1"));
+        cache.getOrLoad(context("报销流程", new RetrievalScope(true, 0.9, List.of(), List.of("kb-fin"), List.of("kb-hr"))),
+                loader("c2"));
+
+        assertEquals(2, loads.get(), "作用域不同则证据不同，不得复用");
+    }
+
+    @Test
+    void invalidationDropsEntriesCoveringCollectionOnly() {
+        properties.getCache().setSimilarityThreshold(0);
+        cache.getOrLoad(context("报销流程", global("kb-fin")), loader("c1"));
+        cache.getOrLoad(context("年假有几天", global("kb-hr")), loader("c2"));
+
+        cache.invalidateLocal("kb-fin");
+        cache.getOrLoad(context("报销流程", global("kb-fin")), loader("c3"));
+        cache.getOrLoad(context("年假有几天", global("kb-hr")), loader("c4"));
+
+        assertEquals(3, loads.get(), "只有覆盖被改库的条目作废");
+        assertEquals(1, cache.metrics().invalidations());
+    }
+
+    @Test
+    void documentChangeBroadcastsCollection() {
+        cache.onDocumentChanged(new VectorTarget("kb-fin", "emb", 2), DocumentRef.of("doc-1", "kb-1"));
+
+        verify(topic).publish("kb-fin");
+    }
+
+    @Test
+    void emptyResultIsNotCached() {
+        properties.getCache().setSimilarityThreshold(0);
+        Supplier<KnowledgeRetrievalResult> empty = () -> {
+            loads.incrementAndGet();
+            return KnowledgeRetrievalResult.empty();
+        };
+
+        cache.getOrLoad(context("报销流程", global("kb-fin")), empty);
+        cache.getOrLoad(context("报销流程", global("kb-fin")), empty);
+
+        assertEquals(2, loads.get(), "空结果可能来自通道超时降级，不能缓存");
+    }
+
+    @Test
+    void hitsAreIsolatedCopies() {
+        properties.getCache().setSimilarityThreshold(0);
+        KnowledgeRetrievalResult first = cache.getOrLoad(context("报销流程", global("kb-fin")), loader("c1"));
+        first.chunks().get(0).setDocName("被下游改写");
+
+        KnowledgeRetrievalResult hit = cache.getOrLoad(context("报销流程", global("kb-fin")), loader("c2"));
+
+        assertNotSame(first.chunks().get(0), hit.chunks().get(0));
+        assertEquals(null, hit.chunks().get(0).getDocName(), "下游就地改写不得污染缓存");
+    }
+
+    private Supplier<KnowledgeRetrievalResult> loader(String chunkId) {
+        return () -> {
+            loads.incrementAndGet();
+            RetrievedChunk chunk = RetrievedChunk.builder().id(chunkId).text("资料").collectionName("kb").score(0.9F).build();
+            return new KnowledgeRetrievalResult(List.of(chunk), Map.of(), Set.of());
+        };
+    }
+
+    private static SearchContext context(String question, RetrievalScope scope) {
+        return SearchContext.builder()
+                .originalQuestion(question)
+                .rewrittenQuestion(question)
+                .budget(BUDGET)
+                .retrievalScope(scope)
+                .build();
+    }
+
+    private static RetrievalScope global(String... collections) {
+        return RetrievalScope.global(0.3, List.of(collections));
+    }
+}
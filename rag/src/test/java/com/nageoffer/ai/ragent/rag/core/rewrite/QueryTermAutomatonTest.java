@@ -0,0 +1,121 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nageoffer.ai.ragent.rag.core.rewrite;
+
+import com.nageoffer.ai.ragent.rag.dao.entity.QueryTermMappingDO;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class QueryTermAutomatonTest {
+
+    @Test
+    @DisplayName("文本已是目标词时不重复替换，其余位置正常替换")
+    void keepsAlreadyTargetSemantics() {
+        QueryTermAutomaton automaton = QueryTermAutomaton.compile(List.of(rule("平安", "平安保司")));
+
+        String text = "平安保司和平安的区别";
+        assertEquals("平安保司和平安保司的区别", automaton.apply(text));
+        assertEquals(QueryTermMappingUtil.applyMapping(text, "平安", "平安保司"), automaton.apply(text));
+    }
+
+    @Test
+    @DisplayName("多条规则互不重叠时与逐条替换结果一致")
+    void matchesSequentialReplacement() {
+        List<QueryTermMappingDO> rules = List.of(
+                rule("阿里", "阿里巴巴"),
+                rule("钉钉", "DingTalk"),
+                rule("OA", "办公自动化"));
+        String text = "阿里使用的是钉钉么？阿里巴巴的OA呢";
+
+        String expected = text;
+        for (QueryTermMappingDO r : rules) {
+            expected = QueryTermMappingUtil.applyMapping(expected, r.getSourceTerm(), r.getTargetTerm());
+        }
+        assertEquals(expected, QueryTermAutomaton.compile(rules).apply(text));
+    }
+
+    @Test
+    @DisplayName("命中区间重叠时排在前面的规则胜出，与逐条替换的先后一致")
+    void higherPriorityWinsOnOverlap() {
+        QueryTermAutomaton automaton = QueryTermAutomaton.compile(List.of(
+                rule("报销流程", "费用报销流程"),
+                rule("报销", "费用报销"),
+                rule("流程图", "流程示意图")));
+
+        // 「报销流程」优先于嵌在其中的「报销」；「流程图」与已选区间重叠被丢弃
+        assertEquals("费用报销流程图", automaton.apply("报销流程图"));
+        assertEquals("费用报销单", automaton.apply("报销单"));
+    }
+
+    @Test
+    @DisplayName("禁用、非精确匹配、空词规则不参与编译；无命中时原样返回同一对象")
+    void skipsInactiveRules() {
+        QueryTermMappingDO disabled = rule("年假", "带薪年假");
+        disabled.setEnabled(0);
+        QueryTermMappingDO regex = rule("年.*", "X");
+        regex.setMatchType(3);
+        QueryTermAutomaton automaton = QueryTermAutomaton.compile(List.of(disabled, regex, rule("", "空")));
+
+        assertEquals(0, automaton.size());
+        String text = "年假有几天";
+        assertSame(text, automaton.apply(text));
+    }
+
+    @Test
+    @DisplayName("随机规则集：原始词与目标词字符不相交（无链式替换）时与逐条替换逐字一致")
+    void randomizedEquivalenceWithoutChaining() {
+        Random random = new Random(7);
+        for (int round = 0; round < 5000; round++) {
+            List<QueryTermMappingDO> rules = new ArrayList<>();
+            for (int k = 1 + random.nextInt(5); k > 0; k--) {
+                rules.add(rule(randomText(random, "ab", 1 + random.nextInt(3)), randomText(random, "XY", 1 + random.nextInt(3))));
+            }
+            String text = randomText(random, "abc", random.nextInt(12));
+
+            String expected = text;
+            for (QueryTermMappingDO r : rules) {
+                expected = QueryTermMappingUtil.applyMapping(expected, r.getSourceTerm(), r.getTargetTerm());
+            }
+            assertEquals(expected, QueryTermAutomaton.compile(rules).apply(text), "text=" + text);
+        }
+    }
+
+    private static String randomText(Random random, String alphabet, int length) {
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return sb.toString();
+    }
+
+    private static QueryTermMappingDO rule(String source, String target) {
+        QueryTermMappingDO mapping = new QueryTermMappingDO();
+        mapping.setSourceTerm(source);
+        mapping.setTargetTerm(target);
+        mapping.setMatchType(1);
+        mapping.setEnabled(1);
+        return mapping;
+    }
+}
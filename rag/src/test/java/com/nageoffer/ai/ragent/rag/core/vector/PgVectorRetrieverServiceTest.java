@@ -20,6 +20,7 @@ package com.nageoffer.ai.ragent.rag.core.vector;
 import com.nageoffer.ai.ragent.framework.convention.RetrievedChunk;
 import com.nageoffer.ai.ragent.infra.embedding.EmbeddingService;
 import com.nageoffer.ai.ragent.rag.core.retrieval.RetrieveRequest;
+import com.pgvector.PGvector;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
@@ -28,7 +29,9 @@ import org.springframework.jdbc.core.RowMapper;
 
 import java.util.List;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
@@ -45,7 +48,7 @@ class PgVectorRetrieverServiceTest {
     void queryMultipleCollectionsWithOneSharedLimit() {
         JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
         EmbeddingService embeddingService = mock(EmbeddingService.class);
-        when(embeddingService.embed("报销流程")).thenReturn(List.of(3.0F, 4.0F));
+        when(embeddingService.embed("报销流程")).thenReturn(new float[]{3.0F, 4.0F});
         when(jdbcTemplate.query(
                 anyString(),
                 any(RowMapper.class),
@@ -72,6 +75,8 @@ class PgVectorRetrieverServiceTest {
         assertEquals("kb-finance", args[1]);
         assertEquals("kb-policy", args[2]);
         assertEquals(7, args[4], "SQL 只能有一个跨 Collection 共享的 LIMIT");
+        assertInstanceOf(PGvector.class, args[0], "查询向量以参数对象绑定，不拼文本字面量");
+        assertArrayEquals(new float[]{0.6F, 0.8F}, ((PGvector) args[0]).toArray(), 1e-6F);
         verify(embeddingService, times(1)).embed("报销流程");
     }
 }
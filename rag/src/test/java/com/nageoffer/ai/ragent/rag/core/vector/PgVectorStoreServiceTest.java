@@ -0,0 +1,226 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nageoffer.ai.ragent.rag.core.vector;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nageoffer.ai.ragent.core.chunk.model.Chunk;
+import com.nageoffer.ai.ragent.core.chunk.model.EmbeddedChunk;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.CopyManager;
+import org.redisson.api.RAtomicLong;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PgVectorStoreServiceTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+
+    @Test
+    @DisplayName("启用 COPY 且行数达到阈值时整批交给批量写入器，不再逐行 batchUpdate")
+    void largeWritesGoThroughCopy() {
+        PgVectorBulkLoader loader = mock(PgVectorBulkLoader.class);
+        when(loader.shouldUse(3)).thenReturn(true);
+
+        PgVectorStoreService service = new PgVectorStoreService(jdbcTemplate, new ObjectMapper(), loader);
+        List<EmbeddedChunk> chunks = chunks(3);
+        service.indexDocumentChunks("kb", "doc-1", chunks);
+
+        verify(loader).load(eq("kb"), eq(chunks), any());
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList(), anyInt(), any(ParameterizedPreparedStatementSetter.class));
+    }
+
+    @Test
+    @DisplayName("未启用或行数不足时 shouldUse 返回 false，走原有 batchUpdate")
+    void smallWritesStayOnBatchUpdate() {
+        PgVectorBulkProperties properties = new PgVectorBulkProperties();
+        PgVectorBulkLoader loader = new PgVectorBulkLoader(jdbcTemplate, properties, mock(RedissonClient.class));
+        assertFalse(loader.shouldUse(10_000), "默认关闭");
+
+        properties.setEnabled(true);
+        properties.setMinRows(500);
+        assertFalse(loader.shouldUse(499));
+        assertTrue(loader.shouldUse(500));
+    }
+
+    @Test
+    @DisplayName("DEFER 重建由集群标记驱动：空闲后拿到锁的节点在独立的自动提交连接上 CONCURRENTLY 重建并清除标记")
+    void deferredRebuildRunsOutsideTransactionOnceIdle() throws Exception {
+        PgVectorBulkProperties properties = new PgVectorBulkProperties();
+        properties.setDeferIdleSeconds(60);
+        RedissonClient redissonClient = mock(RedissonClient.class);
+        RAtomicLong marker = mock(RAtomicLong.class);
+        RLock lock = mock(RLock.class);
+        when(redissonClient.getAtomicLong(anyString())).thenReturn(marker);
+        when(redissonClient.getLock(anyString())).thenReturn(lock);
+        when(lock.tryLock()).thenReturn(true);
+
+        DataSource dataSource = mock(DataSource.class);
+        Connection connection = mock(Connection.class);
+        Statement statement = mock(Statement.class);
+        ResultSet missing = mock(ResultSet.class);
+        when(jdbcTemplate.getDataSource()).thenReturn(dataSource);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.createStatement()).thenReturn(statement);
+        when(statement.executeQuery(anyString())).thenReturn(missing);
+        PgVectorBulkLoader loader = new PgVectorBulkLoader(jdbcTemplate, properties, redissonClient);
+
+        long recent = System.currentTimeMillis() - 1000;
+        when(marker.get()).thenReturn(recent);
+        loader.rebuildDeferredIndex();
+        verify(lock, never()).tryLock();
+
+        long idle = System.currentTimeMillis() - 120_000;
+        when(marker.get()).thenReturn(idle);
+        loader.rebuildDeferredIndex();
+
+        verify(connection, atLeastOnce()).setAutoCommit(true);
+        verify(statement).execute(startsWith("CREATE INDEX CONCURRENTLY IF NOT EXISTS " + PgVectorBulkLoader.EMBEDDING_INDEX));
+        verify(marker).compareAndSet(idle, 0L);
+        verify(lock).unlock();
+    }
+
+    @Test
+    @DisplayName("DEFER 写入处于事务中且索引未预先删除时按 KEEP 处理，不在独立连接上 CONCURRENTLY 删索引等自己的事务")
+    void deferInsideTransactionWithoutPrepareFallsBackToKeep() throws Exception {
+        RedissonClient redissonClient = mock(RedissonClient.class);
+        RAtomicLong marker = mock(RAtomicLong.class);
+        RLock lock = mock(RLock.class);
+        when(redissonClient.getAtomicLong(anyString())).thenReturn(marker);
+        when(redissonClient.getLock(anyString())).thenReturn(lock);
+        when(marker.get()).thenReturn(0L);
+
+        DataSource dataSource = mock(DataSource.class);
+        Connection txConnection = copyableConnection();
+        when(dataSource.getConnection()).thenReturn(txConnection);
+        PgVectorBulkLoader loader = new PgVectorBulkLoader(new JdbcTemplate(dataSource), deferProperties(), redissonClient);
+
+        List<EmbeddedChunk> chunks = chunks(3);
+        new TransactionTemplate(new DataSourceTransactionManager(dataSource)).executeWithoutResult(status -> {
+            // 与 VectorChunkSink 一致：同一事务里先删旧向量再批量写入
+            new JdbcTemplate(dataSource).update("DELETE FROM t_knowledge_vector WHERE collection_name = 'kb'");
+            loader.load("kb", chunks, chunk -> "{}");
+        });
+
+        verify(dataSource, times(1)).getConnection();
+        verify(lock, never()).tryLock(anyLong(), any(TimeUnit.class));
+        verify(marker, never()).set(anyLong());
+        verify(txConnection.createStatement(), never()).execute(startsWith("DROP INDEX"));
+        verify(txConnection).commit();
+    }
+
+    @Test
+    @DisplayName("DEFER 删索引在入库事务开启前完成，事务内的批量写入不再删索引")
+    void deferDropsIndexesBeforeTransactionStarts() throws Exception {
+        RedissonClient redissonClient = mock(RedissonClient.class);
+        RAtomicLong marker = mock(RAtomicLong.class);
+        RLock lock = mock(RLock.class);
+        when(redissonClient.getAtomicLong(anyString())).thenReturn(marker);
+        when(redissonClient.getLock(anyString())).thenReturn(lock);
+        when(lock.tryLock(anyLong(), any(TimeUnit.class))).thenReturn(true);
+        when(marker.get()).thenReturn(System.currentTimeMillis());
+
+        DataSource dataSource = mock(DataSource.class);
+        Connection ownConnection = mock(Connection.class);
+        Statement ownStatement = mock(Statement.class);
+        ResultSet indexes = mock(ResultSet.class);
+        when(ownConnection.createStatement()).thenReturn(ownStatement);
+        when(ownStatement.executeQuery(anyString())).thenReturn(indexes);
+        when(indexes.next()).thenReturn(true, false);
+        when(indexes.getString(1)).thenReturn(PgVectorBulkLoader.EMBEDDING_INDEX);
+        Connection txConnection = copyableConnection();
+        when(dataSource.getConnection()).thenReturn(ownConnection, ownConnection, txConnection);
+        PgVectorBulkLoader loader = new PgVectorBulkLoader(new JdbcTemplate(dataSource), deferProperties(), redissonClient);
+
+        List<EmbeddedChunk> chunks = chunks(3);
+        loader.prepare(chunks.size());
+        new TransactionTemplate(new DataSourceTransactionManager(dataSource))
+                .executeWithoutResult(status -> loader.load("kb", chunks, chunk -> "{}"));
+
+        InOrder order = inOrder(ownStatement, txConnection);
+        order.verify(ownStatement).execute("DROP INDEX CONCURRENTLY IF EXISTS \"" + PgVectorBulkLoader.EMBEDDING_INDEX + "\"");
+        order.verify(txConnection).commit();
+        verify(dataSource, times(3)).getConnection();
+        verify(txConnection.createStatement(), never()).execute(startsWith("DROP INDEX"));
+        verify(lock, times(1)).unlock();
+        verify(marker, times(2)).set(anyLong());
+    }
+
+    private static PgVectorBulkProperties deferProperties() {
+        PgVectorBulkProperties properties = new PgVectorBulkProperties();
+        properties.setEnabled(true);
+        properties.setMinRows(1);
+        properties.setIndexMinRows(2);
+        properties.setIndexMode(PgVectorBulkProperties.IndexMode.DEFER);
+        return properties;
+    }
+
+    /**
+     * 事务连接：非自动提交，支持建临时表、二进制 COPY 与合并语句
+     */
+    private static Connection copyableConnection() throws Exception {
+        Connection connection = mock(Connection.class);
+        Statement statement = mock(Statement.class);
+        PGConnection pgConnection = mock(PGConnection.class);
+        CopyManager copyManager = mock(CopyManager.class);
+        when(connection.getAutoCommit()).thenReturn(false);
+        when(connection.createStatement()).thenReturn(statement);
+        when(connection.unwrap(PGConnection.class)).thenReturn(pgConnection);
+        when(pgConnection.getCopyAPI()).thenReturn(copyManager);
+        when(copyManager.copyIn(anyString())).thenReturn(mock(CopyIn.class));
+        return connection;
+    }
+
+    private static List<EmbeddedChunk> chunks(int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> new EmbeddedChunk(new Chunk("c" + i, i, "内容 " + i, "内容 " + i, null), new float[]{1f, 0f}))
+                .toList();
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nageoffer.ai.ragent.rag.core.vector.decorator;
+
+import com.nageoffer.ai.ragent.rag.core.graph.GraphFileSource;
+import com.nageoffer.ai.ragent.rag.core.graph.LightRagClient;
+import com.nageoffer.ai.ragent.rag.core.vector.VectorStoreService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+class GraphSyncingVectorStoreServiceTest {
+
+    private final VectorStoreService delegate = mock(VectorStoreService.class);
+    private final LightRagClient lightRagClient = mock(LightRagClient.class);
+    private final GraphSyncingVectorStoreService service = new GraphSyncingVectorStoreService(delegate, lightRagClient);
+
+    @Test
+    @DisplayName("单块删除只落向量，不碰图谱")
+    void chunkLevelDeleteLeavesGraphAlone() {
+        service.deleteChunksByIds("kb", List.of("c1"));
+
+        verify(delegate).deleteChunksByIds("kb", List.of("c1"));
+        verifyNoInteractions(lightRagClient);
+    }
+
+    @Test
+    @DisplayName("增量写入后按整篇正文先删后建刷新图谱，空白分块跳过")
+    void documentContentRefreshesGraph() {
+        service.syncDocumentContent("kb", "doc-1", Arrays.asList("第一段", " ", null, "第二段"));
+
+        InOrder order = inOrder(delegate, lightRagClient);
+        order.verify(delegate).syncDocumentContent("kb", "doc-1", Arrays.asList("第一段", " ", null, "第二段"));
+        order.verify(lightRagClient).deleteByDoc("doc-1");
+        order.verify(lightRagClient).insertText("第一段\n\n第二段", GraphFileSource.encode("kb", "doc-1"));
+    }
+
+    @Test
+    @DisplayName("整篇已无正文时只清除图谱，不写入空文本")
+    void emptyDocumentOnlyClearsGraph() {
+        service.syncDocumentContent("kb", "doc-1", List.of(" "));
+
+        verify(lightRagClient).deleteByDoc("doc-1");
+        verify(lightRagClient, never()).insertText(anyString(), anyString());
+    }
+
+    @Test
+    @DisplayName("图谱刷新失败不影响向量主链路")
+    void graphFailureIsSwallowed() {
+        doThrow(new IllegalStateException("lightrag down")).when(lightRagClient).deleteByDoc("doc-1");
+
+        service.syncDocumentContent("kb", "doc-1", List.of("正文"));
+
+        verify(delegate).syncDocumentContent("kb", "doc-1", List.of("正文"));
+    }
+}
@@ -24,7 +24,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 
-import java.util.List;
+import java.util.Arrays;
 
 @Slf4j
 @SpringBootTest
@@ -35,7 +35,7 @@ public class SiliconFlowEmbeddingServiceTests {
 
     @Test
     public void embeddingSiliconFlow() {
-        List<Float> embedded = embeddingService.embed("测试向量描述");
-        System.out.println(embedded);
+        float[] embedded = embeddingService.embed("测试向量描述");
+        System.out.println(Arrays.toString(embedded));
     }
 }
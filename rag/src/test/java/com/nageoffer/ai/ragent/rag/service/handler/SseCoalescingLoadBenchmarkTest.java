@@ -0,0 +1,204 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nageoffer.ai.ragent.rag.service.handler;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nageoffer.ai.ragent.framework.web.StreamTaskManager;
+import com.nageoffer.ai.ragent.infra.config.AIModelProperties;
+import com.nageoffer.ai.ragent.rag.core.memory.ConversationMemoryService;
+import com.nageoffer.ai.ragent.rag.service.ConversationGroupService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 增量合并的收益：并发回放若干路「300 个思考增量 + 1500 个正文增量」的回答，对比逐字下发与合并下发
+ * <p>
+ * 走真实的 StreamChatEventHandler；SseEmitter 换成计数实现，按 Spring 的做法序列化每个事件的数据
+ * （字符串原样写出，对象经 Jackson），一次 send 计一次写 + flush。统计每个回答的写次数、字节数与处理线程 CPU 时间。
+ * 上游无间隔灌入，只有字数与句末两种写出时机生效，是合并收益的下限。
+ * 默认不跑：{@code -Dragent.benchmark=true}
+ */
+@EnabledIfSystemProperty(named = "ragent.benchmark", matches = "true")
+class SseCoalescingLoadBenchmarkTest {
+
+    private static final int ANSWERS = 400;
+    private static final int CONCURRENCY = 16;
+    private static final int THINK_DELTAS = 300;
+    private static final int RESPONSE_DELTAS = 1500;
+    private static final String TEXT = "根据检索到的知识库文档该配置项需要在服务启动前写入环境变量否则默认值会覆盖租户级设置";
+    private static final String PUNCTUATION = "，。；\n";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final ScheduledExecutorService flushScheduler = Executors.newScheduledThreadPool(2);
+    private final ExecutorService streams = Executors.newFixedThreadPool(CONCURRENCY);
+
+    @AfterEach
+    void tearDown() {
+        flushScheduler.shutdownNow();
+        streams.shutdownNow();
+    }
+
+    @Test
+    void coalescingCutsWritesAndCpuPerAnswer() throws Exception {
+        Stats perChar = replay(false);
+        Stats coalesced = replay(true);
+
+        print("逐字下发", perChar);
+        print("合并下发", coalesced);
+        assertEquals(perChar.deltaChars(), coalesced.deltaChars(), "两种方式下发的正文必须一致");
+        assertTrue(coalesced.writes() * 5 < perChar.writes(), "合并后写次数应显著下降");
+    }
+
+    private Stats replay(boolean coalesce) throws Exception {
+        AIModelProperties properties = new AIModelProperties();
+        properties.getStream().setMessageChunkSize(1);
+        properties.getStream().getCoalesce().setEnabled(coalesce);
+
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        AtomicLong writes = new AtomicLong();
+        AtomicLong bytes = new AtomicLong();
+        AtomicLong deltaChars = new AtomicLong();
+        AtomicLong cpuNanos = new AtomicLong();
+
+        // 先热身一轮，避免把 JIT 编译算进第一种方式
+        for (int round = 0; round < 2; round++) {
+            writes.set(0);
+            bytes.set(0);
+            deltaChars.set(0);
+            cpuNanos.set(0);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < ANSWERS; i++) {
+                int seed = i;
+                futures.add(streams.submit(() -> {
+                    CountingEmitter emitter = new CountingEmitter(writes, bytes, deltaChars);
+                    long start = threads.getCurrentThreadCpuTime();
+                    StreamChatEventHandler handler = new StreamChatEventHandler(params(properties, emitter));
+                    Random random = new Random(seed);
+                    for (int d = 0; d < THINK_DELTAS; d++) {
+                        handler.onThinking(nextDelta(random));
+                    }
+                    for (int d = 0; d < RESPONSE_DELTAS; d++) {
+                        handler.onContent(nextDelta(random));
+                    }
+                    handler.onComplete();
+                    cpuNanos.addAndGet(threads.getCurrentThreadCpuTime() - start);
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+        return new Stats(writes.get(), bytes.get(), deltaChars.get(), cpuNanos.get());
+    }
+
+    private StreamChatHandlerParams params(AIModelProperties properties, SseEmitter emitter) {
+        ConversationMemoryService memoryService = mock(ConversationMemoryService.class);
+        when(memoryService.append(anyString(), any(), any())).thenReturn("m-1");
+        return StreamChatHandlerParams.builder()
+                .emitter(emitter)
+                .conversationId("c-1")
+                .taskId("t-1")
+                .modelProperties(properties)
+                .memoryService(memoryService)
+                .conversationGroupService(mock(ConversationGroupService.class))
+                .taskManager(mock(StreamTaskManager.class))
+                .flushScheduler(flushScheduler)
+                .build();
+    }
+
+    /**
+     * 1~3 个字一个增量，约每 25 个字出现一次标点
+     */
+    private static String nextDelta(Random random) {
+        if (random.nextInt(12) == 0) {
+            return String.valueOf(PUNCTUATION.charAt(random.nextInt(PUNCTUATION.length())));
+        }
+        int start = random.nextInt(TEXT.length() - 3);
+        return TEXT.substring(start, start + 1 + random.nextInt(3));
+    }
+
+    private void print(String mode, Stats stats) {
+        System.out.printf("[%s] answers=%d writes/answer=%.1f bytes/answer=%.0f cpu/answer=%.3fms%n",
+                mode, ANSWERS, stats.writes() / (double) ANSWERS, stats.bytes() / (double) ANSWERS,
+                stats.cpuNanos() / 1_000_000D / ANSWERS);
+    }
+
+    private record Stats(long writes, long bytes, long deltaChars, long cpuNanos) {
+    }
+
+    /**
+     * 按 Spring 写 SSE 的方式序列化事件数据，一次 send 对应一次写出与 flush
+     */
+    private static final class CountingEmitter extends SseEmitter {
+
+        private final AtomicLong writes;
+        private final AtomicLong bytes;
+        private final AtomicLong deltaChars;
+
+        private CountingEmitter(AtomicLong writes, AtomicLong bytes, AtomicLong deltaChars) {
+            this.writes = writes;
+            this.bytes = bytes;
+            this.deltaChars = deltaChars;
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            String event = null;
+            for (DataWithMediaType part : builder.build()) {
+                Object data = part.getData();
+                byte[] serialized = data instanceof String text
+                        ? text.getBytes(StandardCharsets.UTF_8)
+                        : MAPPER.writeValueAsBytes(data);
+                bytes.addAndGet(serialized.length);
+                if (event == null) {
+                    event = new String(serialized, StandardCharsets.UTF_8);
+                }
+                if (event.contains("event:message")) {
+                    String payload = new String(serialized, StandardCharsets.UTF_8);
+                    if (payload.startsWith("{")) {
+                        deltaChars.addAndGet(MAPPER.readTree(payload).get("delta").asText().length());
+                    }
+                }
+            }
+            writes.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nageoffer.ai.ragent.rag.service.handler;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nageoffer.ai.ragent.framework.web.SseEmitterSender;
+import com.nageoffer.ai.ragent.infra.config.AIModelProperties;
+import com.nageoffer.ai.ragent.rag.dto.MessageDelta;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+/**
+ * SSE 增量合并：字数、时间、句末、类型切换四种写出时机，以及事件体与 MessageDelta 序列化结果等价
+ */
+class SseDeltaCoalescerTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+    private final List<String> events = new CopyOnWriteArrayList<>();
+    private final SseEmitterSender sender = mock(SseEmitterSender.class);
+    private final AIModelProperties.Coalesce config = new AIModelProperties.Coalesce();
+
+    SseDeltaCoalescerTest() {
+        doAnswer(invocation -> events.add(invocation.getArgument(1)))
+                .when(sender).sendEvent(eq("message"), any());
+    }
+
+    @AfterEach
+    void tearDown() {
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("逐字增量攒够字数才写出一次")
+    void flushesOnMaxChars() {
+        config.setMaxChars(4);
+        config.setMaxDelayMs(60_000L);
+        SseDeltaCoalescer coalescer = new SseDeltaCoalescer(sender, scheduler, config);
+
+        for (String ch : List.of("检", "索", "结", "果", "显", "示")) {
+            coalescer.append(StreamChatEventHandler.TYPE_RESPONSE, ch);
+        }
+
+        assertEquals(List.of(json("response", "检索结果")), events);
+        coalescer.flushAndClose();
+        assertEquals(json("response", "显示"), events.get(1));
+        assertEquals(2, coalescer.writes());
+    }
+
+    @Test
+    @DisplayName("增量以句末标点结尾时立即写出")
+    void flushesOnSentenceEnd() {
+        config.setMaxDelayMs(60_000L);
+        SseDeltaCoalescer coalescer = new SseDeltaCoalescer(sender, scheduler, config);
+
+        coalescer.append(StreamChatEventHandler.TYPE_RESPONSE, "好的");
+        coalescer.append(StreamChatEventHandler.TYPE_RESPONSE, "。");
+        coalescer.append(StreamChatEventHandler.TYPE_RESPONSE, "下");
+
+        assertEquals(List.of(json("response", "好的。")), events);
+    }
+
+    @Test
+    @DisplayName("上游停顿时缓冲内容在最大等待后由定时任务写出")
+    void flushesAfterMaxDelay() throws InterruptedException {
+        config.setMaxDelayMs(20L);
+        SseDeltaCoalescer coalescer = new SseDeltaCoalescer(sender, scheduler, config);
+
+        coalescer.append(StreamChatEventHandler.TYPE_RESPONSE, "等");
+        assertTrue(events.isEmpty());
+
+        long deadline = System.currentTimeMillis() + 2000L;
+        while (events.isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5L);
+        }
+        assertEquals(List.of(json("response", "等")), events);
+    }
+
+    @Test
+    @DisplayName("思考与正文切换时先写出另一种类型，顺序不乱")
+    void typeSwitchPreservesOrder() {
+        config.setMaxDelayMs(60_000L);
+        SseDeltaCoalescer coalescer = new SseDeltaCoalescer(sender, scheduler, config);
+
+        coalescer.append(StreamChatEventHandler.TYPE_THINK, "想");
+        coalescer.append(StreamChatEventHandler.TYPE_RESPONSE, "答");
+        coalescer.flushAndClose();
+        coalescer.append(StreamChatEventHandler.TYPE_RESPONSE, "晚到");
+
+        assertEquals(List.of(json("think", "想"), json("response", "答")), events);
+    }
+
+    @Test
+    @DisplayName("事件体转义后与 MessageDelta 的 JSON 序列化结果一致")
+    void payloadMatchesMessageDeltaJson() throws Exception {
+        config.setMaxDelayMs(0L);
+        SseDeltaCoalescer coalescer = new SseDeltaCoalescer(sender, scheduler, config);
+        String text = "引号\"、反斜杠\\、制表\t、控制\u0001与 emoji 😀";
+
+        coalescer.append(StreamChatEventHandler.TYPE_RESPONSE, text);
+
+        assertEquals(MAPPER.readTree(json("response", text)), MAPPER.readTree(events.get(0)));
+        assertEquals(text, MAPPER.readValue(events.get(0), MessageDelta.class).delta());
+    }
+
+    @Test
+    @DisplayName("出错丢弃缓冲后定时任务不再写出")
+    void discardDropsPending() throws InterruptedException {
+        config.setMaxDelayMs(20L);
+        SseDeltaCoalescer coalescer = new SseDeltaCoalescer(sender, scheduler, config);
+
+        coalescer.append(StreamChatEventHandler.TYPE_RESPONSE, "半");
+        coalescer.discard();
+        Thread.sleep(80L);
+
+        assertTrue(events.isEmpty());
+    }
+
+    private static String json(String type, String delta) {
+        try {
+            return MAPPER.writeValueAsString(new MessageDelta(type, delta));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
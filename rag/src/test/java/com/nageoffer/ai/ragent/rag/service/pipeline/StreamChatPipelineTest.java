@@ -27,6 +27,8 @@ import com.nageoffer.ai.ragent.rag.core.prompt.AgentPromptResolver;
 import com.nageoffer.ai.ragent.rag.core.prompt.PromptContext;
 import com.nageoffer.ai.ragent.rag.core.prompt.RAGPromptService;
 import com.nageoffer.ai.ragent.rag.core.retrieval.RetrievalEngine;
+import com.nageoffer.ai.ragent.rag.core.retrieval.RetrievalSpeculation;
+import com.nageoffer.ai.ragent.rag.core.retrieval.SpeculativeRetrievalService;
 import com.nageoffer.ai.ragent.rag.core.rewrite.QueryRewriteService;
 import com.nageoffer.ai.ragent.rag.core.rewrite.RewriteResult;
 import com.nageoffer.ai.ragent.rag.core.source.CitationContextEnricher;
@@ -50,6 +52,7 @@ import java.util.Set;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -80,6 +83,8 @@ class StreamChatPipelineTest {
     private GroundingChunksAssembler groundingChunksAssembler;
     @Mock
     private CitationContextEnricher citationContextEnricher;
+    @Mock
+    private SpeculativeRetrievalService speculativeRetrieval;
 
     @InjectMocks
     private StreamChatPipeline pipeline;
@@ -120,4 +125,35 @@ class StreamChatPipelineTest {
         verify(promptBuilder).buildStructuredMessages(promptContext.capture(), anyList(), any(), anyList());
         assertEquals(eligibleIntentIds, promptContext.getValue().getEligibleIntentIds());
     }
+
+    @Test
+    void handsSpeculationToRetrievalAndFinishesItOnShortCircuit() {
+        StreamCallback callback = org.mockito.Mockito.mock(StreamCallback.class);
+        RetrievalSpeculation speculation = org.mockito.Mockito.mock(RetrievalSpeculation.class);
+        RewriteResult rewriteResult = new RewriteResult("原问题", List.of("原问题"));
+        List<SubQuestionIntent> subIntents = List.of(new SubQuestionIntent("原问题", List.of()));
+
+        when(speculativeRetrieval.start("原问题")).thenReturn(speculation);
+        when(memoryService.load("conversation-1", "user-1")).thenReturn(List.of());
+        when(queryRewriteService.rewriteWithSplit("原问题", List.of())).thenReturn(rewriteResult);
+        when(intentResolver.resolve(rewriteResult)).thenReturn(subIntents);
+        when(guidanceService.detectAmbiguity("原问题", subIntents)).thenReturn(GuidanceDecision.none());
+        when(intentResolver.isSystemOnly(anyList())).thenReturn(false);
+        when(retrievalEngine.retrieve(subIntents, speculation)).thenReturn(RetrievalContext.builder()
+                .intentChunks(Map.of())
+                .build());
+
+        pipeline.execute(StreamChatContext.builder()
+                .question("原问题")
+                .conversationId("conversation-1")
+                .taskId("task-1")
+                .userId("user-1")
+                .callback(callback)
+                .build());
+
+        verify(speculativeRetrieval).onRewritten(speculation, rewriteResult);
+        verify(retrievalEngine).retrieve(subIntents, speculation);
+        verify(speculativeRetrieval, atLeastOnce()).finish(speculation);
+        verify(callback).onContent("未检索到与问题相关的文档内容。");
+    }
 }
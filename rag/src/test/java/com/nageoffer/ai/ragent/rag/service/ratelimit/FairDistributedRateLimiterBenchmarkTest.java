@@ -0,0 +1,129 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nageoffer.ai.ragent.rag.service.ratelimit;
+
+import com.nageoffer.ai.ragent.rag.service.ratelimit.FairDistributedRateLimiter.AcquireRequest;
+import com.nageoffer.ai.ragent.rag.service.ratelimit.FairDistributedRateLimiter.GrantMode;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 2000 个排队者争抢 50 个许可：轮询模式（50ms 轮询 + 广播通知）与推送模式（2s 兜底轮询）对比
+ * <p>
+ * 每个许可持有 20ms，理想排空时间 = 2000 × 20ms / 50 = 800ms。统计 claim 脚本执行速率、Redis 命令总速率，
+ * 以及交接延迟：某个许可释放到下一位排队者开始执行的间隔（按 FIFO 配对释放与开始）。
+ * Redis 用进程内替身，不含网络往返，命令数即真实部署下的往返次数。
+ * 默认不跑：{@code -Dragent.benchmark=true}
+ */
+@EnabledIfSystemProperty(named = "ragent.benchmark", matches = "true")
+class FairDistributedRateLimiterBenchmarkTest {
+
+    private static final int WAITERS = 2_000;
+    private static final int PERMITS = 50;
+    private static final long HOLD_MS = 20;
+    private static final int POLL_INTERVAL_MS = 50;
+    private static final int SAFETY_POLL_INTERVAL_MS = 2_000;
+
+    @Test
+    void pushModeCutsClaimTrafficAndHandOffLatency() throws Exception {
+        Result poll = measure(GrantMode.POLL, POLL_INTERVAL_MS);
+        Result push = measure(GrantMode.PUSH, SAFETY_POLL_INTERVAL_MS);
+
+        assertTrue(push.claimsPerSecond() < poll.claimsPerSecond() / 10, "推送模式的 claim 速率应降一个数量级");
+        assertTrue(push.handOffP99Ms() < poll.handOffP99Ms(), "推送模式的交接 p99 应低于轮询模式");
+    }
+
+    private Result measure(GrantMode mode, int pollIntervalMs) throws Exception {
+        InMemoryQueueRedis redis = new InMemoryQueueRedis();
+        FairDistributedRateLimiter limiter = new FairDistributedRateLimiter(
+                "bench:" + mode, redis.client(), () -> PERMITS, () -> 60, () -> pollIntervalMs, mode);
+        ExecutorService workers = Executors.newFixedThreadPool(PERMITS * 2);
+        Queue<Long> releases = new ConcurrentLinkedQueue<>();
+        long[] handOffs = new long[WAITERS];
+        AtomicInteger started = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(WAITERS);
+        limiter.start();
+        try {
+            long begin = System.nanoTime();
+            for (int i = 0; i < WAITERS; i++) {
+                limiter.acquire(AcquireRequest.builder()
+                        .maxWaitMillis(60_000)
+                        .onAcquired(() -> {
+                            long now = System.nanoTime();
+                            int index = started.getAndIncrement();
+                            Long released = index < PERMITS ? null : releases.poll();
+                            handOffs[index] = released == null ? 0L : now - released;
+                            sleepQuietly();
+                            releases.add(System.nanoTime());
+                            done.countDown();
+                        })
+                        .onTimeout(done::countDown)
+                        .onAcquiredExecutor(workers)
+                        .build());
+            }
+            assertTrue(done.await(120, TimeUnit.SECONDS), "排队未在 120s 内排空");
+            double elapsedSeconds = (System.nanoTime() - begin) / 1_000_000_000D;
+
+            long[] sorted = Arrays.copyOfRange(handOffs, PERMITS, WAITERS);
+            Arrays.sort(sorted);
+            double mean = Arrays.stream(sorted).average().orElse(0) / 1_000_000D;
+            Result result = new Result(
+                    redis.claimScripts.get() / elapsedSeconds,
+                    redis.commands.get() / elapsedSeconds,
+                    mean,
+                    percentileMs(sorted, 0.99));
+            System.out.printf("[限流 %s] waiters=%d permits=%d drain=%.0fms (理想 %dms) claim=%.0f/s redis=%.0f/s "
+                            + "grant=%d handOff mean=%.2fms p99=%.2fms%n",
+                    mode, WAITERS, PERMITS, elapsedSeconds * 1000, WAITERS * HOLD_MS / PERMITS,
+                    result.claimsPerSecond(), result.commandsPerSecond(), redis.grantScripts.get(),
+                    result.handOffMeanMs(), result.handOffP99Ms());
+            return result;
+        } finally {
+            limiter.stop();
+            workers.shutdownNow();
+            redis.shutdown();
+        }
+    }
+
+    private static void sleepQuietly() {
+        try {
+            TimeUnit.MILLISECONDS.sleep(HOLD_MS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static double percentileMs(long[] sortedNanos, double percentile) {
+        int index = Math.min(sortedNanos.length - 1, (int) Math.ceil(percentile * sortedNanos.length) - 1);
+        return sortedNanos[index] / 1_000_000D;
+    }
+
+    private record Result(double claimsPerSecond, double commandsPerSecond, double handOffMeanMs, double handOffP99Ms) {
+    }
+}
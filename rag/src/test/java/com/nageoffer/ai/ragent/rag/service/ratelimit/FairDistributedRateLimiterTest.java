@@ -0,0 +1,189 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nageoffer.ai.ragent.rag.service.ratelimit;
+
+import com.nageoffer.ai.ragent.rag.service.ratelimit.FairDistributedRateLimiter.AcquireRequest;
+import com.nageoffer.ai.ragent.rag.service.ratelimit.FairDistributedRateLimiter.GrantMode;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 推送模式：许可释放后定向发放给队头票据所属节点，兜底轮询只负责捞回丢失的 grant
+ */
+class FairDistributedRateLimiterTest {
+
+    private static final String NAME = "test:limiter";
+    private static final String GRANTED_KEY = NAME + ":queue:granted";
+    /**
+     * 远大于用例时长：用例在这个间隔内完成，说明交接不依赖轮询
+     */
+    private static final int NO_POLL_MS = 60_000;
+
+    private final InMemoryQueueRedis redis = new InMemoryQueueRedis();
+    private final ExecutorService callbacks = Executors.newCachedThreadPool();
+    private final List<FairDistributedRateLimiter> limiters = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        limiters.forEach(FairDistributedRateLimiter::stop);
+        callbacks.shutdownNow();
+        redis.shutdown();
+    }
+
+    @Test
+    @DisplayName("许可释放后按入队顺序跨节点推送，不依赖轮询")
+    void shouldHandOffInQueueOrderAcrossNodesWithoutPolling() throws Exception {
+        FairDistributedRateLimiter nodeA = pushLimiter(NO_POLL_MS);
+        FairDistributedRateLimiter nodeB = pushLimiter(NO_POLL_MS);
+        CountDownLatch releaseHolder = new CountDownLatch(1);
+        nodeA.acquire(request(10_000, () -> await(releaseHolder), () -> { }, null));
+
+        int waiters = 6;
+        List<Integer> order = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(waiters);
+        for (int i = 0; i < waiters; i++) {
+            int index = i;
+            FairDistributedRateLimiter node = i % 2 == 0 ? nodeB : nodeA;
+            node.acquire(request(10_000, () -> {
+                order.add(index);
+                done.countDown();
+            }, () -> { }, null));
+        }
+        assertEquals(waiters, redis.queued(NAME + ":queue"));
+        long claimsBeforeRelease = redis.claimScripts.get();
+
+        releaseHolder.countDown();
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of(0, 1, 2, 3, 4, 5), order);
+        assertEquals(claimsBeforeRelease, redis.claimScripts.get());
+        assertTrue(redis.grantScripts.get() > 0);
+        assertEquals(0, redis.queued(GRANTED_KEY));
+    }
+
+    @Test
+    @DisplayName("grant 消息丢失时由兜底轮询从已发放集合认领")
+    void shouldRecoverLostGrantBySafetyPoll() throws Exception {
+        FairDistributedRateLimiter limiter = pushLimiter(100);
+        CountDownLatch releaseHolder = new CountDownLatch(1);
+        limiter.acquire(request(10_000, () -> await(releaseHolder), () -> { }, null));
+        CountDownLatch acquired = new CountDownLatch(1);
+        limiter.acquire(request(10_000, acquired::countDown, () -> { }, null));
+        redis.dropMessage = msg -> true;
+
+        releaseHolder.countDown();
+
+        assertTrue(acquired.await(3, TimeUnit.SECONDS));
+        assertEquals(0, redis.queued(GRANTED_KEY));
+    }
+
+    @Test
+    @DisplayName("已发放但未认领的票据被取消时，grant 转给下一位")
+    void shouldPassGrantToNextWaiterWhenGrantedTicketIsCancelled() throws Exception {
+        FairDistributedRateLimiter limiter = pushLimiter(NO_POLL_MS);
+        CountDownLatch releaseHolder = new CountDownLatch(1);
+        limiter.acquire(request(10_000, () -> await(releaseHolder), () -> { }, null));
+
+        AtomicReference<Runnable> cancelFirst = new AtomicReference<>();
+        AtomicInteger firstAcquired = new AtomicInteger();
+        limiter.acquire(request(10_000, firstAcquired::incrementAndGet, () -> { }, cancelFirst::set));
+        CountDownLatch secondAcquired = new CountDownLatch(1);
+        limiter.acquire(request(10_000, secondAcquired::countDown, () -> { }, null));
+
+        AtomicInteger dropped = new AtomicInteger();
+        redis.dropMessage = msg -> dropped.getAndIncrement() == 0;
+        releaseHolder.countDown();
+        waitUntil(() -> redis.queued(GRANTED_KEY) == 1);
+
+        cancelFirst.get().run();
+
+        assertTrue(secondAcquired.await(3, TimeUnit.SECONDS));
+        assertEquals(0, firstAcquired.get());
+        assertEquals(0, redis.queued(GRANTED_KEY));
+    }
+
+    @Test
+    @DisplayName("推送模式下排队超时按截止时间触发，不等兜底轮询")
+    void shouldTimeOutAtDeadlineWithoutWaitingForSafetyPoll() throws Exception {
+        FairDistributedRateLimiter limiter = pushLimiter(NO_POLL_MS);
+        CountDownLatch releaseHolder = new CountDownLatch(1);
+        limiter.acquire(request(10_000, () -> await(releaseHolder), () -> { }, null));
+
+        CountDownLatch timedOut = new CountDownLatch(1);
+        AtomicInteger acquired = new AtomicInteger();
+        limiter.acquire(request(200, acquired::incrementAndGet, timedOut::countDown, null));
+
+        assertTrue(timedOut.await(3, TimeUnit.SECONDS));
+        releaseHolder.countDown();
+        waitUntil(() -> redis.availablePermits() == 1);
+        assertEquals(0, acquired.get());
+        assertEquals(0, redis.queued(NAME + ":queue"));
+        assertEquals(0, redis.queued(GRANTED_KEY));
+    }
+
+    private FairDistributedRateLimiter pushLimiter(int safetyPollMs) {
+        FairDistributedRateLimiter limiter = new FairDistributedRateLimiter(
+                NAME, redis.client(), () -> 1, () -> 30, () -> safetyPollMs, GrantMode.PUSH);
+        limiter.start();
+        limiters.add(limiter);
+        return limiter;
+    }
+
+    private AcquireRequest request(long maxWaitMillis, Runnable onAcquired, Runnable onTimeout,
+                                   Consumer<Runnable> cancelBinder) {
+        return AcquireRequest.builder()
+                .maxWaitMillis(maxWaitMillis)
+                .onAcquired(onAcquired)
+                .onTimeout(onTimeout)
+                .onAcquiredExecutor(callbacks)
+                .cancelBinder(cancelBinder)
+                .build();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 3_000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "条件在 3s 内未满足");
+            Thread.sleep(10);
+        }
+    }
+}
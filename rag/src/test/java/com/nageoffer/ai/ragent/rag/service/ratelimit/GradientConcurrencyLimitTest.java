@@ -0,0 +1,142 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nageoffer.ai.ragent.rag.service.ratelimit;
+
+import com.nageoffer.ai.ragent.rag.service.ratelimit.GradientConcurrencyLimit.Window;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.DoubleSummaryStatistics;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 合成延迟模型：下游有 capacity 个并发槽位，超出部分均摊排队，首字延迟 = base × max(1, 并发 / capacity)，叠加 ±5% 抖动。
+ * 入口流量始终打满上限，观察上限随容量变化的收敛区间
+ */
+class GradientConcurrencyLimitTest {
+
+    private static final int MIN = 4;
+    private static final int MAX = 50;
+    private static final double BASE_LATENCY_MS = 800;
+    private static final int WINDOWS_PER_PHASE = 120;
+    private static final int SETTLED_WINDOWS = 20;
+
+    private final Random random = new Random(42);
+    private final GradientConcurrencyLimit algorithm = new GradientConcurrencyLimit(MIN, MAX, 1.5, 0.2, 0.1, 60);
+    private double limit = 10;
+
+    @Test
+    @DisplayName("上限跟随下游容量：扩容时放大、缩容时收缩，稳定在容量的 1~2.5 倍之间")
+    void shouldTrackDownstreamCapacity() {
+        DoubleSummaryStatistics normal = simulate(20, BASE_LATENCY_MS);
+        assertSettledBetween(normal, 20, 50);
+
+        DoubleSummaryStatistics degraded = simulate(8, BASE_LATENCY_MS);
+        assertSettledBetween(degraded, 8, 20);
+
+        DoubleSummaryStatistics recovered = simulate(30, BASE_LATENCY_MS);
+        assertTrue(recovered.getMin() >= 30, "容量恢复后上限应重新放大：" + recovered);
+    }
+
+    @Test
+    @DisplayName("下游整体变慢时收缩上限，恢复后回到原水平")
+    void shouldShrinkWhenDownstreamSlowsDown() {
+        DoubleSummaryStatistics normal = simulate(20, BASE_LATENCY_MS);
+        DoubleSummaryStatistics slow = simulate(20, BASE_LATENCY_MS * 2);
+        assertTrue(slow.getMax() < normal.getMin(), "下游变慢后上限应低于正常水平：" + slow + " vs " + normal);
+
+        DoubleSummaryStatistics recovered = simulate(20, BASE_LATENCY_MS);
+        assertTrue(recovered.getMin() >= normal.getMin() * 0.9, "下游恢复后上限应回到原水平：" + recovered);
+    }
+
+    @Test
+    @DisplayName("偶发的极快窗口只把基线往下拉一小步，上限不会被拖到下界")
+    void shouldNotCollapseOnOccasionalFastWindows() {
+        DoubleSummaryStatistics settled = new DoubleSummaryStatistics();
+        for (int i = 0; i < WINDOWS_PER_PHASE * 2; i++) {
+            int inFlight = (int) limit;
+            double jitter = 1 + (random.nextDouble() - 0.5) * 0.1;
+            // 每 10 个窗口混入一个 50ms 的窗口，模拟缓存命中或极短回答
+            double latency = i % 10 == 9 ? 50 : BASE_LATENCY_MS * Math.max(1D, inFlight / 20D) * jitter;
+            limit = algorithm.next(limit, new Window(50, latency, 0, inFlight));
+            if (i >= WINDOWS_PER_PHASE * 2 - SETTLED_WINDOWS) {
+                settled.accept(limit);
+            }
+        }
+
+        assertTrue(settled.getMin() >= 16, "上限应维持在容量附近：" + settled);
+    }
+
+    @Test
+    @DisplayName("首字前失败率超阈值时按比例收缩")
+    void shouldBackOffOnErrors() {
+        double next = algorithm.next(20, new Window(8, BASE_LATENCY_MS, 2, 20));
+
+        assertEquals(18, next, 1e-9);
+    }
+
+    @Test
+    @DisplayName("占用不到一半时无从判断容量，上限保持不变")
+    void shouldHoldLimitWhenApplicationLimited() {
+        algorithm.next(20, new Window(50, BASE_LATENCY_MS, 0, 20));
+
+        double next = algorithm.next(20, new Window(50, BASE_LATENCY_MS * 3, 0, 5));
+
+        assertEquals(20, next, 1e-9);
+    }
+
+    @Test
+    @DisplayName("调整结果不越过上下界")
+    void shouldStayWithinBounds() {
+        GradientConcurrencyLimit growing = new GradientConcurrencyLimit(MIN, MAX, 1.5, 0.2, 0.1, 60);
+        double low = 6;
+        double high = 45;
+        for (int i = 0; i < 50; i++) {
+            low = algorithm.next(low, new Window(50, BASE_LATENCY_MS * (i == 0 ? 1 : 10), 0, (int) low));
+            high = growing.next(high, new Window(50, BASE_LATENCY_MS, 0, (int) high));
+            assertTrue(low >= MIN && high <= MAX);
+        }
+
+        assertEquals(MAX, high, 1e-9);
+    }
+
+    /**
+     * 跑一个阶段，返回最后 {@link #SETTLED_WINDOWS} 个窗口的上限统计
+     */
+    private DoubleSummaryStatistics simulate(int capacity, double baseLatencyMs) {
+        DoubleSummaryStatistics settled = new DoubleSummaryStatistics();
+        for (int i = 0; i < WINDOWS_PER_PHASE; i++) {
+            int inFlight = (int) limit;
+            double jitter = 1 + (random.nextDouble() - 0.5) * 0.1;
+            double latency = baseLatencyMs * Math.max(1D, (double) inFlight / capacity) * jitter;
+            limit = algorithm.next(limit, new Window(50, latency, 0, inFlight));
+            if (i >= WINDOWS_PER_PHASE - SETTLED_WINDOWS) {
+                settled.accept(limit);
+            }
+        }
+        return settled;
+    }
+
+    private static void assertSettledBetween(DoubleSummaryStatistics settled, double lower, double upper) {
+        assertTrue(settled.getMin() >= lower && settled.getMax() <= upper,
+                "上限应稳定在 [" + lower + ", " + upper + "]：" + settled);
+    }
+}
@@ -0,0 +1,347 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nageoffer.ai.ragent.rag.service.ratelimit;
+
+import org.redisson.api.RAtomicLong;
+import org.redisson.api.RBucket;
+import org.redisson.api.RPermitExpirableSemaphore;
+import org.redisson.api.RScoredSortedSet;
+import org.redisson.api.RScript;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.redisson.api.listener.MessageListener;
+import org.redisson.client.codec.Codec;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+
+/**
+ * 限流器用到的 Redis 结构的进程内替身：有序集合、带 TTL 的标记、可过期许可信号量、原子序号、发布订阅，
+ * 两个 Lua 脚本按同样语义用 Java 重写。全部命令串行执行，等价于 Redis 单线程；消息投递走独立线程，贴近真实 pub/sub 的异步性
+ * <p>
+ * 多个限流器实例可共享同一份替身来模拟多节点，并统计命令数与脚本执行次数供断言和基准使用
+ */
+final class InMemoryQueueRedis {
+
+    private final Map<String, ZSet> sortedSets = new HashMap<>();
+    private final Map<String, String> buckets = new HashMap<>();
+    private final Map<String, AtomicLong> counters = new HashMap<>();
+    private final Set<String> heldPermits = new HashSet<>();
+    private final Map<String, List<MessageListener<Object>>> listeners = new ConcurrentHashMap<>();
+    private final ExecutorService delivery = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "fake_redis_pubsub");
+        t.setDaemon(true);
+        return t;
+    });
+    private final AtomicInteger permitSeq = new AtomicInteger();
+    private int maxPermits = -1;
+
+    final AtomicLong commands = new AtomicLong();
+    final AtomicLong claimScripts = new AtomicLong();
+    final AtomicLong grantScripts = new AtomicLong();
+
+    /**
+     * 返回 true 的消息在投递前被丢弃，用于模拟 pub/sub 丢消息
+     */
+    volatile Predicate<String> dropMessage = msg -> false;
+
+    RedissonClient client() {
+        RedissonClient client = mock(RedissonClient.class);
+        lenient().when(client.getPermitExpirableSemaphore(anyString())).thenAnswer(inv -> semaphore());
+        lenient().when(client.getScoredSortedSet(anyString(), any(Codec.class)))
+                .thenAnswer(inv -> sortedSet(inv.getArgument(0)));
+        lenient().when(client.getBucket(anyString(), any(Codec.class))).thenAnswer(inv -> bucket(inv.getArgument(0)));
+        lenient().when(client.getAtomicLong(anyString())).thenAnswer(inv -> atomicLong(inv.getArgument(0)));
+        lenient().when(client.getTopic(anyString())).thenAnswer(inv -> topic(inv.getArgument(0)));
+        lenient().when(client.getTopic(anyString(), any(Codec.class))).thenAnswer(inv -> topic(inv.getArgument(0)));
+        lenient().when(client.getScript(any(Codec.class))).thenAnswer(inv -> script());
+        return client;
+    }
+
+    synchronized int availablePermits() {
+        return Math.max(0, maxPermits) - heldPermits.size();
+    }
+
+    synchronized int queued(String key) {
+        ZSet set = sortedSets.get(key);
+        return set == null ? 0 : set.size();
+    }
+
+    void shutdown() {
+        delivery.shutdownNow();
+    }
+
+    // ==================== 结构替身 ====================
+
+    private RPermitExpirableSemaphore semaphore() throws Exception {
+        RPermitExpirableSemaphore semaphore = mock(RPermitExpirableSemaphore.class);
+        lenient().when(semaphore.trySetPermits(anyInt())).thenAnswer(inv -> exec(() -> {
+            if (maxPermits >= 0) {
+                return false;
+            }
+            maxPermits = inv.getArgument(0);
+            return true;
+        }));
+        lenient().when(semaphore.availablePermits()).thenAnswer(inv -> exec(this::availablePermits));
+        lenient().when(semaphore.tryAcquire(anyLong(), anyLong(), any(TimeUnit.class))).thenAnswer(inv -> exec(() -> {
+            if (availablePermits() <= 0) {
+                return null;
+            }
+            String permitId = "permit-" + permitSeq.incrementAndGet();
+            heldPermits.add(permitId);
+            return permitId;
+        }));
+        lenient().doAnswer(inv -> exec(() -> heldPermits.remove((String) inv.getArgument(0))))
+                .when(semaphore).release(anyString());
+        return semaphore;
+    }
+
+    @SuppressWarnings("unchecked")
+    private RScoredSortedSet<String> sortedSet(String key) {
+        RScoredSortedSet<String> set = mock(RScoredSortedSet.class);
+        lenient().when(set.add(anyDouble(), anyString())).thenAnswer(inv -> exec(() ->
+                zset(key).add(inv.getArgument(1), inv.getArgument(0))));
+        lenient().when(set.remove(any())).thenAnswer(inv -> exec(() -> zset(key).remove((String) inv.getArgument(0))));
+        lenient().when(set.getScore(anyString())).thenAnswer(inv -> exec(() -> zset(key).score(inv.getArgument(0))));
+        return set;
+    }
+
+    @SuppressWarnings("unchecked")
+    private RBucket<String> bucket(String key) {
+        RBucket<String> bucket = mock(RBucket.class);
+        lenient().doAnswer(inv -> exec(() -> buckets.put(key, inv.getArgument(0))))
+                .when(bucket).set(anyString(), any(Duration.class));
+        lenient().when(bucket.delete()).thenAnswer(inv -> exec(() -> buckets.remove(key) != null));
+        lenient().when(bucket.get()).thenAnswer(inv -> exec(() -> buckets.get(key)));
+        return bucket;
+    }
+
+    private RAtomicLong atomicLong(String key) {
+        RAtomicLong atomicLong = mock(RAtomicLong.class);
+        lenient().when(atomicLong.incrementAndGet()).thenAnswer(inv -> exec(() ->
+                counters.computeIfAbsent(key, k -> new AtomicLong()).incrementAndGet()));
+        return atomicLong;
+    }
+
+    @SuppressWarnings("unchecked")
+    private RTopic topic(String channel) {
+        RTopic topic = mock(RTopic.class);
+        lenient().when(topic.addListener(any(Class.class), any(MessageListener.class))).thenAnswer(inv -> {
+            List<MessageListener<Object>> channelListeners =
+                    listeners.computeIfAbsent(channel, k -> new CopyOnWriteArrayList<>());
+            channelListeners.add(inv.getArgument(1));
+            return channelListeners.size();
+        });
+        lenient().doAnswer(inv -> {
+            listeners.remove(channel);
+            return null;
+        }).when(topic).removeListener(any(Integer[].class));
+        lenient().when(topic.publish(any())).thenAnswer(inv -> exec(() -> publish(channel, String.valueOf((Object) inv.getArgument(0)))));
+        return topic;
+    }
+
+    @SuppressWarnings("unchecked")
+    private RScript script() {
+        RScript script = mock(RScript.class);
+        lenient().when(script.eval(any(RScript.Mode.class), anyString(), any(RScript.ReturnType.class), anyList(),
+                any(), any(), any())).thenAnswer(inv -> {
+            Object[] args = inv.getArguments();
+            String lua = (String) args[1];
+            List<Object> keys = (List<Object>) args[3];
+            Object[] values = Arrays.copyOfRange(args, 4, args.length);
+            if (values.length == 1 && values[0] instanceof Object[] nested) {
+                values = nested;
+            }
+            Object[] argv = values;
+            return exec(() -> lua.contains("PUBLISH") ? grant(keys, argv) : claim(keys, argv));
+        });
+        return script;
+    }
+
+    // ==================== Lua 语义 ====================
+
+    /**
+     * 对应 queue_claim_atomic.lua
+     */
+    private List<Object> claim(List<Object> keys, Object[] argv) {
+        claimScripts.incrementAndGet();
+        ZSet queue = zset(String.valueOf(keys.get(0)));
+        String requestId = String.valueOf(argv[0]);
+        int maxRank = Integer.parseInt(String.valueOf(argv[1]));
+        String entryPrefix = String.valueOf(argv[2]);
+        if (keys.size() > 1) {
+            maxRank -= zset(String.valueOf(keys.get(1))).size();
+            if (maxRank <= 0) {
+                return List.of(0L);
+            }
+        }
+        int liveRank = -1;
+        int liveCount = 0;
+        for (String member : queue.range(maxRank + 16)) {
+            if (buckets.containsKey(entryPrefix + member)) {
+                if (member.equals(requestId)) {
+                    liveRank = liveCount;
+                }
+                liveCount++;
+            } else {
+                queue.remove(member);
+            }
+        }
+        if (liveRank < 0 || liveRank >= maxRank) {
+            return List.of(0L);
+        }
+        long score = queue.score(requestId).longValue();
+        queue.remove(requestId);
+        buckets.remove(entryPrefix + requestId);
+        return List.of(1L, score);
+    }
+
+    /**
+     * 对应 queue_grant_atomic.lua
+     */
+    private Long grant(List<Object> keys, Object[] argv) {
+        grantScripts.incrementAndGet();
+        ZSet queue = zset(String.valueOf(keys.get(0)));
+        ZSet granted = zset(String.valueOf(keys.get(1)));
+        int available = Integer.parseInt(String.valueOf(argv[0]));
+        String entryPrefix = String.valueOf(argv[1]);
+        String channelPrefix = String.valueOf(argv[2]);
+
+        for (String member : granted.range(16)) {
+            if (!buckets.containsKey(entryPrefix + member)) {
+                granted.remove(member);
+            }
+        }
+        int budget = available - granted.size();
+        if (budget <= 0) {
+            return 0L;
+        }
+        long count = 0;
+        for (String member : queue.range(budget + 16)) {
+            if (count >= budget) {
+                break;
+            }
+            String owner = buckets.get(entryPrefix + member);
+            if (owner == null) {
+                queue.remove(member);
+            } else if (!"1".equals(owner)) {
+                double score = queue.score(member);
+                queue.remove(member);
+                granted.add(member, score);
+                publish(channelPrefix + owner, member + ":" + (long) score);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private long publish(String channel, String message) {
+        List<MessageListener<Object>> channelListeners = listeners.get(channel);
+        if (channelListeners == null || channelListeners.isEmpty() || dropMessage.test(message)) {
+            return 0L;
+        }
+        delivery.execute(() -> channelListeners.forEach(listener -> listener.onMessage(channel, message)));
+        return channelListeners.size();
+    }
+
+    private ZSet zset(String key) {
+        return sortedSets.computeIfAbsent(key, k -> new ZSet());
+    }
+
+    private synchronized <T> T exec(ThrowingSupplier<T> command) throws Exception {
+        commands.incrementAndGet();
+        return command.get();
+    }
+
+    @FunctionalInterface
+    private interface ThrowingSupplier<T> {
+        T get() throws Exception;
+    }
+
+    /**
+     * 有序集合：按 score 升序、同分按成员字典序，与 Redis ZRANGE 一致
+     */
+    private static final class ZSet {
+
+        private final Map<String, Double> scores = new HashMap<>();
+        private final TreeSet<Map.Entry<Double, String>> index = new TreeSet<>(
+                Map.Entry.<Double, String>comparingByKey().thenComparing(Map.Entry.comparingByValue()));
+
+        boolean add(String member, double score) {
+            Double previous = scores.put(member, score);
+            if (previous != null) {
+                index.remove(Map.entry(previous, member));
+            }
+            index.add(Map.entry(score, member));
+            return previous == null;
+        }
+
+        boolean remove(String member) {
+            Double previous = scores.remove(member);
+            if (previous == null) {
+                return false;
+            }
+            index.remove(Map.entry(previous, member));
+            return true;
+        }
+
+        Double score(String member) {
+            return scores.get(member);
+        }
+
+        int size() {
+            return scores.size();
+        }
+
+        List<String> range(int limit) {
+            List<String> members = new ArrayList<>(Math.min(limit, index.size()));
+            for (Map.Entry<Double, String> entry : index) {
+                if (members.size() >= limit) {
+                    break;
+                }
+                members.add(entry.getValue());
+            }
+            return members;
+        }
+    }
+}
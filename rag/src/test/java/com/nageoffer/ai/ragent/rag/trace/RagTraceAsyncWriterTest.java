@@ -0,0 +1,302 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nageoffer.ai.ragent.rag.trace;
+
+import com.baomidou.mybatisplus.core.metadata.TableInfoHelper;
+import com.nageoffer.ai.ragent.framework.trace.RagTraceContext;
+import com.nageoffer.ai.ragent.framework.trace.RagTraceNode;
+import com.nageoffer.ai.ragent.rag.aop.RagTraceAspect;
+import com.nageoffer.ai.ragent.rag.config.RagTraceProperties;
+import com.nageoffer.ai.ragent.rag.dao.entity.RagTraceNodeDO;
+import com.nageoffer.ai.ragent.rag.dao.entity.RagTraceRunDO;
+import com.nageoffer.ai.ragent.rag.dao.mapper.RagTraceNodeMapper;
+import com.nageoffer.ai.ragent.rag.dao.mapper.RagTraceRunMapper;
+import com.nageoffer.ai.ragent.rag.service.impl.RagTraceRecordServiceImpl;
+import org.apache.ibatis.builder.MapperBuilderAssistant;
+import org.apache.ibatis.session.Configuration;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RagTraceAsyncWriterTest {
+
+    private final RagTraceRunMapper runMapper = mock(RagTraceRunMapper.class);
+    private final RagTraceNodeMapper nodeMapper = mock(RagTraceNodeMapper.class);
+    private final RagTraceProperties properties = new RagTraceProperties();
+    private RagTraceAsyncWriter writer;
+
+    @BeforeAll
+    static void initLambdaCache() {
+        MapperBuilderAssistant assistant = new MapperBuilderAssistant(new Configuration(), "");
+        TableInfoHelper.initTableInfo(assistant, RagTraceRunDO.class);
+        TableInfoHelper.initTableInfo(assistant, RagTraceNodeDO.class);
+    }
+
+    @AfterEach
+    void tearDown() {
+        RagTraceContext.clear();
+        if (writer != null) {
+            writer.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("经切面采集节点时请求线程上没有任何 trace 写库，全部由后台写线程批量写出")
+    void requestThreadNeverTouchesMappers() throws Throwable {
+        Set<String> writingThreads = ConcurrentHashMap.newKeySet();
+        doAnswer(invocation -> {
+            writingThreads.add(Thread.currentThread().getName());
+            return 1;
+        }).when(nodeMapper).insertBatchIgnoreConflict(anyList());
+        doAnswer(invocation -> {
+            writingThreads.add(Thread.currentThread().getName());
+            return 1;
+        }).when(runMapper).insertBatchIgnoreConflict(anyList());
+
+        properties.getAsync().setFlushIntervalMs(1000L);
+        writer = new RagTraceAsyncWriter(runMapper, nodeMapper, properties);
+        RagTraceRecordServiceImpl recordService = new RagTraceRecordServiceImpl(runMapper, nodeMapper, providerOf(writer));
+        RagTraceAspect aspect = new RagTraceAspect(recordService, properties);
+
+        Method method = TracedMethods.class.getDeclaredMethod("retrieve");
+        RagTraceNode annotation = method.getAnnotation(RagTraceNode.class);
+        List<ProceedingJoinPoint> joinPoints = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            joinPoints.add(joinPoint(method));
+        }
+
+        RagTraceContext.setTraceId("trace-1");
+        recordService.startRun(RagTraceRunDO.builder().traceId("trace-1").status("RUNNING").startTime(new Date()).build());
+        for (ProceedingJoinPoint joinPoint : joinPoints) {
+            aspect.aroundNode(joinPoint, annotation);
+        }
+        recordService.finishRun("trace-1", "SUCCESS", null, new Date(), 12L);
+
+        ArgumentCaptor<List<RagTraceNodeDO>> nodes = listCaptor();
+        verify(nodeMapper, timeout(2000)).insertBatchIgnoreConflict(nodes.capture());
+        verify(runMapper, timeout(2000)).insertBatchIgnoreConflict(anyList());
+        assertEquals(Set.of("rag_trace_writer"), writingThreads);
+        verify(nodeMapper, never()).insert(any(RagTraceNodeDO.class));
+        verify(nodeMapper, never()).update(any(), any());
+        assertEquals(20, nodes.getValue().size(), "20 个节点应在同一批多行写出");
+        assertTrue(nodes.getValue().stream().allMatch(node -> "SUCCESS".equals(node.getStatus())));
+    }
+
+    @Test
+    @DisplayName("节点开始与结束合并为一行已完成记录，补齐主键与时间列")
+    void startAndFinishCollapseIntoOneRow() {
+        writer = new RagTraceAsyncWriter(runMapper, nodeMapper, properties);
+
+        writer.startNode(node("n-1"));
+        Date end = new Date();
+        writer.finishNode("trace-1", "n-1", "ERROR", "IllegalStateException: boom", end, 35L);
+
+        ArgumentCaptor<List<RagTraceNodeDO>> captor = listCaptor();
+        verify(nodeMapper, timeout(2000)).insertBatchIgnoreConflict(captor.capture());
+        RagTraceNodeDO row = captor.getValue().get(0);
+        assertEquals("n-1", row.getNodeId());
+        assertEquals("ERROR", row.getStatus());
+        assertEquals("IllegalStateException: boom", row.getErrorMessage());
+        assertEquals(end, row.getEndTime());
+        assertEquals(35L, row.getDurationMs());
+        assertNotNull(row.getId());
+        assertNotNull(row.getCreateTime());
+    }
+
+    @Test
+    @DisplayName("运行记录开始与结束落在同一批时只插入一行终态，跨批时结束走更新")
+    void runFinishMergesWithinBatchOtherwiseUpdates() {
+        writer = new RagTraceAsyncWriter(runMapper, nodeMapper, properties);
+
+        RagTraceRunDO started = RagTraceRunDO.builder().traceId("trace-1").status("RUNNING").build();
+        writer.writeBatch(List.of(
+                RagTraceAsyncWriter.TraceWrite.runStart(started),
+                RagTraceAsyncWriter.TraceWrite.runFinish(RagTraceRunDO.builder()
+                        .traceId("trace-1").status("SUCCESS").durationMs(80L).build())));
+        ArgumentCaptor<List<RagTraceRunDO>> captor = listCaptor();
+        verify(runMapper).insertBatchIgnoreConflict(captor.capture());
+        assertEquals("SUCCESS", captor.getValue().get(0).getStatus());
+        assertEquals(80L, captor.getValue().get(0).getDurationMs());
+        verify(runMapper, never()).update(any(), any());
+
+        writer.writeBatch(List.of(RagTraceAsyncWriter.TraceWrite.runFinish(RagTraceRunDO.builder()
+                .traceId("trace-2").status("ERROR").build())));
+        verify(runMapper).update(any(RagTraceRunDO.class), any());
+    }
+
+    @Test
+    @DisplayName("开始记录被容量淘汰按 RUNNING 写出后，结束仍由写线程补一次终态更新")
+    void evictedNodeFinishIsUpdatedByWriterThread() {
+        Set<String> updatingThreads = ConcurrentHashMap.newKeySet();
+        doAnswer(invocation -> {
+            updatingThreads.add(Thread.currentThread().getName());
+            return 1;
+        }).when(nodeMapper).update(any(RagTraceNodeDO.class), any());
+        properties.getAsync().setMaxPendingNodes(1L);
+        writer = new RagTraceAsyncWriter(runMapper, nodeMapper, properties);
+
+        writer.startNode(node("evicted"));
+        writer.startNode(node("kept"));
+        // 等 RUNNING 行先单独落库，终态只能走更新
+        verify(nodeMapper, timeout(2000)).insertBatchIgnoreConflict(anyList());
+        writer.finishNode("trace-1", "evicted", "SUCCESS", null, new Date(), 9L);
+
+        ArgumentCaptor<RagTraceNodeDO> update = ArgumentCaptor.forClass(RagTraceNodeDO.class);
+        verify(nodeMapper, timeout(2000)).update(update.capture(), any());
+        assertEquals("SUCCESS", update.getValue().getStatus());
+        assertEquals(9L, update.getValue().getDurationMs());
+        assertEquals(Set.of("rag_trace_writer"), updatingThreads);
+    }
+
+    @Test
+    @DisplayName("被提前写出的节点与其终态落在同一批时合并为一行终态插入")
+    void nodeFinishMergesWithEvictedStartInSameBatch() {
+        writer = new RagTraceAsyncWriter(runMapper, nodeMapper, properties);
+
+        writer.writeBatch(List.of(
+                RagTraceAsyncWriter.TraceWrite.node(node("n-1")),
+                RagTraceAsyncWriter.TraceWrite.nodeFinish(RagTraceNodeDO.builder()
+                        .traceId("trace-1").nodeId("n-1").status("ERROR").durationMs(15L).build())));
+
+        ArgumentCaptor<List<RagTraceNodeDO>> captor = listCaptor();
+        verify(nodeMapper).insertBatchIgnoreConflict(captor.capture());
+        assertEquals(1, captor.getValue().size());
+        assertEquals("ERROR", captor.getValue().get(0).getStatus());
+        assertEquals(15L, captor.getValue().get(0).getDurationMs());
+        verify(nodeMapper, never()).update(any(), any());
+    }
+
+    @Test
+    @DisplayName("drop 策略下队列满直接丢弃计数，不阻塞请求线程")
+    void dropPolicyNeverBlocksWhenQueueIsFull() throws Exception {
+        properties.getAsync().setQueueCapacity(2);
+        properties.getAsync().setBatchSize(1);
+        CountDownLatch writerStalled = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(nodeMapper.insertBatchIgnoreConflict(anyList())).thenAnswer(invocation -> {
+            writerStalled.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return 1;
+        });
+        writer = new RagTraceAsyncWriter(runMapper, nodeMapper, properties);
+
+        submitCompletedNode("n-0");
+        assertTrue(writerStalled.await(2, TimeUnit.SECONDS));
+        long start = System.nanoTime();
+        for (int i = 1; i <= 10; i++) {
+            submitCompletedNode("n-" + i);
+        }
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        release.countDown();
+
+        assertEquals(8, writer.droppedCount(), "写线程卡住时只能再容纳 2 条");
+        assertTrue(elapsedMs < 100, "drop 策略不应阻塞，实际耗时 " + elapsedMs + "ms");
+    }
+
+    @Test
+    @DisplayName("停机时写完队列，并把仍在运行的节点按 RUNNING 写出")
+    void shutdownFlushesQueueAndUnfinishedNodes() {
+        properties.getAsync().setFlushIntervalMs(60_000L);
+        List<String> written = new ArrayList<>();
+        doAnswer(invocation -> {
+            List<RagTraceNodeDO> rows = invocation.getArgument(0);
+            rows.forEach(row -> written.add(row.getNodeId() + ":" + row.getStatus()));
+            return rows.size();
+        }).when(nodeMapper).insertBatchIgnoreConflict(anyList());
+        writer = new RagTraceAsyncWriter(runMapper, nodeMapper, properties);
+
+        submitCompletedNode("done");
+        writer.startNode(node("running"));
+        writer.shutdown();
+        writer = null;
+
+        assertTrue(written.contains("done:SUCCESS"), written.toString());
+        assertTrue(written.contains("running:RUNNING"), written.toString());
+    }
+
+    private void submitCompletedNode(String nodeId) {
+        writer.startNode(node(nodeId));
+        writer.finishNode("trace-1", nodeId, "SUCCESS", null, new Date(), 1L);
+    }
+
+    private static RagTraceNodeDO node(String nodeId) {
+        return RagTraceNodeDO.builder()
+                .traceId("trace-1")
+                .nodeId(nodeId)
+                .depth(0)
+                .nodeType("RETRIEVE")
+                .nodeName("retrieve")
+                .status("RUNNING")
+                .startTime(new Date())
+                .build();
+    }
+
+    private static ProceedingJoinPoint joinPoint(Method method) throws Throwable {
+        ProceedingJoinPoint joinPoint = mock(ProceedingJoinPoint.class);
+        MethodSignature signature = mock(MethodSignature.class);
+        when(joinPoint.getSignature()).thenReturn(signature);
+        when(signature.getMethod()).thenReturn(method);
+        when(joinPoint.proceed()).thenReturn("ok");
+        return joinPoint;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static <T> ArgumentCaptor<List<T>> listCaptor() {
+        return (ArgumentCaptor) ArgumentCaptor.forClass(List.class);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static ObjectProvider<RagTraceAsyncWriter> providerOf(RagTraceAsyncWriter writer) {
+        ObjectProvider<RagTraceAsyncWriter> provider = mock(ObjectProvider.class);
+        when(provider.getIfAvailable()).thenReturn(writer);
+        return provider;
+    }
+
+    static class TracedMethods {
+
+        @RagTraceNode(name = "retrieve", type = "RETRIEVE")
+        void retrieve() {
+        }
+    }
+}
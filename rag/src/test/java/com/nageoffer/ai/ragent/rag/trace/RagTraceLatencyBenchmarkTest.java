@@ -0,0 +1,215 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nageoffer.ai.ragent.rag.trace;
+
+import com.baomidou.mybatisplus.core.metadata.TableInfoHelper;
+import com.nageoffer.ai.ragent.framework.trace.RagTraceContext;
+import com.nageoffer.ai.ragent.framework.trace.RagTraceNode;
+import com.nageoffer.ai.ragent.rag.aop.RagTraceAspect;
+import com.nageoffer.ai.ragent.rag.config.RagTraceProperties;
+import com.nageoffer.ai.ragent.rag.dao.entity.RagTraceNodeDO;
+import com.nageoffer.ai.ragent.rag.dao.entity.RagTraceRunDO;
+import com.nageoffer.ai.ragent.rag.dao.mapper.RagTraceNodeMapper;
+import com.nageoffer.ai.ragent.rag.dao.mapper.RagTraceRunMapper;
+import com.nageoffer.ai.ragent.rag.service.impl.RagTraceRecordServiceImpl;
+import org.apache.ibatis.builder.MapperBuilderAssistant;
+import org.apache.ibatis.session.Configuration;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.mockito.stubbing.Answer;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.RETURNS_DEFAULTS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 单轮对话延迟：Trace 关闭 / 同步落库 / 异步批量落库三种方式对比
+ * <p>
+ * 一轮对话 = 开始运行记录 + 20 个 @RagTraceNode 节点（每个业务耗时 1ms）+ 结束运行记录，32 路并发。
+ * Mapper 换成模拟数据库：每条语句先从 10 个许可的「连接池」取连接，再耗时 2ms 往返，
+ * 与 Hikari 默认 10 连接、同机房 PG 往返量级相当。统计请求线程上一轮对话的 p50 / p99 延迟与落库语句数。
+ * 默认不跑：{@code -Dragent.benchmark=true}
+ */
+@EnabledIfSystemProperty(named = "ragent.benchmark", matches = "true")
+class RagTraceLatencyBenchmarkTest {
+
+    private static final int CONCURRENCY = 32;
+    private static final int TURNS = 640;
+    private static final int NODES_PER_TURN = 20;
+    private static final long NODE_WORK_MS = 1;
+    private static final long ROUND_TRIP_MS = 2;
+    private static final int POOL_SIZE = 10;
+
+    @BeforeAll
+    static void initLambdaCache() {
+        MapperBuilderAssistant assistant = new MapperBuilderAssistant(new Configuration(), "");
+        TableInfoHelper.initTableInfo(assistant, RagTraceRunDO.class);
+        TableInfoHelper.initTableInfo(assistant, RagTraceNodeDO.class);
+    }
+
+    @Test
+    void asyncTracingKeepsChatLatencyCloseToTracingOff() throws Exception {
+        Result off = measure("关闭", Mode.OFF);
+        Result sync = measure("同步落库", Mode.SYNC);
+        Result async = measure("异步批量", Mode.ASYNC);
+
+        assertTrue(async.p99Ms() < sync.p99Ms(), "异步批量的 p99 应低于同步落库");
+        assertTrue(async.p50Ms() < off.p50Ms() * 1.2, "异步批量的 p50 应接近关闭 Trace");
+    }
+
+    private Result measure(String label, Mode mode) throws Exception {
+        Semaphore pool = new Semaphore(POOL_SIZE);
+        AtomicLong statements = new AtomicLong();
+        Answer<Object> database = invocation -> invocation.getMethod().getReturnType() == int.class
+                ? roundTrip(pool, statements)
+                : RETURNS_DEFAULTS.answer(invocation);
+        RagTraceRunMapper runMapper = mock(RagTraceRunMapper.class, database);
+        RagTraceNodeMapper nodeMapper = mock(RagTraceNodeMapper.class, database);
+
+        RagTraceProperties properties = new RagTraceProperties();
+        properties.setEnabled(mode != Mode.OFF);
+        RagTraceAsyncWriter writer = mode == Mode.ASYNC ? new RagTraceAsyncWriter(runMapper, nodeMapper, properties) : null;
+        RagTraceRecordServiceImpl recordService = new RagTraceRecordServiceImpl(runMapper, nodeMapper, providerOf(writer));
+        RagTraceAspect aspect = new RagTraceAspect(recordService, properties);
+        Method method = TracedMethods.class.getDeclaredMethod("retrieve");
+        RagTraceNode annotation = method.getAnnotation(RagTraceNode.class);
+        ProceedingJoinPoint joinPoint = joinPoint(method);
+
+        ExecutorService requests = Executors.newFixedThreadPool(CONCURRENCY);
+        long[] latencies = new long[TURNS];
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < TURNS; i++) {
+                int turn = i;
+                futures.add(requests.submit(() -> {
+                    long start = System.nanoTime();
+                    chatTurn("trace-" + mode + "-" + turn, properties, recordService, aspect, joinPoint, annotation);
+                    latencies[turn] = System.nanoTime() - start;
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            requests.shutdown();
+            if (writer != null) {
+                writer.shutdown();
+            }
+        }
+
+        Arrays.sort(latencies);
+        Result result = new Result(percentileMs(latencies, 0.50), percentileMs(latencies, 0.99));
+        System.out.printf("[Trace %s] turns=%d p50=%.1fms p99=%.1fms statements=%d%n",
+                label, TURNS, result.p50Ms(), result.p99Ms(), statements.get());
+        return result;
+    }
+
+    private void chatTurn(String traceId,
+                          RagTraceProperties properties,
+                          RagTraceRecordServiceImpl recordService,
+                          RagTraceAspect aspect,
+                          ProceedingJoinPoint joinPoint,
+                          RagTraceNode annotation) throws Throwable {
+        long start = System.currentTimeMillis();
+        if (properties.isEnabled()) {
+            recordService.startRun(RagTraceRunDO.builder()
+                    .traceId(traceId)
+                    .status("RUNNING")
+                    .startTime(new Date(start))
+                    .build());
+        }
+        RagTraceContext.setTraceId(traceId);
+        try {
+            for (int i = 0; i < NODES_PER_TURN; i++) {
+                aspect.aroundNode(joinPoint, annotation);
+            }
+        } finally {
+            RagTraceContext.clear();
+        }
+        if (properties.isEnabled()) {
+            recordService.finishRun(traceId, "SUCCESS", null, new Date(), System.currentTimeMillis() - start);
+        }
+    }
+
+    private static Object roundTrip(Semaphore pool, AtomicLong statements) throws InterruptedException {
+        pool.acquire();
+        try {
+            statements.incrementAndGet();
+            TimeUnit.MILLISECONDS.sleep(ROUND_TRIP_MS);
+            return 1;
+        } finally {
+            pool.release();
+        }
+    }
+
+    private static ProceedingJoinPoint joinPoint(Method method) throws Throwable {
+        ProceedingJoinPoint joinPoint = mock(ProceedingJoinPoint.class);
+        MethodSignature signature = mock(MethodSignature.class);
+        when(joinPoint.getSignature()).thenReturn(signature);
+        when(signature.getMethod()).thenReturn(method);
+        when(joinPoint.proceed()).thenAnswer(invocation -> {
+            TimeUnit.MILLISECONDS.sleep(NODE_WORK_MS);
+            return "ok";
+        });
+        return joinPoint;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ObjectProvider<RagTraceAsyncWriter> providerOf(RagTraceAsyncWriter writer) {
+        ObjectProvider<RagTraceAsyncWriter> provider = mock(ObjectProvider.class);
+        when(provider.getIfAvailable()).thenReturn(writer);
+        return provider;
+    }
+
+    private static double percentileMs(long[] sortedNanos, double percentile) {
+        int index = Math.min(sortedNanos.length - 1, (int) Math.ceil(percentile * sortedNanos.length) - 1);
+        return sortedNanos[index] / 1_000_000D;
+    }
+
+    private enum Mode {
+        OFF, SYNC, ASYNC
+    }
+
+    private record Result(double p50Ms, double p99Ms) {
+    }
+
+    static class TracedMethods {
+
+        @RagTraceNode(name = "retrieve", type = "RETRIEVE")
+        void retrieve() {
+        }
+    }
+}
@@ -239,6 +239,11 @@ CREATE TABLE t_knowledge_document_chunk_log (
     persist_duration   BIGINT,
     total_duration     BIGINT,
     chunk_count        INTEGER,
+    added_count        INTEGER,
+    changed_count      INTEGER,
+    removed_count      INTEGER,
+    unchanged_count    INTEGER,
+    persist_rows_per_second INTEGER,
     error_message      TEXT,
     start_time         TIMESTAMP,
     end_time           TIMESTAMP,
@@ -495,6 +500,7 @@ CREATE TABLE t_ingestion_pipeline_node (
     node_id        VARCHAR(20) NOT NULL,
     node_type      VARCHAR(16) NOT NULL,
     next_node_id   VARCHAR(20),
+    next_node_ids_json JSONB,
     settings_json  JSONB,
     condition_json JSONB,
     created_by     VARCHAR(20) DEFAULT '',
@@ -573,6 +579,63 @@ COMMENT ON COLUMN t_knowledge_vector.content IS '分块文本内容';
 COMMENT ON COLUMN t_knowledge_vector.metadata IS '元数据';
 COMMENT ON COLUMN t_knowledge_vector.embedding IS '向量';
 
+CREATE TABLE t_embedding_cache (
+    model_id     VARCHAR(64) NOT NULL,
+    dimension    INTEGER     NOT NULL,
+    content_hash VARCHAR(64) NOT NULL,
+    embedding    BYTEA       NOT NULL,
+    create_time  TIMESTAMP   NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (model_id, dimension, content_hash)
+);
+COMMENT ON TABLE t_embedding_cache IS '向量嵌入结果缓存表';
+COMMENT ON COLUMN t_embedding_cache.model_id IS 'Embedding 模型ID';
+COMMENT ON COLUMN t_embedding_cache.dimension IS '向量维度';
+COMMENT ON COLUMN t_embedding_cache.content_hash IS '向量化文本 SHA-256';
+COMMENT ON COLUMN t_embedding_cache.embedding IS '向量（小端 float32 字节序列）';
+COMMENT ON COLUMN t_embedding_cache.create_time IS '创建时间';
+CREATE INDEX idx_embedding_cache_create_time ON t_embedding_cache (create_time);
+
+CREATE TABLE t_dashboard_rollup (
+    granularity        VARCHAR(8)  NOT NULL,
+    bucket_start       TIMESTAMP   NOT NULL,
+    sessions           BIGINT      NOT NULL DEFAULT 0,
+    messages           BIGINT      NOT NULL DEFAULT 0,
+    assistant_messages BIGINT      NOT NULL DEFAULT 0,
+    no_doc_messages    BIGINT      NOT NULL DEFAULT 0,
+    trace_success      BIGINT      NOT NULL DEFAULT 0,
+    trace_error        BIGINT      NOT NULL DEFAULT 0,
+    latency_count      BIGINT      NOT NULL DEFAULT 0,
+    latency_sum        BIGINT      NOT NULL DEFAULT 0,
+    slow_count         BIGINT      NOT NULL DEFAULT 0,
+    latency_sketch     BYTEA,
+    update_time        TIMESTAMP   NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (granularity, bucket_start)
+);
+COMMENT ON TABLE t_dashboard_rollup IS '看板预聚合桶表';
+COMMENT ON COLUMN t_dashboard_rollup.granularity IS '桶粒度 MINUTE：分钟 HOUR：小时';
+COMMENT ON COLUMN t_dashboard_rollup.bucket_start IS '桶起点（含）';
+COMMENT ON COLUMN t_dashboard_rollup.sessions IS '新建会话数';
+COMMENT ON COLUMN t_dashboard_rollup.messages IS '消息数';
+COMMENT ON COLUMN t_dashboard_rollup.assistant_messages IS '助手回复数';
+COMMENT ON COLUMN t_dashboard_rollup.no_doc_messages IS '未检索到文档的助手回复数';
+COMMENT ON COLUMN t_dashboard_rollup.trace_success IS '成功链路数';
+COMMENT ON COLUMN t_dashboard_rollup.trace_error IS '失败链路数';
+COMMENT ON COLUMN t_dashboard_rollup.latency_count IS '计入耗时统计的成功链路数';
+COMMENT ON COLUMN t_dashboard_rollup.latency_sum IS '成功链路耗时合计（毫秒）';
+COMMENT ON COLUMN t_dashboard_rollup.slow_count IS '慢请求数（耗时超过 20 秒）';
+COMMENT ON COLUMN t_dashboard_rollup.latency_sketch IS '成功链路耗时分布（HdrHistogram 压缩编码，可合并）';
+COMMENT ON COLUMN t_dashboard_rollup.update_time IS '更新时间';
+
+CREATE TABLE t_dashboard_rollup_watermark (
+    name        VARCHAR(32) NOT NULL PRIMARY KEY,
+    watermark   TIMESTAMP   NOT NULL,
+    update_time TIMESTAMP   NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+COMMENT ON TABLE t_dashboard_rollup_watermark IS '看板预聚合水位表';
+COMMENT ON COLUMN t_dashboard_rollup_watermark.name IS '水位名称';
+COMMENT ON COLUMN t_dashboard_rollup_watermark.watermark IS '已封口的截止时间（不含），之前的分钟都已落成预聚合桶';
+COMMENT ON COLUMN t_dashboard_rollup_watermark.update_time IS '更新时间';
+
 -- ============================================
 -- Column Comments
 -- ============================================
@@ -690,6 +753,11 @@ COMMENT ON COLUMN t_knowledge_document_chunk_log.embed_duration IS '向量化耗
 COMMENT ON COLUMN t_knowledge_document_chunk_log.persist_duration IS 'DB持久化耗时（毫秒）';
 COMMENT ON COLUMN t_knowledge_document_chunk_log.total_duration IS '总耗时（毫秒）';
 COMMENT ON COLUMN t_knowledge_document_chunk_log.chunk_count IS '分块数量';
+COMMENT ON COLUMN t_knowledge_document_chunk_log.added_count IS '增量比对：新增块数';
+COMMENT ON COLUMN t_knowledge_document_chunk_log.changed_count IS '增量比对：变化块数';
+COMMENT ON COLUMN t_knowledge_document_chunk_log.removed_count IS '增量比对：删除块数';
+COMMENT ON COLUMN t_knowledge_document_chunk_log.unchanged_count IS '增量比对：未变块数';
+COMMENT ON COLUMN t_knowledge_document_chunk_log.persist_rows_per_second IS '持久化吞吐（行/秒）';
 COMMENT ON COLUMN t_knowledge_document_chunk_log.error_message IS '错误信息';
 COMMENT ON COLUMN t_knowledge_document_chunk_log.start_time IS '开始时间';
 COMMENT ON COLUMN t_knowledge_document_chunk_log.end_time IS '结束时间';
@@ -826,6 +894,7 @@ COMMENT ON COLUMN t_ingestion_pipeline_node.pipeline_id IS '流水线ID';
 COMMENT ON COLUMN t_ingestion_pipeline_node.node_id IS '节点标识(同一流水线内唯一)';
 COMMENT ON COLUMN t_ingestion_pipeline_node.node_type IS '节点类型';
 COMMENT ON COLUMN t_ingestion_pipeline_node.next_node_id IS '下一个节点ID';
+COMMENT ON COLUMN t_ingestion_pipeline_node.next_node_ids_json IS '额外后继节点ID列表JSON(DAG分叉)';
 COMMENT ON COLUMN t_ingestion_pipeline_node.settings_json IS '节点配置JSON';
 COMMENT ON COLUMN t_ingestion_pipeline_node.condition_json IS '条件JSON';
 COMMENT ON COLUMN t_ingestion_pipeline_node.created_by IS '创建人';
@@ -0,0 +1,18 @@
+-- v2.0.0 261017 向量嵌入结果缓存
+-- 键为 (模型ID, 维度, 文本 SHA-256)，重复入库与定时刷新时未变化的分块直接复用已有向量
+-- 全部语句可重复执行
+
+CREATE TABLE IF NOT EXISTS t_embedding_cache (
+    model_id     VARCHAR(64) NOT NULL,
+    dimension    INTEGER     NOT NULL,
+    content_hash VARCHAR(64) NOT NULL,
+    embedding    BYTEA       NOT NULL,
+    create_time  TIMESTAMP   NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (model_id, dimension, content_hash)
+);
+COMMENT ON TABLE t_embedding_cache IS '向量嵌入结果缓存表';
+COMMENT ON COLUMN t_embedding_cache.model_id IS 'Embedding 模型ID';
+COMMENT ON COLUMN t_embedding_cache.dimension IS '向量维度';
+COMMENT ON COLUMN t_embedding_cache.content_hash IS '向量化文本 SHA-256';
+COMMENT ON COLUMN t_embedding_cache.embedding IS '向量（小端 float32 字节序列）';
+COMMENT ON COLUMN t_embedding_cache.create_time IS '创建时间';
@@ -0,0 +1,12 @@
+-- v2.0.0 261017 分块日志增量比对计数
+-- 增量重摄按内容哈希 + 位置比对新旧块，日志记录新增 / 变化 / 删除 / 未变四类块数
+-- 全部语句可重复执行
+
+ALTER TABLE t_knowledge_document_chunk_log ADD COLUMN IF NOT EXISTS added_count INTEGER;
+ALTER TABLE t_knowledge_document_chunk_log ADD COLUMN IF NOT EXISTS changed_count INTEGER;
+ALTER TABLE t_knowledge_document_chunk_log ADD COLUMN IF NOT EXISTS removed_count INTEGER;
+ALTER TABLE t_knowledge_document_chunk_log ADD COLUMN IF NOT EXISTS unchanged_count INTEGER;
+COMMENT ON COLUMN t_knowledge_document_chunk_log.added_count IS '增量比对：新增块数';
+COMMENT ON COLUMN t_knowledge_document_chunk_log.changed_count IS '增量比对：变化块数';
+COMMENT ON COLUMN t_knowledge_document_chunk_log.removed_count IS '增量比对：删除块数';
+COMMENT ON COLUMN t_knowledge_document_chunk_log.unchanged_count IS '增量比对：未变块数';
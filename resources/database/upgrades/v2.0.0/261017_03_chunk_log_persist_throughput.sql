@@ -0,0 +1,6 @@
+-- v2.0.0 261017 分块日志持久化吞吐
+-- 向量写入新增二进制 COPY 模式，日志记录写入行数 / 持久化耗时，便于对比不同写入方式
+-- 全部语句可重复执行
+
+ALTER TABLE t_knowledge_document_chunk_log ADD COLUMN IF NOT EXISTS persist_rows_per_second INTEGER;
+COMMENT ON COLUMN t_knowledge_document_chunk_log.persist_rows_per_second IS '持久化吞吐（行/秒）';
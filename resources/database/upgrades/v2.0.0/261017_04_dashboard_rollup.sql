@@ -0,0 +1,44 @@
+-- v2.0.0 261017 看板预聚合
+-- 分钟 / 小时桶保存看板计数与可合并的耗时分布草图，看板查询不再全量扫描会话、消息与链路表
+-- 全部语句可重复执行
+
+CREATE TABLE IF NOT EXISTS t_dashboard_rollup (
+    granularity        VARCHAR(8)  NOT NULL,
+    bucket_start       TIMESTAMP   NOT NULL,
+    sessions           BIGINT      NOT NULL DEFAULT 0,
+    messages           BIGINT      NOT NULL DEFAULT 0,
+    assistant_messages BIGINT      NOT NULL DEFAULT 0,
+    no_doc_messages    BIGINT      NOT NULL DEFAULT 0,
+    trace_success      BIGINT      NOT NULL DEFAULT 0,
+    trace_error        BIGINT      NOT NULL DEFAULT 0,
+    latency_count      BIGINT      NOT NULL DEFAULT 0,
+    latency_sum        BIGINT      NOT NULL DEFAULT 0,
+    slow_count         BIGINT      NOT NULL DEFAULT 0,
+    latency_sketch     BYTEA,
+    update_time        TIMESTAMP   NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (granularity, bucket_start)
+);
+COMMENT ON TABLE t_dashboard_rollup IS '看板预聚合桶表';
+COMMENT ON COLUMN t_dashboard_rollup.granularity IS '桶粒度 MINUTE：分钟 HOUR：小时';
+COMMENT ON COLUMN t_dashboard_rollup.bucket_start IS '桶起点（含）';
+COMMENT ON COLUMN t_dashboard_rollup.sessions IS '新建会话数';
+COMMENT ON COLUMN t_dashboard_rollup.messages IS '消息数';
+COMMENT ON COLUMN t_dashboard_rollup.assistant_messages IS '助手回复数';
+COMMENT ON COLUMN t_dashboard_rollup.no_doc_messages IS '未检索到文档的助手回复数';
+COMMENT ON COLUMN t_dashboard_rollup.trace_success IS '成功链路数';
+COMMENT ON COLUMN t_dashboard_rollup.trace_error IS '失败链路数';
+COMMENT ON COLUMN t_dashboard_rollup.latency_count IS '计入耗时统计的成功链路数';
+COMMENT ON COLUMN t_dashboard_rollup.latency_sum IS '成功链路耗时合计（毫秒）';
+COMMENT ON COLUMN t_dashboard_rollup.slow_count IS '慢请求数（耗时超过 20 秒）';
+COMMENT ON COLUMN t_dashboard_rollup.latency_sketch IS '成功链路耗时分布（HdrHistogram 压缩编码，可合并）';
+COMMENT ON COLUMN t_dashboard_rollup.update_time IS '更新时间';
+
+CREATE TABLE IF NOT EXISTS t_dashboard_rollup_watermark (
+    name        VARCHAR(32) NOT NULL PRIMARY KEY,
+    watermark   TIMESTAMP   NOT NULL,
+    update_time TIMESTAMP   NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+COMMENT ON TABLE t_dashboard_rollup_watermark IS '看板预聚合水位表';
+COMMENT ON COLUMN t_dashboard_rollup_watermark.name IS '水位名称';
+COMMENT ON COLUMN t_dashboard_rollup_watermark.watermark IS '已封口的截止时间（不含），之前的分钟都已落成预聚合桶';
+COMMENT ON COLUMN t_dashboard_rollup_watermark.update_time IS '更新时间';
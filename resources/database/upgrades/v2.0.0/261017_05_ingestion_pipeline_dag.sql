@@ -0,0 +1,6 @@
+-- v2.0.0 261017 摄取流水线 DAG
+-- 节点除 next_node_id 外可配置额外后继，存在分叉的流水线按 DAG 并行执行，原有线性流水线不受影响
+-- 全部语句可重复执行
+
+ALTER TABLE t_ingestion_pipeline_node ADD COLUMN IF NOT EXISTS next_node_ids_json JSONB;
+COMMENT ON COLUMN t_ingestion_pipeline_node.next_node_ids_json IS '额外后继节点ID列表JSON(DAG分叉)';
@@ -0,0 +1,5 @@
+-- v2.0.0 261017 向量嵌入缓存按保留天数清理
+-- 清理任务按 create_time 范围删除，补上对应索引
+-- 全部语句可重复执行
+
+CREATE INDEX IF NOT EXISTS idx_embedding_cache_create_time ON t_embedding_cache (create_time);